@@ -199,6 +199,10 @@ public class ExampleNamespace implements Namespace {
         return NAMESPACE_URI;
     }
 
+    public void shutdown() {
+        subscriptionModel.shutdown();
+    }
+
     private void addVariableNodes(UaFolderNode rootNode) {
         addArrayNodes(rootNode);
         addScalarNodes(rootNode);
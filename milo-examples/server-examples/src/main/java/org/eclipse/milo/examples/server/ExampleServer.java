@@ -65,6 +65,7 @@ public class ExampleServer {
     }
 
     private final OpcUaServer server;
+    private final ExampleNamespace exampleNamespace;
 
     public ExampleServer() throws Exception {
         File securityTempDir = new File(System.getProperty("java.io.tmpdir"), "security");
@@ -150,7 +151,7 @@ public class ExampleServer {
 
         server = new OpcUaServer(serverConfig);
 
-        server.getNamespaceManager().registerAndAdd(
+        exampleNamespace = server.getNamespaceManager().registerAndAdd(
             ExampleNamespace.NAMESPACE_URI,
             idx -> new ExampleNamespace(server, idx));
     }
@@ -164,6 +165,8 @@ public class ExampleServer {
     }
 
     public CompletableFuture<OpcUaServer> shutdown() {
+        exampleNamespace.shutdown();
+
         return server.shutdown();
     }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.eclipse.milo.opcua.sdk.server.history.TimeSeries;
+import org.eclipse.milo.opcua.sdk.server.history.TimeSeriesStore;
+import org.eclipse.milo.opcua.sdk.server.history.aggregates.AggregateCursor;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Raw values per second processed by an {@link AggregateCursor} reading from a {@link TimeSeriesStore}.
+ * <p>
+ * Each invocation computes {@code aggregate} over all {@value #RAW_SIZE} values of a series, one value every 10ms,
+ * in intervals of {@code processingInterval} milliseconds, a page of {@value #PAGE_SIZE} intervals at a time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregateBenchmark {
+
+    private static final int RAW_SIZE = 1000000;
+    private static final int PAGE_SIZE = 1000;
+
+    private static final NodeId NODE_ID = new NodeId(2, "Benchmark");
+
+    @Param({"Average", "TimeAverage", "Interpolative"})
+    public String aggregate;
+
+    @Param({"1000", "60000"})
+    public double processingInterval;
+
+    private final List<DataValue> values = new ArrayList<>(PAGE_SIZE);
+
+    private Path directory;
+    private TimeSeriesStore store;
+    private ReadProcessedDetails details;
+    private NodeId aggregateType;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("AggregateBenchmark");
+        store = TimeSeriesStore.open(directory);
+
+        TimeSeries series = store.getOrCreate(NODE_ID);
+
+        long start = DateTime.now().getUtcTime();
+        long time = start;
+
+        for (int i = 0; i < RAW_SIZE; i++) {
+            DateTime t = new DateTime(time += 100000L);
+
+            series.append(new DataValue(new Variant(Math.sin(i / 100.0)), StatusCode.GOOD, t, t));
+        }
+
+        aggregateType = (NodeId) Identifiers.class.getField("AggregateFunction_" + aggregate).get(null);
+
+        details = new ReadProcessedDetails(
+            new DateTime(start),
+            new DateTime(time + 1),
+            processingInterval,
+            new NodeId[]{aggregateType},
+            null
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAW_SIZE)
+    public int process() throws UaException {
+        AggregateCursor cursor = AggregateCursor.open(store, NODE_ID, details, aggregateType);
+
+        int count = 0;
+
+        while (cursor.hasNext()) {
+            values.clear();
+            cursor.next(PAGE_SIZE, values);
+            count += values.size();
+        }
+
+        return count;
+    }
+
+}
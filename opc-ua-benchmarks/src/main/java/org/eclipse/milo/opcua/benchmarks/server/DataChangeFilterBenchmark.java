@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.milo.opcua.sdk.server.util.DataChangeMonitoringFilter;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DeadbandType;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * A {@link DataChangeMonitoringFilter} compiled the way a monitored item compiles it, for each
+ * {@link DataChangeTrigger}, with and without an absolute or percent deadband, over scalar, boxed array and primitive
+ * array values.
+ * <p>
+ * {@link #changed()} compares values that differ by more than the deadband; {@link #unchanged()} compares values that
+ * differ only by source timestamp, which is the common case for a sampled value that isn't changing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataChangeFilterBenchmark {
+
+    private static final int ARRAY_LENGTH = 100;
+
+    @Param({"Status", "StatusValue", "StatusValueTimestamp"})
+    public DataChangeTrigger trigger;
+
+    @Param({"None", "Absolute", "Percent"})
+    public DeadbandType deadbandType;
+
+    @Param({"scalar", "array", "primitiveArray"})
+    public String valueType;
+
+    private DataChangeMonitoringFilter filter;
+
+    private DataValue lastValue;
+    private DataValue changedValue;
+    private DataValue unchangedValue;
+
+    @Setup
+    public void setup() throws Exception {
+        filter = DataChangeMonitoringFilter.compile(
+            new DataChangeFilter(trigger, uint(deadbandType.getValue()), 1.0d),
+            new Range(0.0, 100.0)
+        );
+
+        DateTime now = DateTime.now();
+        DateTime later = new DateTime(now.getUtcTime() + 10_000L);
+
+        lastValue = new DataValue(variant(10.0d), StatusCode.GOOD, now);
+        changedValue = new DataValue(variant(12.0d), StatusCode.GOOD, later);
+        unchangedValue = new DataValue(variant(10.0d), StatusCode.GOOD, later);
+    }
+
+    @Benchmark
+    public boolean changed() {
+        return filter.filter(lastValue, changedValue);
+    }
+
+    @Benchmark
+    public boolean unchanged() {
+        return filter.filter(lastValue, unchangedValue);
+    }
+
+    private Variant variant(double value) {
+        switch (valueType) {
+            case "array": {
+                Double[] values = new Double[ARRAY_LENGTH];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = value + i;
+                }
+                return new Variant(values);
+            }
+            case "primitiveArray": {
+                double[] values = new double[ARRAY_LENGTH];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = value + i;
+                }
+                return new Variant(values);
+            }
+            default:
+                return new Variant(value);
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.AbstractServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.model.nodes.objects.BaseEventNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaObjectTypeNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaPropertyNode;
+import org.eclipse.milo.opcua.sdk.server.util.EventMonitoringFilter;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.NamespaceTable;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.FilterOperator;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.NodeClass;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilterElement;
+import org.eclipse.milo.opcua.stack.core.types.structured.ElementOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.LiteralOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.SimpleAttributeOperand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
+
+/**
+ * Events per second through a compiled {@link EventMonitoringFilter} for filters of increasing complexity:
+ * <ul>
+ * <li>{@code selectOnly}: the 5 default select clauses and no where clause.</li>
+ * <li>{@code severity}: the 5 default select clauses and {@code Severity > 500}.</li>
+ * <li>{@code alarm}: 20 select clauses, 11 of them browsing custom properties, and
+ * {@code OfType(SystemEventType) And Severity >= 500 And SourceName Like 'Boiler%'}.</li>
+ * </ul>
+ * {@link #passing()} filters an event that passes the where clause and is projected; {@link #rejected()} one that
+ * doesn't.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventFilterBenchmark {
+
+    private static final NodeId MY_EVENT_TYPE = new NodeId(2, "MyEventType");
+
+    private static final String[] BASE_FIELDS = {
+        "EventId", "EventType", "SourceNode", "SourceName", "Time",
+        "ReceiveTime", "LocalTime", "Message", "Severity"
+    };
+
+    private static final int CUSTOM_FIELD_COUNT = 11;
+
+    @Param({"selectOnly", "severity", "alarm"})
+    public String complexity;
+
+    private EventMonitoringFilter filter;
+
+    private BaseEventNode passingEvent;
+    private BaseEventNode rejectedEvent;
+
+    @Setup
+    public void setup() throws Exception {
+        ServerNodeMap nodeMap = new AbstractServerNodeMap() {
+            @Override
+            public NamespaceTable getNamespaceTable() {
+                return new NamespaceTable();
+            }
+        };
+
+        addEventType(nodeMap, Identifiers.BaseEventType, null);
+        addEventType(nodeMap, Identifiers.SystemEventType, Identifiers.BaseEventType);
+        addEventType(nodeMap, MY_EVENT_TYPE, Identifiers.SystemEventType);
+
+        passingEvent = newEvent(nodeMap, "Passing", 600, "Boiler1");
+        rejectedEvent = newEvent(nodeMap, "Rejected", 100, "Pump1");
+
+        switch (complexity) {
+            case "severity":
+                filter = EventMonitoringFilter.compile(new EventFilter(
+                    defaultSelectClauses(),
+                    new ContentFilter(new ContentFilterElement[]{
+                        element(FilterOperator.GreaterThan, field(0, "Severity"), literal(500))
+                    })
+                ));
+                break;
+
+            case "alarm": {
+                List<SimpleAttributeOperand> selectClauses = Lists.newArrayList();
+                for (String name : BASE_FIELDS) {
+                    selectClauses.add(field(0, name));
+                }
+                for (int i = 0; i < CUSTOM_FIELD_COUNT; i++) {
+                    selectClauses.add(field(2, "Field" + i));
+                }
+
+                filter = EventMonitoringFilter.compile(new EventFilter(
+                    selectClauses.toArray(new SimpleAttributeOperand[0]),
+                    new ContentFilter(new ContentFilterElement[]{
+                        element(FilterOperator.And, element(1), element(2)),
+                        element(FilterOperator.OfType, literal(Identifiers.SystemEventType)),
+                        element(FilterOperator.And, element(3), element(4)),
+                        element(FilterOperator.GreaterThanOrEqual, field(0, "Severity"), literal(500)),
+                        element(FilterOperator.Like, field(0, "SourceName"), literal("Boiler%"))
+                    })
+                ));
+                break;
+            }
+
+            default:
+                filter = EventMonitoringFilter.compile(new EventFilter(defaultSelectClauses(), null));
+        }
+    }
+
+    @Benchmark
+    public Variant[] passing() {
+        return filter.filter(passingEvent);
+    }
+
+    @Benchmark
+    public Variant[] rejected() {
+        return filter.filter(rejectedEvent);
+    }
+
+    private static SimpleAttributeOperand[] defaultSelectClauses() {
+        return new SimpleAttributeOperand[]{
+            field(0, "EventId"),
+            field(0, "EventType"),
+            field(0, "SourceNode"),
+            field(0, "SourceName"),
+            field(0, "Time")
+        };
+    }
+
+    private static SimpleAttributeOperand field(int namespaceIndex, String name) {
+        return new SimpleAttributeOperand(
+            Identifiers.BaseEventType,
+            new QualifiedName[]{new QualifiedName(namespaceIndex, name)},
+            AttributeId.Value.uid(),
+            null
+        );
+    }
+
+    private static ContentFilterElement element(FilterOperator operator, Object... operands) {
+        ExtensionObject[] xos = new ExtensionObject[operands.length];
+
+        for (int i = 0; i < operands.length; i++) {
+            Object operand = operands[i];
+
+            if (operand instanceof LiteralOperand) {
+                xos[i] = ExtensionObject.encode((LiteralOperand) operand);
+            } else if (operand instanceof ElementOperand) {
+                xos[i] = ExtensionObject.encode((ElementOperand) operand);
+            } else {
+                xos[i] = ExtensionObject.encode((SimpleAttributeOperand) operand);
+            }
+        }
+
+        return new ContentFilterElement(operator, xos);
+    }
+
+    private static ElementOperand element(int index) {
+        return new ElementOperand(uint(index));
+    }
+
+    private static LiteralOperand literal(Object value) {
+        return new LiteralOperand(new Variant(value));
+    }
+
+    private static void addEventType(ServerNodeMap nodeMap, NodeId typeId, NodeId superTypeId) {
+        UaObjectTypeNode typeNode = new UaObjectTypeNode(
+            nodeMap,
+            typeId,
+            new QualifiedName(typeId.getNamespaceIndex(), typeId.getIdentifier().toString()),
+            LocalizedText.english(typeId.getIdentifier().toString()),
+            LocalizedText.NULL_VALUE,
+            uint(0),
+            uint(0),
+            false
+        );
+
+        if (superTypeId != null) {
+            typeNode.addReference(new Reference(
+                typeId,
+                Identifiers.HasSubtype,
+                superTypeId.expanded(),
+                NodeClass.ObjectType,
+                false
+            ));
+        }
+
+        nodeMap.addNode(typeNode);
+    }
+
+    private static BaseEventNode newEvent(ServerNodeMap nodeMap, String name, int severity, String sourceName) {
+        BaseEventNode event = new BaseEventNode(
+            nodeMap,
+            new NodeId(2, name),
+            new QualifiedName(2, name),
+            LocalizedText.english(name),
+            LocalizedText.NULL_VALUE,
+            uint(0),
+            uint(0)
+        );
+
+        nodeMap.addNode(event);
+
+        addProperty(nodeMap, event, "EventId", ByteString.of(new byte[16]));
+        addProperty(nodeMap, event, "EventType", MY_EVENT_TYPE);
+        addProperty(nodeMap, event, "SourceNode", Identifiers.Server);
+        addProperty(nodeMap, event, "SourceName", sourceName);
+        addProperty(nodeMap, event, "Time", DateTime.now());
+        addProperty(nodeMap, event, "ReceiveTime", DateTime.now());
+        addProperty(nodeMap, event, "Message", LocalizedText.english("message"));
+        addProperty(nodeMap, event, "Severity", ushort(severity));
+
+        for (int i = 0; i < CUSTOM_FIELD_COUNT; i++) {
+            addProperty(nodeMap, event, "Field" + i, i);
+        }
+
+        return event;
+    }
+
+    private static void addProperty(ServerNodeMap nodeMap, BaseEventNode event, String name, Object value) {
+        UaPropertyNode propertyNode = new UaPropertyNode(
+            nodeMap,
+            new NodeId(2, event.getNodeId().getIdentifier() + "." + name),
+            new QualifiedName(2, name),
+            LocalizedText.english(name)
+        );
+
+        propertyNode.setValue(new DataValue(new Variant(value)));
+
+        nodeMap.addNode(propertyNode);
+        event.addProperty(propertyNode);
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.AbstractServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.api.EventItem;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.model.nodes.objects.BaseEventNode;
+import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaObjectNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaPropertyNode;
+import org.eclipse.milo.opcua.sdk.server.util.EventNotifierBus;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.NamespaceTable;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.NodeClass;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * Events per second through an {@link EventNotifierBus} to {@code itemCount} event items, with the items monitoring:
+ * <ul>
+ * <li>{@code server}: the Server object, so every item receives every event.</li>
+ * <li>{@code area}: one of {@value #AREA_COUNT} areas, each with a HasNotifier reference to an object with a
+ * HasEventSource reference to the event's source, so a tenth of the items receive each event.</li>
+ * </ul>
+ * Each invocation posts {@value #EVENT_COUNT} events and waits for them to be delivered to every item.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventNotifierBusBenchmark {
+
+    private static final int AREA_COUNT = 10;
+
+    private static final int EVENT_COUNT = 100;
+
+    @Param({"100", "1000", "10000"})
+    public int itemCount;
+
+    @Param({"server", "area"})
+    public String notifier;
+
+    private final AtomicLong deliveredCount = new AtomicLong(0L);
+
+    private ExecutorService executor;
+    private EventNotifierBus bus;
+
+    private BaseEventNode[] events;
+    private long deliveriesPerInvocation;
+
+    @Setup
+    public void setup() {
+        ServerNodeMap nodeMap = new AbstractServerNodeMap() {
+            @Override
+            public NamespaceTable getNamespaceTable() {
+                return new NamespaceTable();
+            }
+        };
+
+        executor = Executors.newCachedThreadPool();
+        bus = new EventNotifierBus(nodeMap, executor);
+
+        NodeId[] sources = new NodeId[AREA_COUNT];
+
+        for (int i = 0; i < AREA_COUNT; i++) {
+            NodeId area = addObject(nodeMap, "Area" + i);
+            NodeId boiler = addObject(nodeMap, "Boiler" + i);
+            sources[i] = addObject(nodeMap, "Sensor" + i);
+
+            addReference(nodeMap, area, Identifiers.HasNotifier, boiler);
+            addReference(nodeMap, boiler, Identifiers.HasEventSource, sources[i]);
+        }
+
+        for (int i = 0; i < itemCount; i++) {
+            NodeId notifierId = "server".equals(notifier) ?
+                Identifiers.Server : new NodeId(2, "Area" + (i % AREA_COUNT));
+
+            bus.register(new CountingItem(uint(i), notifierId));
+        }
+
+        events = new BaseEventNode[EVENT_COUNT];
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events[i] = newEvent(nodeMap, "Event" + i, sources[i % AREA_COUNT]);
+        }
+
+        deliveriesPerInvocation = "server".equals(notifier) ?
+            (long) EVENT_COUNT * itemCount : (long) EVENT_COUNT * itemCount / AREA_COUNT;
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENT_COUNT)
+    public void post() {
+        long target = deliveredCount.get() + deliveriesPerInvocation;
+
+        for (BaseEventNode event : events) {
+            bus.post(event);
+        }
+
+        while (deliveredCount.get() < target) {
+            LockSupport.parkNanos(1000L);
+        }
+    }
+
+    private static NodeId addObject(ServerNodeMap nodeMap, String name) {
+        NodeId nodeId = new NodeId(2, name);
+
+        nodeMap.addNode(new UaObjectNode(
+            nodeMap,
+            nodeId,
+            new QualifiedName(2, name),
+            LocalizedText.english(name)
+        ));
+
+        return nodeId;
+    }
+
+    private static void addReference(ServerNodeMap nodeMap, NodeId sourceNodeId, NodeId referenceTypeId,
+                                     NodeId targetNodeId) {
+
+        nodeMap.get(sourceNodeId).addReference(new Reference(
+            sourceNodeId,
+            referenceTypeId,
+            targetNodeId.expanded(),
+            NodeClass.Object,
+            true
+        ));
+    }
+
+    private static BaseEventNode newEvent(ServerNodeMap nodeMap, String name, NodeId sourceNode) {
+        BaseEventNode event = new BaseEventNode(
+            nodeMap,
+            new NodeId(2, name),
+            new QualifiedName(2, name),
+            LocalizedText.english(name),
+            LocalizedText.NULL_VALUE,
+            uint(0),
+            uint(0)
+        );
+
+        nodeMap.addNode(event);
+
+        UaPropertyNode propertyNode = new UaPropertyNode(
+            nodeMap,
+            new NodeId(2, name + ".SourceNode"),
+            new QualifiedName(2, "SourceNode"),
+            LocalizedText.english("SourceNode")
+        );
+
+        propertyNode.setValue(new DataValue(new Variant(sourceNode)));
+
+        nodeMap.addNode(propertyNode);
+        event.addProperty(propertyNode);
+
+        return event;
+    }
+
+    private class CountingItem implements EventItem {
+
+        private final UInteger id;
+        private final ReadValueId readValueId;
+
+        CountingItem(UInteger id, NodeId notifierId) {
+            this.id = id;
+            this.readValueId = new ReadValueId(
+                notifierId, AttributeId.EventNotifier.uid(), null, QualifiedName.NULL_VALUE);
+        }
+
+        @Override
+        public void setEvent(BaseEventType event) {
+            deliveredCount.incrementAndGet();
+        }
+
+        @Override
+        public UInteger getId() {
+            return id;
+        }
+
+        @Override
+        public UInteger getSubscriptionId() {
+            return uint(0);
+        }
+
+        @Override
+        public ReadValueId getReadValueId() {
+            return readValueId;
+        }
+
+        @Override
+        public TimestampsToReturn getTimestampsToReturn() {
+            return TimestampsToReturn.Both;
+        }
+
+        @Override
+        public boolean isSamplingEnabled() {
+            return true;
+        }
+
+    }
+
+}
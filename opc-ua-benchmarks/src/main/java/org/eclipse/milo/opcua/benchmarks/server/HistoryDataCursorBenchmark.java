@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.milo.opcua.sdk.server.history.HistoryDataCursor;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Values per second paged into HistoryData by a {@link HistoryDataCursor}, each one measured by encoding it.
+ * <p>
+ * Each invocation pages all {@value #SIZE} values into pages of at most {@code maxBytes} encoded bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HistoryDataCursorBenchmark {
+
+    private static final int SIZE = 100000;
+
+    @Param({"65536", "2097152"})
+    public long maxBytes;
+
+    private DataValue[] values;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        values = new DataValue[SIZE];
+
+        long time = DateTime.now().getUtcTime();
+
+        for (int i = 0; i < SIZE; i++) {
+            DateTime t = new DateTime(time += 100000L);
+
+            values[i] = new DataValue(new Variant(Math.sin(i / 100.0)), StatusCode.GOOD, t, t);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int page() {
+        HistoryDataCursor cursor = new HistoryDataCursor(Arrays.asList(values).iterator());
+
+        int count = 0;
+
+        try {
+            while (cursor.hasNext()) {
+                count += cursor.next(maxBytes).getDataValues().length;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return count;
+    }
+
+}
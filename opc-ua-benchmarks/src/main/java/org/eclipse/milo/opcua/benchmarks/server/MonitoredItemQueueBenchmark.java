@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.milo.opcua.sdk.server.util.LockFreeRingBuffer;
+import org.eclipse.milo.opcua.sdk.server.util.RingBuffer;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link LockFreeRingBuffer} used by monitored items against the previous approach of guarding a
+ * {@link RingBuffer} with the item's monitor.
+ * <p>
+ * The {@code *Contended} groups run one producer (the sampling thread) and one consumer (the publishing thread)
+ * against the same queue; the {@code *Uncontended} benchmarks offer and poll from a single thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class MonitoredItemQueueBenchmark {
+
+    private static final DataValue VALUE = new DataValue(new Variant(42.0));
+
+    @Param({"1", "10", "1000"})
+    public int queueSize;
+
+    private SynchronizedRingBuffer ringBuffer;
+    private LockFreeRingBuffer<DataValue> lockFreeRingBuffer;
+
+    @Setup
+    public void setup() {
+        ringBuffer = new SynchronizedRingBuffer(queueSize);
+        lockFreeRingBuffer = new LockFreeRingBuffer<>(queueSize);
+    }
+
+    @Benchmark
+    @Group("ringBufferContended")
+    @GroupThreads(1)
+    public void ringBufferOffer() {
+        ringBuffer.offer(VALUE);
+    }
+
+    @Benchmark
+    @Group("ringBufferContended")
+    @GroupThreads(1)
+    public DataValue ringBufferPoll() {
+        return ringBuffer.poll();
+    }
+
+    @Benchmark
+    @Group("lockFreeContended")
+    @GroupThreads(1)
+    public boolean lockFreeOffer() {
+        return lockFreeRingBuffer.offer(VALUE, true, null);
+    }
+
+    @Benchmark
+    @Group("lockFreeContended")
+    @GroupThreads(1)
+    public DataValue lockFreePoll() {
+        return lockFreeRingBuffer.poll();
+    }
+
+    @Benchmark
+    @Group("ringBufferUncontended")
+    public DataValue ringBufferOfferPoll() {
+        ringBuffer.offer(VALUE);
+        return ringBuffer.poll();
+    }
+
+    @Benchmark
+    @Group("lockFreeUncontended")
+    public DataValue lockFreeOfferPoll() {
+        lockFreeRingBuffer.offer(VALUE, true, null);
+        return lockFreeRingBuffer.poll();
+    }
+
+    /**
+     * A {@link RingBuffer} guarded the way {@code BaseMonitoredItem} used to guard it.
+     */
+    private static class SynchronizedRingBuffer {
+
+        private final RingBuffer<DataValue> buffer;
+
+        SynchronizedRingBuffer(int maxSize) {
+            buffer = new RingBuffer<>(maxSize);
+        }
+
+        synchronized void offer(DataValue value) {
+            buffer.add(value);
+        }
+
+        synchronized DataValue poll() {
+            return buffer.isEmpty() ? null : buffer.remove();
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.eclipse.milo.opcua.sdk.server.history.TimeSeries;
+import org.eclipse.milo.opcua.sdk.server.history.TimeSeriesStore;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Values per second appended to, and scanned from, a single node's {@link TimeSeries}.
+ * <p>
+ * {@link #append()} appends Double {@link DataValue}s with increasing timestamps; the series is recreated every
+ * iteration so the file doesn't grow without bound. {@link #scan()} reads back every value of a series of
+ * {@value #SCAN_SIZE} values as a double, the way processed reads visit them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeSeriesBenchmark {
+
+    private static final int SCAN_SIZE = 1000000;
+
+    private static final NodeId NODE_ID = new NodeId(2, "Benchmark");
+
+    private final Variant value = new Variant(42.0);
+
+    private long time = DateTime.now().getUtcTime();
+
+    private Path directory;
+    private TimeSeries appendSeries;
+    private TimeSeries scanSeries;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        directory = Files.createTempDirectory("TimeSeriesBenchmark");
+
+        scanSeries = TimeSeries.create(
+            new NodeId(2, "Scan"),
+            directory.resolve("scan.ts"),
+            TimeSeriesStore.DEFAULT_BLOCK_CAPACITY,
+            TimeSeriesStore.DEFAULT_BLOCKS_PER_SEGMENT
+        );
+
+        for (int i = 0; i < SCAN_SIZE; i++) {
+            scanSeries.append(nextValue());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        Path path = directory.resolve("append.ts");
+        Files.deleteIfExists(path);
+
+        appendSeries = TimeSeries.create(
+            NODE_ID,
+            path,
+            TimeSeriesStore.DEFAULT_BLOCK_CAPACITY,
+            TimeSeriesStore.DEFAULT_BLOCKS_PER_SEGMENT
+        );
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws IOException {
+        appendSeries.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        scanSeries.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean append() throws IOException {
+        return appendSeries.append(nextValue());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCAN_SIZE)
+    public double scan() {
+        double sum = 0.0;
+
+        for (long i = 0; i < SCAN_SIZE; i++) {
+            sum += scanSeries.getDouble(i);
+        }
+
+        return sum;
+    }
+
+    private DataValue nextValue() {
+        DateTime t = new DateTime(time += 10000L);
+
+        return new DataValue(value, StatusCode.GOOD, t, t);
+    }
+
+}
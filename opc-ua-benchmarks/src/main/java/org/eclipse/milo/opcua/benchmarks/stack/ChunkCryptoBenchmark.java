@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelParameters;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelSecurity;
+import org.eclipse.milo.opcua.stack.core.channel.ChunkDecoder;
+import org.eclipse.milo.opcua.stack.core.channel.ChunkEncoder;
+import org.eclipse.milo.opcua.stack.core.channel.ClientSecureChannel;
+import org.eclipse.milo.opcua.stack.core.channel.MessageAbortedException;
+import org.eclipse.milo.opcua.stack.core.channel.ServerSecureChannel;
+import org.eclipse.milo.opcua.stack.core.channel.messages.MessageType;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Symmetric chunk signing and encryption throughput.
+ * <p>
+ * {@link #encodeAndDecode()} runs a message through {@link ChunkEncoder} and {@link ChunkDecoder}, which sign and
+ * encrypt in place using a {@link Cipher} and {@link Mac} cached for the lifetime of the security token.
+ * <p>
+ * {@link #signAndEncryptInPlace()} and {@link #signAndEncryptCopying()} isolate the cost of a single chunk's crypto:
+ * the former the way {@link ChunkEncoder} does it now, the latter the way it used to, obtaining a new {@link Cipher}
+ * and {@link Mac} for every chunk and encrypting from a copy of the chunk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkCryptoBenchmark {
+
+    @Param({"Basic256Sha256"})
+    public SecurityPolicy securityPolicy;
+
+    @Param({"Sign", "SignAndEncrypt"})
+    public MessageSecurityMode messageSecurityMode;
+
+    @Param({"1024", "65536"})
+    public int messageSize;
+
+    private ClientSecureChannel clientChannel;
+    private ServerSecureChannel serverChannel;
+
+    private ChunkEncoder chunkEncoder;
+    private ChunkDecoder chunkDecoder;
+
+    private ByteBuf messageBuffer;
+    private ByteBuf chunkBuffer;
+
+    private ChannelSecurity.SecretKeys secretKeys;
+    private Cipher cachedCipher;
+    private Mac cachedMac;
+
+    private final EncodingCallback encodingCallback = new EncodingCallback();
+    private final DecodingCallback decodingCallback = new DecodingCallback();
+
+    @Setup
+    public void setup() throws Exception {
+        SecureChannelFixture fixture = new SecureChannelFixture(securityPolicy, messageSecurityMode);
+
+        clientChannel = fixture.clientChannel;
+        serverChannel = fixture.serverChannel;
+
+        ChannelParameters parameters = new ChannelParameters(
+            ChannelConfig.DEFAULT_MAX_MESSAGE_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            0,
+            ChannelConfig.DEFAULT_MAX_MESSAGE_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            0
+        );
+
+        chunkEncoder = new ChunkEncoder(parameters);
+        chunkDecoder = new ChunkDecoder(parameters);
+
+        byte[] messageBytes = new byte[messageSize];
+        for (int i = 0; i < messageBytes.length; i++) {
+            messageBytes[i] = (byte) i;
+        }
+
+        messageBuffer = BufferUtil.buffer(messageSize).writeBytes(messageBytes);
+
+        // a single chunk's worth of plaintext, rounded down to a whole number of blocks
+        int blockSize = clientChannel.getSymmetricBlockSize();
+        int chunkSize = (Math.min(messageSize, ChannelConfig.DEFAULT_MAX_CHUNK_SIZE - 1024) / blockSize) * blockSize;
+
+        chunkBuffer = BufferUtil.buffer(chunkSize + clientChannel.getSymmetricSignatureSize());
+        chunkBuffer.writeBytes(messageBytes, 0, chunkSize);
+
+        secretKeys = clientChannel.getEncryptionKeys(clientChannel.getChannelSecurity().getCurrentKeys());
+        cachedMac = newMac();
+
+        if (messageSecurityMode == MessageSecurityMode.SignAndEncrypt) {
+            cachedCipher = newCipher();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        messageBuffer.release();
+        chunkBuffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf encodeAndDecode() {
+        messageBuffer.readerIndex(0);
+
+        chunkEncoder.encodeSymmetric(
+            clientChannel,
+            1L,
+            messageBuffer,
+            MessageType.SecureMessage,
+            encodingCallback
+        );
+
+        chunkDecoder.decodeSymmetric(serverChannel, encodingCallback.chunks, decodingCallback);
+
+        return decodingCallback.message;
+    }
+
+    @Benchmark
+    public ByteBuf signAndEncryptInPlace() throws GeneralSecurityException {
+        int plainTextSize = resetChunk();
+
+        ByteBuffer plainText = chunkBuffer.nioBuffer(0, plainTextSize);
+        cachedMac.update(plainText);
+        chunkBuffer.writeBytes(cachedMac.doFinal());
+
+        if (messageSecurityMode == MessageSecurityMode.SignAndEncrypt) {
+            ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer(0, encryptedSize());
+
+            cachedCipher.doFinal(chunkNioBuffer.duplicate(), chunkNioBuffer);
+        }
+
+        return chunkBuffer;
+    }
+
+    @Benchmark
+    public ByteBuf signAndEncryptCopying() throws GeneralSecurityException {
+        int plainTextSize = resetChunk();
+
+        Mac mac = newMac();
+        mac.update(chunkBuffer.nioBuffer(0, plainTextSize));
+        chunkBuffer.writeBytes(mac.doFinal());
+
+        if (messageSecurityMode == MessageSecurityMode.SignAndEncrypt) {
+            ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer(0, encryptedSize());
+
+            ByteBuf copyBuffer = chunkBuffer.copy(0, encryptedSize());
+
+            try {
+                newCipher().doFinal(copyBuffer.nioBuffer(), chunkNioBuffer);
+            } finally {
+                copyBuffer.release();
+            }
+        }
+
+        return chunkBuffer;
+    }
+
+    /**
+     * Reset the chunk so it contains only plaintext again.
+     *
+     * @return the size of the plaintext.
+     */
+    private int resetChunk() {
+        int plainTextSize = chunkBuffer.capacity() - clientChannel.getSymmetricSignatureSize();
+
+        chunkBuffer.readerIndex(0).writerIndex(plainTextSize);
+
+        return plainTextSize;
+    }
+
+    /**
+     * @return the size of the plaintext plus signature, rounded down to a whole number of blocks.
+     */
+    private int encryptedSize() {
+        int blockSize = clientChannel.getSymmetricBlockSize();
+
+        return (chunkBuffer.writerIndex() / blockSize) * blockSize;
+    }
+
+    private Cipher newCipher() throws GeneralSecurityException {
+        String transformation = securityPolicy.getSymmetricEncryptionAlgorithm().getTransformation();
+
+        Cipher cipher = Cipher.getInstance(transformation);
+        cipher.init(
+            Cipher.ENCRYPT_MODE,
+            new SecretKeySpec(secretKeys.getEncryptionKey(), "AES"),
+            new IvParameterSpec(secretKeys.getInitializationVector())
+        );
+
+        return cipher;
+    }
+
+    private Mac newMac() throws GeneralSecurityException {
+        String transformation = securityPolicy.getSymmetricSignatureAlgorithm().getTransformation();
+
+        Mac mac = Mac.getInstance(transformation);
+        mac.init(new SecretKeySpec(secretKeys.getSignatureKey(), transformation));
+
+        return mac;
+    }
+
+    private static class EncodingCallback implements ChunkEncoder.Callback {
+
+        private List<ByteBuf> chunks;
+
+        @Override
+        public void onEncodingError(UaException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageEncoded(List<ByteBuf> messageChunks, long requestId) {
+            chunks = messageChunks;
+        }
+
+    }
+
+    private static class DecodingCallback implements ChunkDecoder.Callback {
+
+        private ByteBuf message = Unpooled.EMPTY_BUFFER;
+
+        @Override
+        public void onDecodingError(UaException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageAborted(MessageAbortedException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageDecoded(ByteBuf message, long requestId) {
+            this.message = message;
+
+            message.release();
+        }
+
+    }
+
+}
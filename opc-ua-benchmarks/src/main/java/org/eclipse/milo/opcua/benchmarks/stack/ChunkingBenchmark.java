@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelParameters;
+import org.eclipse.milo.opcua.stack.core.channel.ChunkDecoder;
+import org.eclipse.milo.opcua.stack.core.channel.ChunkEncoder;
+import org.eclipse.milo.opcua.stack.core.channel.ClientSecureChannel;
+import org.eclipse.milo.opcua.stack.core.channel.MessageAbortedException;
+import org.eclipse.milo.opcua.stack.core.channel.ServerSecureChannel;
+import org.eclipse.milo.opcua.stack.core.channel.messages.MessageType;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round trips a message through {@link ChunkEncoder} and {@link ChunkDecoder} for every {@link SecurityPolicy}.
+ * <p>
+ * {@link #symmetric()} chunks a {@link MessageType#SecureMessage} the way every service request and response is
+ * chunked; {@link #asymmetric()} chunks a {@link MessageType#OpenSecureChannel} message, which is signed and encrypted
+ * using the certificates' key pair rather than the derived symmetric keys.
+ * <p>
+ * {@link MessageSecurityMode} is ignored for {@link SecurityPolicy#None}, which always runs with
+ * {@link MessageSecurityMode#None}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkingBenchmark {
+
+    @Param({"None", "Basic128Rsa15", "Basic256", "Basic256Sha256", "Aes128_Sha256_RsaOaep", "Aes256_Sha256_RsaPss"})
+    public SecurityPolicy securityPolicy;
+
+    @Param({"Sign", "SignAndEncrypt"})
+    public MessageSecurityMode messageSecurityMode;
+
+    @Param({"1024", "262144"})
+    public int messageSize;
+
+    private ClientSecureChannel clientChannel;
+    private ServerSecureChannel serverChannel;
+
+    private ChunkEncoder chunkEncoder;
+    private ChunkDecoder chunkDecoder;
+
+    private ByteBuf messageBuffer;
+
+    private final EncodingCallback encodingCallback = new EncodingCallback();
+    private final DecodingCallback decodingCallback = new DecodingCallback();
+
+    @Setup
+    public void setup() throws Exception {
+        MessageSecurityMode mode = securityPolicy == SecurityPolicy.None ?
+            MessageSecurityMode.None : messageSecurityMode;
+
+        SecureChannelFixture fixture = new SecureChannelFixture(securityPolicy, mode);
+
+        clientChannel = fixture.clientChannel;
+        serverChannel = fixture.serverChannel;
+
+        ChannelParameters parameters = new ChannelParameters(
+            ChannelConfig.DEFAULT_MAX_MESSAGE_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            0,
+            ChannelConfig.DEFAULT_MAX_MESSAGE_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            ChannelConfig.DEFAULT_MAX_CHUNK_SIZE,
+            0
+        );
+
+        chunkEncoder = new ChunkEncoder(parameters);
+        chunkDecoder = new ChunkDecoder(parameters);
+
+        messageBuffer = BufferUtil.buffer(messageSize);
+        for (int i = 0; i < messageSize; i++) {
+            messageBuffer.writeByte(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        messageBuffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf symmetric() {
+        messageBuffer.readerIndex(0);
+
+        chunkEncoder.encodeSymmetric(
+            clientChannel,
+            1L,
+            messageBuffer,
+            MessageType.SecureMessage,
+            encodingCallback
+        );
+
+        chunkDecoder.decodeSymmetric(serverChannel, encodingCallback.chunks, decodingCallback);
+
+        return decodingCallback.message;
+    }
+
+    @Benchmark
+    public ByteBuf asymmetric() {
+        messageBuffer.readerIndex(0);
+
+        chunkEncoder.encodeAsymmetric(
+            clientChannel,
+            1L,
+            messageBuffer,
+            MessageType.OpenSecureChannel,
+            encodingCallback
+        );
+
+        chunkDecoder.decodeAsymmetric(serverChannel, encodingCallback.chunks, decodingCallback);
+
+        return decodingCallback.message;
+    }
+
+    private static class EncodingCallback implements ChunkEncoder.Callback {
+
+        private List<ByteBuf> chunks;
+
+        @Override
+        public void onEncodingError(UaException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageEncoded(List<ByteBuf> messageChunks, long requestId) {
+            chunks = messageChunks;
+        }
+
+    }
+
+    private static class DecodingCallback implements ChunkDecoder.Callback {
+
+        private ByteBuf message = Unpooled.EMPTY_BUFFER;
+
+        @Override
+        public void onDecodingError(UaException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageAborted(MessageAbortedException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        @Override
+        public void onMessageDecoded(ByteBuf message, long requestId) {
+            this.message = message;
+
+            message.release();
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
+import org.eclipse.milo.opcua.stack.core.util.ExecutionQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link ExecutionQueue}, which hops onto the executor once per submitted task, against
+ * {@link BatchingExecutionQueue}, which drains a batch of tasks per hop.
+ * <p>
+ * Each invocation submits {@value #TASK_COUNT} tasks to a queue backed by a cached thread pool, the way the stack
+ * uses them, and waits for them all to execute.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionQueueBenchmark {
+
+    private static final int TASK_COUNT = 1000;
+
+    private ExecutorService executor;
+    private ExecutionQueue executionQueue;
+    private BatchingExecutionQueue batchingExecutionQueue;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+        executionQueue = new ExecutionQueue(executor);
+        batchingExecutionQueue = new BatchingExecutionQueue(executor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public void executionQueue() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            executionQueue.submit(latch::countDown);
+        }
+
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASK_COUNT)
+    public void batchingExecutionQueue() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            batchingExecutionQueue.submit(latch::countDown);
+        }
+
+        latch.await();
+    }
+
+}
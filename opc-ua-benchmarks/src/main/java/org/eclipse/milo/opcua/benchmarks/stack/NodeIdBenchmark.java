@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import com.google.common.collect.Maps;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExpandedNodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link NodeId} and {@link ExpandedNodeId} hashing, equality, map lookups and parsing, for each kind of identifier.
+ * <p>
+ * Lookups and equality checks are made with an equal but not identical instance, as they would be with a NodeId that
+ * was just decoded from a request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NodeIdBenchmark {
+
+    private static final int MAP_SIZE = 10_000;
+
+    private static final String NAMESPACE_URI = "urn:eclipse:milo:benchmarks";
+
+    @Param
+    public IdType idType;
+
+    private NodeId nodeId;
+    private NodeId nodeIdCopy;
+    private String nodeIdString;
+
+    private ExpandedNodeId expandedNodeId;
+    private ExpandedNodeId expandedNodeIdCopy;
+    private String expandedNodeIdString;
+
+    private Map<NodeId, Object> nodeMap;
+
+    @Setup
+    public void setup() {
+        nodeMap = Maps.newHashMapWithExpectedSize(MAP_SIZE);
+        for (int i = 0; i < MAP_SIZE; i++) {
+            nodeMap.put(idType.nodeId.apply(i), i);
+        }
+
+        nodeId = idType.nodeId.apply(MAP_SIZE / 2);
+        nodeIdCopy = idType.nodeId.apply(MAP_SIZE / 2);
+        nodeIdString = nodeId.toParseableString();
+
+        expandedNodeId = new ExpandedNodeId(nodeId, NAMESPACE_URI, 0L);
+        expandedNodeIdCopy = new ExpandedNodeId(nodeIdCopy, NAMESPACE_URI, 0L);
+        expandedNodeIdString = expandedNodeId.toParseableString();
+    }
+
+    @Benchmark
+    public int nodeIdHashCode() {
+        return nodeId.hashCode();
+    }
+
+    @Benchmark
+    public boolean nodeIdEquals() {
+        return nodeId.equals(nodeIdCopy);
+    }
+
+    @Benchmark
+    public Object nodeIdMapLookup() {
+        return nodeMap.get(nodeIdCopy);
+    }
+
+    @Benchmark
+    public NodeId nodeIdParse() {
+        return NodeId.parse(nodeIdString);
+    }
+
+    @Benchmark
+    public String nodeIdToParseableString() {
+        return nodeId.toParseableString();
+    }
+
+    @Benchmark
+    public int expandedNodeIdHashCode() {
+        return expandedNodeId.hashCode();
+    }
+
+    @Benchmark
+    public boolean expandedNodeIdEquals() {
+        return expandedNodeId.equals(expandedNodeIdCopy);
+    }
+
+    @Benchmark
+    public ExpandedNodeId expandedNodeIdParse() {
+        return ExpandedNodeId.parse(expandedNodeIdString);
+    }
+
+    @Benchmark
+    public String expandedNodeIdToParseableString() {
+        return expandedNodeId.toParseableString();
+    }
+
+    public enum IdType {
+
+        Numeric(i -> new NodeId(2, i)),
+
+        String(i -> new NodeId(2, "Devices/Device" + i + "/Value")),
+
+        Guid(i -> new NodeId(2, new UUID(0xCAFEBABEL, i))),
+
+        Opaque(i -> new NodeId(2, ByteString.of(new byte[]{
+            (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i,
+            0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10, 0x11
+        })));
+
+        private final IntFunction<NodeId> nodeId;
+
+        IdType(IntFunction<NodeId> nodeId) {
+            this.nodeId = nodeId;
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+
+import com.google.common.collect.Lists;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelSecurity;
+import org.eclipse.milo.opcua.stack.core.channel.ClientSecureChannel;
+import org.eclipse.milo.opcua.stack.core.channel.ServerSecureChannel;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.core.types.structured.ChannelSecurityToken;
+import org.eclipse.milo.opcua.stack.core.util.NonceUtil;
+import org.eclipse.milo.opcua.stack.core.util.SelfSignedCertificateBuilder;
+import org.eclipse.milo.opcua.stack.core.util.SelfSignedCertificateGenerator;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * A connected pair of {@link ClientSecureChannel} and {@link ServerSecureChannel}, sharing a self-signed certificate,
+ * with symmetric keys already derived for the given {@link SecurityPolicy} and {@link MessageSecurityMode}.
+ */
+final class SecureChannelFixture {
+
+    static {
+        // Required for SecurityPolicy.Aes256_Sha256_RsaPss
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    final ClientSecureChannel clientChannel;
+    final ServerSecureChannel serverChannel;
+
+    SecureChannelFixture(SecurityPolicy securityPolicy, MessageSecurityMode messageSecurityMode) throws Exception {
+        ByteString clientNonce = NonceUtil.generateNonce(securityPolicy);
+        ByteString serverNonce = NonceUtil.generateNonce(securityPolicy);
+
+        serverChannel = new ServerSecureChannel();
+        serverChannel.setSecurityPolicy(securityPolicy);
+        serverChannel.setMessageSecurityMode(messageSecurityMode);
+        serverChannel.setLocalNonce(serverNonce);
+        serverChannel.setRemoteNonce(clientNonce);
+
+        if (securityPolicy == SecurityPolicy.None) {
+            clientChannel = new ClientSecureChannel(securityPolicy, messageSecurityMode);
+            clientChannel.setLocalNonce(clientNonce);
+            clientChannel.setRemoteNonce(serverNonce);
+        } else {
+            KeyPair keyPair = SelfSignedCertificateGenerator.generateRsaKeyPair(2048);
+
+            X509Certificate certificate = new SelfSignedCertificateBuilder(keyPair)
+                .setCommonName("Eclipse Milo Benchmarks")
+                .setApplicationUri("urn:eclipse:milo:benchmarks")
+                .build();
+
+            clientChannel = new ClientSecureChannel(
+                keyPair,
+                certificate,
+                Lists.newArrayList(certificate),
+                certificate,
+                Lists.newArrayList(certificate),
+                securityPolicy,
+                messageSecurityMode
+            );
+            clientChannel.setLocalNonce(clientNonce);
+            clientChannel.setRemoteNonce(serverNonce);
+
+            serverChannel.setKeyPair(keyPair);
+            serverChannel.setLocalCertificate(certificate);
+            serverChannel.setLocalCertificateChain(new X509Certificate[]{certificate});
+            serverChannel.setRemoteCertificate(certificate.getEncoded());
+
+            if (messageSecurityMode != MessageSecurityMode.None) {
+                ChannelSecurityToken token = new ChannelSecurityToken(uint(0), uint(1), DateTime.now(), uint(60000));
+
+                ChannelSecurity.SecuritySecrets clientSecrets =
+                    ChannelSecurity.generateKeyPair(clientChannel, clientNonce, serverNonce);
+                clientChannel.setChannelSecurity(new ChannelSecurity(clientSecrets, token));
+
+                ChannelSecurity.SecuritySecrets serverSecrets =
+                    ChannelSecurity.generateKeyPair(serverChannel, clientNonce, serverNonce);
+                serverChannel.setChannelSecurity(new ChannelSecurity(serverSecrets, token));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.benchmarks.stack;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.netty.buffer.ByteBuf;
+import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
+import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamEncoder;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.ServerState;
+import org.eclipse.milo.opcua.stack.core.types.structured.BuildInfo;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
+import org.eclipse.milo.opcua.stack.core.types.structured.ServerStatusDataType;
+import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * {@link OpcUaBinaryStreamEncoder#writeVariant(Variant)} and {@link OpcUaBinaryStreamDecoder#readVariant()} over
+ * scalar, array and {@link ExtensionObject} payloads.
+ * <p>
+ * The encoder and decoder are reused across invocations the way {@code SerializationQueue} reuses them in pooled
+ * mode, so only the cost of the codec itself is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VariantCodecBenchmark {
+
+    @Param
+    public Payload payload;
+
+    private Variant variant;
+
+    private ByteBuf encodeBuffer;
+    private ByteBuf decodeBuffer;
+
+    private final OpcUaBinaryStreamEncoder encoder = new OpcUaBinaryStreamEncoder();
+    private final OpcUaBinaryStreamDecoder decoder = new OpcUaBinaryStreamDecoder();
+
+    @Setup
+    public void setup() {
+        variant = payload.variant.get();
+
+        encodeBuffer = BufferUtil.buffer();
+        decodeBuffer = BufferUtil.buffer();
+
+        encoder.setBuffer(decodeBuffer).writeVariant(variant);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encodeBuffer.release();
+        decodeBuffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf writeVariant() {
+        encodeBuffer.clear();
+
+        encoder.setBuffer(encodeBuffer).writeVariant(variant);
+
+        return encodeBuffer;
+    }
+
+    @Benchmark
+    public Variant readVariant() {
+        decodeBuffer.readerIndex(0);
+
+        return decoder.setBuffer(decodeBuffer).readVariant();
+    }
+
+    public enum Payload {
+
+        ScalarInt32(() -> new Variant(42)),
+
+        ScalarDouble(() -> new Variant(3.14159d)),
+
+        ScalarString(() -> new Variant("Hello, world!")),
+
+        ScalarDateTime(() -> new Variant(DateTime.now())),
+
+        ArrayInt32(() -> {
+            Integer[] values = new Integer[1000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i;
+            }
+            return new Variant(values);
+        }),
+
+        ArrayDouble(() -> {
+            Double[] values = new Double[1000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i / 10.0d;
+            }
+            return new Variant(values);
+        }),
+
+        ArrayPrimitiveDouble(() -> {
+            double[] values = new double[1000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i / 10.0d;
+            }
+            return new Variant(values);
+        }),
+
+        ArrayString(() -> {
+            String[] values = new String[100];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = "value" + i;
+            }
+            return new Variant(values);
+        }),
+
+        ScalarExtensionObject(() -> {
+            BuildInfo buildInfo = new BuildInfo(
+                "urn:eclipse:milo:benchmarks",
+                "Eclipse",
+                "Eclipse Milo Benchmarks",
+                "0.2.2",
+                "0",
+                DateTime.now()
+            );
+
+            ServerStatusDataType serverStatus = new ServerStatusDataType(
+                DateTime.now(),
+                DateTime.now(),
+                ServerState.Running,
+                buildInfo,
+                uint(0),
+                LocalizedText.english("")
+            );
+
+            return new Variant(ExtensionObject.encode(serverStatus));
+        }),
+
+        ArrayExtensionObject(() -> {
+            ExtensionObject[] values = new ExtensionObject[100];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ExtensionObject.encode(new Range((double) i, i + 100.0d));
+            }
+            return new Variant(values);
+        });
+
+        private final Supplier<Variant> variant;
+
+        Payload(Supplier<Variant> variant) {
+            this.variant = variant;
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.subscriptions;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig;
+import org.eclipse.milo.opcua.sdk.server.items.BaseMonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.items.MonitoredDataItem;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.application.DefaultCertificateManager;
+import org.eclipse.milo.opcua.stack.core.application.InsecureCertificateValidator;
+import org.eclipse.milo.opcua.stack.core.application.services.ServiceRequest;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.RequestHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.SubscriptionAcknowledgement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * A {@link Subscription} publish cycle: {@code changedPercent} of the monitored items receive a new value, a Publish
+ * request is queued, and the publishing timer elapses, gathering the notifications and completing the request with a
+ * {@link PublishResponse}.
+ * <p>
+ * This benchmark lives in the {@code subscriptions} package so it can drive
+ * {@link Subscription#onPublishingTimer()} directly instead of waiting on the server's scheduler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubscriptionPublishBenchmark {
+
+    @Param({"1", "100", "1000", "50000"})
+    public int itemCount;
+
+    @Param({"1", "100"})
+    public int changedPercent;
+
+    private OpcUaServer server;
+    private Subscription subscription;
+    private PublishQueue publishQueue;
+
+    private List<MonitoredDataItem> changedItems;
+    private DataValue[] values;
+
+    private long cycle = 0L;
+
+    @Setup
+    public void setup() throws Exception {
+        OpcUaServerConfig config = OpcUaServerConfig.builder()
+            .setCertificateManager(new DefaultCertificateManager())
+            .setCertificateValidator(new InsecureCertificateValidator())
+            .build();
+
+        server = new OpcUaServer(config) {
+            private final ScheduledExecutorService scheduler = new ManualScheduledExecutor();
+
+            @Override
+            public ScheduledExecutorService getScheduledExecutorService() {
+                return scheduler;
+            }
+        };
+
+        SubscriptionManager subscriptionManager = new SubscriptionManager(null, server);
+        publishQueue = subscriptionManager.getPublishQueue();
+
+        subscription = new Subscription(
+            subscriptionManager,
+            uint(1),
+            100.0,
+            10L,
+            30L,
+            0L,
+            true,
+            0
+        );
+
+        List<MonitoredDataItem> items = Lists.newArrayListWithCapacity(itemCount);
+
+        for (int i = 0; i < itemCount; i++) {
+            ReadValueId readValueId = new ReadValueId(
+                new NodeId(2, i),
+                AttributeId.Value.uid(),
+                null,
+                QualifiedName.NULL_VALUE
+            );
+
+            items.add(new MonitoredDataItem(
+                uint(i + 1),
+                subscription.getId(),
+                readValueId,
+                MonitoringMode.Reporting,
+                TimestampsToReturn.Both,
+                uint(i),
+                100.0,
+                null,
+                uint(1),
+                true
+            ));
+        }
+
+        subscription.addMonitoredItems(Lists.newArrayList(items));
+
+        changedItems = items.subList(0, Math.max(1, itemCount * changedPercent / 100));
+        subscription.startPublishingTimer();
+
+        // alternate between two values so every value passes the default filter
+        DateTime now = DateTime.now();
+        values = new DataValue[]{
+            new DataValue(new Variant(0.0d), StatusCode.GOOD, now, now),
+            new DataValue(new Variant(1.0d), StatusCode.GOOD, now, now)
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscription.deleteSubscription();
+        server.getScheduledExecutorService().shutdown();
+    }
+
+    @Benchmark
+    public PublishResponse publishCycle() {
+        DataValue value = values[(int) (cycle++ & 1)];
+
+        for (MonitoredDataItem item : changedItems) {
+            item.setValue(value);
+        }
+
+        ServiceRequest<PublishRequest, PublishResponse> service = newPublishRequest();
+
+        publishQueue.addRequest(service);
+        subscription.onPublishingTimer();
+
+        PublishResponse response = service.getFuture().getNow(null);
+
+        if (response != null) {
+            subscription.acknowledge(response.getNotificationMessage().getSequenceNumber());
+        }
+
+        return response;
+    }
+
+    private ServiceRequest<PublishRequest, PublishResponse> newPublishRequest() {
+        RequestHeader header = new RequestHeader(
+            NodeId.NULL_VALUE,
+            DateTime.now(),
+            uint(cycle),
+            uint(0),
+            null,
+            uint(0),
+            null
+        );
+
+        PublishRequest request = new PublishRequest(header, new SubscriptionAcknowledgement[0]);
+
+        return new ServiceRequest<>(request, cycle, null, null);
+    }
+
+    /**
+     * Ignores everything scheduled on it; the benchmark drives the publishing timer itself.
+     */
+    private static class ManualScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+        ManualScheduledExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            return null;
+        }
+
+    }
+
+}
@@ -16,6 +16,9 @@ package org.eclipse.milo.opcua.sdk.client;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.eclipse.milo.opcua.sdk.client.api.AddressSpace;
 import org.eclipse.milo.opcua.sdk.client.api.NodeCache;
@@ -35,9 +38,11 @@ import org.eclipse.milo.opcua.stack.core.serialization.UaRequestMessage;
 import org.eclipse.milo.opcua.stack.core.serialization.UaResponseMessage;
 import org.eclipse.milo.opcua.stack.core.types.DataTypeManager;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
@@ -119,6 +124,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
 import static org.eclipse.milo.opcua.stack.core.util.ConversionUtil.a;
 
@@ -127,6 +133,12 @@ public class OpcUaClient implements UaClient {
     public static final String SDK_VERSION =
         ManifestUtil.read("X-SDK-Version").orElse("dev");
 
+    /**
+     * The most reads or writes coalesced into one request when request batching is enabled, unless the server's
+     * operation limits are lower.
+     */
+    public static final int MAX_BATCH_OPERATIONS = 1000;
+
     static {
         Logger logger = LoggerFactory.getLogger(OpcUaClient.class);
         logger.info("Eclipse Milo OPC UA Stack version: {}", Stack.VERSION);
@@ -148,6 +160,10 @@ public class OpcUaClient implements UaClient {
 
     private final OpcUaSubscriptionManager subscriptionManager;
 
+    private final RequestBatcher requestBatcher;
+
+    private volatile OperationLimits operationLimits = OperationLimits.NONE;
+
     private final UaTcpStackClient stackClient;
     private final SessionFsm sessionFsm;
 
@@ -219,6 +235,52 @@ public class OpcUaClient implements UaClient {
                 });
         });
 
+        sessionFsm.addInitializer((stackClient, session) -> {
+            logger.debug("SessionInitializer: OperationLimits");
+
+            ReadValueId[] readValueIds = Stream.of(
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerRead,
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerWrite,
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerBrowse,
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerMethodCall,
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxNodesPerTranslateBrowsePathsToNodeIds,
+                Identifiers.Server_ServerCapabilities_OperationLimits_MaxMonitoredItemsPerCall
+            ).map(nodeId -> new ReadValueId(
+                nodeId,
+                AttributeId.Value.uid(),
+                null,
+                QualifiedName.NULL_VALUE)
+            ).toArray(ReadValueId[]::new);
+
+            ReadRequest readRequest = new ReadRequest(
+                newRequestHeader(session.getAuthenticationToken()),
+                0.0,
+                TimestampsToReturn.Neither,
+                readValueIds
+            );
+
+            return stackClient.<ReadResponse>sendRequest(readRequest)
+                .thenApply(response -> Objects.requireNonNull(response.getResults()))
+                .thenAccept(results -> {
+                    operationLimits = new OperationLimits(
+                        operationLimit(results[0]),
+                        operationLimit(results[1]),
+                        operationLimit(results[2]),
+                        operationLimit(results[3]),
+                        operationLimit(results[4]),
+                        operationLimit(results[5])
+                    );
+
+                    logger.debug("SessionInitializer: {}", operationLimits);
+                })
+                .thenApply(v -> Unit.VALUE)
+                .exceptionally(ex -> {
+                    logger.warn("SessionInitializer: OperationLimits", ex);
+                    operationLimits = OperationLimits.NONE;
+                    return Unit.VALUE;
+                });
+        });
+
 
         stackClient = new UaTcpStackClient(config);
 
@@ -227,6 +289,17 @@ public class OpcUaClient implements UaClient {
         addressSpace = new DefaultAddressSpace(this);
         subscriptionManager = new OpcUaSubscriptionManager(this);
 
+        long batchingWindow = config.getRequestBatchingWindow().longValue();
+
+        requestBatcher = batchingWindow > 0 ?
+            new RequestBatcher(
+                this::sendRead,
+                this::sendWrite,
+                batchingWindow,
+                () -> maxBatchOperations(operationLimits.getMaxNodesPerRead()),
+                () -> maxBatchOperations(operationLimits.getMaxNodesPerWrite()),
+                Stack.sharedScheduledExecutor()) : null;
+
         TypeRegistryInitializer.initialize(typeRegistry);
     }
 
@@ -261,6 +334,13 @@ public class OpcUaClient implements UaClient {
         return namespaceTable;
     }
 
+    /**
+     * @return the {@link OperationLimits} of the server, as read when the session was last activated.
+     */
+    public OperationLimits getOperationLimits() {
+        return operationLimits;
+    }
+
     /**
      * Build a new {@link RequestHeader} using a null authentication token.
      *
@@ -340,26 +420,57 @@ public class OpcUaClient implements UaClient {
                                                 TimestampsToReturn timestampsToReturn,
                                                 List<ReadValueId> readValueIds) {
 
-        return getSession().thenCompose(session -> {
-            ReadRequest request = new ReadRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                maxAge,
-                timestampsToReturn,
-                a(readValueIds, ReadValueId.class));
+        if (requestBatcher != null) {
+            return requestBatcher.read(maxAge, timestampsToReturn, readValueIds);
+        } else {
+            return sendRead(maxAge, timestampsToReturn, readValueIds);
+        }
+    }
 
-            return sendRequest(request);
-        });
+    private CompletableFuture<ReadResponse> sendRead(double maxAge,
+                                                     TimestampsToReturn timestampsToReturn,
+                                                     List<ReadValueId> readValueIds) {
+
+        return split(
+            readValueIds,
+            operationLimits.getMaxNodesPerRead(),
+            chunk -> getSession().thenCompose(session -> {
+                ReadRequest request = new ReadRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    maxAge,
+                    timestampsToReturn,
+                    a(chunk, ReadValueId.class));
+
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedReads,
+            OperationSplitter::combineReads
+        );
     }
 
     @Override
     public CompletableFuture<WriteResponse> write(List<WriteValue> writeValues) {
-        return getSession().thenCompose(session -> {
-            WriteRequest request = new WriteRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                a(writeValues, WriteValue.class));
+        if (requestBatcher != null) {
+            return requestBatcher.write(writeValues);
+        } else {
+            return sendWrite(writeValues);
+        }
+    }
 
-            return sendRequest(request);
-        });
+    private CompletableFuture<WriteResponse> sendWrite(List<WriteValue> writeValues) {
+        return split(
+            writeValues,
+            operationLimits.getMaxNodesPerWrite(),
+            chunk -> getSession().thenCompose(session -> {
+                WriteRequest request = new WriteRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    a(chunk, WriteValue.class));
+
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedWrites,
+            OperationSplitter::combineWrites
+        );
     }
 
     @Override
@@ -400,15 +511,21 @@ public class OpcUaClient implements UaClient {
                                                     UInteger maxReferencesPerNode,
                                                     List<BrowseDescription> nodesToBrowse) {
 
-        return getSession().thenCompose(session -> {
-            BrowseRequest request = new BrowseRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                viewDescription,
-                maxReferencesPerNode,
-                a(nodesToBrowse, BrowseDescription.class));
+        return split(
+            nodesToBrowse,
+            operationLimits.getMaxNodesPerBrowse(),
+            chunk -> getSession().thenCompose(session -> {
+                BrowseRequest request = new BrowseRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    viewDescription,
+                    maxReferencesPerNode,
+                    a(chunk, BrowseDescription.class));
 
-            return sendRequest(request);
-        });
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedBrowses,
+            OperationSplitter::combineBrowses
+        );
     }
 
     @Override
@@ -427,13 +544,19 @@ public class OpcUaClient implements UaClient {
 
     @Override
     public CompletableFuture<TranslateBrowsePathsToNodeIdsResponse> translateBrowsePaths(List<BrowsePath> browsePaths) {
-        return getSession().thenCompose(session -> {
-            TranslateBrowsePathsToNodeIdsRequest request = new TranslateBrowsePathsToNodeIdsRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                a(browsePaths, BrowsePath.class));
+        return split(
+            browsePaths,
+            operationLimits.getMaxNodesPerTranslateBrowsePathsToNodeIds(),
+            chunk -> getSession().thenCompose(session -> {
+                TranslateBrowsePathsToNodeIdsRequest request = new TranslateBrowsePathsToNodeIdsRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    a(chunk, BrowsePath.class));
 
-            return sendRequest(request);
-        });
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedTranslateBrowsePaths,
+            OperationSplitter::combineTranslateBrowsePaths
+        );
     }
 
     @Override
@@ -460,13 +583,19 @@ public class OpcUaClient implements UaClient {
 
     @Override
     public CompletableFuture<CallResponse> call(List<CallMethodRequest> methodsToCall) {
-        return getSession().thenCompose(session -> {
-            CallRequest request = new CallRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                a(methodsToCall, CallMethodRequest.class));
+        return split(
+            methodsToCall,
+            operationLimits.getMaxNodesPerMethodCall(),
+            chunk -> getSession().thenCompose(session -> {
+                CallRequest request = new CallRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    a(chunk, CallMethodRequest.class));
 
-            return sendRequest(request);
-        });
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedCalls,
+            OperationSplitter::combineCalls
+        );
     }
 
     @Override
@@ -581,15 +710,21 @@ public class OpcUaClient implements UaClient {
         TimestampsToReturn timestampsToReturn,
         List<MonitoredItemCreateRequest> itemsToCreate) {
 
-        return getSession().thenCompose(session -> {
-            CreateMonitoredItemsRequest request = new CreateMonitoredItemsRequest(
-                newRequestHeader(session.getAuthenticationToken()),
-                subscriptionId,
-                timestampsToReturn,
-                a(itemsToCreate, MonitoredItemCreateRequest.class));
+        return split(
+            itemsToCreate,
+            operationLimits.getMaxMonitoredItemsPerCall(),
+            chunk -> getSession().thenCompose(session -> {
+                CreateMonitoredItemsRequest request = new CreateMonitoredItemsRequest(
+                    newRequestHeader(session.getAuthenticationToken()),
+                    subscriptionId,
+                    timestampsToReturn,
+                    a(chunk, MonitoredItemCreateRequest.class));
 
-            return sendRequest(request);
-        });
+                return sendRequest(request);
+            }),
+            OperationSplitter::failedCreateMonitoredItems,
+            OperationSplitter::combineCreateMonitoredItems
+        );
     }
 
     @Override
@@ -710,6 +845,32 @@ public class OpcUaClient implements UaClient {
         return sessionFsm.getSession();
     }
 
+
+    private <T, R> CompletableFuture<R> split(
+        List<T> operations,
+        UInteger limit,
+        Function<List<T>, CompletableFuture<R>> service,
+        BiFunction<Integer, StatusCode, R> failed,
+        Function<List<R>, R> combiner) {
+
+        int maxInFlight = (int) Math.min(config.getMaxInFlightSplitRequests().longValue(), Integer.MAX_VALUE);
+
+        return OperationSplitter.split(operations, limit, maxInFlight, service, failed, combiner);
+    }
+
+    private static int maxBatchOperations(UInteger limit) {
+        long l = limit.longValue();
+
+        return l == 0 ? MAX_BATCH_OPERATIONS : (int) Math.min(l, MAX_BATCH_OPERATIONS);
+    }
+
+    private static UInteger operationLimit(DataValue value) {
+        Object o = value.getValue().getValue();
+
+        return value.getStatusCode() != null && value.getStatusCode().isGood() && o instanceof UInteger ?
+            (UInteger) o : uint(0);
+    }
+
     @Override
     public <T extends UaResponseMessage> CompletableFuture<T> sendRequest(UaRequestMessage request) {
         CompletableFuture<T> f = getStackClient().sendRequest(request);
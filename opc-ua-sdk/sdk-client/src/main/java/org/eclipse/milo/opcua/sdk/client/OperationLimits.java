@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client;
+
+import com.google.common.base.MoreObjects;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * The operation limits of a server, read from Server/ServerCapabilities/OperationLimits when a session is activated.
+ * <p>
+ * A limit of 0 means the server has no limit, or didn't say what it is.
+ */
+public class OperationLimits {
+
+    public static final OperationLimits NONE = new OperationLimits(
+        uint(0), uint(0), uint(0), uint(0), uint(0), uint(0));
+
+    private final UInteger maxNodesPerRead;
+    private final UInteger maxNodesPerWrite;
+    private final UInteger maxNodesPerBrowse;
+    private final UInteger maxNodesPerMethodCall;
+    private final UInteger maxNodesPerTranslateBrowsePathsToNodeIds;
+    private final UInteger maxMonitoredItemsPerCall;
+
+    public OperationLimits(
+        UInteger maxNodesPerRead,
+        UInteger maxNodesPerWrite,
+        UInteger maxNodesPerBrowse,
+        UInteger maxNodesPerMethodCall,
+        UInteger maxNodesPerTranslateBrowsePathsToNodeIds,
+        UInteger maxMonitoredItemsPerCall) {
+
+        this.maxNodesPerRead = maxNodesPerRead;
+        this.maxNodesPerWrite = maxNodesPerWrite;
+        this.maxNodesPerBrowse = maxNodesPerBrowse;
+        this.maxNodesPerMethodCall = maxNodesPerMethodCall;
+        this.maxNodesPerTranslateBrowsePathsToNodeIds = maxNodesPerTranslateBrowsePathsToNodeIds;
+        this.maxMonitoredItemsPerCall = maxMonitoredItemsPerCall;
+    }
+
+    public UInteger getMaxNodesPerRead() {
+        return maxNodesPerRead;
+    }
+
+    public UInteger getMaxNodesPerWrite() {
+        return maxNodesPerWrite;
+    }
+
+    public UInteger getMaxNodesPerBrowse() {
+        return maxNodesPerBrowse;
+    }
+
+    public UInteger getMaxNodesPerMethodCall() {
+        return maxNodesPerMethodCall;
+    }
+
+    public UInteger getMaxNodesPerTranslateBrowsePathsToNodeIds() {
+        return maxNodesPerTranslateBrowsePathsToNodeIds;
+    }
+
+    public UInteger getMaxMonitoredItemsPerCall() {
+        return maxMonitoredItemsPerCall;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("maxNodesPerRead", maxNodesPerRead)
+            .add("maxNodesPerWrite", maxNodesPerWrite)
+            .add("maxNodesPerBrowse", maxNodesPerBrowse)
+            .add("maxNodesPerMethodCall", maxNodesPerMethodCall)
+            .add("maxNodesPerTranslateBrowsePathsToNodeIds", maxNodesPerTranslateBrowsePathsToNodeIds)
+            .add("maxMonitoredItemsPerCall", maxMonitoredItemsPerCall)
+            .toString();
+    }
+
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.serialization.UaResponseMessage;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DiagnosticInfo;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowsePathResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.CallMethodResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.CallResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.CreateMonitoredItemsResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.TranslateBrowsePathsToNodeIdsResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteResponse;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.util.FutureUtils.failedFuture;
+
+/**
+ * Splits the operations of a service call that exceed the server's operation limit into requests of at most that
+ * many operations, sends them with no more than {@code maxInFlight} outstanding at once, and combines their
+ * responses into one, with the results in the order of the operations.
+ * <p>
+ * A request that fails doesn't fail the call, because the operations of the other requests may already have taken
+ * effect, e.g. values written or methods called: the results of its operations carry the StatusCode it failed with
+ * instead, and the other requests are still sent. Only if every request fails does the call fail, with the error of
+ * the first to fail. The combined response has the ResponseHeader of the first request that succeeded.
+ */
+class OperationSplitter {
+
+    private OperationSplitter() {}
+
+    /**
+     * @param operations  the operations of the call.
+     * @param limit       the most operations the server accepts per request, or 0 for no limit.
+     * @param maxInFlight the most requests to have outstanding at once.
+     * @param service     sends a request for some of the operations.
+     * @param failed      builds the response standing in for a request of the given number of operations that failed
+     *                    with the given StatusCode.
+     * @param combiner    combines the responses, in the order of their operations, into one.
+     * @return the response to the call.
+     */
+    static <T, R> CompletableFuture<R> split(
+        List<T> operations,
+        UInteger limit,
+        int maxInFlight,
+        Function<List<T>, CompletableFuture<R>> service,
+        BiFunction<Integer, StatusCode, R> failed,
+        Function<List<R>, R> combiner) {
+
+        long l = limit.longValue();
+
+        if (l == 0 || operations.size() <= l) {
+            return service.apply(operations);
+        }
+
+        List<List<T>> chunks = Lists.partition(operations, (int) l);
+
+        return new SplitCall<>(chunks, service, failed, combiner).send(Math.max(1, maxInFlight));
+    }
+
+    static ReadResponse failedReads(int count, StatusCode statusCode) {
+        return new ReadResponse(null, fill(count, new DataValue(statusCode), DataValue[]::new), null);
+    }
+
+    static WriteResponse failedWrites(int count, StatusCode statusCode) {
+        return new WriteResponse(null, fill(count, statusCode, StatusCode[]::new), null);
+    }
+
+    static BrowseResponse failedBrowses(int count, StatusCode statusCode) {
+        return new BrowseResponse(
+            null,
+            fill(count, new BrowseResult(statusCode, null, null), BrowseResult[]::new),
+            null
+        );
+    }
+
+    static CallResponse failedCalls(int count, StatusCode statusCode) {
+        return new CallResponse(
+            null,
+            fill(count, new CallMethodResult(statusCode, null, null, null), CallMethodResult[]::new),
+            null
+        );
+    }
+
+    static CreateMonitoredItemsResponse failedCreateMonitoredItems(int count, StatusCode statusCode) {
+        MonitoredItemCreateResult result = new MonitoredItemCreateResult(statusCode, uint(0), 0.0, uint(0), null);
+
+        return new CreateMonitoredItemsResponse(null, fill(count, result, MonitoredItemCreateResult[]::new), null);
+    }
+
+    static TranslateBrowsePathsToNodeIdsResponse failedTranslateBrowsePaths(int count, StatusCode statusCode) {
+        return new TranslateBrowsePathsToNodeIdsResponse(
+            null,
+            fill(count, new BrowsePathResult(statusCode, null), BrowsePathResult[]::new),
+            null
+        );
+    }
+
+    static ReadResponse combineReads(List<ReadResponse> responses) {
+        return new ReadResponse(
+            header(responses),
+            concat(responses, ReadResponse::getResults, DataValue[]::new),
+            concatDiagnostics(responses, ReadResponse::getResults, ReadResponse::getDiagnosticInfos)
+        );
+    }
+
+    static WriteResponse combineWrites(List<WriteResponse> responses) {
+        return new WriteResponse(
+            header(responses),
+            concat(responses, WriteResponse::getResults, StatusCode[]::new),
+            concatDiagnostics(responses, WriteResponse::getResults, WriteResponse::getDiagnosticInfos)
+        );
+    }
+
+    static BrowseResponse combineBrowses(List<BrowseResponse> responses) {
+        return new BrowseResponse(
+            header(responses),
+            concat(responses, BrowseResponse::getResults, BrowseResult[]::new),
+            concatDiagnostics(responses, BrowseResponse::getResults, BrowseResponse::getDiagnosticInfos)
+        );
+    }
+
+    static CallResponse combineCalls(List<CallResponse> responses) {
+        return new CallResponse(
+            header(responses),
+            concat(responses, CallResponse::getResults, CallMethodResult[]::new),
+            concatDiagnostics(responses, CallResponse::getResults, CallResponse::getDiagnosticInfos)
+        );
+    }
+
+    static CreateMonitoredItemsResponse combineCreateMonitoredItems(List<CreateMonitoredItemsResponse> responses) {
+        return new CreateMonitoredItemsResponse(
+            header(responses),
+            concat(responses, CreateMonitoredItemsResponse::getResults, MonitoredItemCreateResult[]::new),
+            concatDiagnostics(
+                responses,
+                CreateMonitoredItemsResponse::getResults,
+                CreateMonitoredItemsResponse::getDiagnosticInfos)
+        );
+    }
+
+    static TranslateBrowsePathsToNodeIdsResponse combineTranslateBrowsePaths(
+        List<TranslateBrowsePathsToNodeIdsResponse> responses) {
+
+        return new TranslateBrowsePathsToNodeIdsResponse(
+            header(responses),
+            concat(responses, TranslateBrowsePathsToNodeIdsResponse::getResults, BrowsePathResult[]::new),
+            concatDiagnostics(
+                responses,
+                TranslateBrowsePathsToNodeIdsResponse::getResults,
+                TranslateBrowsePathsToNodeIdsResponse::getDiagnosticInfos)
+        );
+    }
+
+    private static <U> U[] fill(int count, U result, IntFunction<U[]> newArray) {
+        U[] results = newArray.apply(count);
+
+        Arrays.fill(results, result);
+
+        return results;
+    }
+
+    private static <R extends UaResponseMessage> ResponseHeader header(List<R> responses) {
+        // the responses standing in for failed requests have none
+        for (R response : responses) {
+            if (response.getResponseHeader() != null) {
+                return response.getResponseHeader();
+            }
+        }
+
+        return null;
+    }
+
+    private static <R, U> U[] concat(List<R> responses, Function<R, U[]> getResults, IntFunction<U[]> newArray) {
+        List<U> results = Lists.newArrayList();
+
+        for (R response : responses) {
+            U[] rs = getResults.apply(response);
+
+            if (rs != null) {
+                results.addAll(Lists.newArrayList(rs));
+            }
+        }
+
+        return results.toArray(newArray.apply(results.size()));
+    }
+
+    private static <R> DiagnosticInfo[] concatDiagnostics(
+        List<R> responses,
+        Function<R, Object[]> getResults,
+        Function<R, DiagnosticInfo[]> getDiagnosticInfos) {
+
+        // only meaningful if every response has one per operation; otherwise none were asked for
+        List<DiagnosticInfo> diagnosticInfos = Lists.newArrayList();
+
+        for (R response : responses) {
+            Object[] results = getResults.apply(response);
+            DiagnosticInfo[] infos = getDiagnosticInfos.apply(response);
+
+            if (results == null || infos == null || infos.length != results.length) {
+                return new DiagnosticInfo[0];
+            }
+
+            diagnosticInfos.addAll(Lists.newArrayList(infos));
+        }
+
+        return diagnosticInfos.toArray(new DiagnosticInfo[0]);
+    }
+
+    private static class SplitCall<T, R> {
+
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final AtomicInteger remaining;
+        private final AtomicInteger failures = new AtomicInteger(0);
+        private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        private final AtomicReferenceArray<R> responses;
+
+        private final List<List<T>> chunks;
+        private final Function<List<T>, CompletableFuture<R>> service;
+        private final BiFunction<Integer, StatusCode, R> failed;
+        private final Function<List<R>, R> combiner;
+
+        SplitCall(
+            List<List<T>> chunks,
+            Function<List<T>, CompletableFuture<R>> service,
+            BiFunction<Integer, StatusCode, R> failed,
+            Function<List<R>, R> combiner) {
+
+            this.chunks = chunks;
+            this.service = service;
+            this.failed = failed;
+            this.combiner = combiner;
+
+            remaining = new AtomicInteger(chunks.size());
+            responses = new AtomicReferenceArray<>(chunks.size());
+        }
+
+        CompletableFuture<R> send(int maxInFlight) {
+            for (int i = 0; i < Math.min(maxInFlight, chunks.size()); i++) {
+                sendNext();
+            }
+
+            return future;
+        }
+
+        private void sendNext() {
+            int index = next.getAndIncrement();
+
+            if (index >= chunks.size()) return;
+
+            CompletableFuture<R> sent;
+
+            try {
+                sent = service.apply(chunks.get(index));
+            } catch (Throwable t) {
+                sent = failedFuture(t);
+            }
+
+            sent.whenComplete((response, ex) -> {
+                if (response != null) {
+                    responses.set(index, response);
+                } else {
+                    StatusCode statusCode = UaException.extract(ex)
+                        .map(UaException::getStatusCode)
+                        .orElse(StatusCode.BAD);
+
+                    firstFailure.compareAndSet(null, ex);
+                    failures.incrementAndGet();
+
+                    responses.set(index, failed.apply(chunks.get(index).size(), statusCode));
+                }
+
+                if (remaining.decrementAndGet() == 0) {
+                    complete();
+                } else {
+                    sendNext();
+                }
+            });
+        }
+
+        private void complete() {
+            if (failures.get() == chunks.size()) {
+                future.completeExceptionally(firstFailure.get());
+                return;
+            }
+
+            List<R> rs = Lists.newArrayListWithCapacity(chunks.size());
+
+            for (int i = 0; i < chunks.size(); i++) {
+                rs.add(responses.get(i));
+            }
+
+            try {
+                future.complete(combiner.apply(rs));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DiagnosticInfo;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.jooq.lambda.tuple.Tuple2;
+
+import static org.eclipse.milo.opcua.stack.core.util.FutureUtils.failedFuture;
+
+/**
+ * Coalesces the reads and writes made within a short window into one ReadRequest or WriteRequest, and splits the
+ * response back into a response for each caller.
+ * <p>
+ * A batch is sent when the window that started with its first operations closes, or as soon as it holds the most
+ * operations allowed per request. Reads are only coalesced with reads of the same maxAge and TimestampsToReturn; the
+ * state kept for each such pair is dropped once its batch has been sent, so callers using many different maxAge values
+ * don't accumulate it.
+ * Calls with that many operations of their own, or none, are sent straight away.
+ * <p>
+ * Each caller gets a response with the results of its own operations, in order, and the ResponseHeader of the
+ * request they were sent in. If that request fails, every caller in it fails the same way. Nothing is guaranteed
+ * about the order in which calls that aren't waited on reach the server; that's no different from sending them as
+ * separate requests.
+ */
+class RequestBatcher {
+
+    interface ReadService {
+
+        CompletableFuture<ReadResponse> read(
+            double maxAge,
+            TimestampsToReturn timestampsToReturn,
+            List<ReadValueId> readValueIds);
+
+    }
+
+    private final ConcurrentMap<Tuple2<Double, TimestampsToReturn>, Coalescer<ReadValueId, ReadResponse>> reads =
+        Maps.newConcurrentMap();
+
+    private final Coalescer<WriteValue, WriteResponse> writes;
+
+    private final ReadService readService;
+    private final IntSupplier maxReadOperations;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param readService        sends a ReadRequest.
+     * @param writeService       sends a WriteRequest.
+     * @param windowMillis       the time, in milliseconds, operations are held to be coalesced with others.
+     * @param maxReadOperations  the most reads to coalesce into one request.
+     * @param maxWriteOperations the most writes to coalesce into one request.
+     * @param scheduler          the {@link ScheduledExecutorService} windows are closed on.
+     */
+    RequestBatcher(
+        ReadService readService,
+        Function<List<WriteValue>, CompletableFuture<WriteResponse>> writeService,
+        long windowMillis,
+        IntSupplier maxReadOperations,
+        IntSupplier maxWriteOperations,
+        ScheduledExecutorService scheduler) {
+
+        this.readService = readService;
+        this.maxReadOperations = maxReadOperations;
+        this.windowMillis = windowMillis;
+        this.scheduler = scheduler;
+
+        writes = new Coalescer<>(writeService, maxWriteOperations, RequestBatcher::split);
+    }
+
+    CompletableFuture<ReadResponse> read(
+        double maxAge,
+        TimestampsToReturn timestampsToReturn,
+        List<ReadValueId> readValueIds) {
+
+        Coalescer<ReadValueId, ReadResponse> coalescer = reads.computeIfAbsent(
+            new Tuple2<>(maxAge, timestampsToReturn),
+            k -> new Coalescer<ReadValueId, ReadResponse>(
+                ids -> readService.read(maxAge, timestampsToReturn, ids),
+                maxReadOperations,
+                RequestBatcher::split) {
+
+                @Override
+                void onIdle() {
+                    // a caller that still holds this Coalescer can use it, it just won't be found by the next one.
+                    reads.remove(k, this);
+                }
+            }
+        );
+
+        return coalescer.submit(readValueIds);
+    }
+
+    CompletableFuture<WriteResponse> write(List<WriteValue> writeValues) {
+        return writes.submit(writeValues);
+    }
+
+    /**
+     * @return the number of distinct maxAge and TimestampsToReturn pairs reads are currently being coalesced for.
+     */
+    int getReadCoalescerCount() {
+        return reads.size();
+    }
+
+    private static ReadResponse split(ReadResponse response, int offset, int count, int total) throws UaException {
+        return new ReadResponse(
+            response.getResponseHeader(),
+            slice(response.getResults(), offset, count, total),
+            slice(response.getDiagnosticInfos(), offset, count)
+        );
+    }
+
+    private static WriteResponse split(WriteResponse response, int offset, int count, int total) throws UaException {
+        return new WriteResponse(
+            response.getResponseHeader(),
+            slice(response.getResults(), offset, count, total),
+            slice(response.getDiagnosticInfos(), offset, count)
+        );
+    }
+
+    private static <T> T[] slice(T[] results, int offset, int count, int total) throws UaException {
+        if (results == null || results.length != total) {
+            throw new UaException(
+                StatusCodes.Bad_UnexpectedError,
+                String.format("expected %d results, received %d", total, results == null ? 0 : results.length)
+            );
+        }
+
+        return Arrays.copyOfRange(results, offset, offset + count);
+    }
+
+    private static DiagnosticInfo[] slice(DiagnosticInfo[] diagnosticInfos, int offset, int count) {
+        // only returned per operation if asked for; otherwise empty
+        if (diagnosticInfos == null || diagnosticInfos.length < offset + count) {
+            return diagnosticInfos;
+        } else {
+            return Arrays.copyOfRange(diagnosticInfos, offset, offset + count);
+        }
+    }
+
+    private interface Splitter<R> {
+
+        R split(R response, int offset, int count, int total) throws UaException;
+
+    }
+
+    private class Coalescer<T, R> {
+
+        private Batch<T, R> batch;
+
+        private final Function<List<T>, CompletableFuture<R>> service;
+        private final IntSupplier maxOperationsSupplier;
+        private final Splitter<R> splitter;
+
+        Coalescer(
+            Function<List<T>, CompletableFuture<R>> service,
+            IntSupplier maxOperationsSupplier,
+            Splitter<R> splitter) {
+
+            this.service = service;
+            this.maxOperationsSupplier = maxOperationsSupplier;
+            this.splitter = splitter;
+        }
+
+        CompletableFuture<R> submit(List<T> operations) {
+            int maxOperations = maxOperationsSupplier.getAsInt();
+
+            if (operations.isEmpty() || operations.size() >= maxOperations) {
+                return service.apply(operations);
+            }
+
+            CompletableFuture<R> future = new CompletableFuture<>();
+
+            Batch<T, R> overflowed = null;
+            Batch<T, R> full = null;
+
+            synchronized (this) {
+                if (batch != null && batch.operations.size() + operations.size() > maxOperations) {
+                    overflowed = close();
+                }
+
+                if (batch == null) {
+                    Batch<T, R> b = new Batch<>();
+                    b.window = scheduler.schedule(() -> flush(b), windowMillis, TimeUnit.MILLISECONDS);
+                    batch = b;
+                }
+
+                batch.add(operations, future);
+
+                if (batch.operations.size() >= maxOperations) {
+                    full = close();
+                    onIdle();
+                }
+            }
+
+            if (overflowed != null) send(overflowed);
+            if (full != null) send(full);
+
+            return future;
+        }
+
+        /**
+         * Called, while synchronized on this Coalescer, when its batch has been taken to be sent and there's no other.
+         */
+        void onIdle() {}
+
+        private Batch<T, R> close() {
+            Batch<T, R> b = batch;
+            batch = null;
+            b.window.cancel(false);
+            return b;
+        }
+
+        private void flush(Batch<T, R> b) {
+            synchronized (this) {
+                if (batch != b) return;
+
+                batch = null;
+                onIdle();
+            }
+
+            send(b);
+        }
+
+        private void send(Batch<T, R> b) {
+            int total = b.operations.size();
+
+            CompletableFuture<R> sent;
+
+            try {
+                sent = service.apply(b.operations);
+            } catch (Throwable t) {
+                sent = failedFuture(t);
+            }
+
+            sent.whenComplete((response, ex) -> {
+                for (Caller<R> caller : b.callers) {
+                    if (response != null) {
+                        try {
+                            caller.future.complete(splitter.split(response, caller.offset, caller.count, total));
+                        } catch (UaException e) {
+                            caller.future.completeExceptionally(e);
+                        }
+                    } else {
+                        caller.future.completeExceptionally(ex);
+                    }
+                }
+            });
+        }
+
+    }
+
+    private static class Batch<T, R> {
+
+        private final List<T> operations = Lists.newArrayList();
+        private final List<Caller<R>> callers = Lists.newArrayList();
+
+        private ScheduledFuture<?> window;
+
+        void add(List<T> operations, CompletableFuture<R> future) {
+            callers.add(new Caller<>(future, this.operations.size(), operations.size()));
+
+            this.operations.addAll(operations);
+        }
+
+    }
+
+    private static class Caller<R> {
+
+        private final CompletableFuture<R> future;
+        private final int offset;
+        private final int count;
+
+        Caller(CompletableFuture<R> future, int offset, int count) {
+            this.future = future;
+            this.offset = offset;
+            this.count = count;
+        }
+
+    }
+
+}
@@ -18,6 +18,9 @@ import java.util.function.Supplier;
 
 import org.eclipse.milo.opcua.binaryschema.parser.BsdParser;
 import org.eclipse.milo.opcua.sdk.client.api.identity.IdentityProvider;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager.SubscriptionListener;
 import org.eclipse.milo.opcua.stack.client.config.UaTcpStackClientConfig;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
@@ -49,6 +52,44 @@ public interface OpcUaClientConfig extends UaTcpStackClientConfig {
      */
     UInteger getMaxPendingPublishRequests();
 
+    /**
+     * @return how notifications are delivered to subscriptions.
+     */
+    NotificationDeliveryMode getNotificationDeliveryMode();
+
+    /**
+     * @return the delay, in milliseconds, between receiving a NotificationMessage and starting to deliver it beyond
+     * which {@link SubscriptionListener#onNotificationDeliveryLagged(UaSubscription, long)} is called, or 0 to never
+     * call it.
+     */
+    UInteger getNotificationDeliveryLagThreshold();
+
+    /**
+     * @return the maximum number of NotificationMessages queued for delivery on a subscription, when notifications are
+     * delivered {@link NotificationDeliveryMode#PER_SUBSCRIPTION per subscription}, before the next
+     * {@link PublishRequest} waits for them to be delivered.
+     */
+    UInteger getMaxQueuedNotificationMessages();
+
+    /**
+     * @return {@code true} if the number of outstanding {@link PublishRequest}s is sized from the measured round trip,
+     * the publishing intervals of the subscriptions, and the server's feedback, rather than kept at one per
+     * subscription plus one. Either way it never exceeds {@link #getMaxPendingPublishRequests()}.
+     */
+    boolean isAdaptivePublishPipeliningEnabled();
+
+    /**
+     * @return the time, in milliseconds, concurrent reads and writes are held to be coalesced into one ReadRequest or
+     * WriteRequest, or 0 to send each as its own request.
+     */
+    UInteger getRequestBatchingWindow();
+
+    /**
+     * @return the maximum number of requests outstanding at once for a read, write, browse, call,
+     * createMonitoredItems, or translateBrowsePaths that's split because it exceeds the server's operation limits.
+     */
+    UInteger getMaxInFlightSplitRequests();
+
     /**
      * @return an {@link IdentityProvider} to use when activating a session.
      */
@@ -98,6 +139,12 @@ public interface OpcUaClientConfig extends UaTcpStackClientConfig {
         builder.setRequestTimeout(config.getRequestTimeout());
         builder.setMaxResponseMessageSize(config.getMaxResponseMessageSize());
         builder.setMaxPendingPublishRequests(config.getMaxPendingPublishRequests());
+        builder.setNotificationDeliveryMode(config.getNotificationDeliveryMode());
+        builder.setNotificationDeliveryLagThreshold(config.getNotificationDeliveryLagThreshold());
+        builder.setMaxQueuedNotificationMessages(config.getMaxQueuedNotificationMessages());
+        builder.setAdaptivePublishPipeliningEnabled(config.isAdaptivePublishPipeliningEnabled());
+        builder.setRequestBatchingWindow(config.getRequestBatchingWindow());
+        builder.setMaxInFlightSplitRequests(config.getMaxInFlightSplitRequests());
         builder.setIdentityProvider(config.getIdentityProvider());
         builder.setBsdParser(config.getBsdParser());
 
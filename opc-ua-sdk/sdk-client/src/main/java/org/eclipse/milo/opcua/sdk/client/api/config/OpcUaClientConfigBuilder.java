@@ -25,6 +25,7 @@ import org.eclipse.milo.opcua.binaryschema.GenericBsdParser;
 import org.eclipse.milo.opcua.binaryschema.parser.BsdParser;
 import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
 import org.eclipse.milo.opcua.sdk.client.api.identity.IdentityProvider;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
 import org.eclipse.milo.opcua.stack.client.config.UaTcpStackClientConfig;
 import org.eclipse.milo.opcua.stack.client.config.UaTcpStackClientConfigBuilder;
 import org.eclipse.milo.opcua.stack.core.application.CertificateValidator;
@@ -43,6 +44,12 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
     private UInteger maxResponseMessageSize = uint(0);
     private UInteger requestTimeout = uint(60000);
     private UInteger maxPendingPublishRequests = uint(UInteger.MAX_VALUE);
+    private NotificationDeliveryMode notificationDeliveryMode = NotificationDeliveryMode.SERIAL;
+    private UInteger notificationDeliveryLagThreshold = uint(0);
+    private UInteger maxQueuedNotificationMessages = uint(10);
+    private boolean adaptivePublishPipeliningEnabled = false;
+    private UInteger requestBatchingWindow = uint(0);
+    private UInteger maxInFlightSplitRequests = uint(4);
     private IdentityProvider identityProvider = new AnonymousProvider();
     private BsdParser bsdParser = new GenericBsdParser();
 
@@ -66,6 +73,36 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
         return this;
     }
 
+    public OpcUaClientConfigBuilder setNotificationDeliveryMode(NotificationDeliveryMode notificationDeliveryMode) {
+        this.notificationDeliveryMode = notificationDeliveryMode;
+        return this;
+    }
+
+    public OpcUaClientConfigBuilder setNotificationDeliveryLagThreshold(UInteger notificationDeliveryLagThreshold) {
+        this.notificationDeliveryLagThreshold = notificationDeliveryLagThreshold;
+        return this;
+    }
+
+    public OpcUaClientConfigBuilder setMaxQueuedNotificationMessages(UInteger maxQueuedNotificationMessages) {
+        this.maxQueuedNotificationMessages = maxQueuedNotificationMessages;
+        return this;
+    }
+
+    public OpcUaClientConfigBuilder setAdaptivePublishPipeliningEnabled(boolean adaptivePublishPipeliningEnabled) {
+        this.adaptivePublishPipeliningEnabled = adaptivePublishPipeliningEnabled;
+        return this;
+    }
+
+    public OpcUaClientConfigBuilder setRequestBatchingWindow(UInteger requestBatchingWindow) {
+        this.requestBatchingWindow = requestBatchingWindow;
+        return this;
+    }
+
+    public OpcUaClientConfigBuilder setMaxInFlightSplitRequests(UInteger maxInFlightSplitRequests) {
+        this.maxInFlightSplitRequests = maxInFlightSplitRequests;
+        return this;
+    }
+
     public OpcUaClientConfigBuilder setRequestTimeout(UInteger requestTimeout) {
         this.requestTimeout = requestTimeout;
         return this;
@@ -180,6 +217,12 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
             sessionTimeout,
             maxResponseMessageSize,
             maxPendingPublishRequests,
+            notificationDeliveryMode,
+            notificationDeliveryLagThreshold,
+            maxQueuedNotificationMessages,
+            adaptivePublishPipeliningEnabled,
+            requestBatchingWindow,
+            maxInFlightSplitRequests,
             requestTimeout,
             identityProvider,
             bsdParser
@@ -193,6 +236,12 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
         private final UInteger sessionTimeout;
         private final UInteger maxResponseMessageSize;
         private final UInteger maxPendingPublishRequests;
+        private final NotificationDeliveryMode notificationDeliveryMode;
+        private final UInteger notificationDeliveryLagThreshold;
+        private final UInteger maxQueuedNotificationMessages;
+        private final boolean adaptivePublishPipeliningEnabled;
+        private final UInteger requestBatchingWindow;
+        private final UInteger maxInFlightSplitRequests;
         private final UInteger requestTimeout;
         private final IdentityProvider identityProvider;
         private final BsdParser bsdParser;
@@ -202,6 +251,12 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
                                      UInteger sessionTimeout,
                                      UInteger maxResponseMessageSize,
                                      UInteger maxPendingPublishRequests,
+                                     NotificationDeliveryMode notificationDeliveryMode,
+                                     UInteger notificationDeliveryLagThreshold,
+                                     UInteger maxQueuedNotificationMessages,
+                                     boolean adaptivePublishPipeliningEnabled,
+                                     UInteger requestBatchingWindow,
+                                     UInteger maxInFlightSplitRequests,
                                      UInteger requestTimeout,
                                      IdentityProvider identityProvider,
                                      BsdParser bsdParser) {
@@ -211,6 +266,12 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
             this.sessionTimeout = sessionTimeout;
             this.maxResponseMessageSize = maxResponseMessageSize;
             this.maxPendingPublishRequests = maxPendingPublishRequests;
+            this.notificationDeliveryMode = notificationDeliveryMode;
+            this.notificationDeliveryLagThreshold = notificationDeliveryLagThreshold;
+            this.maxQueuedNotificationMessages = maxQueuedNotificationMessages;
+            this.adaptivePublishPipeliningEnabled = adaptivePublishPipeliningEnabled;
+            this.requestBatchingWindow = requestBatchingWindow;
+            this.maxInFlightSplitRequests = maxInFlightSplitRequests;
             this.requestTimeout = requestTimeout;
             this.identityProvider = identityProvider;
             this.bsdParser = bsdParser;
@@ -236,6 +297,36 @@ public class OpcUaClientConfigBuilder extends UaTcpStackClientConfigBuilder {
             return maxPendingPublishRequests;
         }
 
+        @Override
+        public NotificationDeliveryMode getNotificationDeliveryMode() {
+            return notificationDeliveryMode;
+        }
+
+        @Override
+        public UInteger getNotificationDeliveryLagThreshold() {
+            return notificationDeliveryLagThreshold;
+        }
+
+        @Override
+        public UInteger getMaxQueuedNotificationMessages() {
+            return maxQueuedNotificationMessages;
+        }
+
+        @Override
+        public boolean isAdaptivePublishPipeliningEnabled() {
+            return adaptivePublishPipeliningEnabled;
+        }
+
+        @Override
+        public UInteger getRequestBatchingWindow() {
+            return requestBatchingWindow;
+        }
+
+        @Override
+        public UInteger getMaxInFlightSplitRequests() {
+            return maxInFlightSplitRequests;
+        }
+
         @Override
         public UInteger getRequestTimeout() {
             return requestTimeout;
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.api.subscriptions;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+
+/**
+ * The value changes of a DataChangeNotification, as parallel columns of client handles, values, and items.
+ * <p>
+ * A batch is reused from one notification to the next: it is only valid for the duration of
+ * {@link UaSubscription.DataChangeBatchListener#onDataChangeBatch}, and anything needed afterwards must be copied
+ * out of it.
+ */
+public interface DataChangeBatch {
+
+    /**
+     * @return the number of value changes in this batch.
+     */
+    int size();
+
+    /**
+     * @param index the index of the value change, less than {@link #size()}.
+     * @return the client handle of the item whose value changed.
+     */
+    long getClientHandle(int index);
+
+    /**
+     * @param index the index of the value change, less than {@link #size()}.
+     * @return the new value.
+     */
+    DataValue getValue(int index);
+
+    /**
+     * @param index the index of the value change, less than {@link #size()}.
+     * @return the {@link UaMonitoredItem} whose value changed.
+     */
+    UaMonitoredItem getItem(int index);
+
+    /**
+     * The client handle column. Only the first {@link #size()} elements belong to this batch; it must not be modified.
+     *
+     * @return the backing array of client handles.
+     */
+    long[] getClientHandles();
+
+    /**
+     * The value column. Only the first {@link #size()} elements belong to this batch; it must not be modified.
+     *
+     * @return the backing array of values.
+     */
+    DataValue[] getValues();
+
+    /**
+     * The item column. Only the first {@link #size()} elements belong to this batch; it must not be modified.
+     *
+     * @return the backing array of items.
+     */
+    UaMonitoredItem[] getItems();
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.api.subscriptions;
+
+/**
+ * How the notifications received for subscriptions are delivered to their items and listeners.
+ * <p>
+ * Either way, the NotificationMessages of one subscription are delivered one at a time, in the order they were
+ * published.
+ */
+public enum NotificationDeliveryMode {
+
+    /**
+     * The NotificationMessages of all subscriptions are delivered one at a time, in the order they were received.
+     * <p>
+     * A slow consumer on one subscription holds up every other subscription, and the next PublishRequest isn't sent
+     * until a NotificationMessage has been delivered.
+     */
+    SERIAL,
+
+    /**
+     * Each subscription delivers its NotificationMessages on its own queue, so different subscriptions are delivered
+     * in parallel and a slow consumer only holds up its own subscription.
+     * <p>
+     * The next PublishRequest is sent as soon as a NotificationMessage is queued for delivery; a consumer that can't
+     * keep up builds a backlog on its own subscription, which shows as delivery lag, rather than slowing down
+     * publishing for every subscription. Once a subscription has
+     * {@link org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig#getMaxQueuedNotificationMessages()}
+     * NotificationMessages queued, the next PublishRequest waits for delivery again, as it does when delivering
+     * {@link #SERIAL serially}.
+     */
+    PER_SUBSCRIPTION
+
+}
@@ -209,6 +209,20 @@ public interface UaSubscription {
      */
     void removeNotificationListener(NotificationListener listener);
 
+    /**
+     * Add a {@link DataChangeBatchListener}.
+     *
+     * @param listener the {@link DataChangeBatchListener} to add.
+     */
+    void addDataChangeBatchListener(DataChangeBatchListener listener);
+
+    /**
+     * Remove a {@link DataChangeBatchListener}.
+     *
+     * @param listener the {@link DataChangeBatchListener} to remove.
+     */
+    void removeDataChangeBatchListener(DataChangeBatchListener listener);
+
     interface ItemCreationCallback {
 
         void onItemCreated(DataTypeManager dataTypeManager, UaMonitoredItem item, int index);
@@ -264,4 +278,23 @@ public interface UaSubscription {
 
     }
 
+    interface DataChangeBatchListener {
+
+        /**
+         * A notification containing data value changes for this {@link UaSubscription} has arrived.
+         * <p>
+         * Like {@link NotificationListener#onDataChangeNotification}, this callback is invoked after all individual
+         * item callbacks, but the value changes are given as a reused {@link DataChangeBatch} rather than a new list
+         * of tuples, so nothing is allocated per value change to deliver them.
+         * <p>
+         * {@code batch} is only valid until this callback returns.
+         *
+         * @param subscription the {@link UaSubscription} that received the notification.
+         * @param batch        the {@link UaMonitoredItem}s, their client handles, and their corresponding value change.
+         * @param publishTime  the time on the server at which this notification was published.
+         */
+        void onDataChangeBatch(UaSubscription subscription, DataChangeBatch batch, DateTime publishTime);
+
+    }
+
 }
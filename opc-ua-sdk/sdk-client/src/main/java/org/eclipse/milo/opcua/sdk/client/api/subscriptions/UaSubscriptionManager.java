@@ -195,6 +195,19 @@ public interface UaSubscriptionManager {
          */
         default void onNotificationDataLost(UaSubscription subscription) {}
 
+        /**
+         * A NotificationMessage started being delivered later after it was received than the configured
+         * {@link org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig#getNotificationDeliveryLagThreshold()}.
+         * <p>
+         * This usually means a consumer of {@code subscription}, or of another subscription if notifications are
+         * delivered serially, isn't keeping up.
+         *
+         * @param subscription the {@link UaSubscription} the NotificationMessage is for.
+         * @param lagMillis    the time, in milliseconds, between receiving the NotificationMessage and starting to
+         *                     deliver it.
+         */
+        default void onNotificationDeliveryLagged(UaSubscription subscription, long lagMillis) {}
+
         /**
          * A new {@link UaSession} was established, and upon attempting to transfer an existing subscription to this
          * new session, a failure occurred.
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.subscriptions;
+
+import java.util.Arrays;
+
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.DataChangeBatch;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+
+/**
+ * The {@link DataChangeBatch} of an {@link OpcUaSubscription}, filled and cleared once per DataChangeNotification.
+ * Its arrays only grow, so a subscription delivering notifications of a steady size allocates nothing per batch.
+ */
+class OpcUaDataChangeBatch implements DataChangeBatch {
+
+    private long[] clientHandles = new long[0];
+    private DataValue[] values = new DataValue[0];
+    private UaMonitoredItem[] items = new UaMonitoredItem[0];
+    private int size = 0;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getClientHandle(int index) {
+        checkIndex(index);
+
+        return clientHandles[index];
+    }
+
+    @Override
+    public DataValue getValue(int index) {
+        checkIndex(index);
+
+        return values[index];
+    }
+
+    @Override
+    public UaMonitoredItem getItem(int index) {
+        checkIndex(index);
+
+        return items[index];
+    }
+
+    @Override
+    public long[] getClientHandles() {
+        return clientHandles;
+    }
+
+    @Override
+    public DataValue[] getValues() {
+        return values;
+    }
+
+    @Override
+    public UaMonitoredItem[] getItems() {
+        return items;
+    }
+
+    /**
+     * Make room for {@code capacity} value changes.
+     */
+    void ensureCapacity(int capacity) {
+        if (clientHandles.length < capacity) {
+            clientHandles = Arrays.copyOf(clientHandles, capacity);
+            values = Arrays.copyOf(values, capacity);
+            items = Arrays.copyOf(items, capacity);
+        }
+    }
+
+    void add(long clientHandle, DataValue value, UaMonitoredItem item) {
+        if (size == clientHandles.length) {
+            ensureCapacity(Math.max(16, size * 2));
+        }
+
+        clientHandles[size] = clientHandle;
+        values[size] = value;
+        items[size] = item;
+        size++;
+    }
+
+    /**
+     * Empty the batch, dropping its references to values and items so they aren't held until the next notification.
+     */
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+}
@@ -17,11 +17,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
@@ -37,6 +41,8 @@ import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemModifyReq
 import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemModifyResult;
 import org.eclipse.milo.opcua.stack.core.types.structured.SetMonitoringModeResponse;
 import org.eclipse.milo.opcua.stack.core.util.AsyncSemaphore;
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
+import org.eclipse.milo.opcua.stack.core.util.LongObjectHashMap;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.newArrayListWithCapacity;
@@ -45,13 +51,23 @@ import static org.eclipse.milo.opcua.stack.core.util.ConversionUtil.l;
 
 public class OpcUaSubscription implements UaSubscription {
 
-    private final Map<UInteger, OpcUaMonitoredItem> itemsByClientHandle = Maps.newConcurrentMap();
+    // copy-on-write, so delivery reads it without locking; replaced once per create or delete
+    private volatile LongObjectHashMap<OpcUaMonitoredItem> itemsByClientHandle = new LongObjectHashMap<>();
     private final Map<UInteger, OpcUaMonitoredItem> itemsByServerHandle = Maps.newConcurrentMap();
 
     private final List<NotificationListener> notificationListeners = new CopyOnWriteArrayList<>();
+    private final List<DataChangeBatchListener> dataChangeBatchListeners = new CopyOnWriteArrayList<>();
+
+    // only touched while delivering, which holds the notification semaphore
+    private final OpcUaDataChangeBatch dataChangeBatch = new OpcUaDataChangeBatch();
 
     private final AsyncSemaphore notificationSemaphore = new AsyncSemaphore(1);
 
+    private final AtomicLong deliveredCount = new AtomicLong(0L);
+    private final AtomicLong totalDeliveryLagNanos = new AtomicLong(0L);
+    private final AtomicLong maxDeliveryLagNanos = new AtomicLong(0L);
+    private final AtomicInteger queuedNotificationCount = new AtomicInteger(0);
+
     private volatile long lastSequenceNumber = 0L;
 
     private volatile double requestedPublishingInterval = 0.0;
@@ -67,6 +83,8 @@ public class OpcUaSubscription implements UaSubscription {
     private volatile boolean publishingEnabled;
     private volatile UByte priority;
 
+    private final BatchingExecutionQueue deliveryQueue;
+
     private final OpcUaClient client;
     private final UInteger subscriptionId;
 
@@ -88,6 +106,8 @@ public class OpcUaSubscription implements UaSubscription {
         this.maxNotificationsPerPublish = maxNotificationsPerPublish;
         this.publishingEnabled = publishingEnabled;
         this.priority = priority;
+
+        deliveryQueue = new BatchingExecutionQueue(client.getConfig().getExecutor());
     }
 
     @Override
@@ -105,6 +125,7 @@ public class OpcUaSubscription implements UaSubscription {
             List<MonitoredItemCreateResult> results = l(response.getResults());
 
             List<UaMonitoredItem> createdItems = newArrayListWithCapacity(itemsToCreate.size());
+            List<OpcUaMonitoredItem> goodItems = newArrayListWithCapacity(itemsToCreate.size());
 
             for (int i = 0; i < itemsToCreate.size(); i++) {
                 MonitoredItemCreateRequest request = itemsToCreate.get(i);
@@ -127,13 +148,16 @@ public class OpcUaSubscription implements UaSubscription {
                 item.setRequestedQueueSize(request.getRequestedParameters().getQueueSize());
 
                 if (item.getStatusCode().isGood()) {
-                    itemsByClientHandle.put(item.getClientHandle(), item);
+                    goodItems.add(item);
                     itemsByServerHandle.put(item.getMonitoredItemId(), item);
                 }
 
                 createdItems.add(item);
             }
 
+            updateItemsByClientHandle(items -> goodItems.forEach(
+                item -> items.put(item.getClientHandle().longValue(), item)));
+
             return createdItems;
         });
     }
@@ -211,10 +235,12 @@ public class OpcUaSubscription implements UaSubscription {
             List<StatusCode> results = l(response.getResults());
 
             for (UaMonitoredItem item : itemsToDelete) {
-                itemsByClientHandle.remove(item.getClientHandle());
                 itemsByServerHandle.remove(item.getMonitoredItemId());
             }
 
+            updateItemsByClientHandle(items -> itemsToDelete.forEach(
+                item -> items.remove(item.getClientHandle().longValue())));
+
             return results;
         });
     }
@@ -328,18 +354,100 @@ public class OpcUaSubscription implements UaSubscription {
         notificationListeners.remove(listener);
     }
 
+    @Override
+    public void addDataChangeBatchListener(DataChangeBatchListener listener) {
+        dataChangeBatchListeners.add(listener);
+    }
+
+    @Override
+    public void removeDataChangeBatchListener(DataChangeBatchListener listener) {
+        dataChangeBatchListeners.remove(listener);
+    }
+
     List<NotificationListener> getNotificationListeners() {
         return notificationListeners;
     }
 
+    List<DataChangeBatchListener> getDataChangeBatchListeners() {
+        return dataChangeBatchListeners;
+    }
+
+    OpcUaDataChangeBatch getDataChangeBatch() {
+        return dataChangeBatch;
+    }
+
     AsyncSemaphore getNotificationSemaphore() {
         return notificationSemaphore;
     }
 
-    Map<UInteger, OpcUaMonitoredItem> getItemsByClientHandle() {
+    /**
+     * @return the {@link BatchingExecutionQueue} this subscription's notifications are delivered on when the client
+     * delivers notifications {@link NotificationDeliveryMode#PER_SUBSCRIPTION per subscription}.
+     */
+    public BatchingExecutionQueue getDeliveryQueue() {
+        return deliveryQueue;
+    }
+
+    /**
+     * @return the number of NotificationMessages delivered to this subscription.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * @return the total time, in nanoseconds, NotificationMessages for this subscription have waited between being
+     * received and starting to be delivered.
+     */
+    public long getTotalDeliveryLagNanos() {
+        return totalDeliveryLagNanos.get();
+    }
+
+    /**
+     * @return the longest time, in nanoseconds, a single NotificationMessage for this subscription has waited between
+     * being received and starting to be delivered.
+     */
+    public long getMaxDeliveryLagNanos() {
+        return maxDeliveryLagNanos.get();
+    }
+
+    /**
+     * @return the number of NotificationMessages for this subscription that are queued for delivery or being
+     * delivered.
+     */
+    public int getQueuedNotificationCount() {
+        return queuedNotificationCount.get();
+    }
+
+    void incrementQueuedNotificationCount() {
+        queuedNotificationCount.incrementAndGet();
+    }
+
+    void decrementQueuedNotificationCount() {
+        queuedNotificationCount.decrementAndGet();
+    }
+
+    void recordDeliveryLag(long lagNanos) {
+        deliveredCount.incrementAndGet();
+        totalDeliveryLagNanos.addAndGet(lagNanos);
+        maxDeliveryLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    /**
+     * @return a snapshot of the items by client handle; it must not be modified.
+     */
+    LongObjectHashMap<OpcUaMonitoredItem> getItemsByClientHandle() {
         return itemsByClientHandle;
     }
 
+    private synchronized void updateItemsByClientHandle(Consumer<LongObjectHashMap<OpcUaMonitoredItem>> update) {
+        LongObjectHashMap<OpcUaMonitoredItem> items = new LongObjectHashMap<>(itemsByClientHandle);
+
+        update.accept(items);
+
+        itemsByClientHandle = items;
+    }
+
     Map<UInteger, OpcUaMonitoredItem> getItemsByServerHandle() {
         return itemsByServerHandle;
     }
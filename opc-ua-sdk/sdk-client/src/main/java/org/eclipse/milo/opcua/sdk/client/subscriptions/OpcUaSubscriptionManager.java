@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -32,6 +33,7 @@ import com.google.common.collect.Maps;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
 import org.eclipse.milo.opcua.sdk.client.api.UaSession;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager;
@@ -58,7 +60,9 @@ import org.eclipse.milo.opcua.stack.core.types.structured.RepublishResponse;
 import org.eclipse.milo.opcua.stack.core.types.structured.RequestHeader;
 import org.eclipse.milo.opcua.stack.core.types.structured.StatusChangeNotification;
 import org.eclipse.milo.opcua.stack.core.types.structured.SubscriptionAcknowledgement;
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
 import org.eclipse.milo.opcua.stack.core.util.ExecutionQueue;
+import org.eclipse.milo.opcua.stack.core.util.LongObjectHashMap;
 import org.eclipse.milo.opcua.stack.core.util.Unit;
 import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
@@ -85,15 +89,19 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
 
     private final LinkedList<SubscriptionAcknowledgement> acknowledgements = newLinkedList();
 
-    private final ExecutionQueue deliveryQueue;
+    private final BatchingExecutionQueue deliveryQueue;
     private final ExecutionQueue processingQueue;
 
+    private final PublishPipeline publishPipeline = new PublishPipeline();
+
+    private volatile boolean deliveryPaused = false;
+
     private final OpcUaClient client;
 
     public OpcUaSubscriptionManager(OpcUaClient client) {
         this.client = client;
 
-        deliveryQueue = new ExecutionQueue(client.getConfig().getExecutor());
+        deliveryQueue = new BatchingExecutionQueue(client.getConfig().getExecutor());
         processingQueue = new ExecutionQueue(client.getConfig().getExecutor());
 
         client.addSessionActivityListener(new SessionActivityListener() {
@@ -103,6 +111,8 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
                 // publishing again instead of waiting for outstanding PublishRequests
                 // from before the re-activation to expire/timeout.
                 pendingCountMap.replace(session.getSessionId(), new AtomicLong(0));
+
+                publishPipeline.reset();
             }
         });
     }
@@ -171,6 +181,10 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
                 priority
             );
 
+            if (deliveryPaused) {
+                subscription.getDeliveryQueue().pause();
+            }
+
             subscription.setRequestedPublishingInterval(requestedPublishingInterval);
             subscription.setRequestedLifetimeCount(requestedLifetimeCount);
             subscription.setRequestedMaxKeepAliveCount(requestedMaxKeepAliveCount);
@@ -385,9 +399,31 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
         subscriptionListeners.remove(listener);
     }
 
+    /**
+     * @return the {@link PublishPipeline} measuring, and if enabled sizing, the outstanding PublishRequests.
+     */
+    public PublishPipeline getPublishPipeline() {
+        return publishPipeline;
+    }
+
     private long getMaxPendingPublishes() {
         long maxPendingPublishRequests = client.getConfig().getMaxPendingPublishRequests().longValue();
 
+        if (client.getConfig().isAdaptivePublishPipeliningEnabled()) {
+            double notificationsPerMillis = 0.0;
+
+            for (OpcUaSubscription subscription : subscriptions.values()) {
+                double publishingInterval = subscription.getRevisedPublishingInterval();
+
+                if (publishingInterval > 0.0) {
+                    notificationsPerMillis += 1.0 / publishingInterval;
+                }
+            }
+
+            return publishPipeline.computeTarget(
+                subscriptions.size(), notificationsPerMillis, maxPendingPublishRequests);
+        }
+
         return subscriptions.isEmpty() ?
             0 : Math.min(subscriptions.size() + 1, maxPendingPublishRequests);
     }
@@ -428,7 +464,7 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
                 if (pendingCount.incrementAndGet() <= maxPendingPublishes) {
                     sendPublishRequest(session, pendingCount);
                 } else {
-                    pendingCount.getAndUpdate(p -> (p > 0) ? p - 1 : 0);
+                    decrementPendingCount(pendingCount);
                 }
             }
 
@@ -482,12 +518,23 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
                 requestHandle, Arrays.toString(ackStrings));
         }
 
+        long sentNanos = System.nanoTime();
+
+        publishPipeline.onPublishSent(sentNanos);
+
         client.<PublishResponse>sendRequest(request).whenComplete((response, ex) -> {
             if (response != null) {
+                long receivedNanos = System.nanoTime();
+
+                publishPipeline.onPublishResponse(
+                    receivedNanos - sentNanos,
+                    Boolean.TRUE.equals(response.getMoreNotifications())
+                );
+
                 logger.debug("Received PublishResponse, sequenceNumber={}",
                     response.getNotificationMessage().getSequenceNumber());
 
-                processingQueue.submit(() -> onPublishComplete(response, pendingCount));
+                processingQueue.submit(() -> onPublishComplete(response, pendingCount, receivedNanos));
             } else {
                 StatusCode statusCode = UaException.extract(ex)
                     .map(UaException::getStatusCode)
@@ -495,7 +542,11 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
 
                 logger.debug("Publish service failure (requestHandle={}): {}", requestHandle, statusCode, ex);
 
-                pendingCount.getAndUpdate(p -> (p > 0) ? p - 1 : 0);
+                if (statusCode.getValue() == StatusCodes.Bad_TooManyPublishRequests) {
+                    publishPipeline.onTooManyPublishRequests(pendingCount.get());
+                }
+
+                decrementPendingCount(pendingCount);
 
                 if (statusCode.getValue() != StatusCodes.Bad_NoSubscription &&
                     statusCode.getValue() != StatusCodes.Bad_TooManyPublishRequests) {
@@ -513,14 +564,22 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
         });
     }
 
-    private void onPublishComplete(PublishResponse response, AtomicLong pendingCount) {
+    private void decrementPendingCount(AtomicLong pendingCount) {
+        long pending = pendingCount.updateAndGet(p -> (p > 0) ? p - 1 : 0);
+
+        if (pending == 0 && !subscriptions.isEmpty()) {
+            publishPipeline.onIdle(System.nanoTime());
+        }
+    }
+
+    private void onPublishComplete(PublishResponse response, AtomicLong pendingCount, long receivedNanos) {
         logger.debug("onPublishComplete() response for subscriptionId={}", response.getSubscriptionId());
 
         UInteger subscriptionId = response.getSubscriptionId();
         OpcUaSubscription subscription = subscriptions.get(subscriptionId);
 
         if (subscription == null) {
-            pendingCount.getAndUpdate(p -> (p > 0) ? p - 1 : 0);
+            decrementPendingCount(pendingCount);
             maybeSendPublishRequests();
             return;
         }
@@ -535,7 +594,7 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
                 subscriptionId, expectedSequenceNumber, sequenceNumber);
 
             processingQueue.pause();
-            processingQueue.submitToHead(() -> onPublishComplete(response, pendingCount));
+            processingQueue.submitToHead(() -> onPublishComplete(response, pendingCount, receivedNanos));
 
             republish(subscriptionId, expectedSequenceNumber, sequenceNumber).whenComplete((dataLost, ex) -> {
                 if (ex != null) {
@@ -583,9 +642,22 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
         logger.debug("onPublishComplete(), subscriptionId={}, sequenceNumber={}, publishTime={}",
             subscriptionId, notificationMessage.getSequenceNumber(), publishTime);
 
-        deliverNotificationMessage(subscription, notificationMessage).thenRunAsync(
+        long maxQueued = client.getConfig().getMaxQueuedNotificationMessages().longValue();
+        boolean backlogFull = subscription.getQueuedNotificationCount() >= maxQueued;
+
+        CompletableFuture<Unit> delivered =
+            deliverNotificationMessage(subscription, notificationMessage, receivedNanos);
+
+        // delivered per subscription, a NotificationMessage only has to be queued before the next PublishRequest is
+        // sent, so a slow consumer doesn't hold up publishing for the other subscriptions. Once the subscription's
+        // backlog is full the next PublishRequest waits for delivery again, so the backlog stays bounded.
+        CompletableFuture<Unit> released =
+            getNotificationDeliveryMode() == NotificationDeliveryMode.PER_SUBSCRIPTION && !backlogFull ?
+                completedFuture(Unit.VALUE) : delivered;
+
+        released.thenRunAsync(
             () -> {
-                pendingCount.getAndUpdate(p -> (p > 0) ? p - 1 : 0);
+                decrementPendingCount(pendingCount);
 
                 maybeSendPublishRequests();
             },
@@ -654,18 +726,25 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
         OpcUaSubscription subscription = subscriptions.get(subscriptionId);
 
         if (subscription != null) {
-            deliverNotificationMessage(subscription, notificationMessage);
+            deliverNotificationMessage(subscription, notificationMessage, System.nanoTime());
         }
     }
 
     private CompletableFuture<Unit> deliverNotificationMessage(
-        OpcUaSubscription subscription, NotificationMessage notificationMessage) {
+        OpcUaSubscription subscription, NotificationMessage notificationMessage, long receivedNanos) {
 
         CompletableFuture<Unit> delivered = new CompletableFuture<>();
 
-        subscription.getNotificationSemaphore().acquire().thenAccept(permit -> deliveryQueue.submit(() -> {
+        BatchingExecutionQueue queue = getNotificationDeliveryMode() == NotificationDeliveryMode.PER_SUBSCRIPTION ?
+            subscription.getDeliveryQueue() : deliveryQueue;
+
+        subscription.incrementQueuedNotificationCount();
+
+        subscription.getNotificationSemaphore().acquire().thenAccept(permit -> queue.submit(() -> {
             try {
-                Map<UInteger, OpcUaMonitoredItem> items = subscription.getItemsByClientHandle();
+                recordDeliveryLag(subscription, System.nanoTime() - receivedNanos);
+
+                LongObjectHashMap<OpcUaMonitoredItem> items = subscription.getItemsByClientHandle();
                 List<ExtensionObject> notificationData = l(notificationMessage.getNotificationData());
 
                 for (ExtensionObject xo : notificationData) {
@@ -678,71 +757,93 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
 
                         logger.debug("Received {} MonitoredItemNotifications", notificationCount);
 
-                        for (MonitoredItemNotification min : monitoredItems) {
-                            logger.trace("MonitoredItemNotification: clientHandle={}, value={}",
-                                min.getClientHandle(), min.getValue());
+                        boolean batched = !subscription.getDataChangeBatchListeners().isEmpty();
+                        boolean listed = !subscription.getNotificationListeners().isEmpty();
 
-                            OpcUaMonitoredItem item = items.get(min.getClientHandle());
-                            if (item != null) item.onValueArrived(min.getValue());
-                            else logger.warn("no item for clientHandle=" + min.getClientHandle());
-                        }
+                        OpcUaDataChangeBatch batch = subscription.getDataChangeBatch();
+                        if (batched) batch.ensureCapacity(notificationCount);
 
-                        if (notificationCount == 0) {
-                            subscriptionListeners.forEach(
-                                listener -> listener.onKeepAlive(subscription, notificationMessage.getPublishTime())
-                            );
+                        ImmutableList.Builder<Tuple2<UaMonitoredItem, DataValue>> builder =
+                            listed ? ImmutableList.builder() : null;
 
-                            subscription.getNotificationListeners().forEach(
-                                listener -> listener.onKeepAliveNotification(
-                                    subscription, notificationMessage.getPublishTime())
-                            );
-                        } else {
-                            if (!subscription.getNotificationListeners().isEmpty()) {
-                                ImmutableList.Builder<Tuple2<UaMonitoredItem, DataValue>> builder =
-                                    ImmutableList.builder();
-
-                                for (MonitoredItemNotification n : monitoredItems) {
-                                    UaMonitoredItem item = subscription
-                                        .getItemsByClientHandle().get(n.getClientHandle());
-
-                                    if (item != null) {
-                                        builder.add(new Tuple2<>(item, n.getValue()));
-                                    }
+                        // the batch is reused; clear it however this ends, including a consumer throwing
+                        // partway through filling it, so the next notification doesn't start with stale values.
+                        try {
+                            for (MonitoredItemNotification min : monitoredItems) {
+                                logger.trace("MonitoredItemNotification: clientHandle={}, value={}",
+                                    min.getClientHandle(), min.getValue());
+
+                                long clientHandle = min.getClientHandle().longValue();
+                                OpcUaMonitoredItem item = items.get(clientHandle);
+
+                                if (item != null) {
+                                    item.onValueArrived(min.getValue());
+
+                                    if (batched) batch.add(clientHandle, min.getValue(), item);
+                                    if (listed) builder.add(new Tuple2<>(item, min.getValue()));
+                                } else {
+                                    logger.warn("no item for clientHandle=" + min.getClientHandle());
                                 }
+                            }
 
-                                ImmutableList<Tuple2<UaMonitoredItem, DataValue>> itemValues = builder.build();
+                            if (notificationCount == 0) {
+                                subscriptionListeners.forEach(
+                                    listener -> listener.onKeepAlive(subscription, notificationMessage.getPublishTime())
+                                );
 
                                 subscription.getNotificationListeners().forEach(
-                                    listener -> listener.onDataChangeNotification(
-                                        subscription,
-                                        itemValues,
-                                        notificationMessage.getPublishTime()
-                                    )
+                                    listener -> listener.onKeepAliveNotification(
+                                        subscription, notificationMessage.getPublishTime())
                                 );
+                            } else {
+                                if (batched) {
+                                    subscription.getDataChangeBatchListeners().forEach(
+                                        listener -> listener.onDataChangeBatch(
+                                            subscription,
+                                            batch,
+                                            notificationMessage.getPublishTime()
+                                        )
+                                    );
+                                }
+
+                                if (listed) {
+                                    ImmutableList<Tuple2<UaMonitoredItem, DataValue>> itemValues = builder.build();
+
+                                    subscription.getNotificationListeners().forEach(
+                                        listener -> listener.onDataChangeNotification(
+                                            subscription,
+                                            itemValues,
+                                            notificationMessage.getPublishTime()
+                                        )
+                                    );
+                                }
                             }
+                        } finally {
+                            if (batched) batch.clear();
                         }
                     } else if (o instanceof EventNotificationList) {
                         EventNotificationList enl = (EventNotificationList) o;
                         List<EventFieldList> events = l(enl.getEvents());
 
+                        boolean listed = !subscription.getNotificationListeners().isEmpty();
+
+                        ImmutableList.Builder<Tuple2<UaMonitoredItem, Variant[]>> builder =
+                            listed ? ImmutableList.builder() : null;
+
                         for (EventFieldList efl : events) {
                             logger.trace("EventFieldList: clientHandle={}, values={}",
                                 efl.getClientHandle(), Arrays.toString(efl.getEventFields()));
 
-                            OpcUaMonitoredItem item = items.get(efl.getClientHandle());
-                            if (item != null) item.onEventArrived(efl.getEventFields());
-                        }
+                            OpcUaMonitoredItem item = items.get(efl.getClientHandle().longValue());
 
-                        if (!subscription.getNotificationListeners().isEmpty()) {
-                            ImmutableList.Builder<Tuple2<UaMonitoredItem, Variant[]>> builder = ImmutableList.builder();
+                            if (item != null) {
+                                item.onEventArrived(efl.getEventFields());
 
-                            for (EventFieldList efl : events) {
-                                UaMonitoredItem item = subscription.getItemsByClientHandle().get(efl.getClientHandle());
-                                if (item != null) {
-                                    builder.add(new Tuple2<>(item, efl.getEventFields()));
-                                }
+                                if (listed) builder.add(new Tuple2<>(item, efl.getEventFields()));
                             }
+                        }
 
+                        if (listed) {
                             ImmutableList<Tuple2<UaMonitoredItem, Variant[]>> itemEvents = builder.build();
 
                             subscription.getNotificationListeners().forEach(
@@ -774,6 +875,8 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
             } finally {
                 permit.release();
 
+                subscription.decrementQueuedNotificationCount();
+
                 delivered.complete(Unit.VALUE);
             }
         }));
@@ -781,6 +884,24 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
         return delivered;
     }
 
+    private void recordDeliveryLag(OpcUaSubscription subscription, long lagNanos) {
+        subscription.recordDeliveryLag(lagNanos);
+
+        long thresholdMillis = client.getConfig().getNotificationDeliveryLagThreshold().longValue();
+
+        if (thresholdMillis > 0 && lagNanos > TimeUnit.MILLISECONDS.toNanos(thresholdMillis)) {
+            long lagMillis = TimeUnit.NANOSECONDS.toMillis(lagNanos);
+
+            logger.debug("[id={}] notification delivery lagged {}ms", subscription.getSubscriptionId(), lagMillis);
+
+            subscriptionListeners.forEach(l -> l.onNotificationDeliveryLagged(subscription, lagMillis));
+        }
+    }
+
+    private NotificationDeliveryMode getNotificationDeliveryMode() {
+        return client.getConfig().getNotificationDeliveryMode();
+    }
+
     public void startPublishing() {
         maybeSendPublishRequests();
     }
@@ -790,11 +911,26 @@ public class OpcUaSubscriptionManager implements UaSubscriptionManager {
     }
 
     public void pauseDelivery() {
+        deliveryPaused = true;
+
         deliveryQueue.pause();
+        subscriptions.values().forEach(s -> s.getDeliveryQueue().pause());
     }
 
     public void resumeDelivery() {
+        deliveryPaused = false;
+
         deliveryQueue.resume();
+        subscriptions.values().forEach(s -> s.getDeliveryQueue().resume());
+    }
+
+    /**
+     * @return the {@link BatchingExecutionQueue} notifications are delivered to subscriptions on, e.g. to observe its
+     * depth and hop latency, unless they're delivered {@link NotificationDeliveryMode#PER_SUBSCRIPTION per
+     * subscription}; see {@link OpcUaSubscription#getDeliveryQueue()}.
+     */
+    public BatchingExecutionQueue getDeliveryQueue() {
+        return deliveryQueue;
     }
 
 }
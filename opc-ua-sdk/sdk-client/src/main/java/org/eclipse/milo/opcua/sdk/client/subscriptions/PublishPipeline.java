@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.subscriptions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the PublishRequests of a client and, when adaptive pipelining is enabled, decides how many of them to keep
+ * outstanding.
+ * <p>
+ * Enough PublishRequests have to be outstanding to cover the NotificationMessages published during one round trip,
+ * or the server has none to respond with and holds notifications back until the next one arrives. The target is the
+ * larger of one per subscription plus one, and the notifications published per round trip plus one, where:
+ * <ul>
+ * <li>the round trip is the shortest seen over the last {@value #ROUND_TRIP_WINDOW} responses, since a server holds
+ * a PublishRequest until it has something to publish and only the quickest responses reflect the network;</li>
+ * <li>the notifications published per millisecond are the sum over subscriptions of one per publishing interval.</li>
+ * </ul>
+ * One more, up to {@value #MAX_BURST}, is added for each response that says the server has more notifications, and
+ * removed again for each that doesn't. Once the server has responded Bad_TooManyPublishRequests, the target never
+ * exceeds the number it had accepted until the session is re-activated.
+ * <p>
+ * A gap is a time when no PublishRequest was outstanding while there were subscriptions to publish for; any gap is
+ * time the server could not respond with notifications.
+ */
+public class PublishPipeline {
+
+    static final int ROUND_TRIP_WINDOW = 16;
+    static final int MAX_BURST = 8;
+
+    private final long[] roundTripSamples = new long[ROUND_TRIP_WINDOW];
+    private int roundTripIndex = 0;
+    private int roundTripCount = 0;
+
+    private volatile long roundTripNanos = 0L;
+    private volatile long burst = 0L;
+    private volatile long limit = Long.MAX_VALUE;
+    private volatile long target = 0L;
+
+    private final AtomicLong idleSinceNanos = new AtomicLong(0L);
+
+    private final AtomicLong gapCount = new AtomicLong(0L);
+    private final AtomicLong totalGapNanos = new AtomicLong(0L);
+    private final AtomicLong maxGapNanos = new AtomicLong(0L);
+
+    /**
+     * @return the estimated network round trip, in nanoseconds, of a PublishRequest, or 0 if none has completed yet.
+     */
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    /**
+     * @return the number of outstanding PublishRequests last aimed for.
+     */
+    public long getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the number of outstanding PublishRequests the server has accepted before responding
+     * Bad_TooManyPublishRequests, or {@link Long#MAX_VALUE} if it hasn't.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of times no PublishRequest was outstanding.
+     */
+    public long getGapCount() {
+        return gapCount.get();
+    }
+
+    /**
+     * @return the total time, in nanoseconds, no PublishRequest was outstanding.
+     */
+    public long getTotalGapNanos() {
+        return totalGapNanos.get();
+    }
+
+    /**
+     * @return the longest time, in nanoseconds, no PublishRequest was outstanding.
+     */
+    public long getMaxGapNanos() {
+        return maxGapNanos.get();
+    }
+
+    /**
+     * Compute the number of PublishRequests to keep outstanding.
+     *
+     * @param subscriptionCount      the number of subscriptions.
+     * @param notificationsPerMillis the number of NotificationMessages the subscriptions publish per millisecond.
+     * @param maxPending             the configured maximum number of outstanding PublishRequests.
+     * @return the number of PublishRequests to keep outstanding.
+     */
+    long computeTarget(int subscriptionCount, double notificationsPerMillis, long maxPending) {
+        if (subscriptionCount == 0) {
+            target = 0L;
+            return 0L;
+        }
+
+        double roundTripMillis = roundTripNanos / 1_000_000.0;
+
+        long perRoundTrip = (long) Math.ceil(roundTripMillis * notificationsPerMillis) + 1L;
+
+        long t = Math.max(subscriptionCount + 1L, perRoundTrip) + burst;
+
+        t = Math.min(t, Math.min(limit, maxPending));
+
+        target = t;
+
+        return t;
+    }
+
+    /**
+     * A PublishResponse was received.
+     *
+     * @param roundTripNanos    the time between sending the PublishRequest and receiving its response.
+     * @param moreNotifications the moreNotifications flag of the response.
+     */
+    synchronized void onPublishResponse(long roundTripNanos, boolean moreNotifications) {
+        roundTripSamples[roundTripIndex] = roundTripNanos;
+        roundTripIndex = (roundTripIndex + 1) % ROUND_TRIP_WINDOW;
+        roundTripCount = Math.min(roundTripCount + 1, ROUND_TRIP_WINDOW);
+
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < roundTripCount; i++) {
+            min = Math.min(min, roundTripSamples[i]);
+        }
+        this.roundTripNanos = min;
+
+        if (moreNotifications) {
+            if (burst < MAX_BURST) burst++;
+        } else if (burst > 0) {
+            burst--;
+        }
+    }
+
+    /**
+     * The server responded Bad_TooManyPublishRequests.
+     *
+     * @param pending the number of PublishRequests outstanding, including the rejected one.
+     */
+    synchronized void onTooManyPublishRequests(long pending) {
+        limit = Math.min(limit, Math.max(1L, pending - 1L));
+        burst = 0L;
+    }
+
+    /**
+     * A PublishRequest is about to be sent.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}.
+     */
+    void onPublishSent(long nowNanos) {
+        long idleSince = idleSinceNanos.getAndSet(0L);
+
+        if (idleSince != 0L) {
+            long gap = nowNanos - idleSince;
+
+            gapCount.incrementAndGet();
+            totalGapNanos.addAndGet(gap);
+            maxGapNanos.accumulateAndGet(gap, Math::max);
+        }
+    }
+
+    /**
+     * The last outstanding PublishRequest completed while there are subscriptions to publish for.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}.
+     */
+    void onIdle(long nowNanos) {
+        idleSinceNanos.compareAndSet(0L, nowNanos);
+    }
+
+    /**
+     * Forget what was learned about the session, which has become inactive.
+     */
+    synchronized void reset() {
+        roundTripIndex = 0;
+        roundTripCount = 0;
+        roundTripNanos = 0L;
+        burst = 0L;
+        limit = Long.MAX_VALUE;
+        idleSinceNanos.set(0L);
+    }
+
+}
@@ -37,6 +37,7 @@ import org.eclipse.milo.opcua.sdk.server.namespaces.OpcUaNamespace;
 import org.eclipse.milo.opcua.sdk.server.namespaces.VendorNamespace;
 import org.eclipse.milo.opcua.sdk.server.services.helpers.BrowseHelper.BrowseContinuationPoint;
 import org.eclipse.milo.opcua.sdk.server.subscriptions.Subscription;
+import org.eclipse.milo.opcua.sdk.server.util.EventNotifierBus;
 import org.eclipse.milo.opcua.stack.core.BuiltinReferenceType;
 import org.eclipse.milo.opcua.stack.core.NamespaceTable;
 import org.eclipse.milo.opcua.stack.core.ReferenceType;
@@ -97,6 +98,7 @@ public class OpcUaServer {
     private final UaTcpStackServer discoveryServer;
     private final UaTcpStackServer stackServer;
     private final EventBus eventBus;
+    private final EventNotifierBus eventNotifierBus;
 
     private final OpcUaNamespace uaNamespace;
     private final VendorNamespace vendorNamespace;
@@ -194,7 +196,10 @@ public class OpcUaServer {
             }
         }
 
+        eventNotifierBus = new EventNotifierBus(nodeMap, stackServer.getExecutorService());
+
         eventBus = new AsyncEventBus("server", stackServer.getExecutorService());
+        eventBus.register(eventNotifierBus);
     }
 
     public CompletableFuture<OpcUaServer> startup() {
@@ -208,6 +213,9 @@ public class OpcUaServer {
     }
 
     public CompletableFuture<OpcUaServer> shutdown() {
+        uaNamespace.shutdown();
+        vendorNamespace.shutdown();
+
         return discoveryServer.shutdown()
             .exceptionally(ex -> {
                 logger.warn("failed to shutdown discoveryServer", ex);
@@ -263,6 +271,10 @@ public class OpcUaServer {
         return eventBus;
     }
 
+    public EventNotifierBus getEventNotifierBus() {
+        return eventNotifierBus;
+    }
+
     public Map<UInteger, Subscription> getSubscriptions() {
         return subscriptions;
     }
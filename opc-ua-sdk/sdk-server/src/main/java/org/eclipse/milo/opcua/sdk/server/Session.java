@@ -20,6 +20,7 @@ import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.sdk.server.history.HistoryContinuationPointManager;
 import org.eclipse.milo.opcua.sdk.server.services.AttributeHistoryServices;
 import org.eclipse.milo.opcua.sdk.server.services.AttributeServices;
 import org.eclipse.milo.opcua.sdk.server.services.MethodServices;
@@ -56,6 +57,7 @@ public class Session implements SessionServiceSet {
     private final List<LifecycleListener> listeners = Lists.newCopyOnWriteArrayList();
 
     private final SubscriptionManager subscriptionManager;
+    private final HistoryContinuationPointManager historyContinuationPoints;
 
     private volatile long secureChannelId;
 
@@ -67,6 +69,8 @@ public class Session implements SessionServiceSet {
     private volatile long lastActivity = System.nanoTime();
     private volatile ScheduledFuture<?> checkTimeoutFuture;
 
+    private volatile long maxResponseMessageSize = 0L;
+
     private final AttributeServices attributeServices;
     private final AttributeHistoryServices attributeHistoryServices;
     private final MethodServices methodServices;
@@ -95,6 +99,9 @@ public class Session implements SessionServiceSet {
 
         subscriptionManager = new SubscriptionManager(this, server);
 
+        historyContinuationPoints = new HistoryContinuationPointManager(
+            server.getConfig().getLimits().getMaxHistoryContinuationPoints().intValue());
+
         attributeServices = new AttributeServices();
         attributeHistoryServices = new AttributeHistoryServices();
         methodServices = new MethodServices();
@@ -154,6 +161,17 @@ public class Session implements SessionServiceSet {
         return lastNonce;
     }
 
+    /**
+     * @return the largest response the client will accept, in bytes, or 0 if there's no limit.
+     */
+    public long getMaxResponseMessageSize() {
+        return maxResponseMessageSize;
+    }
+
+    void setMaxResponseMessageSize(long maxResponseMessageSize) {
+        this.maxResponseMessageSize = maxResponseMessageSize;
+    }
+
     private void checkTimeout() {
         long elapsed = Math.abs(System.nanoTime() - lastActivity);
 
@@ -161,6 +179,7 @@ public class Session implements SessionServiceSet {
             logger.debug("Session id={} lifetime expired ({}ms).", sessionId, sessionTimeout.toMillis());
 
             subscriptionManager.sessionClosed(true);
+            historyContinuationPoints.clear();
 
             listeners.forEach(listener -> listener.onSessionClosed(this, true));
         } else {
@@ -217,6 +236,10 @@ public class Session implements SessionServiceSet {
         return subscriptionManager;
     }
 
+    public HistoryContinuationPointManager getHistoryContinuationPoints() {
+        return historyContinuationPoints;
+    }
+
     //region Session Services
     @Override
     public void onCreateSession(
@@ -247,6 +270,7 @@ public class Session implements SessionServiceSet {
         }
 
         subscriptionManager.sessionClosed(deleteSubscriptions);
+        historyContinuationPoints.clear();
 
         listeners.forEach(listener -> listener.onSessionClosed(this, deleteSubscriptions));
     }
@@ -299,6 +299,10 @@ public class SessionManager implements
 
         session.setLastNonce(serverNonce);
 
+        if (request.getMaxResponseMessageSize() != null) {
+            session.setMaxResponseMessageSize(request.getMaxResponseMessageSize().longValue());
+        }
+
         CreateSessionResponse response = new CreateSessionResponse(
             serviceRequest.createResponseHeader(),
             sessionId,
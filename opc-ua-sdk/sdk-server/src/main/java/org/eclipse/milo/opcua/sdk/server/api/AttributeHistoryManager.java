@@ -22,7 +22,11 @@ import com.google.common.collect.Lists;
 import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
 import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
 import org.eclipse.milo.opcua.sdk.server.Session;
+import org.eclipse.milo.opcua.sdk.server.history.HistoryContinuationPointManager;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadDetails;
@@ -79,11 +83,18 @@ public interface AttributeHistoryManager {
     }
 
     final class HistoryReadContext extends OperationContext<HistoryReadValueId, HistoryReadResult> {
+
+        private final HistoryContinuationPointManager continuationPoints;
+        private final long maxBytesPerNode;
+
         public HistoryReadContext(OpcUaServer server,
                                   @Nullable Session session,
                                   DiagnosticsContext<HistoryReadValueId> diagnosticsContext) {
 
             super(server, session, diagnosticsContext);
+
+            this.continuationPoints = session != null ? session.getHistoryContinuationPoints() : null;
+            this.maxBytesPerNode = Long.MAX_VALUE;
         }
 
         public HistoryReadContext(OpcUaServer server,
@@ -91,8 +102,77 @@ public interface AttributeHistoryManager {
                                   CompletableFuture<List<HistoryReadResult>> future,
                                   DiagnosticsContext<HistoryReadValueId> diagnosticsContext) {
 
+            this(server, session, future, diagnosticsContext,
+                session != null ? session.getHistoryContinuationPoints() : null, Long.MAX_VALUE);
+        }
+
+        /**
+         * @param continuationPoints the {@link HistoryContinuationPointManager} that keeps unfinished reads, if any.
+         * @param maxBytesPerNode    the number of encoded bytes the results of each node should fit in.
+         */
+        public HistoryReadContext(OpcUaServer server,
+                                  @Nullable Session session,
+                                  CompletableFuture<List<HistoryReadResult>> future,
+                                  DiagnosticsContext<HistoryReadValueId> diagnosticsContext,
+                                  @Nullable HistoryContinuationPointManager continuationPoints,
+                                  long maxBytesPerNode) {
+
             super(server, session, future, diagnosticsContext);
+
+            this.continuationPoints = continuationPoints;
+            this.maxBytesPerNode = maxBytesPerNode;
         }
+
+        @Nullable
+        public HistoryContinuationPointManager getContinuationPoints() {
+            return continuationPoints;
+        }
+
+        public long getMaxBytesPerNode() {
+            return maxBytesPerNode;
+        }
+
+        /**
+         * Read the first page of {@code cursor}, sized to {@link #getMaxBytesPerNode()}, and keep the cursor behind
+         * a continuation point if it has more.
+         *
+         * @param nodeId the {@link NodeId} of the node being read.
+         * @param cursor the {@link HistoryReadCursor} of the read.
+         * @return the {@link HistoryReadResult} for the node.
+         */
+        public HistoryReadResult read(NodeId nodeId, HistoryReadCursor cursor) {
+            if (continuationPoints != null) {
+                return continuationPoints.read(nodeId, cursor, maxBytesPerNode);
+            }
+
+            try {
+                UaStructure page = cursor.next(maxBytesPerNode);
+
+                if (cursor.hasNext()) {
+                    return new HistoryReadResult(new StatusCode(StatusCodes.Bad_NoContinuationPoints), null, null);
+                } else {
+                    return new HistoryReadResult(StatusCode.GOOD, null, ExtensionObject.encodeDeferred(page));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+
+        /**
+         * Read the next page of a read started with {@link #read(NodeId, HistoryReadCursor)}.
+         *
+         * @param readValueId the {@link HistoryReadValueId} with the continuation point of the read.
+         * @return the {@link HistoryReadResult} for the node.
+         */
+        public HistoryReadResult resume(HistoryReadValueId readValueId) {
+            if (continuationPoints == null) {
+                return new HistoryReadResult(new StatusCode(StatusCodes.Bad_ContinuationPointInvalid), null, null);
+            }
+
+            return continuationPoints.next(
+                readValueId.getNodeId(), readValueId.getContinuationPoint(), maxBytesPerNode);
+        }
+
     }
 
     final class HistoryUpdateContext extends OperationContext<HistoryUpdateDetails, HistoryUpdateResult> {
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.api;
+
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
+
+/**
+ * The position of a HistoryRead of one node, from which the rest of its results are read a page at a time.
+ * <p>
+ * A namespace creates a cursor for each node it reads and passes it to
+ * {@link AttributeHistoryManager.HistoryReadContext#read(org.eclipse.milo.opcua.stack.core.types.builtin.NodeId,
+ * HistoryReadCursor)}. The first page is returned straight away and, if the cursor has more, it is kept behind a
+ * continuation point in the session until the client asks for the next page or releases it.
+ */
+public interface HistoryReadCursor {
+
+    /**
+     * @return {@code true} if there are results left to read.
+     */
+    boolean hasNext();
+
+    /**
+     * Read the next page of results.
+     * <p>
+     * A page should stop short of {@code maxBytes} encoded bytes, but must contain at least one result if
+     * {@link #hasNext()} so the read always makes progress.
+     *
+     * @param maxBytes the number of encoded bytes the page should fit in.
+     * @return the page: a HistoryData, HistoryModifiedData or HistoryEvent.
+     */
+    UaStructure next(long maxBytes);
+
+    /**
+     * Release anything held by the cursor. Called once it is exhausted, or when its continuation point is released
+     * or the session is closed.
+     */
+    default void close() {}
+
+}
@@ -103,4 +103,12 @@ public interface OpcUaServerConfigLimits {
         return uint(0x1FFFF);
     }
 
+    /**
+     * @return the maximum number of Publish requests queued per Session; beyond that the oldest is answered with
+     * {@code Bad_TooManyPublishRequests}.
+     */
+    default UInteger getMaxPublishRequestsPerSession() {
+        return uint(100);
+    }
+
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.eclipse.milo.opcua.sdk.server.api.HistoryReadCursor;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.eclipse.milo.opcua.stack.core.util.NonceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the {@link HistoryReadCursor}s of a session's unfinished HistoryReads behind continuation points.
+ * <p>
+ * A continuation point is good for one use: reading the next page removes it, and a new one is issued if the cursor
+ * still has more. At most {@code maxContinuationPoints} are held at once; when a session closes, {@link #clear()}
+ * closes whatever cursors are left.
+ */
+public class HistoryContinuationPointManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<ByteString, Entry> entries = Maps.newHashMap();
+
+    private final int maxContinuationPoints;
+
+    public HistoryContinuationPointManager(int maxContinuationPoints) {
+        this.maxContinuationPoints = maxContinuationPoints;
+    }
+
+    /**
+     * Read the first page of {@code cursor} and, if it has more, keep it behind a new continuation point.
+     *
+     * @param nodeId   the {@link NodeId} of the node being read.
+     * @param cursor   the {@link HistoryReadCursor} to read from.
+     * @param maxBytes the number of encoded bytes the page should fit in.
+     * @return the {@link HistoryReadResult}; Bad_NoContinuationPoints if the cursor has more but there's no room
+     * for another continuation point.
+     */
+    public HistoryReadResult read(NodeId nodeId, HistoryReadCursor cursor, long maxBytes) {
+        UaStructure page;
+
+        try {
+            page = cursor.next(maxBytes);
+        } catch (RuntimeException e) {
+            close(cursor);
+            throw e;
+        }
+
+        if (!cursor.hasNext()) {
+            close(cursor);
+
+            return new HistoryReadResult(StatusCode.GOOD, null, ExtensionObject.encodeDeferred(page));
+        }
+
+        ByteString continuationPoint = add(nodeId, cursor);
+
+        if (continuationPoint == null) {
+            close(cursor);
+
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_NoContinuationPoints), null, null);
+        }
+
+        return new HistoryReadResult(StatusCode.GOOD, continuationPoint, ExtensionObject.encodeDeferred(page));
+    }
+
+    /**
+     * Read the next page of the cursor behind {@code continuationPoint}.
+     *
+     * @param nodeId            the {@link NodeId} of the node being read.
+     * @param continuationPoint the continuation point returned by the previous read.
+     * @param maxBytes          the number of encoded bytes the page should fit in.
+     * @return the {@link HistoryReadResult}; Bad_ContinuationPointInvalid if {@code continuationPoint} isn't held
+     * or was issued for a different node.
+     */
+    public HistoryReadResult next(NodeId nodeId, ByteString continuationPoint, long maxBytes) {
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.remove(continuationPoint);
+        }
+
+        if (entry == null) {
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_ContinuationPointInvalid), null, null);
+        }
+
+        if (!entry.nodeId.equals(nodeId)) {
+            close(entry.cursor);
+
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_ContinuationPointInvalid), null, null);
+        }
+
+        return read(nodeId, entry.cursor, maxBytes);
+    }
+
+    /**
+     * @return {@code true} if {@code continuationPoint} is held by this manager.
+     */
+    public boolean contains(ByteString continuationPoint) {
+        synchronized (entries) {
+            return entries.containsKey(continuationPoint);
+        }
+    }
+
+    /**
+     * Release {@code continuationPoint} and close its cursor.
+     *
+     * @param continuationPoint the continuation point to release.
+     * @return {@code true} if it was held by this manager.
+     */
+    public boolean release(ByteString continuationPoint) {
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.remove(continuationPoint);
+        }
+
+        if (entry != null) {
+            close(entry.cursor);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of continuation points held.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Release every continuation point and close their cursors.
+     */
+    public void clear() {
+        List<Entry> removed;
+
+        synchronized (entries) {
+            removed = Lists.newArrayList(entries.values());
+            entries.clear();
+        }
+
+        removed.forEach(entry -> close(entry.cursor));
+    }
+
+    @Nullable
+    private ByteString add(NodeId nodeId, HistoryReadCursor cursor) {
+        synchronized (entries) {
+            if (entries.size() >= maxContinuationPoints) return null;
+
+            ByteString continuationPoint = NonceUtil.generateNonce(16);
+
+            entries.put(continuationPoint, new Entry(nodeId, cursor));
+
+            return continuationPoint;
+        }
+    }
+
+    private void close(HistoryReadCursor cursor) {
+        try {
+            cursor.close();
+        } catch (Throwable t) {
+            logger.warn("Error closing history read cursor", t);
+        }
+    }
+
+    private static class Entry {
+
+        private final NodeId nodeId;
+        private final HistoryReadCursor cursor;
+
+        Entry(NodeId nodeId, HistoryReadCursor cursor) {
+            this.nodeId = nodeId;
+            this.cursor = cursor;
+        }
+
+    }
+
+}
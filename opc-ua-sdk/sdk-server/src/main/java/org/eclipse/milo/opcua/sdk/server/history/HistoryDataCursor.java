@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.eclipse.milo.opcua.sdk.server.api.HistoryReadCursor;
+import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamEncoder;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryData;
+
+/**
+ * A {@link HistoryReadCursor} that pages the {@link DataValue}s of an {@link Iterator} into {@link HistoryData}.
+ * <p>
+ * Each value is measured by encoding it, so a page holds as many values as fit in the bytes it is given, up to
+ * {@code maxValuesPerPage}, and no more than one value is read from the iterator ahead of the page being returned.
+ */
+public class HistoryDataCursor implements HistoryReadCursor {
+
+    private DataValue peeked;
+
+    private final ByteBuf buffer = Unpooled.buffer();
+    private final OpcUaBinaryStreamEncoder encoder = new OpcUaBinaryStreamEncoder(buffer);
+
+    private final Iterator<DataValue> values;
+    private final int maxValuesPerPage;
+
+    public HistoryDataCursor(Iterator<DataValue> values) {
+        this(values, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param values           the values to page through.
+     * @param maxValuesPerPage the maximum number of values per page.
+     */
+    public HistoryDataCursor(Iterator<DataValue> values, int maxValuesPerPage) {
+        this.values = values;
+        this.maxValuesPerPage = maxValuesPerPage;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return peeked != null || values.hasNext();
+    }
+
+    @Override
+    public HistoryData next(long maxBytes) {
+        List<DataValue> page = Lists.newArrayList();
+        long bytes = 0L;
+
+        while (page.size() < maxValuesPerPage && hasNext()) {
+            DataValue value = peeked != null ? peeked : values.next();
+            peeked = null;
+
+            long size = encodedSize(value);
+
+            if (!page.isEmpty() && bytes + size > maxBytes) {
+                peeked = value;
+                break;
+            }
+
+            page.add(value);
+            bytes += size;
+        }
+
+        return new HistoryData(page.toArray(new DataValue[0]));
+    }
+
+    @Override
+    public void close() {
+        if (buffer.refCnt() > 0) {
+            buffer.release();
+        }
+    }
+
+    private long encodedSize(DataValue value) {
+        buffer.clear();
+        encoder.writeDataValue(value);
+
+        return buffer.writerIndex();
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.Session;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager.HistoryReadContext;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaRuntimeException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryData;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadRawModifiedDetails;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * A {@link RawHistorySource} that reads through the {@code historyRead} of an {@link AttributeHistoryManager}, one
+ * page of ReadRawModifiedDetails with bounds at a time, following its continuation points.
+ * <p>
+ * This lets a namespace whose history only serves raw reads answer processed reads with an
+ * {@link org.eclipse.milo.opcua.sdk.server.history.aggregates.AggregateCursor}, holding no more than a page of raw
+ * values at once.
+ * <p>
+ * Each page is waited for on the thread reading the iterator, so the {@link AttributeHistoryManager} must complete
+ * its reads without needing that thread. If a read fails, the iterator throws a {@link UaRuntimeException} with the
+ * status of the failed read.
+ */
+public class HistoryReadRawSource implements RawHistorySource {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final AttributeHistoryManager historyManager;
+    private final OpcUaServer server;
+    private final Session session;
+    private final int pageSize;
+
+    public HistoryReadRawSource(
+        AttributeHistoryManager historyManager,
+        OpcUaServer server,
+        @Nullable Session session) {
+
+        this(historyManager, server, session, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param historyManager the {@link AttributeHistoryManager} to read raw values from.
+     * @param server         the {@link OpcUaServer}.
+     * @param session        the {@link Session} reads are made on behalf of, if any.
+     * @param pageSize       the number of values to ask for per read.
+     */
+    public HistoryReadRawSource(
+        AttributeHistoryManager historyManager,
+        OpcUaServer server,
+        @Nullable Session session,
+        int pageSize) {
+
+        this.historyManager = historyManager;
+        this.server = server;
+        this.session = session;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Iterator<DataValue> readRaw(NodeId nodeId, DateTime startTime, DateTime endTime) {
+        ReadRawModifiedDetails details = new ReadRawModifiedDetails(
+            false,
+            startTime,
+            endTime,
+            uint(pageSize),
+            true
+        );
+
+        return new PageIterator(nodeId, details);
+    }
+
+    private class PageIterator implements Iterator<DataValue> {
+
+        private DataValue[] page = new DataValue[0];
+        private int index = 0;
+        private boolean done = false;
+        private ByteString continuationPoint = null;
+
+        // the read's own, so it neither uses up nor outlives the continuation points of the session
+        private final HistoryContinuationPointManager continuationPoints = new HistoryContinuationPointManager(1);
+
+        private final NodeId nodeId;
+        private final ReadRawModifiedDetails details;
+
+        PageIterator(NodeId nodeId, ReadRawModifiedDetails details) {
+            this.nodeId = nodeId;
+            this.details = details;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                while (index < page.length) {
+                    StatusCode statusCode = page[index].getStatusCode();
+
+                    // the placeholder returned for a bound that doesn't exist
+                    if (statusCode != null && statusCode.getValue() == StatusCodes.Bad_BoundNotFound) {
+                        index++;
+                    } else {
+                        return true;
+                    }
+                }
+
+                if (done) return false;
+
+                fetch();
+            }
+        }
+
+        @Override
+        public DataValue next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            return page[index++];
+        }
+
+        private void fetch() {
+            HistoryReadResult result = read(
+                new HistoryReadValueId(nodeId, null, QualifiedName.NULL_VALUE, continuationPoint));
+
+            StatusCode statusCode = result.getStatusCode();
+
+            if (statusCode != null && statusCode.isBad()) {
+                throw new UaRuntimeException(statusCode.getValue());
+            }
+
+            ByteString cp = result.getContinuationPoint();
+
+            continuationPoint = cp != null && cp.isNotNull() ? cp : null;
+            done = continuationPoint == null;
+
+            HistoryData historyData = result.getHistoryData() != null ?
+                (HistoryData) result.getHistoryData().decode() : null;
+
+            page = historyData != null && historyData.getDataValues() != null ?
+                historyData.getDataValues() : new DataValue[0];
+            index = 0;
+        }
+
+        private HistoryReadResult read(HistoryReadValueId readValueId) {
+            CompletableFuture<List<HistoryReadResult>> future = new CompletableFuture<>();
+
+            historyManager.historyRead(
+                new HistoryReadContext(
+                    server, session, future, new DiagnosticsContext<>(), continuationPoints, Long.MAX_VALUE),
+                details,
+                TimestampsToReturn.Both,
+                Collections.singletonList(readValueId)
+            );
+
+            try {
+                return future.get().get(0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UaRuntimeException(StatusCodes.Bad_Shutdown, e);
+            } catch (ExecutionException e) {
+                throw new UaRuntimeException(StatusCodes.Bad_InternalError, e.getCause());
+            }
+        }
+
+    }
+
+}
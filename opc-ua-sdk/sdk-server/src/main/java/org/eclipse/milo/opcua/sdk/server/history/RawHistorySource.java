@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.util.Iterator;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+
+/**
+ * A source of raw history values, read forward in time.
+ * <p>
+ * Processed reads pull from the returned {@link Iterator} as they go, so a source should produce values lazily rather
+ * than collecting the whole range up front.
+ */
+@FunctionalInterface
+public interface RawHistorySource {
+
+    /**
+     * Read the raw values of {@code nodeId} with a source timestamp in [{@code startTime}, {@code endTime}), in
+     * timestamp order.
+     * <p>
+     * The last value before {@code startTime} and the first value at or after {@code endTime}, if there are any,
+     * should be returned as well so values at the edges of the range can be interpolated.
+     *
+     * @param nodeId    the {@link NodeId} of the node to read.
+     * @param startTime the start of the range, inclusive.
+     * @param endTime   the end of the range, exclusive.
+     * @return an {@link Iterator} over the raw values, empty if the node has no history.
+     */
+    Iterator<DataValue> readRaw(NodeId nodeId, DateTime startTime, DateTime endTime);
+
+}
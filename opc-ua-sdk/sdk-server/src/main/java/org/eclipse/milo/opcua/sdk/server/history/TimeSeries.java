@@ -0,0 +1,650 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.ULong;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UShort;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ulong;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
+
+/**
+ * An append-only, memory-mapped time series of the values of a single node.
+ * <p>
+ * The file starts with a {@value #FILE_HEADER_SIZE} byte header identifying the node, followed by fixed-size blocks of
+ * {@code blockCapacity} samples. Each block stores its samples column by column: source times, server times, values,
+ * status codes and value types. The file is mapped in segments of {@code blocksPerSegment} blocks, so appending never
+ * copies and reading never decodes more than the samples it visits.
+ * <p>
+ * Samples are appended in non-decreasing source time order and every block but the last is full, so a sample is
+ * addressed by its index in the series and the index of a time is found by binary searching block first-times and
+ * then the source time column of one block.
+ * <p>
+ * Only scalar Boolean, integer, floating point and DateTime values are stored; a sample with no value stores just its
+ * status and timestamps.
+ * <p>
+ * Appends are serialized; reads are not, and see every sample appended before {@link #size()} was read.
+ */
+public class TimeSeries implements AutoCloseable {
+
+    static final int FILE_HEADER_SIZE = 4096;
+
+    private static final int MAGIC = 0x4D544953;
+    private static final int VERSION = 1;
+
+    private static final int BLOCK_HEADER_SIZE = 32;
+    private static final int BYTES_PER_SAMPLE = 8 + 8 + 8 + 4 + 1;
+
+    static final int TYPE_NULL = 0;
+    static final int TYPE_BOOLEAN = 1;
+    static final int TYPE_SBYTE = 2;
+    static final int TYPE_BYTE = 3;
+    static final int TYPE_INT16 = 4;
+    static final int TYPE_UINT16 = 5;
+    static final int TYPE_INT32 = 6;
+    static final int TYPE_UINT32 = 7;
+    static final int TYPE_INT64 = 8;
+    static final int TYPE_UINT64 = 9;
+    static final int TYPE_FLOAT = 10;
+    static final int TYPE_DOUBLE = 11;
+    static final int TYPE_DATETIME = 13;
+
+    private volatile Block[] blocks = new Block[16];
+    private volatile int blockCount = 0;
+    private volatile long size = 0L;
+
+    private MappedByteBuffer segment;
+    private int segmentIndex = -1;
+
+    private final int blockCapacity;
+    private final int blocksPerSegment;
+    private final long blockSize;
+    private final long segmentSize;
+
+    private final int sourceTimeOffset;
+    private final int serverTimeOffset;
+    private final int valueOffset;
+    private final int statusOffset;
+    private final int typeOffset;
+
+    private final NodeId nodeId;
+    private final Path path;
+    private final FileChannel channel;
+
+    private TimeSeries(NodeId nodeId, Path path, FileChannel channel, int blockCapacity, int blocksPerSegment) {
+        this.nodeId = nodeId;
+        this.path = path;
+        this.channel = channel;
+        this.blockCapacity = blockCapacity;
+        this.blocksPerSegment = blocksPerSegment;
+
+        sourceTimeOffset = BLOCK_HEADER_SIZE;
+        serverTimeOffset = sourceTimeOffset + 8 * blockCapacity;
+        valueOffset = serverTimeOffset + 8 * blockCapacity;
+        statusOffset = valueOffset + 8 * blockCapacity;
+        typeOffset = statusOffset + 4 * blockCapacity;
+
+        blockSize = blockSize(blockCapacity);
+        segmentSize = blockSize * blocksPerSegment;
+    }
+
+    private static long blockSize(int blockCapacity) {
+        // keep every block 8-byte aligned
+        return (BLOCK_HEADER_SIZE + (long) BYTES_PER_SAMPLE * blockCapacity + 7) & ~7L;
+    }
+
+    /**
+     * A segment is mapped as one {@link MappedByteBuffer}, which can't be larger than {@link Integer#MAX_VALUE} bytes,
+     * and blocks are addressed by int offsets within it.
+     *
+     * @throws IllegalArgumentException if either value isn't positive or a segment would be too large to map.
+     */
+    private static void checkLayout(int blockCapacity, int blocksPerSegment) {
+        if (blockCapacity <= 0) throw new IllegalArgumentException("blockCapacity must be > 0");
+        if (blocksPerSegment <= 0) throw new IllegalArgumentException("blocksPerSegment must be > 0");
+
+        long segmentSize = blockSize(blockCapacity) * blocksPerSegment;
+
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                "blockCapacity=%d and blocksPerSegment=%d need a %d byte segment; the most that can be mapped is %d",
+                blockCapacity, blocksPerSegment, segmentSize, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Create a new, empty, {@link TimeSeries} for {@code nodeId} at {@code path}.
+     *
+     * @param nodeId           the {@link NodeId} of the node whose values are stored.
+     * @param path             the file to create.
+     * @param blockCapacity    the number of samples per block.
+     * @param blocksPerSegment the number of blocks mapped at a time.
+     * @return a new {@link TimeSeries}.
+     * @throws IOException              if the file already exists or can't be created.
+     * @throws IllegalArgumentException if {@code blockCapacity} or {@code blocksPerSegment} isn't positive, or a
+     *                                  segment of {@code blocksPerSegment} blocks would be larger than
+     *                                  {@link Integer#MAX_VALUE} bytes.
+     */
+    public static TimeSeries create(
+        NodeId nodeId,
+        Path path,
+        int blockCapacity,
+        int blocksPerSegment) throws IOException {
+
+        checkLayout(blockCapacity, blocksPerSegment);
+
+        byte[] nodeIdBytes = nodeId.toParseableString().getBytes(StandardCharsets.UTF_8);
+
+        if (nodeIdBytes.length > FILE_HEADER_SIZE - 20) {
+            throw new IllegalArgumentException("nodeId too long: " + nodeId);
+        }
+
+        FileChannel channel = FileChannel.open(
+            path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(blockCapacity);
+            header.putInt(blocksPerSegment);
+            header.putInt(nodeIdBytes.length);
+            header.put(nodeIdBytes);
+            header.clear();
+
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            return new TimeSeries(nodeId, path, channel, blockCapacity, blocksPerSegment);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing {@link TimeSeries}.
+     *
+     * @param path the file to open.
+     * @return the {@link TimeSeries} stored at {@code path}.
+     * @throws IOException if the file can't be read or isn't a time series.
+     */
+    public static TimeSeries open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("truncated header: " + path);
+                }
+            }
+
+            header.flip();
+
+            if (header.getInt() != MAGIC) throw new IOException("not a time series: " + path);
+            if (header.getInt() != VERSION) throw new IOException("unsupported version: " + path);
+
+            int blockCapacity = header.getInt();
+            int blocksPerSegment = header.getInt();
+
+            try {
+                checkLayout(blockCapacity, blocksPerSegment);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("invalid block layout: " + path, e);
+            }
+            byte[] nodeIdBytes = new byte[header.getInt()];
+            header.get(nodeIdBytes);
+
+            NodeId nodeId = NodeId.parse(new String(nodeIdBytes, StandardCharsets.UTF_8));
+
+            TimeSeries series = new TimeSeries(nodeId, path, channel, blockCapacity, blocksPerSegment);
+            series.load();
+
+            return series;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Map the existing blocks; the first empty block, if any, marks the end of the series.
+     */
+    private void load() throws IOException {
+        long maxBlocks = (channel.size() - FILE_HEADER_SIZE) / blockSize;
+
+        for (long i = 0; i < maxBlocks; i++) {
+            Block block = mapBlock((int) i);
+
+            int count = block.buffer.getInt(block.offset);
+
+            if (count == 0) break;
+
+            block.count = count;
+            block.lastTime = block.buffer.getLong(block.offset + sourceTimeOffset + 8 * (count - 1));
+            addBlock(block);
+            size += count;
+
+            if (count < blockCapacity) break;
+        }
+    }
+
+    /**
+     * @return the {@link NodeId} of the node whose values are stored.
+     */
+    public NodeId getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the file this series is stored in.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the number of samples.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the source time, in 100 nanosecond intervals since 1601, of the last sample, or {@link Long#MIN_VALUE}
+     * if there are none.
+     */
+    public long getLastTime() {
+        long size = this.size;
+
+        return size > 0 ? getSourceTime(size - 1) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Append a sample.
+     *
+     * @param value the {@link DataValue} to append. Its source time, or its server time if it has none, orders it.
+     * @return {@code true} if the sample was appended, {@code false} if it is older than the last sample or its value
+     * isn't a supported type.
+     * @throws IOException if the file couldn't be extended.
+     */
+    public boolean append(DataValue value) throws IOException {
+        Object o = value.getValue() != null ? value.getValue().getValue() : null;
+
+        int type = typeOf(o);
+        if (type < 0) return false;
+
+        long serverTime = value.getServerTime() != null ? value.getServerTime().getUtcTime() : 0L;
+        long sourceTime = value.getSourceTime() != null ? value.getSourceTime().getUtcTime() : serverTime;
+
+        return append(sourceTime, serverTime, value.getStatusCode().getValue(), type, encode(type, o));
+    }
+
+    /**
+     * Append a sample.
+     *
+     * @param sourceTime the source time, in 100 nanosecond intervals since 1601.
+     * @param serverTime the server time, in 100 nanosecond intervals since 1601.
+     * @param status     the status code.
+     * @param type       the value type.
+     * @param bits       the value encoded by {@link #encode(int, Object)}.
+     * @return {@code true} if the sample was appended, {@code false} if it is older than the last sample.
+     * @throws IOException if the file couldn't be extended.
+     */
+    synchronized boolean append(long sourceTime, long serverTime, long status, int type, long bits) throws IOException {
+        int blockCount = this.blockCount;
+        Block block = blockCount > 0 ? blocks[blockCount - 1] : null;
+
+        if (block != null && block.count > 0 && sourceTime < block.lastTime) {
+            return false;
+        }
+
+        if (block == null || block.count == blockCapacity) {
+            block = mapBlock(blockCount);
+            addBlock(block);
+        }
+
+        ByteBuffer buffer = block.buffer;
+        int offset = block.offset;
+        int index = block.count;
+
+        buffer.putLong(offset + sourceTimeOffset + 8 * index, sourceTime);
+        buffer.putLong(offset + serverTimeOffset + 8 * index, serverTime);
+        buffer.putLong(offset + valueOffset + 8 * index, bits);
+        buffer.putInt(offset + statusOffset + 4 * index, (int) status);
+        buffer.put(offset + typeOffset + index, (byte) type);
+
+        buffer.putInt(offset, index + 1);
+
+        block.lastTime = sourceTime;
+        block.count = index + 1;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Force appended samples to storage.
+     */
+    public synchronized void flush() {
+        if (segment != null) segment.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+
+        channel.close();
+    }
+
+    /**
+     * @param time a source time, in 100 nanosecond intervals since 1601.
+     * @return the index of the first sample whose source time is {@code >= time}, or {@link #size()} if there is none.
+     */
+    public long lowerBound(long time) {
+        return search(time, false);
+    }
+
+    /**
+     * @param time a source time, in 100 nanosecond intervals since 1601.
+     * @return the index of the first sample whose source time is {@code > time}, or {@link #size()} if there is none.
+     */
+    public long upperBound(long time) {
+        return search(time, true);
+    }
+
+    private long search(long time, boolean upper) {
+        int blockCount = this.blockCount;
+        Block[] blocks = this.blocks;
+
+        // find the last block whose first sample could be at or before time
+        int lo = 0;
+        int hi = blockCount - 1;
+        int b = -1;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long first = blocks[mid].firstTime();
+
+            if (upper ? first <= time : first < time) {
+                b = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        if (b < 0) return 0L;
+
+        Block block = blocks[b];
+        int count = block.count;
+        int base = block.offset + sourceTimeOffset;
+
+        int l = 0;
+        int h = count;
+
+        while (l < h) {
+            int mid = (l + h) >>> 1;
+            long t = block.buffer.getLong(base + 8 * mid);
+
+            if (upper ? t <= time : t < time) {
+                l = mid + 1;
+            } else {
+                h = mid;
+            }
+        }
+
+        return (long) b * blockCapacity + l;
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the source time of the sample, in 100 nanosecond intervals since 1601.
+     */
+    public long getSourceTime(long index) {
+        Block block = blocks[(int) (index / blockCapacity)];
+
+        return block.buffer.getLong(block.offset + sourceTimeOffset + 8 * (int) (index % blockCapacity));
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the server time of the sample, in 100 nanosecond intervals since 1601.
+     */
+    public long getServerTime(long index) {
+        Block block = blocks[(int) (index / blockCapacity)];
+
+        return block.buffer.getLong(block.offset + serverTimeOffset + 8 * (int) (index % blockCapacity));
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the status code of the sample.
+     */
+    public long getStatus(long index) {
+        Block block = blocks[(int) (index / blockCapacity)];
+
+        return block.buffer.getInt(block.offset + statusOffset + 4 * (int) (index % blockCapacity)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the value of the sample, or {@code null} if it has none.
+     */
+    @Nullable
+    public Object getValue(long index) {
+        Block block = blocks[(int) (index / blockCapacity)];
+        int i = (int) (index % blockCapacity);
+
+        int type = block.buffer.get(block.offset + typeOffset + i);
+        long bits = block.buffer.getLong(block.offset + valueOffset + 8 * i);
+
+        return decode(type, bits);
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the value of the sample as a double, or {@link Double#NaN} if it has no numeric value.
+     */
+    public double getDouble(long index) {
+        Block block = blocks[(int) (index / blockCapacity)];
+        int i = (int) (index % blockCapacity);
+
+        int type = block.buffer.get(block.offset + typeOffset + i);
+        long bits = block.buffer.getLong(block.offset + valueOffset + 8 * i);
+
+        switch (type) {
+            case TYPE_NULL:
+            case TYPE_DATETIME:
+                return Double.NaN;
+            case TYPE_UINT64:
+                return bits >= 0 ? (double) bits : ulong(bits).doubleValue();
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return (double) bits;
+        }
+    }
+
+    /**
+     * @param index the index of a sample.
+     * @return the sample as a {@link DataValue}.
+     */
+    public DataValue getDataValue(long index) {
+        Object value = getValue(index);
+        long serverTime = getServerTime(index);
+
+        return new DataValue(
+            value != null ? new Variant(value) : Variant.NULL_VALUE,
+            new StatusCode(getStatus(index)),
+            new DateTime(getSourceTime(index)),
+            serverTime != 0L ? new DateTime(serverTime) : null
+        );
+    }
+
+    private Block mapBlock(int blockIndex) throws IOException {
+        int segmentIndex = blockIndex / blocksPerSegment;
+
+        if (segmentIndex != this.segmentIndex) {
+            if (segment != null) segment.force();
+
+            segment = channel.map(
+                FileChannel.MapMode.READ_WRITE,
+                FILE_HEADER_SIZE + segmentIndex * segmentSize,
+                segmentSize
+            );
+
+            this.segmentIndex = segmentIndex;
+        }
+
+        return new Block(segment, (int) ((blockIndex % blocksPerSegment) * blockSize));
+    }
+
+    private void addBlock(Block block) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length * 2);
+        }
+
+        blocks[blockCount] = block;
+        blockCount = blockCount + 1;
+    }
+
+    /**
+     * @return the type of {@code value}, or -1 if it can't be stored.
+     */
+    static int typeOf(@Nullable Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        } else if (value instanceof Double) {
+            return TYPE_DOUBLE;
+        } else if (value instanceof Float) {
+            return TYPE_FLOAT;
+        } else if (value instanceof Integer) {
+            return TYPE_INT32;
+        } else if (value instanceof Long) {
+            return TYPE_INT64;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        } else if (value instanceof Short) {
+            return TYPE_INT16;
+        } else if (value instanceof Byte) {
+            return TYPE_SBYTE;
+        } else if (value instanceof UInteger) {
+            return TYPE_UINT32;
+        } else if (value instanceof UShort) {
+            return TYPE_UINT16;
+        } else if (value instanceof UByte) {
+            return TYPE_BYTE;
+        } else if (value instanceof ULong) {
+            return TYPE_UINT64;
+        } else if (value instanceof DateTime) {
+            return TYPE_DATETIME;
+        } else {
+            return -1;
+        }
+    }
+
+    static long encode(int type, @Nullable Object value) {
+        switch (type) {
+            case TYPE_NULL:
+                return 0L;
+            case TYPE_BOOLEAN:
+                return ((Boolean) value) ? 1L : 0L;
+            case TYPE_FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case TYPE_DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            case TYPE_DATETIME:
+                return ((DateTime) value).getUtcTime();
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    @Nullable
+    static Object decode(int type, long bits) {
+        switch (type) {
+            case TYPE_BOOLEAN:
+                return bits != 0L;
+            case TYPE_SBYTE:
+                return (byte) bits;
+            case TYPE_BYTE:
+                return ubyte(bits);
+            case TYPE_INT16:
+                return (short) bits;
+            case TYPE_UINT16:
+                return ushort((int) bits);
+            case TYPE_INT32:
+                return (int) bits;
+            case TYPE_UINT32:
+                return uint(bits);
+            case TYPE_INT64:
+                return bits;
+            case TYPE_UINT64:
+                return ulong(bits);
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(bits);
+            case TYPE_DATETIME:
+                return new DateTime(bits);
+            default:
+                return null;
+        }
+    }
+
+    private class Block {
+
+        volatile int count;
+        volatile long lastTime;
+
+        final ByteBuffer buffer;
+        final int offset;
+
+        Block(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        long firstTime() {
+            return buffer.getLong(offset + sourceTimeOffset);
+        }
+
+    }
+
+}
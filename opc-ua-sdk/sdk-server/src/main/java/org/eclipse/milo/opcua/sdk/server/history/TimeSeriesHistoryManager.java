@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.sdk.server.history.aggregates.AggregateCursor;
+import org.eclipse.milo.opcua.sdk.server.history.aggregates.Aggregators;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DiagnosticInfo;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.PerformUpdateType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryData;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryUpdateDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryUpdateResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadRawModifiedDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.UpdateDataDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * An {@link AttributeHistoryManager} that records node values in a {@link TimeSeriesStore} and serves HistoryRead
+ * and HistoryUpdate from it.
+ * <p>
+ * It doesn't depend on any particular {@link org.eclipse.milo.opcua.sdk.server.api.Namespace}; a namespace delegates
+ * {@code historyRead} and {@code historyUpdate} for its historizing nodes to it and feeds it values, either directly
+ * with {@link #record(NodeId, DataValue)} or by sampling the {@link DataItem}s from
+ * {@link #createRecordingItem(NodeId, double)} alongside its other items.
+ * <p>
+ * Supported reads are:
+ * <ul>
+ * <li>ReadRawModifiedDetails, raw values only, forward or in reverse, with or without bounds.</li>
+ * <li>ReadProcessedDetails, forward, with the aggregates in {@link Aggregators#getSupportedAggregates()}, computed
+ * by an {@link AggregateCursor} streaming the raw values from the store.</li>
+ * </ul>
+ * Reads return at most {@code maxValuesPerRead} values per node, fewer if the response would otherwise grow past the
+ * {@link HistoryReadContext#getMaxBytesPerNode()} of the read; the rest are left behind continuation points held by
+ * the session, see {@link HistoryReadContext#read(NodeId, org.eclipse.milo.opcua.sdk.server.api.HistoryReadCursor)}.
+ * <p>
+ * HistoryUpdate supports UpdateDataDetails with {@link PerformUpdateType#Insert}, for values no older than the last
+ * value recorded for the node.
+ */
+public class TimeSeriesHistoryManager implements AttributeHistoryManager {
+
+    public static final int DEFAULT_MAX_VALUES_PER_READ = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final AtomicLong rejectedCount = new AtomicLong(0L);
+    private final AtomicLong nextItemId = new AtomicLong(0L);
+
+    private final TimeSeriesStore store;
+    private final int maxValuesPerRead;
+
+    public TimeSeriesHistoryManager(TimeSeriesStore store) {
+        this(store, DEFAULT_MAX_VALUES_PER_READ);
+    }
+
+    /**
+     * @param store            the {@link TimeSeriesStore} to record to and read from.
+     * @param maxValuesPerRead the maximum number of values returned per node per read.
+     */
+    public TimeSeriesHistoryManager(TimeSeriesStore store, int maxValuesPerRead) {
+        this.store = store;
+        this.maxValuesPerRead = maxValuesPerRead;
+    }
+
+    public TimeSeriesStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return the number of values that weren't recorded because they were older than the last value recorded for
+     * their node or their type can't be stored.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Record a value of {@code nodeId}.
+     *
+     * @param nodeId the {@link NodeId} of the node.
+     * @param value  the value to record.
+     * @return {@code true} if the value was recorded.
+     */
+    public boolean record(NodeId nodeId, DataValue value) {
+        try {
+            if (store.getOrCreate(nodeId).append(value)) {
+                return true;
+            } else {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("Error recording value for {}", nodeId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Create a {@link DataItem} that records every value it is sampled.
+     * <p>
+     * Pass it to the namespace's sampling, e.g.
+     * {@link org.eclipse.milo.opcua.sdk.server.util.SubscriptionModel#onDataItemsCreated(List)}, to record the Value
+     * attribute of {@code nodeId} at {@code samplingInterval}, and to
+     * {@link org.eclipse.milo.opcua.sdk.server.util.SubscriptionModel#onDataItemsDeleted(List)} to stop.
+     *
+     * @param nodeId           the {@link NodeId} of the node to record.
+     * @param samplingInterval the interval to sample it at, in milliseconds.
+     * @return a {@link DataItem} that records the values of {@code nodeId}.
+     */
+    public DataItem createRecordingItem(NodeId nodeId, double samplingInterval) {
+        return new RecordingItem(uint(nextItemId.getAndIncrement()), nodeId, samplingInterval);
+    }
+
+    @Override
+    public void historyRead(
+        HistoryReadContext context,
+        HistoryReadDetails readDetails,
+        TimestampsToReturn timestamps,
+        List<HistoryReadValueId> readValueIds) {
+
+        List<HistoryReadResult> results = Lists.newArrayListWithCapacity(readValueIds.size());
+
+        for (int i = 0; i < readValueIds.size(); i++) {
+            HistoryReadValueId readValueId = readValueIds.get(i);
+
+            HistoryReadResult result;
+
+            try {
+                result = read(context, readDetails, timestamps, readValueId, i, readValueIds.size());
+            } catch (Throwable t) {
+                logger.warn("Error reading history for {}", readValueId.getNodeId(), t);
+
+                result = new HistoryReadResult(new StatusCode(StatusCodes.Bad_InternalError), null, null);
+            }
+
+            results.add(result);
+        }
+
+        context.complete(results);
+    }
+
+    @Override
+    public void historyUpdate(HistoryUpdateContext context, List<HistoryUpdateDetails> updateDetails) {
+        List<HistoryUpdateResult> results = Lists.newArrayListWithCapacity(updateDetails.size());
+
+        for (HistoryUpdateDetails details : updateDetails) {
+            if (details instanceof UpdateDataDetails &&
+                ((UpdateDataDetails) details).getPerformInsertReplace() == PerformUpdateType.Insert) {
+
+                DataValue[] values = ((UpdateDataDetails) details).getUpdateValues();
+                StatusCode[] operationResults = new StatusCode[values != null ? values.length : 0];
+
+                for (int i = 0; i < operationResults.length; i++) {
+                    operationResults[i] = record(details.getNodeId(), values[i]) ?
+                        new StatusCode(StatusCodes.Good_EntryInserted) :
+                        new StatusCode(StatusCodes.Bad_HistoryOperationUnsupported);
+                }
+
+                results.add(new HistoryUpdateResult(StatusCode.GOOD, operationResults, new DiagnosticInfo[0]));
+            } else {
+                results.add(new HistoryUpdateResult(
+                    new StatusCode(StatusCodes.Bad_HistoryOperationUnsupported), null, null));
+            }
+        }
+
+        context.complete(results);
+    }
+
+    private HistoryReadResult read(
+        HistoryReadContext context,
+        HistoryReadDetails readDetails,
+        TimestampsToReturn timestamps,
+        HistoryReadValueId readValueId,
+        int index,
+        int count) {
+
+        ByteString continuationPoint = readValueId.getContinuationPoint();
+
+        if (continuationPoint != null && continuationPoint.isNotNull()) {
+            return context.resume(readValueId);
+        }
+
+        if (timestamps == TimestampsToReturn.Neither) {
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_TimestampsToReturnInvalid), null, null);
+        }
+
+        if (readValueId.getIndexRange() != null && !readValueId.getIndexRange().isEmpty()) {
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_IndexRangeInvalid), null, null);
+        }
+
+        QualifiedName dataEncoding = readValueId.getDataEncoding();
+        if (dataEncoding != null && dataEncoding.isNotNull()) {
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_DataEncodingInvalid), null, null);
+        }
+
+        TimeSeries series = store.get(readValueId.getNodeId());
+
+        if (series == null) {
+            return new HistoryReadResult(new StatusCode(StatusCodes.Bad_HistoryOperationUnsupported), null, null);
+        }
+
+        Iterator<DataValue> values;
+        int pageSize = maxValuesPerRead;
+
+        try {
+            if (readDetails instanceof ReadRawModifiedDetails) {
+                ReadRawModifiedDetails details = (ReadRawModifiedDetails) readDetails;
+
+                if (Boolean.TRUE.equals(details.getIsReadModified())) {
+                    return new HistoryReadResult(
+                        new StatusCode(StatusCodes.Bad_HistoryOperationUnsupported), null, null);
+                }
+
+                RawCursor cursor = RawCursor.create(series, details);
+
+                values = cursor;
+                pageSize = Math.min(pageSize, cursor.pageSize);
+            } else if (readDetails instanceof ReadProcessedDetails) {
+                ReadProcessedDetails details = (ReadProcessedDetails) readDetails;
+
+                NodeId[] aggregateTypes = details.getAggregateType();
+
+                if (aggregateTypes == null || aggregateTypes.length != count) {
+                    return new HistoryReadResult(new StatusCode(StatusCodes.Bad_AggregateListMismatch), null, null);
+                }
+
+                values = AggregateCursor.open(store, readValueId.getNodeId(), details, aggregateTypes[index]);
+            } else {
+                return new HistoryReadResult(new StatusCode(StatusCodes.Bad_HistoryOperationUnsupported), null, null);
+            }
+        } catch (UaException e) {
+            return new HistoryReadResult(e.getStatusCode(), null, null);
+        }
+
+        if (!values.hasNext()) {
+            return new HistoryReadResult(
+                new StatusCode(StatusCodes.Good_NoData),
+                null,
+                ExtensionObject.encode(new HistoryData(new DataValue[0]))
+            );
+        }
+
+        HistoryDataCursor cursor = new HistoryDataCursor(
+            Iterators.transform(values, value -> applyTimestamps(value, timestamps)),
+            pageSize
+        );
+
+        return context.read(readValueId.getNodeId(), cursor);
+    }
+
+    private static DataValue applyTimestamps(DataValue value, TimestampsToReturn timestamps) {
+        switch (timestamps) {
+            case Source:
+                return new DataValue(value.getValue(), value.getStatusCode(), value.getSourceTime(), null);
+            case Server:
+                return new DataValue(value.getValue(), value.getStatusCode(), null, value.getServerTime());
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * @return {@code time} in 100 nanosecond intervals since 1601, or 0 if it is unspecified.
+     */
+    private static long ticks(@Nullable DateTime time) {
+        return time != null ? time.getUtcTime() : 0L;
+    }
+
+    /**
+     * Reads raw samples from {@code next} towards {@code stop}, exclusive, stepping by {@code step}.
+     */
+    private static class RawCursor implements Iterator<DataValue> {
+
+        private long next;
+        private long remaining;
+
+        private final TimeSeries series;
+        private final long stop;
+        private final int step;
+        private final int pageSize;
+
+        private RawCursor(TimeSeries series, long next, long stop, int step, int pageSize, long remaining) {
+            this.series = series;
+            this.next = next;
+            this.stop = stop;
+            this.step = step;
+            this.pageSize = pageSize;
+            this.remaining = remaining;
+        }
+
+        static RawCursor create(TimeSeries series, ReadRawModifiedDetails details) throws UaException {
+            long start = ticks(details.getStartTime());
+            long end = ticks(details.getEndTime());
+            long numValues = details.getNumValuesPerNode() != null ? details.getNumValuesPerNode().longValue() : 0L;
+            boolean bounds = Boolean.TRUE.equals(details.getReturnBounds());
+
+            if (start == 0L && end == 0L) {
+                throw new UaException(StatusCodes.Bad_InvalidTimestampArgument);
+            }
+
+            if ((start == 0L || end == 0L) && numValues == 0L) {
+                // an open-ended read must be limited
+                throw new UaException(StatusCodes.Bad_InvalidTimestampArgument);
+            }
+
+            long size = series.size();
+
+            // numValuesPerNode limits each response, or for an open-ended read, the whole read
+            int pageSize = numValues > 0L ? (int) Math.min(numValues, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+            long remaining = start == 0L || end == 0L ? numValues : Long.MAX_VALUE;
+
+            if (start != 0L && (end == 0L || start <= end)) {
+                // forward, [start, end)
+                long from = series.lowerBound(start);
+
+                if (bounds && from > 0 && (from == size || series.getSourceTime(from) != start)) {
+                    from--;
+                }
+
+                long to;
+
+                if (end == 0L) {
+                    to = size;
+                } else if (end == start) {
+                    to = series.upperBound(end);
+                } else {
+                    to = series.lowerBound(end);
+
+                    if (bounds && to < size) to++;
+                }
+
+                return new RawCursor(series, from, to, 1, pageSize, remaining);
+            } else {
+                // reverse, (end, start] or, without a start time, everything before end
+                long from;
+
+                if (start == 0L) {
+                    from = series.lowerBound(end);
+                } else {
+                    from = series.upperBound(start);
+
+                    if (bounds && from < size && (from == 0 || series.getSourceTime(from - 1) != start)) {
+                        from++;
+                    }
+                }
+
+                long to = start == 0L ? 0L : series.upperBound(end);
+
+                if (bounds && to > 0) to--;
+
+                return new RawCursor(series, from - 1, to - 1, -1, pageSize, remaining);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != stop && remaining > 0;
+        }
+
+        @Override
+        public DataValue next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            DataValue value = series.getDataValue(next);
+
+            next += step;
+            remaining--;
+
+            return value;
+        }
+
+    }
+
+    private class RecordingItem implements DataItem {
+
+        private volatile DataValue lastValue;
+
+        private final UInteger id;
+        private final ReadValueId readValueId;
+        private final double samplingInterval;
+
+        RecordingItem(UInteger id, NodeId nodeId, double samplingInterval) {
+            this.id = id;
+            this.readValueId = new ReadValueId(nodeId, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+            this.samplingInterval = samplingInterval;
+        }
+
+        @Override
+        public void setValue(DataValue value) {
+            lastValue = value;
+
+            record(readValueId.getNodeId(), value);
+        }
+
+        @Override
+        public void setQuality(StatusCode quality) {
+            DataValue last = lastValue;
+            DateTime now = DateTime.now();
+
+            setValue(new DataValue(last != null ? last.getValue() : Variant.NULL_VALUE, quality, now, now));
+        }
+
+        @Override
+        public double getSamplingInterval() {
+            return samplingInterval;
+        }
+
+        @Override
+        public UInteger getId() {
+            return id;
+        }
+
+        @Override
+        public UInteger getSubscriptionId() {
+            return uint(0);
+        }
+
+        @Override
+        public ReadValueId getReadValueId() {
+            return readValueId;
+        }
+
+        @Override
+        public TimestampsToReturn getTimestampsToReturn() {
+            return TimestampsToReturn.Both;
+        }
+
+        @Override
+        public boolean isSamplingEnabled() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A directory of {@link TimeSeries}, one file per node.
+ * <p>
+ * As a {@link RawHistorySource} it reads the values of a series straight from its mapped blocks, one at a time.
+ */
+public class TimeSeriesStore implements RawHistorySource, AutoCloseable {
+
+    public static final int DEFAULT_BLOCK_CAPACITY = 8192;
+    public static final int DEFAULT_BLOCKS_PER_SEGMENT = 32;
+
+    private static final String FILE_EXTENSION = ".ts";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentMap<NodeId, TimeSeries> series = Maps.newConcurrentMap();
+
+    private final Path directory;
+    private final int blockCapacity;
+    private final int blocksPerSegment;
+
+    private TimeSeriesStore(Path directory, int blockCapacity, int blocksPerSegment) {
+        this.directory = directory;
+        this.blockCapacity = blockCapacity;
+        this.blocksPerSegment = blocksPerSegment;
+    }
+
+    /**
+     * Open the store in {@code directory}, creating it if necessary.
+     *
+     * @param directory the directory to store the series in.
+     * @return a {@link TimeSeriesStore}.
+     * @throws IOException if the directory or a series in it can't be read.
+     */
+    public static TimeSeriesStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_BLOCK_CAPACITY, DEFAULT_BLOCKS_PER_SEGMENT);
+    }
+
+    /**
+     * Open the store in {@code directory}, creating it if necessary.
+     * <p>
+     * {@code blockCapacity} and {@code blocksPerSegment} apply to series created by this store; existing series keep
+     * the layout they were created with.
+     *
+     * @param directory        the directory to store the series in.
+     * @param blockCapacity    the number of samples per block.
+     * @param blocksPerSegment the number of blocks mapped at a time.
+     * @return a {@link TimeSeriesStore}.
+     * @throws IOException if the directory or a series in it can't be read.
+     */
+    public static TimeSeriesStore open(Path directory, int blockCapacity, int blocksPerSegment) throws IOException {
+        Files.createDirectories(directory);
+
+        TimeSeriesStore store = new TimeSeriesStore(directory, blockCapacity, blocksPerSegment);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for (Path file : files) {
+                TimeSeries ts = TimeSeries.open(file);
+
+                store.series.put(ts.getNodeId(), ts);
+            }
+        } catch (IOException e) {
+            store.close();
+            throw e;
+        }
+
+        store.logger.debug("Opened {} time series in {}", store.series.size(), directory);
+
+        return store;
+    }
+
+    /**
+     * @param nodeId the {@link NodeId} of a node.
+     * @return the {@link TimeSeries} for {@code nodeId}, or {@code null} if there is none.
+     */
+    @Nullable
+    public TimeSeries get(NodeId nodeId) {
+        return series.get(nodeId);
+    }
+
+    /**
+     * @param nodeId the {@link NodeId} of a node.
+     * @return the {@link TimeSeries} for {@code nodeId}, created if there is none.
+     * @throws IOException if the series had to be created and couldn't be.
+     */
+    public TimeSeries getOrCreate(NodeId nodeId) throws IOException {
+        TimeSeries ts = series.get(nodeId);
+
+        if (ts == null) {
+            synchronized (series) {
+                ts = series.get(nodeId);
+
+                if (ts == null) {
+                    ts = TimeSeries.create(nodeId, pathOf(nodeId), blockCapacity, blocksPerSegment);
+
+                    series.put(nodeId, ts);
+                }
+            }
+        }
+
+        return ts;
+    }
+
+    /**
+     * @return the {@link NodeId}s of the nodes with a {@link TimeSeries}.
+     */
+    public Set<NodeId> getNodeIds() {
+        return ImmutableSet.copyOf(series.keySet());
+    }
+
+    /**
+     * @return the directory the series are stored in.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public Iterator<DataValue> readRaw(NodeId nodeId, DateTime startTime, DateTime endTime) {
+        TimeSeries ts = series.get(nodeId);
+
+        if (ts == null) return Collections.emptyIterator();
+
+        long size = ts.size();
+        long from = startTime != null && !startTime.isNull() ?
+            Math.max(0L, ts.lowerBound(startTime.getUtcTime()) - 1) : 0L;
+        long to = endTime != null && !endTime.isNull() ?
+            Math.min(size, ts.lowerBound(endTime.getUtcTime()) + 1) : size;
+
+        return new RangeIterator(ts, from, to);
+    }
+
+    /**
+     * Force every series to storage.
+     */
+    public void flush() {
+        series.values().forEach(TimeSeries::flush);
+    }
+
+    @Override
+    public void close() {
+        series.values().forEach(ts -> {
+            try {
+                ts.close();
+            } catch (IOException e) {
+                logger.warn("Error closing time series for {}", ts.getNodeId(), e);
+            }
+        });
+
+        series.clear();
+    }
+
+    private Path pathOf(NodeId nodeId) {
+        String name = Hashing.sha256()
+            .hashString(nodeId.toParseableString(), StandardCharsets.UTF_8)
+            .toString();
+
+        return directory.resolve(name + FILE_EXTENSION);
+    }
+
+    private static class RangeIterator implements Iterator<DataValue> {
+
+        private long next;
+
+        private final TimeSeries series;
+        private final long to;
+
+        RangeIterator(TimeSeries series, long from, long to) {
+            this.series = series;
+            this.next = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < to;
+        }
+
+        @Override
+        public DataValue next() {
+            if (next >= to) throw new NoSuchElementException();
+
+            return series.getDataValue(next++);
+        }
+
+    }
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+/**
+ * Base class for {@link Aggregator}s.
+ * <p>
+ * Keeps the last raw value and the last Good raw value seen before the current interval, counts the Good and Bad raw
+ * values in it, and derives the quality of the result from those counts and the {@link AggregateConfiguration}.
+ */
+public abstract class AbstractAggregator implements Aggregator {
+
+    /**
+     * The DataValue InfoType bit and the HistorianCalculated bit.
+     */
+    private static final long CALCULATED_BITS = 0x401L;
+
+    /**
+     * The DataValue InfoType bit and the HistorianInterpolated bit.
+     */
+    private static final long INTERPOLATED_BITS = 0x402L;
+
+    private long start;
+    private long end;
+    private boolean inInterval;
+    private int goodCount;
+    private int badCount;
+
+    private DataValue last;
+    private DataValue lastGood;
+    private DataValue secondLastGood;
+    private DataValue previous;
+    private DataValue previousGood;
+    private DataValue secondPreviousGood;
+
+    private final boolean treatUncertainAsBad;
+    private final int percentDataGood;
+    private final int percentDataBad;
+    private final boolean useSlopedExtrapolation;
+
+    protected AbstractAggregator(AggregateConfiguration configuration) {
+        this.treatUncertainAsBad = !Boolean.FALSE.equals(configuration.getTreatUncertainAsBad());
+        this.percentDataGood = configuration.getPercentDataGood() != null ?
+            configuration.getPercentDataGood().intValue() : 100;
+        this.percentDataBad = configuration.getPercentDataBad() != null ?
+            configuration.getPercentDataBad().intValue() : 100;
+        this.useSlopedExtrapolation = Boolean.TRUE.equals(configuration.getUseSlopedExtrapolation());
+    }
+
+    @Override
+    public final void begin(long start, long end) {
+        this.start = start;
+        this.end = end;
+
+        previous = last;
+        previousGood = lastGood;
+        secondPreviousGood = secondLastGood;
+        goodCount = 0;
+        badCount = 0;
+        inInterval = true;
+
+        reset();
+    }
+
+    @Override
+    public final void accept(long time, DataValue value) {
+        boolean good = isGood(value);
+
+        if (inInterval) {
+            if (good) {
+                goodCount++;
+            } else {
+                badCount++;
+            }
+
+            onValue(time, value, good);
+        }
+
+        last = value;
+
+        if (good) {
+            secondLastGood = lastGood;
+            lastGood = value;
+        }
+    }
+
+    @Override
+    public final DataValue end(@Nullable DataValue next) {
+        inInterval = false;
+
+        return compute(next);
+    }
+
+    /**
+     * Clear the state kept for the previous interval.
+     */
+    protected abstract void reset();
+
+    /**
+     * A raw value in the current interval.
+     *
+     * @param time  the timestamp of the value.
+     * @param value the raw value.
+     * @param good  {@code true} if the value counts as Good.
+     */
+    protected abstract void onValue(long time, DataValue value, boolean good);
+
+    /**
+     * @param next the first raw value at or after the end of the interval, or {@code null} if there is none.
+     * @return the aggregate value for the current interval.
+     */
+    protected abstract DataValue compute(@Nullable DataValue next);
+
+    protected long getStart() {
+        return start;
+    }
+
+    protected long getEnd() {
+        return end;
+    }
+
+    protected int getGoodCount() {
+        return goodCount;
+    }
+
+    protected int getBadCount() {
+        return badCount;
+    }
+
+    /**
+     * @return the last raw value before the current interval, or {@code null} if there is none.
+     */
+    @Nullable
+    protected DataValue getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return the last Good raw value before the current interval, or {@code null} if there is none.
+     */
+    @Nullable
+    protected DataValue getPreviousGood() {
+        return previousGood;
+    }
+
+    /**
+     * @return the Good raw value before {@link #getPreviousGood()}, or {@code null} if there is none.
+     */
+    @Nullable
+    protected DataValue getSecondPreviousGood() {
+        return secondPreviousGood;
+    }
+
+    protected int getPercentDataGood() {
+        return percentDataGood;
+    }
+
+    protected boolean isUseSlopedExtrapolation() {
+        return useSlopedExtrapolation;
+    }
+
+    /**
+     * @return {@code true} if {@code value} counts as Good; Uncertain values count as Good unless the configuration
+     * says to treat them as Bad.
+     */
+    protected boolean isGood(DataValue value) {
+        StatusCode statusCode = value.getStatusCode();
+
+        return statusCode == null || statusCode.isGood() || (statusCode.isUncertain() && !treatUncertainAsBad);
+    }
+
+    /**
+     * @return {@code true} if the Good and Bad values in the current interval satisfy PercentDataGood.
+     */
+    protected boolean isQualityGood() {
+        int total = goodCount + badCount;
+
+        return total == 0 || goodCount * 100L >= percentDataGood * (long) total;
+    }
+
+    /**
+     * @return the status of a calculated result for the current interval, based on the percentage of Good and Bad
+     * values in it.
+     */
+    protected StatusCode calculatedStatus() {
+        int total = goodCount + badCount;
+
+        if (isQualityGood()) {
+            return calculated(StatusCode.GOOD.getValue());
+        } else if (badCount * 100L >= percentDataBad * (long) total) {
+            return calculated(StatusCode.BAD.getValue());
+        } else {
+            return calculated(StatusCodes.Uncertain_DataSubNormal);
+        }
+    }
+
+    /**
+     * @return a result timestamped at the start of the current interval.
+     */
+    protected DataValue result(Variant value, StatusCode statusCode) {
+        return result(value, statusCode, start);
+    }
+
+    protected DataValue result(Variant value, StatusCode statusCode, long time) {
+        DateTime timestamp = new DateTime(time);
+
+        return new DataValue(value, statusCode, timestamp, timestamp);
+    }
+
+    /**
+     * @return a Bad_NoData result timestamped at the start of the current interval.
+     */
+    protected DataValue noData() {
+        return result(Variant.NULL_VALUE, new StatusCode(StatusCodes.Bad_NoData));
+    }
+
+    protected static StatusCode calculated(long statusCode) {
+        return new StatusCode(statusCode | CALCULATED_BITS);
+    }
+
+    protected static StatusCode interpolated(long statusCode) {
+        return new StatusCode(statusCode | INTERPOLATED_BITS);
+    }
+
+    /**
+     * @return the value of {@code value} as a double, or {@link Double#NaN} if it isn't numeric.
+     */
+    protected static double toDouble(@Nullable DataValue value) {
+        Object o = value != null ? value.getValue().getValue() : null;
+
+        if (o instanceof Number) {
+            return ((Number) o).doubleValue();
+        } else if (o instanceof Boolean) {
+            return (Boolean) o ? 1.0 : 0.0;
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return the value at {@code time} on the line through ({@code t0}, {@code v0}) and ({@code t1}, {@code v1}).
+     */
+    protected static double interpolate(long t0, double v0, long t1, double v1, long time) {
+        if (t1 == t0) return v0;
+
+        return v0 + (v1 - v0) * ((double) (time - t0) / (double) (t1 - t0));
+    }
+
+    /**
+     * @return the source timestamp of {@code value}, or its server timestamp if it has no source timestamp.
+     */
+    protected static long timeOf(DataValue value) {
+        DateTime time = value.getSourceTime();
+
+        if (time == null || time.isNull()) {
+            time = value.getServerTime();
+        }
+
+        return time != null ? time.getUtcTime() : 0L;
+    }
+
+}
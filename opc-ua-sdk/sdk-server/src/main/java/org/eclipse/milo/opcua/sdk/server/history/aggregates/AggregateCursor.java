@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.sdk.server.history.RawHistorySource;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+
+/**
+ * Computes the processed values of one node for a ReadProcessed request, a page at a time.
+ * <p>
+ * Raw values are pulled from the source only as far as the intervals being computed need them, and each one is
+ * handed to the {@link Aggregator} and dropped, so memory use doesn't depend on the length of the requested range or
+ * on how many raw values it holds. It is an {@link Iterator} of the processed values, one per interval, so a namespace
+ * can page it into responses with a {@link org.eclipse.milo.opcua.sdk.server.history.HistoryDataCursor}, or read a
+ * page itself with {@link #next(int, List)}.
+ * <p>
+ * Intervals are computed forward from the start time; a start time later than the end time is rejected.
+ */
+public class AggregateCursor implements Iterator<DataValue> {
+
+    private static final long TICKS_PER_MILLI = 10000L;
+
+    private long intervalStart;
+    private DataValue peeked;
+
+    private final Iterator<DataValue> rawValues;
+    private final Aggregator aggregator;
+    private final long end;
+    private final long interval;
+
+    /**
+     * @param rawValues  the raw values, in timestamp order; see {@link RawHistorySource#readRaw}.
+     * @param aggregator the {@link Aggregator} to compute each interval with.
+     * @param start      the start of the first interval.
+     * @param end        the end of the last interval.
+     * @param interval   the length of each interval; the last one is cut short at {@code end}.
+     */
+    public AggregateCursor(Iterator<DataValue> rawValues, Aggregator aggregator, long start, long end, long interval) {
+        this.rawValues = rawValues;
+        this.aggregator = aggregator;
+        this.intervalStart = start;
+        this.end = end;
+        this.interval = interval;
+    }
+
+    /**
+     * Open a cursor over the values of {@code nodeId} processed with {@code aggregateType}, using
+     * {@link Aggregators#DEFAULT_CONFIGURATION} as the server's defaults.
+     *
+     * @see #open(RawHistorySource, NodeId, ReadProcessedDetails, NodeId, AggregateConfiguration)
+     */
+    public static AggregateCursor open(
+        RawHistorySource source,
+        NodeId nodeId,
+        ReadProcessedDetails details,
+        NodeId aggregateType) throws UaException {
+
+        return open(source, nodeId, details, aggregateType, Aggregators.DEFAULT_CONFIGURATION);
+    }
+
+    /**
+     * Open a cursor over the values of {@code nodeId} processed with {@code aggregateType}.
+     *
+     * @param source        the {@link RawHistorySource} to read raw values from.
+     * @param nodeId        the {@link NodeId} of the node.
+     * @param details       the {@link ReadProcessedDetails} of the request.
+     * @param aggregateType the aggregate function requested for {@code nodeId}.
+     * @param defaults      the server's default {@link AggregateConfiguration}.
+     * @return an {@link AggregateCursor}.
+     * @throws UaException if the details are invalid or the aggregate isn't supported.
+     */
+    public static AggregateCursor open(
+        RawHistorySource source,
+        NodeId nodeId,
+        ReadProcessedDetails details,
+        NodeId aggregateType,
+        AggregateConfiguration defaults) throws UaException {
+
+        DateTime startTime = details.getStartTime();
+        DateTime endTime = details.getEndTime();
+
+        if (startTime == null || startTime.isNull() || endTime == null || endTime.isNull()) {
+            throw new UaException(StatusCodes.Bad_InvalidTimestampArgument);
+        }
+
+        long start = startTime.getUtcTime();
+        long end = endTime.getUtcTime();
+
+        if (start > end) {
+            throw new UaException(StatusCodes.Bad_InvalidTimestampArgument, "reverse intervals not supported");
+        }
+
+        double processingInterval = details.getProcessingInterval() != null ?
+            details.getProcessingInterval() : 0.0;
+
+        if (processingInterval < 0.0 || Double.isNaN(processingInterval)) {
+            throw new UaException(StatusCodes.Bad_InvalidTimestampArgument);
+        }
+
+        Aggregator aggregator = Aggregators.create(aggregateType, details.getAggregateConfiguration(), defaults);
+
+        long interval = processingInterval == 0.0 ?
+            Math.max(1L, end - start) : Math.max(1L, (long) (processingInterval * TICKS_PER_MILLI));
+
+        return new AggregateCursor(source.readRaw(nodeId, startTime, endTime), aggregator, start, end, interval);
+    }
+
+    /**
+     * Compute up to {@code max} intervals and add their values to {@code values}.
+     *
+     * @param max    the maximum number of values to add.
+     * @param values the list to add the values to.
+     */
+    public void next(int max, List<DataValue> values) {
+        int n = 0;
+
+        while (hasNext() && n < max) {
+            values.add(next());
+            n++;
+        }
+    }
+
+    /**
+     * @return {@code true} if there are intervals left to compute.
+     */
+    @Override
+    public boolean hasNext() {
+        return intervalStart < end;
+    }
+
+    /**
+     * Compute the next interval.
+     *
+     * @return the value of the next interval.
+     */
+    @Override
+    public DataValue next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        long intervalEnd = Math.min(end, intervalStart + interval);
+
+        // values before the first interval, e.g. the bound the source returned for interpolation
+        acceptBefore(intervalStart);
+
+        aggregator.begin(intervalStart, intervalEnd);
+        acceptBefore(intervalEnd);
+        DataValue value = aggregator.end(peek());
+
+        intervalStart = intervalEnd;
+
+        return value;
+    }
+
+    private void acceptBefore(long time) {
+        DataValue value;
+
+        while ((value = peek()) != null) {
+            long t = AbstractAggregator.timeOf(value);
+
+            if (t >= time) break;
+
+            aggregator.accept(t, value);
+            peeked = null;
+        }
+    }
+
+    @Nullable
+    private DataValue peek() {
+        if (peeked == null && rawValues.hasNext()) {
+            peeked = rawValues.next();
+        }
+
+        return peeked;
+    }
+
+}
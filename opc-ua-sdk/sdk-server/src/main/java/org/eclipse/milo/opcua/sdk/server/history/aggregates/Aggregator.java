@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+
+/**
+ * Computes an aggregate incrementally, one processing interval at a time.
+ * <p>
+ * Raw values are passed to {@link #accept(long, DataValue)} exactly once each, in timestamp order. Values that precede
+ * the first interval are accepted before the first call to {@link #begin(long, long)}; every other value is accepted
+ * between the {@link #begin(long, long)} and {@link #end(DataValue)} of the interval it falls in. An aggregator keeps
+ * whatever it needs from earlier intervals, e.g. the last Good value to interpolate from, but nothing more, so the
+ * memory it uses doesn't depend on how many raw values there are.
+ * <p>
+ * Times are in 100 nanosecond intervals since 1601, as returned by
+ * {@link org.eclipse.milo.opcua.stack.core.types.builtin.DateTime#getUtcTime()}.
+ */
+public interface Aggregator {
+
+    /**
+     * Begin the interval [{@code start}, {@code end}).
+     *
+     * @param start the start of the interval, inclusive.
+     * @param end   the end of the interval, exclusive.
+     */
+    void begin(long start, long end);
+
+    /**
+     * Accept a raw value.
+     *
+     * @param time  the timestamp of the value.
+     * @param value the raw value.
+     */
+    void accept(long time, DataValue value);
+
+    /**
+     * End the current interval.
+     *
+     * @param next the first raw value at or after the end of the interval, or {@code null} if there is none.
+     * @return the aggregate value for the interval.
+     */
+    DataValue end(@Nullable DataValue next);
+
+}
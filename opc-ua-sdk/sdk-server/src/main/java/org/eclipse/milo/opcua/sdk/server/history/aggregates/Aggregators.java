@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import org.eclipse.milo.opcua.sdk.server.history.aggregates.StatisticsAggregator.Statistic;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+
+/**
+ * Creates the {@link Aggregator}s for the standard aggregate functions.
+ */
+public final class Aggregators {
+
+    /**
+     * The configuration used when a client asks for the server's defaults: Uncertain values are treated as Bad, and
+     * a result is Good only if all of the data it was computed from is Good.
+     */
+    public static final AggregateConfiguration DEFAULT_CONFIGURATION =
+        new AggregateConfiguration(true, true, ubyte(100), ubyte(100), false);
+
+    private static final Map<NodeId, Function<AggregateConfiguration, Aggregator>> FACTORIES =
+        ImmutableMap.<NodeId, Function<AggregateConfiguration, Aggregator>>builder()
+            .put(Identifiers.AggregateFunction_Interpolative, InterpolativeAggregator::new)
+            .put(Identifiers.AggregateFunction_Average, statistic(Statistic.AVERAGE))
+            .put(Identifiers.AggregateFunction_TimeAverage, c -> new TimeWeightedAggregator(false, c))
+            .put(Identifiers.AggregateFunction_Total, c -> new TimeWeightedAggregator(true, c))
+            .put(Identifiers.AggregateFunction_Minimum, statistic(Statistic.MINIMUM))
+            .put(Identifiers.AggregateFunction_Maximum, statistic(Statistic.MAXIMUM))
+            .put(Identifiers.AggregateFunction_MinimumActualTime, statistic(Statistic.MINIMUM_ACTUAL_TIME))
+            .put(Identifiers.AggregateFunction_MaximumActualTime, statistic(Statistic.MAXIMUM_ACTUAL_TIME))
+            .put(Identifiers.AggregateFunction_Range, statistic(Statistic.RANGE))
+            .put(Identifiers.AggregateFunction_Count, statistic(Statistic.COUNT))
+            .put(Identifiers.AggregateFunction_Start, statistic(Statistic.START))
+            .put(Identifiers.AggregateFunction_End, statistic(Statistic.END))
+            .put(Identifiers.AggregateFunction_Delta, statistic(Statistic.DELTA))
+            .put(Identifiers.AggregateFunction_DurationGood, c -> new DurationAggregator(true, false, c))
+            .put(Identifiers.AggregateFunction_DurationBad, c -> new DurationAggregator(false, false, c))
+            .put(Identifiers.AggregateFunction_PercentGood, c -> new DurationAggregator(true, true, c))
+            .put(Identifiers.AggregateFunction_PercentBad, c -> new DurationAggregator(false, true, c))
+            .put(Identifiers.AggregateFunction_WorstQuality, statistic(Statistic.WORST_QUALITY))
+            .put(
+                Identifiers.AggregateFunction_StandardDeviationSample,
+                statistic(Statistic.STANDARD_DEVIATION_SAMPLE))
+            .put(
+                Identifiers.AggregateFunction_StandardDeviationPopulation,
+                statistic(Statistic.STANDARD_DEVIATION_POPULATION))
+            .put(Identifiers.AggregateFunction_VarianceSample, statistic(Statistic.VARIANCE_SAMPLE))
+            .put(Identifiers.AggregateFunction_VariancePopulation, statistic(Statistic.VARIANCE_POPULATION))
+            .build();
+
+    private Aggregators() {}
+
+    /**
+     * @return the {@link NodeId}s of the aggregate functions {@link #create(NodeId, AggregateConfiguration)}
+     * supports.
+     */
+    public static Set<NodeId> getSupportedAggregates() {
+        return FACTORIES.keySet();
+    }
+
+    public static boolean isSupported(NodeId aggregateType) {
+        return FACTORIES.containsKey(aggregateType);
+    }
+
+    /**
+     * Create an {@link Aggregator} for {@code aggregateType}, using {@link #DEFAULT_CONFIGURATION} as the server's
+     * defaults.
+     *
+     * @see #create(NodeId, AggregateConfiguration, AggregateConfiguration)
+     */
+    public static Aggregator create(
+        NodeId aggregateType,
+        @Nullable AggregateConfiguration configuration) throws UaException {
+
+        return create(aggregateType, configuration, DEFAULT_CONFIGURATION);
+    }
+
+    /**
+     * Create an {@link Aggregator} for {@code aggregateType}.
+     *
+     * @param aggregateType the {@link NodeId} of the aggregate function.
+     * @param configuration the {@link AggregateConfiguration} requested by the client, if any.
+     * @param defaults      the configuration used if {@code configuration} is absent or asks for the server's
+     *                      defaults.
+     * @return an {@link Aggregator}.
+     * @throws UaException with Bad_AggregateNotSupported if {@code aggregateType} isn't supported, or
+     *                     Bad_AggregateConfigurationRejected if {@code configuration} is invalid.
+     */
+    public static Aggregator create(
+        NodeId aggregateType,
+        @Nullable AggregateConfiguration configuration,
+        AggregateConfiguration defaults) throws UaException {
+
+        Function<AggregateConfiguration, Aggregator> factory = FACTORIES.get(aggregateType);
+
+        if (factory == null) {
+            throw new UaException(StatusCodes.Bad_AggregateNotSupported);
+        }
+
+        if (configuration == null || !Boolean.FALSE.equals(configuration.getUseServerCapabilitiesDefaults())) {
+            configuration = defaults;
+        }
+
+        if (percent(configuration.getPercentDataGood()) > 100 || percent(configuration.getPercentDataBad()) > 100) {
+            throw new UaException(StatusCodes.Bad_AggregateConfigurationRejected);
+        }
+
+        return factory.apply(configuration);
+    }
+
+    private static Function<AggregateConfiguration, Aggregator> statistic(Statistic statistic) {
+        return c -> new StatisticsAggregator(statistic, c);
+    }
+
+    private static int percent(@Nullable Number percent) {
+        return percent != null ? percent.intValue() : 0;
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+/**
+ * The DurationGood, DurationBad, PercentGood and PercentBad aggregates.
+ * <p>
+ * Each raw value's quality holds until the next raw value. Time before the first raw value counts as Bad. Durations
+ * are in milliseconds.
+ */
+class DurationAggregator extends AbstractAggregator {
+
+    private static final double TICKS_PER_MILLI = 10000.0;
+
+    private boolean good;
+    private long time;
+    private long goodTicks;
+    private long badTicks;
+
+    private final boolean measureGood;
+    private final boolean percent;
+
+    DurationAggregator(boolean measureGood, boolean percent, AggregateConfiguration configuration) {
+        super(configuration);
+
+        this.measureGood = measureGood;
+        this.percent = percent;
+    }
+
+    @Override
+    protected void reset() {
+        DataValue previous = getPrevious();
+
+        good = previous != null && isGood(previous);
+        time = getStart();
+        goodTicks = 0L;
+        badTicks = 0L;
+    }
+
+    @Override
+    protected void onValue(long time, DataValue value, boolean good) {
+        advance(time);
+
+        this.good = good;
+    }
+
+    @Override
+    protected DataValue compute(@Nullable DataValue next) {
+        advance(getEnd());
+
+        long ticks = measureGood ? goodTicks : badTicks;
+        long length = getEnd() - getStart();
+
+        double value = percent ?
+            (length > 0L ? 100.0 * ticks / length : 0.0) :
+            ticks / TICKS_PER_MILLI;
+
+        return result(new Variant(value), calculated(StatusCode.GOOD.getValue()));
+    }
+
+    private void advance(long to) {
+        if (good) {
+            goodTicks += to - time;
+        } else {
+            badTicks += to - time;
+        }
+
+        time = to;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+/**
+ * The Interpolative aggregate: the value at the start of each interval, interpolated between the Good raw values on
+ * either side of it.
+ * <p>
+ * Numeric values are interpolated linearly, anything else is stepped. Past the last Good raw value the value is
+ * extrapolated, stepped or, if UseSlopedExtrapolation is set, along the line through the last two Good values, and
+ * marked Uncertain.
+ */
+class InterpolativeAggregator extends AbstractAggregator {
+
+    private boolean badBeforeFirstGood;
+    private long firstGoodTime;
+    private DataValue firstGood;
+
+    InterpolativeAggregator(AggregateConfiguration configuration) {
+        super(configuration);
+    }
+
+    @Override
+    protected void reset() {
+        badBeforeFirstGood = false;
+        firstGood = null;
+    }
+
+    @Override
+    protected void onValue(long time, DataValue value, boolean good) {
+        if (firstGood != null) return;
+
+        if (good) {
+            firstGood = value;
+            firstGoodTime = time;
+        } else {
+            badBeforeFirstGood = true;
+        }
+    }
+
+    @Override
+    protected DataValue compute(@Nullable DataValue next) {
+        long start = getStart();
+
+        if (firstGood != null && firstGoodTime == start) {
+            StatusCode statusCode = firstGood.getStatusCode() != null ? firstGood.getStatusCode() : StatusCode.GOOD;
+
+            return result(firstGood.getValue(), statusCode);
+        }
+
+        DataValue previous = getPreviousGood();
+
+        if (previous == null) return noData();
+
+        DataValue later = firstGood;
+        long laterTime = firstGoodTime;
+
+        if (later == null && next != null && isGood(next)) {
+            later = next;
+            laterTime = timeOf(next);
+        }
+
+        if (later != null) {
+            boolean bad = badBeforeFirstGood || getPrevious() != previous;
+
+            StatusCode statusCode = interpolated(
+                bad ? StatusCodes.Uncertain_DataSubNormal : StatusCode.GOOD.getValue());
+
+            return result(interpolate(previous, later, laterTime, start), statusCode);
+        } else {
+            DataValue secondPrevious = getSecondPreviousGood();
+
+            Variant value = isUseSlopedExtrapolation() && secondPrevious != null ?
+                interpolate(secondPrevious, previous, timeOf(previous), start) :
+                previous.getValue();
+
+            return result(value, interpolated(StatusCodes.Uncertain_DataSubNormal));
+        }
+    }
+
+    private static Variant interpolate(DataValue v0, DataValue v1, long t1, long time) {
+        double d0 = toDouble(v0);
+        double d1 = toDouble(v1);
+
+        if (Double.isNaN(d0) || Double.isNaN(d1)) {
+            return v0.getValue();
+        } else {
+            return new Variant(interpolate(timeOf(v0), d0, t1, d1, time));
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+/**
+ * Aggregates computed from the raw values in each interval alone: Count, Average, Minimum, Maximum, Range, Start,
+ * End, Delta, the standard deviations and variances, and WorstQuality.
+ * <p>
+ * Only Good values are counted, and only numeric Good values contribute to the arithmetic aggregates. The variance is
+ * accumulated with Welford's method so it stays accurate over long intervals.
+ */
+class StatisticsAggregator extends AbstractAggregator {
+
+    enum Statistic {
+        COUNT,
+        AVERAGE,
+        MINIMUM,
+        MAXIMUM,
+        MINIMUM_ACTUAL_TIME,
+        MAXIMUM_ACTUAL_TIME,
+        RANGE,
+        START,
+        END,
+        DELTA,
+        STANDARD_DEVIATION_SAMPLE,
+        STANDARD_DEVIATION_POPULATION,
+        VARIANCE_SAMPLE,
+        VARIANCE_POPULATION,
+        WORST_QUALITY
+    }
+
+    private int count;
+    private int numericCount;
+    private double mean;
+    private double m2;
+
+    private double min;
+    private double max;
+    private long minTime;
+    private long maxTime;
+    private DataValue minValue;
+    private DataValue maxValue;
+
+    private long firstTime;
+    private long lastTime;
+    private DataValue first;
+    private DataValue last;
+    private double firstNumeric;
+    private double lastNumeric;
+
+    private long worstTime;
+    private StatusCode worst;
+
+    private final Statistic statistic;
+
+    StatisticsAggregator(Statistic statistic, AggregateConfiguration configuration) {
+        super(configuration);
+
+        this.statistic = statistic;
+    }
+
+    @Override
+    protected void reset() {
+        count = 0;
+        numericCount = 0;
+        mean = 0.0;
+        m2 = 0.0;
+        minValue = null;
+        maxValue = null;
+        first = null;
+        last = null;
+        worst = null;
+    }
+
+    @Override
+    protected void onValue(long time, DataValue value, boolean good) {
+        StatusCode statusCode = value.getStatusCode() != null ? value.getStatusCode() : StatusCode.GOOD;
+
+        if (worst == null || severity(statusCode) > severity(worst)) {
+            worst = statusCode;
+            worstTime = time;
+        }
+
+        if (!good) return;
+
+        count++;
+
+        if (first == null) {
+            first = value;
+            firstTime = time;
+        }
+        last = value;
+        lastTime = time;
+
+        double d = toDouble(value);
+
+        if (Double.isNaN(d)) return;
+
+        if (numericCount == 0) firstNumeric = d;
+        lastNumeric = d;
+
+        numericCount++;
+
+        double delta = d - mean;
+        mean += delta / numericCount;
+        m2 += delta * (d - mean);
+
+        if (minValue == null || d < min) {
+            min = d;
+            minTime = time;
+            minValue = value;
+        }
+        if (maxValue == null || d > max) {
+            max = d;
+            maxTime = time;
+            maxValue = value;
+        }
+    }
+
+    @Override
+    protected DataValue compute(@Nullable DataValue next) {
+        switch (statistic) {
+            case COUNT:
+                return result(new Variant(count), calculatedStatus());
+
+            case WORST_QUALITY:
+                return worst != null ?
+                    result(new Variant(worst), calculated(StatusCode.GOOD.getValue()), worstTime) :
+                    noData();
+
+            case START:
+                return first != null ?
+                    result(first.getValue(), calculatedStatus(), firstTime) :
+                    noData();
+
+            case END:
+                return last != null ?
+                    result(last.getValue(), calculatedStatus(), lastTime) :
+                    noData();
+
+            default:
+                break;
+        }
+
+        if (numericCount == 0) return noData();
+
+        switch (statistic) {
+            case AVERAGE:
+                return result(new Variant(mean), calculatedStatus());
+
+            case MINIMUM:
+                return result(minValue.getValue(), calculatedStatus());
+
+            case MAXIMUM:
+                return result(maxValue.getValue(), calculatedStatus());
+
+            case MINIMUM_ACTUAL_TIME:
+                return result(minValue.getValue(), calculatedStatus(), minTime);
+
+            case MAXIMUM_ACTUAL_TIME:
+                return result(maxValue.getValue(), calculatedStatus(), maxTime);
+
+            case RANGE:
+                return result(new Variant(max - min), calculatedStatus());
+
+            case DELTA:
+                return result(new Variant(lastNumeric - firstNumeric), calculatedStatus());
+
+            case STANDARD_DEVIATION_SAMPLE:
+                return numericCount > 1 ?
+                    result(new Variant(Math.sqrt(m2 / (numericCount - 1))), calculatedStatus()) :
+                    noData();
+
+            case STANDARD_DEVIATION_POPULATION:
+                return result(new Variant(Math.sqrt(m2 / numericCount)), calculatedStatus());
+
+            case VARIANCE_SAMPLE:
+                return numericCount > 1 ?
+                    result(new Variant(m2 / (numericCount - 1)), calculatedStatus()) :
+                    noData();
+
+            case VARIANCE_POPULATION:
+                return result(new Variant(m2 / numericCount), calculatedStatus());
+
+            default:
+                throw new IllegalStateException("statistic: " + statistic);
+        }
+    }
+
+    private static int severity(StatusCode statusCode) {
+        if (statusCode.isBad()) {
+            return 2;
+        } else if (statusCode.isUncertain()) {
+            return 1;
+        } else {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+
+/**
+ * The TimeAverage and Total aggregates, integrated over the line through the Good numeric raw values.
+ * <p>
+ * The line is interpolated to the interval boundaries from the values on either side of them. Bad values are
+ * interpolated across; time before the first Good value isn't covered. After the last Good value the line is held
+ * flat to the end of the interval and the result is Uncertain. Total is the TimeAverage multiplied by the length of
+ * the interval in seconds.
+ */
+class TimeWeightedAggregator extends AbstractAggregator {
+
+    private static final double TICKS_PER_SECOND = 10000000.0;
+
+    private boolean hasLast;
+    private long lastTime;
+    private double lastValue;
+
+    private double area;
+    private long covered;
+    private boolean extrapolated;
+
+    private final boolean total;
+
+    TimeWeightedAggregator(boolean total, AggregateConfiguration configuration) {
+        super(configuration);
+
+        this.total = total;
+    }
+
+    @Override
+    protected void reset() {
+        area = 0.0;
+        covered = 0L;
+        extrapolated = false;
+
+        DataValue previous = getPreviousGood();
+        double d = toDouble(previous);
+
+        if (previous != null && !Double.isNaN(d)) {
+            hasLast = true;
+            lastTime = timeOf(previous);
+            lastValue = d;
+        } else {
+            hasLast = false;
+        }
+    }
+
+    @Override
+    protected void onValue(long time, DataValue value, boolean good) {
+        if (!good) return;
+
+        double d = toDouble(value);
+
+        if (Double.isNaN(d)) return;
+
+        if (hasLast) {
+            integrate(lastTime, lastValue, time, d);
+        }
+
+        hasLast = true;
+        lastTime = time;
+        lastValue = d;
+    }
+
+    @Override
+    protected DataValue compute(@Nullable DataValue next) {
+        long start = getStart();
+        long end = getEnd();
+
+        if (hasLast) {
+            double d = next != null && isGood(next) ? toDouble(next) : Double.NaN;
+
+            if (!Double.isNaN(d)) {
+                integrate(lastTime, lastValue, timeOf(next), d);
+            } else {
+                long from = Math.max(lastTime, start);
+
+                if (from < end) {
+                    area += lastValue * (end - from);
+                    covered += end - from;
+                    extrapolated = true;
+                }
+            }
+        }
+
+        if (covered == 0L) return noData();
+
+        double average = area / covered;
+        double value = total ? average * ((end - start) / TICKS_PER_SECOND) : average;
+
+        boolean good = isQualityGood() && !extrapolated &&
+            covered * 100L >= getPercentDataGood() * (end - start);
+
+        StatusCode statusCode = calculated(good ? StatusCode.GOOD.getValue() : StatusCodes.Uncertain_DataSubNormal);
+
+        return result(new Variant(value), statusCode);
+    }
+
+    /**
+     * Add the area under the line from ({@code t0}, {@code v0}) to ({@code t1}, {@code v1}) that falls in the
+     * current interval.
+     */
+    private void integrate(long t0, double v0, long t1, double v1) {
+        long a = Math.max(t0, getStart());
+        long b = Math.min(t1, getEnd());
+
+        if (b <= a) return;
+
+        double va = interpolate(t0, v0, t1, v1, a);
+        double vb = interpolate(t0, v0, t1, v1, b);
+
+        area += (va + vb) / 2.0 * (b - a);
+        covered += b - a;
+    }
+
+}
@@ -16,10 +16,13 @@ package org.eclipse.milo.opcua.sdk.server.items;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 import com.google.common.primitives.Ints;
 import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
-import org.eclipse.milo.opcua.sdk.server.util.RingBuffer;
+import org.eclipse.milo.opcua.sdk.server.util.LockFreeRingBuffer;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
@@ -35,7 +38,10 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
     protected volatile Map<UInteger, BaseMonitoredItem<?>> triggeredItems;
     protected volatile boolean triggered = false;
 
-    protected volatile RingBuffer<T> queue;
+    protected volatile LockFreeRingBuffer<T> queue;
+
+    private final AtomicBoolean ready = new AtomicBoolean(false);
+    private volatile Consumer<BaseMonitoredItem<?>> readyListener;
 
     protected volatile long clientHandle;
     protected volatile int queueSize;
@@ -70,7 +76,7 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
 
         setQueueSize(queueSize);
 
-        queue = new RingBuffer<>(this.queueSize);
+        queue = new LockFreeRingBuffer<>(this.queueSize);
     }
 
     protected void setQueueSize(UInteger queueSize) {
@@ -80,12 +86,24 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
         this.queueSize = qs;
     }
 
-    public synchronized boolean getNotifications(List<UaStructure> notifications, int max) {
-        int queueSize = queue.size();
-        int count = Math.min(queueSize, max);
+    /**
+     * Remove up to {@code max} queued values and add them to {@code notifications}.
+     * <p>
+     * The queue is lock-free, so this does not contend with the sampling thread enqueueing new values.
+     *
+     * @param notifications the list to add notifications to.
+     * @param max           the maximum number of notifications to add.
+     * @return {@code true} if the queue is empty after gathering.
+     */
+    public boolean getNotifications(List<UaStructure> notifications, int max) {
+        LockFreeRingBuffer<T> queue = this.queue;
+
+        for (int i = 0; i < max; i++) {
+            T value = queue.poll();
 
-        for (int i = 0; i < count; i++) {
-            notifications.add(wrapQueueValue(queue.remove()));
+            if (value == null) break;
+
+            notifications.add(wrapQueueValue(value));
         }
 
         boolean queueIsEmpty = queue.isEmpty();
@@ -97,8 +115,57 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
         return queueIsEmpty;
     }
 
-    public synchronized boolean hasNotifications() {
-        return (queue.size() > 0 && monitoringMode == MonitoringMode.Reporting);
+    public boolean hasNotifications() {
+        return (!queue.isEmpty() && monitoringMode == MonitoringMode.Reporting);
+    }
+
+    /**
+     * Set the listener notified when this item may have become ready to report notifications, i.e. after a value is
+     * enqueued, the item is triggered, or its monitoring mode changes.
+     * <p>
+     * The listener is notified once; it won't be notified again until {@link #clearReady()} is called. This lets the
+     * owning {@code Subscription} keep track of the items that changed instead of scanning all of them.
+     *
+     * @param readyListener the listener to notify, or {@code null} to stop notifying.
+     */
+    public void setReadyListener(@Nullable Consumer<BaseMonitoredItem<?>> readyListener) {
+        this.readyListener = readyListener;
+
+        ready.set(false);
+
+        if (hasNotifications() || isTriggered()) {
+            notifyReady();
+        }
+    }
+
+    /**
+     * Notify the ready listener, if one is set and it hasn't been notified since the last {@link #clearReady()}.
+     */
+    protected void notifyReady() {
+        Consumer<BaseMonitoredItem<?>> listener = readyListener;
+
+        if (listener != null && ready.compareAndSet(false, true)) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Mark this item ready without notifying the ready listener.
+     *
+     * @return {@code true} if the item was not already marked ready.
+     */
+    public boolean markReady() {
+        return ready.compareAndSet(false, true);
+    }
+
+    /**
+     * Clear the ready mark so the ready listener is notified again on the next change.
+     * <p>
+     * Callers must check {@link #hasNotifications()} and {@link #isTriggered()} after clearing, not before, so that a
+     * concurrent change is never missed.
+     */
+    public void clearReady() {
+        ready.set(false);
     }
 
     public synchronized void modify(TimestampsToReturn timestamps,
@@ -118,15 +185,23 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
         if (queueSize.intValue() != this.queueSize) {
             setQueueSize(queueSize);
 
-            RingBuffer<T> oldQueue = queue;
-            queue = new RingBuffer<>(this.queueSize);
+            LockFreeRingBuffer<T> oldQueue = queue;
+            queue = new LockFreeRingBuffer<>(this.queueSize);
 
-            while (oldQueue.size() > 0) {
-                enqueue(oldQueue.remove());
+            T value;
+            while ((value = oldQueue.poll()) != null) {
+                enqueue(value);
             }
         }
     }
 
+    /**
+     * Add a value to the queue and {@link #notifyReady()}.
+     * <p>
+     * The queue supports a single producer; implementations must only call this while synchronized on the item.
+     *
+     * @param value the value to enqueue.
+     */
     protected abstract void enqueue(T value);
 
     public void setMonitoringMode(MonitoringMode monitoringMode) {
@@ -134,6 +209,9 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
 
         if (monitoringMode == MonitoringMode.Disabled) {
             queue.clear();
+        } else if (monitoringMode == MonitoringMode.Reporting) {
+            // values queued while sampling become reportable.
+            notifyReady();
         }
     }
 
@@ -183,7 +261,7 @@ public abstract class BaseMonitoredItem<T> implements MonitoredItem {
         return triggeredItems;
     }
 
-    public synchronized boolean isTriggered() {
+    public boolean isTriggered() {
         return triggered;
     }
 
@@ -13,6 +13,9 @@
 
 package org.eclipse.milo.opcua.sdk.server.items;
 
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
 import org.eclipse.milo.opcua.sdk.server.api.DataItem;
 import org.eclipse.milo.opcua.sdk.server.util.DataChangeMonitoringFilter;
 import org.eclipse.milo.opcua.stack.core.AttributeId;
@@ -33,6 +36,7 @@ import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
 import org.eclipse.milo.opcua.stack.core.types.structured.EventFilter;
 import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemNotification;
 import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
@@ -45,10 +49,15 @@ public class MonitoredDataItem extends BaseMonitoredItem<DataValue> implements D
         0.0
     );
 
+    private final UnaryOperator<DataValue> overflowFunction = this::applyOverflow;
+
     private volatile DataValue lastValue = null;
     private volatile DataChangeFilter filter = null;
+    private volatile DataChangeMonitoringFilter compiledFilter = null;
     private volatile ExtensionObject filterResult = null;
 
+    private final Supplier<Range> euRange;
+
     public MonitoredDataItem(
         UInteger id,
         UInteger subscriptionId,
@@ -61,15 +70,38 @@ public class MonitoredDataItem extends BaseMonitoredItem<DataValue> implements D
         UInteger queueSize,
         boolean discardOldest) throws UaException {
 
+        this(id, subscriptionId, readValueId, monitoringMode, timestamps,
+            clientHandle, samplingInterval, filter, queueSize, discardOldest, () -> null);
+    }
+
+    /**
+     * @param euRange supplies the EURange of the monitored node, or {@code null} if it has none; only called to install
+     *                a filter with a percent deadband.
+     */
+    public MonitoredDataItem(
+        UInteger id,
+        UInteger subscriptionId,
+        ReadValueId readValueId,
+        MonitoringMode monitoringMode,
+        TimestampsToReturn timestamps,
+        UInteger clientHandle,
+        double samplingInterval,
+        ExtensionObject filter,
+        UInteger queueSize,
+        boolean discardOldest,
+        Supplier<Range> euRange) throws UaException {
+
         super(id, subscriptionId, readValueId, monitoringMode,
             timestamps, clientHandle, samplingInterval, queueSize, discardOldest);
 
+        this.euRange = euRange;
+
         installFilter(filter);
     }
 
     @Override
     public synchronized void setValue(DataValue value) {
-        boolean valuePassesFilter = DataChangeMonitoringFilter.filter(lastValue, value, filter);
+        boolean valuePassesFilter = compiledFilter.filter(lastValue, value);
 
         if (valuePassesFilter) {
             lastValue = value;
@@ -77,29 +109,30 @@ public class MonitoredDataItem extends BaseMonitoredItem<DataValue> implements D
             enqueue(value);
 
             if (triggeredItems != null) {
-                triggeredItems.values().forEach(item -> item.triggered = true);
+                triggeredItems.values().forEach(item -> {
+                    item.triggered = true;
+                    item.notifyReady();
+                });
             }
         }
     }
 
     @Override
     protected void enqueue(DataValue value) {
-        if (queue.size() < queue.maxSize()) {
-            queue.add(value);
-        } else {
-            if (getQueueSize() > 1) {
-                /* Set overflow if queueSize > 1... */
-                value = value.withStatus(value.getStatusCode().withOverflow());
-            } else if (value.getStatusCode().isOverflowSet()) {
-                /* But make sure it's clear otherwise. */
-                value = value.withStatus(value.getStatusCode().withoutOverflow());
-            }
+        queue.offer(value, discardOldest, overflowFunction);
 
-            if (discardOldest) {
-                queue.add(value);
-            } else {
-                queue.set(queue.maxSize() - 1, value);
-            }
+        notifyReady();
+    }
+
+    private DataValue applyOverflow(DataValue value) {
+        if (getQueueSize() > 1) {
+            /* Set overflow if queueSize > 1... */
+            return value.withStatus(value.getStatusCode().withOverflow());
+        } else if (value.getStatusCode().isOverflowSet()) {
+            /* But make sure it's clear otherwise. */
+            return value.withStatus(value.getStatusCode().withoutOverflow());
+        } else {
+            return value;
         }
     }
 
@@ -140,30 +173,33 @@ public class MonitoredDataItem extends BaseMonitoredItem<DataValue> implements D
     protected void installFilter(ExtensionObject filterXo) throws UaException {
         if (filterXo == null || filterXo.decode() == null) {
             this.filter = DEFAULT_FILTER;
+            this.compiledFilter = DataChangeMonitoringFilter.compile(DEFAULT_FILTER, null);
         } else {
             Object filterObject = filterXo.decode();
 
             if (filterObject instanceof MonitoringFilter) {
                 if (filterObject instanceof DataChangeFilter) {
-                    this.filter = ((DataChangeFilter) filterObject);
+                    DataChangeFilter dataChangeFilter = (DataChangeFilter) filterObject;
 
-                    DeadbandType deadbandType = DeadbandType.from(filter.getDeadbandType().intValue());
+                    DeadbandType deadbandType = DeadbandType.from(dataChangeFilter.getDeadbandType().intValue());
 
                     if (deadbandType == null) {
                         throw new UaException(StatusCodes.Bad_DeadbandFilterInvalid);
                     }
 
-                    if (deadbandType == DeadbandType.Percent) {
-                        // Percent deadband is not currently implemented
-                        throw new UaException(StatusCodes.Bad_MonitoredItemFilterUnsupported);
-                    }
-
-                    if (deadbandType == DeadbandType.Absolute &&
+                    if (deadbandType != DeadbandType.None &&
                         !AttributeId.Value.isEqual(getReadValueId().getAttributeId())) {
 
-                        // Absolute deadband is only allowed for Value attributes
+                        // Deadbands are only allowed for Value attributes
                         throw new UaException(StatusCodes.Bad_FilterNotAllowed);
                     }
+
+                    // compile first so an invalid filter leaves the installed one untouched
+                    this.compiledFilter = DataChangeMonitoringFilter.compile(
+                        dataChangeFilter,
+                        deadbandType == DeadbandType.Percent ? euRange.get() : null
+                    );
+                    this.filter = dataChangeFilter;
                 } else if (filterObject instanceof AggregateFilter) {
                     throw new UaException(StatusCodes.Bad_MonitoredItemFilterUnsupported);
                 } else if (filterObject instanceof EventFilter) {
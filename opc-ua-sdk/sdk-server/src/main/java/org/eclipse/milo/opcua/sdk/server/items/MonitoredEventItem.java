@@ -15,6 +15,8 @@ package org.eclipse.milo.opcua.sdk.server.items;
 
 import org.eclipse.milo.opcua.sdk.server.api.EventItem;
 import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.util.EventMonitoringFilter;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
@@ -23,6 +25,7 @@ import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.EventFieldList;
 import org.eclipse.milo.opcua.stack.core.types.structured.EventFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFilterResult;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
@@ -30,6 +33,8 @@ import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.
 public class MonitoredEventItem extends BaseMonitoredItem<Variant[]> implements EventItem {
 
     private volatile EventFilter filter;
+    private volatile EventMonitoringFilter compiledFilter;
+    private volatile ExtensionObject filterResult;
 
     public MonitoredEventItem(
         UInteger id,
@@ -51,43 +56,52 @@ public class MonitoredEventItem extends BaseMonitoredItem<Variant[]> implements
 
     @Override
     public void setEvent(BaseEventType event) {
-        // TODO Apply EventFilter...
+        if (!isSamplingEnabled()) return;
 
-        Variant[] variants = new Variant[]{
-            new Variant(event.getEventId()),
-            new Variant(event.getEventType()),
-            new Variant(event.getSourceNode()),
-            new Variant(event.getSourceNode()),
-            new Variant(event.getTime())
-        };
+        Variant[] fields = compiledFilter.filter(event);
 
-        enqueue(variants);
+        if (fields != null) {
+            enqueue(fields);
+        }
     }
 
     @Override
-    protected void enqueue(Variant[] value) {
-        if (queueSize < queue.maxSize()) {
-            queue.add(value);
-        } else {
-            if (getQueueSize() > 1) {
-                // TODO Send an EventQueueOverflowEventType...
-            }
-            if (discardOldest) {
-                queue.add(value);
-            } else {
-                queue.set(queue.maxSize() - 1, value);
-            }
+    protected synchronized void enqueue(Variant[] value) {
+        boolean overflow = queue.offer(value, discardOldest, null);
+
+        if (overflow && getQueueSize() > 1) {
+            // TODO Send an EventQueueOverflowEventType...
         }
+
+        notifyReady();
     }
 
     @Override
     public ExtensionObject getFilterResult() {
-        return null;
+        return filterResult;
     }
 
     @Override
     protected void installFilter(ExtensionObject filterXo) throws UaException {
-
+        Object filterObject = filterXo != null ? filterXo.decode() : null;
+
+        if (filterObject == null) {
+            this.filter = null;
+            this.compiledFilter = EventMonitoringFilter.defaultFilter();
+            this.filterResult = null;
+        } else if (filterObject instanceof EventFilter) {
+            EventFilter eventFilter = (EventFilter) filterObject;
+
+            // compile first so an invalid filter leaves the installed one untouched
+            EventMonitoringFilter compiled = EventMonitoringFilter.compile(eventFilter);
+            EventFilterResult result = compiled.getFilterResult();
+
+            this.filter = eventFilter;
+            this.compiledFilter = compiled;
+            this.filterResult = result != null ? ExtensionObject.encode(result) : null;
+        } else {
+            throw new UaException(StatusCodes.Bad_FilterNotAllowed);
+        }
     }
 
     @Override
@@ -23,7 +23,6 @@ import org.eclipse.milo.opcua.sdk.core.Reference;
 import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
 import org.eclipse.milo.opcua.sdk.server.api.AccessContext;
 import org.eclipse.milo.opcua.sdk.server.api.DataItem;
-import org.eclipse.milo.opcua.sdk.server.api.EventItem;
 import org.eclipse.milo.opcua.sdk.server.api.MethodInvocationHandler;
 import org.eclipse.milo.opcua.sdk.server.api.MethodInvocationHandler.NotImplementedHandler;
 import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
@@ -101,6 +100,13 @@ public class OpcUaNamespace implements Namespace {
         return NamespaceTable.OPC_UA_NAMESPACE;
     }
 
+    /**
+     * Stop sampling the items monitoring this namespace's nodes.
+     */
+    public void shutdown() {
+        subscriptionModel.shutdown();
+    }
+
     @Override
     public CompletableFuture<List<Reference>> browse(AccessContext context, NodeId nodeId) {
         org.eclipse.milo.opcua.sdk.server.nodes.ServerNode node = nodeMap.get(nodeId);
@@ -179,29 +185,6 @@ public class OpcUaNamespace implements Namespace {
         subscriptionModel.onMonitoringModeChanged(monitoredItems);
     }
 
-    @Override
-    public void onEventItemsCreated(List<EventItem> eventItems) {
-        eventItems.stream()
-            .filter(MonitoredItem::isSamplingEnabled)
-            .forEach(item -> server.getEventBus().register(item));
-    }
-
-    @Override
-    public void onEventItemsModified(List<EventItem> eventItems) {
-        for (EventItem item : eventItems) {
-            if (item.isSamplingEnabled()) {
-                server.getEventBus().register(item);
-            } else {
-                server.getEventBus().unregister(item);
-            }
-        }
-    }
-
-    @Override
-    public void onEventItemsDeleted(List<EventItem> eventItems) {
-        eventItems.forEach(item -> server.getEventBus().unregister(item));
-    }
-
     public void addReference(NodeId sourceNodeId,
                              NodeId referenceTypeId,
                              boolean forward,
@@ -81,6 +81,13 @@ public class VendorNamespace implements Namespace {
         return namespaceUri;
     }
 
+    /**
+     * Stop sampling the items monitoring this namespace's nodes.
+     */
+    public void shutdown() {
+        subscriptionModel.shutdown();
+    }
+
     @Override
     public CompletableFuture<List<Reference>> browse(AccessContext context, NodeId nodeId) {
         ServerNode node = nodeMap.get(nodeId);
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
 import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
@@ -24,13 +25,17 @@ import org.eclipse.milo.opcua.sdk.server.Session;
 import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager.HistoryReadContext;
 import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager.HistoryUpdateContext;
 import org.eclipse.milo.opcua.sdk.server.api.Namespace;
+import org.eclipse.milo.opcua.sdk.server.history.HistoryContinuationPointManager;
 import org.eclipse.milo.opcua.sdk.server.util.PendingHistoryRead;
 import org.eclipse.milo.opcua.sdk.server.util.PendingHistoryUpdate;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.application.services.AttributeHistoryServiceSet;
 import org.eclipse.milo.opcua.stack.core.application.services.ServiceRequest;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DiagnosticInfo;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UShort;
 import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadDetails;
 import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadRequest;
@@ -43,6 +48,8 @@ import org.eclipse.milo.opcua.stack.core.types.structured.HistoryUpdateResponse;
 import org.eclipse.milo.opcua.stack.core.types.structured.HistoryUpdateResult;
 import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
 import org.eclipse.milo.opcua.stack.core.util.FutureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.google.common.collect.Lists.newArrayListWithCapacity;
 import static java.util.stream.Collectors.groupingBy;
@@ -52,6 +59,23 @@ import static org.eclipse.milo.opcua.stack.core.util.ConversionUtil.l;
 
 public class AttributeHistoryServices implements AttributeHistoryServiceSet {
 
+    /**
+     * Bytes set aside for the response header, diagnostics, and the message and chunk headers.
+     */
+    private static final long RESPONSE_OVERHEAD = 1024L;
+
+    /**
+     * Bytes set aside for the status, continuation point and encoding of each HistoryReadResult.
+     */
+    private static final long RESULT_OVERHEAD = 64L;
+
+    /**
+     * The fewest bytes given to the results of a node, however many are read at once.
+     */
+    private static final long MIN_BYTES_PER_NODE = 256L;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     private final ServiceMetric historyReadMetric = new ServiceMetric();
     private final ServiceMetric historyUpdateMetric = new ServiceMetric();
 
@@ -84,16 +108,62 @@ public class AttributeHistoryServices implements AttributeHistoryServiceSet {
         }
 
 
+        HistoryContinuationPointManager continuationPoints =
+            session != null ? session.getHistoryContinuationPoints() : null;
+
+        long maxBytesPerNode = maxBytesPerNode(server, session, nodesToRead.size());
+
         List<PendingHistoryRead> pendingReads = newArrayListWithCapacity(nodesToRead.size());
+        List<PendingHistoryRead> pendingResumes = newArrayListWithCapacity(0);
         List<CompletableFuture<HistoryReadResult>> futures = newArrayListWithCapacity(nodesToRead.size());
 
         for (HistoryReadValueId id : nodesToRead) {
             PendingHistoryRead pending = new PendingHistoryRead(id);
+            ByteString continuationPoint = id.getContinuationPoint();
+
+            boolean managed = continuationPoints != null &&
+                continuationPoint != null && continuationPoint.isNotNull() &&
+                continuationPoints.contains(continuationPoint);
+
+            if (Boolean.TRUE.equals(request.getReleaseContinuationPoints())) {
+                // only continuation points kept by the session can be released; any other is unknown.
+                boolean released = managed && continuationPoints.release(continuationPoint);
+
+                StatusCode statusCode = released ?
+                    StatusCode.GOOD : new StatusCode(StatusCodes.Bad_ContinuationPointInvalid);
+
+                pending.getFuture().complete(new HistoryReadResult(statusCode, null, null));
+            } else if (managed) {
+                pendingResumes.add(pending);
+            } else {
+                pendingReads.add(pending);
+            }
 
-            pendingReads.add(pending);
             futures.add(pending.getFuture());
         }
 
+        // Continue reads whose cursors are kept by the session without involving their namespace.
+
+        if (!pendingResumes.isEmpty()) {
+            server.getExecutorService().execute(() -> {
+                for (PendingHistoryRead pending : pendingResumes) {
+                    HistoryReadValueId id = pending.getInput();
+
+                    HistoryReadResult result;
+
+                    try {
+                        result = continuationPoints.next(id.getNodeId(), id.getContinuationPoint(), maxBytesPerNode);
+                    } catch (Throwable t) {
+                        logger.warn("Error continuing history read for {}", id.getNodeId(), t);
+
+                        result = new HistoryReadResult(new StatusCode(StatusCodes.Bad_InternalError), null, null);
+                    }
+
+                    pending.getFuture().complete(result);
+                }
+            });
+        }
+
         // Group PendingReads by namespace and call read for each.
 
         Map<UShort, List<PendingHistoryRead>> byNamespace = pendingReads.stream()
@@ -105,7 +175,7 @@ public class AttributeHistoryServices implements AttributeHistoryServiceSet {
             CompletableFuture<List<HistoryReadResult>> future = new CompletableFuture<>();
 
             HistoryReadContext context = new HistoryReadContext(
-                server, session, future, diagnosticsContext);
+                server, session, future, diagnosticsContext, continuationPoints, maxBytesPerNode);
 
             server.getExecutorService().execute(() -> {
                 Namespace namespace = server.getNamespaceManager().getNamespace(index);
@@ -143,6 +213,30 @@ public class AttributeHistoryServices implements AttributeHistoryServiceSet {
         }, server.getExecutorService());
     }
     
+    /**
+     * The number of encoded bytes the results of each node should fit in so the whole response fits in the smaller of
+     * the client's maxResponseMessageSize and the channel's maxMessageSize.
+     */
+    private static long maxBytesPerNode(OpcUaServer server, @Nullable Session session, int nodeCount) {
+        long maxResponseSize = Long.MAX_VALUE;
+
+        if (session != null && session.getMaxResponseMessageSize() > 0) {
+            maxResponseSize = session.getMaxResponseMessageSize();
+        }
+
+        ChannelConfig channelConfig = server.getChannelConfig();
+
+        if (channelConfig != null && channelConfig.getMaxMessageSize() > 0) {
+            maxResponseSize = Math.min(maxResponseSize, channelConfig.getMaxMessageSize());
+        }
+
+        if (maxResponseSize == Long.MAX_VALUE) return Long.MAX_VALUE;
+
+        long perNode = (maxResponseSize - RESPONSE_OVERHEAD) / nodeCount - RESULT_OVERHEAD;
+
+        return Math.max(perNode, MIN_BYTES_PER_NODE);
+    }
+
     @Override
     public void onHistoryUpdate(ServiceRequest<HistoryUpdateRequest, HistoryUpdateResponse> service)
             throws UaException {
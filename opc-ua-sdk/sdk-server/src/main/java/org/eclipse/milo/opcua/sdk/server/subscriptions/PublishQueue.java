@@ -13,12 +13,22 @@
 
 package org.eclipse.milo.opcua.sdk.server.subscriptions;
 
+import java.util.Comparator;
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.google.common.collect.Lists;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import org.eclipse.milo.opcua.stack.core.Stack;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.application.services.ServiceRequest;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
@@ -26,64 +36,88 @@ import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Queues the Publish requests of a Session and the Subscriptions that are late, i.e. waiting for a Publish request to
+ * send notifications or a keep-alive with.
+ * <p>
+ * Late Subscriptions are served in order of priority, highest first, and among Subscriptions of equal priority in the
+ * order they became late, so a Subscription that is continually ready can't starve another with the same or a higher
+ * priority. Neither queue is guarded by a lock; every change is followed by matching queued requests with late
+ * Subscriptions until one of the two queues is empty.
+ * <p>
+ * At most {@code maxQueuedRequests} Publish requests are queued; beyond that the oldest queued request is answered
+ * with {@code Bad_TooManyPublishRequests}.
+ */
 public class PublishQueue {
 
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 100;
+
+    /**
+     * How long to wait before matching again after the executor rejected the delivery of a request.
+     */
+    private static final long REJECTED_RETRY_DELAY_MS = 10L;
+
+    private static final Comparator<WaitingSubscription> WAIT_ORDER =
+        Comparator.comparingInt((WaitingSubscription w) -> w.priority).reversed()
+            .thenComparingLong(w -> w.sequence);
+
+    private static final AtomicLong WAIT_SEQUENCE = new AtomicLong(0L);
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final LinkedList<ServiceRequest<PublishRequest, PublishResponse>> serviceQueue = new LinkedList<>();
+    private final Deque<ServiceRequest<PublishRequest, PublishResponse>> serviceQueue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger serviceQueueSize = new AtomicInteger(0);
+
+    private final ConcurrentMap<UInteger, WaitingSubscription> waitingById = Maps.newConcurrentMap();
+    private final ConcurrentSkipListSet<WaitingSubscription> waitList = new ConcurrentSkipListSet<>(WAIT_ORDER);
 
-    private final LinkedHashMap<UInteger, WaitingSubscription> waitList = new LinkedHashMap<>();
+    private final AtomicLong rejectedRequestCount = new AtomicLong(0L);
+    private final AtomicBoolean retryScheduled = new AtomicBoolean(false);
+
+    private final int maxQueuedRequests;
+
+    public PublishQueue() {
+        this(DEFAULT_MAX_QUEUED_REQUESTS);
+    }
+
+    /**
+     * @param maxQueuedRequests the maximum number of Publish requests to queue.
+     */
+    public PublishQueue(int maxQueuedRequests) {
+        Preconditions.checkArgument(maxQueuedRequests > 0, "maxQueuedRequests must be > 0");
+
+        this.maxQueuedRequests = maxQueuedRequests;
+    }
 
     /**
      * Add a Publish {@link ServiceRequest} to the queue.
      * <p>
-     * If there are wait-listed Subscriptions this request will be used immediately, otherwise it will be queued for
-     * later use by a Subscription whose publish timer has expired and has notifications to send.
+     * If there are wait-listed Subscriptions this request will be used immediately by the one with the highest
+     * priority that has been waiting the longest, otherwise it will be queued for later use by a Subscription whose
+     * publish timer has expired and has notifications to send.
      *
      * @param service the Publish {@link ServiceRequest}.
      */
-    public synchronized void addRequest(ServiceRequest<PublishRequest, PublishResponse> service) {
-        List<WaitingSubscription> waitingSubscriptions = Lists.newArrayList(waitList.values());
-
-        if (waitingSubscriptions.isEmpty()) {
-            serviceQueue.add(service);
-
-            logger.debug("Queued PublishRequest, size={}", serviceQueue.size());
-        } else {
-            WaitingSubscription subscription = null;
-
-            int maxPriority = 0;
-            long minWaitingSince = Long.MAX_VALUE;
-
-            for (WaitingSubscription waiting : waitingSubscriptions) {
-                int priority = waiting.getSubscription().getPriority();
-                long waitingSince = waiting.getWaitingSince().getTime();
-
-                if (priority > maxPriority) {
-                    maxPriority = priority;
-                    minWaitingSince = Long.MAX_VALUE;
-                }
-                if (priority >= maxPriority && waitingSince < minWaitingSince) {
-                    minWaitingSince = waitingSince;
-                    subscription = waiting;
-                }
-            }
+    public void addRequest(ServiceRequest<PublishRequest, PublishResponse> service) {
+        serviceQueue.add(service);
 
-            if (subscription != null) {
-                waitList.remove(subscription.subscription.getId());
+        int size = serviceQueueSize.incrementAndGet();
 
-                logger.debug("Delivering PublishRequest to Subscription [id={}]",
-                    subscription.getSubscription().getId());
+        logger.debug("Queued PublishRequest, size={}", size);
 
-                final WaitingSubscription ws = subscription;
+        if (size > maxQueuedRequests) {
+            ServiceRequest<PublishRequest, PublishResponse> oldest = pollRequest();
 
-                service.getServer().getExecutorService().execute(
-                    () -> ws.subscription.onPublish(service)
-                );
-            } else {
-                serviceQueue.add(service);
+            if (oldest != null) {
+                rejectedRequestCount.incrementAndGet();
+
+                logger.debug("Too many PublishRequests queued, max={}", maxQueuedRequests);
+
+                oldest.setServiceFault(StatusCodes.Bad_TooManyPublishRequests);
             }
         }
+
+        match();
     }
 
     /**
@@ -96,41 +130,154 @@ public class PublishQueue {
      * <p>
      * b) The publishing timer of a Subscription expired and there were either Notifications to be sent or a keep-alive
      * Message to be sent.
+     * <p>
+     * Adding a Subscription that is already wait-listed has no effect; it keeps its place in the wait list.
      *
      * @param subscription the subscription to wait-list.
      */
-    public synchronized void addSubscription(Subscription subscription) {
-        if (waitList.isEmpty() && !serviceQueue.isEmpty()) {
-            ServiceRequest<PublishRequest, PublishResponse> request = serviceQueue.poll();
+    public void addSubscription(Subscription subscription) {
+        WaitingSubscription waiting = new WaitingSubscription(subscription);
 
-            request.getServer().getExecutorService().execute(
-                () -> subscription.onPublish(request)
-            );
-        } else {
-            waitList.putIfAbsent(subscription.getId(), new WaitingSubscription(subscription));
+        if (waitingById.putIfAbsent(subscription.getId(), waiting) == null) {
+            waitList.add(waiting);
         }
+
+        match();
     }
 
-    public synchronized boolean isEmpty() {
-        return serviceQueue.isEmpty();
+    public boolean isEmpty() {
+        return serviceQueueSize.get() == 0;
     }
 
-    public synchronized boolean isNotEmpty() {
+    public boolean isNotEmpty() {
         return !isEmpty();
     }
 
-    public synchronized ServiceRequest<PublishRequest, PublishResponse> poll() {
-        return serviceQueue.poll();
+    public ServiceRequest<PublishRequest, PublishResponse> poll() {
+        return pollRequest();
+    }
+
+    /**
+     * @return the number of Publish requests queued.
+     */
+    public int size() {
+        return serviceQueueSize.get();
+    }
+
+    /**
+     * @return the maximum number of Publish requests that will be queued.
+     */
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    /**
+     * @return the number of Subscriptions on the wait list.
+     */
+    public int getWaitingSubscriptionCount() {
+        return waitingById.size();
+    }
+
+    /**
+     * @return the number of queued Publish requests answered with {@code Bad_TooManyPublishRequests}.
+     */
+    public long getRejectedRequestCount() {
+        return rejectedRequestCount.get();
+    }
+
+    private ServiceRequest<PublishRequest, PublishResponse> pollRequest() {
+        ServiceRequest<PublishRequest, PublishResponse> service = serviceQueue.poll();
+
+        if (service != null) serviceQueueSize.decrementAndGet();
+
+        return service;
+    }
+
+    /**
+     * Hand queued requests to wait-listed Subscriptions until either runs out.
+     * <p>
+     * Called after every addition to either queue, so whichever thread makes both non-empty sees that they are.
+     * <p>
+     * Subscriptions call this while synchronized on themselves, so the matched Subscription's
+     * {@link Subscription#onPublish(ServiceRequest)} is never called from here directly, not even when the executor
+     * rejects it; the request and the Subscription are put back instead and matching is retried later.
+     */
+    private void match() {
+        while (serviceQueueSize.get() > 0 && !waitList.isEmpty()) {
+            WaitingSubscription waiting = waitList.pollFirst();
+            if (waiting == null) continue;
+
+            ServiceRequest<PublishRequest, PublishResponse> service = pollRequest();
+
+            if (service == null) {
+                // another thread took the last request; put the Subscription back in its place.
+                waitList.add(waiting);
+                continue;
+            }
+
+            waitingById.remove(waiting.subscription.getId(), waiting);
+
+            Subscription subscription = waiting.subscription;
+
+            logger.debug("Delivering PublishRequest to Subscription [id={}]", subscription.getId());
+
+            try {
+                service.getServer().getExecutorService().execute(
+                    () -> subscription.onPublish(service)
+                );
+            } catch (RejectedExecutionException e) {
+                logger.debug("Delivery to Subscription [id={}] rejected, retrying in {}ms",
+                    subscription.getId(), REJECTED_RETRY_DELAY_MS);
+
+                requeue(waiting, service);
+                scheduleRetry();
+                return;
+            }
+
+            subscription.addPublishWaitTime(System.nanoTime() - waiting.waitingSinceNanos);
+        }
+    }
+
+    /**
+     * Put a request and a Subscription that couldn't be delivered back where they were taken from.
+     */
+    private void requeue(WaitingSubscription waiting, ServiceRequest<PublishRequest, PublishResponse> service) {
+        serviceQueue.addFirst(service);
+        serviceQueueSize.incrementAndGet();
+
+        // unless the Subscription has been wait-listed again in the meantime.
+        if (waitingById.putIfAbsent(waiting.subscription.getId(), waiting) == null) {
+            waitList.add(waiting);
+        }
+    }
+
+    private void scheduleRetry() {
+        if (retryScheduled.compareAndSet(false, true)) {
+            Stack.sharedScheduledExecutor().schedule(
+                () -> {
+                    retryScheduled.set(false);
+                    match();
+                },
+                REJECTED_RETRY_DELAY_MS,
+                TimeUnit.MILLISECONDS
+            );
+        }
     }
 
     public static class WaitingSubscription {
 
         private final Date waitingSince = new Date();
+        private final long waitingSinceNanos = System.nanoTime();
+        private final long sequence = WAIT_SEQUENCE.incrementAndGet();
+
+        private final int priority;
 
         private final Subscription subscription;
 
         public WaitingSubscription(Subscription subscription) {
             this.subscription = subscription;
+
+            priority = subscription.getPriority();
         }
 
         public Subscription getSubscription() {
@@ -15,13 +15,13 @@ package org.eclipse.milo.opcua.sdk.server.subscriptions;
 
 import java.math.RoundingMode;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Deque;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -70,11 +70,18 @@ public class Subscription {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private volatile Iterator<BaseMonitoredItem<?>> lastIterator = Collections.emptyIterator();
-
     private final AtomicLong itemIds = new AtomicLong(1L);
     private final Map<UInteger, BaseMonitoredItem<?>> itemsById = Maps.newConcurrentMap();
 
+    /**
+     * Items that may have notifications to report, each added once by the item itself when it changes (see
+     * {@link BaseMonitoredItem#setReadyListener}), so publishing only visits items that changed.
+     * <p>
+     * Only consumed while synchronized on this subscription. Items left over when a publish fills up are put back at
+     * the head so they're reported first next time.
+     */
+    private final Deque<BaseMonitoredItem<?>> readyItems = new ConcurrentLinkedDeque<>();
+
     private final AtomicReference<State> state = new AtomicReference<>(State.Normal);
     private final AtomicReference<StateListener> stateListener = new AtomicReference<>();
 
@@ -82,6 +89,10 @@ public class Subscription {
 
     private final Map<UInteger, NotificationMessage> availableMessages = Maps.newConcurrentMap();
 
+    private final AtomicLong publishWaitCount = new AtomicLong(0L);
+    private final AtomicLong totalPublishWaitNanos = new AtomicLong(0L);
+    private final AtomicLong maxPublishWaitNanos = new AtomicLong(0L);
+
     private final PublishHandler publishHandler = new PublishHandler();
     private final TimerHandler timerHandler = new TimerHandler();
 
@@ -147,6 +158,9 @@ public class Subscription {
 
         logger.debug("[id={}] subscription deleted.", subscriptionId);
 
+        itemsById.values().forEach(item -> item.setReadyListener(null));
+        readyItems.clear();
+
         return Lists.newArrayList(itemsById.values());
     }
 
@@ -161,6 +175,7 @@ public class Subscription {
     public synchronized void addMonitoredItems(List<BaseMonitoredItem<?>> createdItems) {
         for (BaseMonitoredItem<?> item : createdItems) {
             itemsById.put(item.getId(), item);
+            item.setReadyListener(readyItems::add);
         }
 
         resetLifetimeCounter();
@@ -171,6 +186,8 @@ public class Subscription {
     public synchronized void removeMonitoredItems(List<BaseMonitoredItem<?>> deletedItems) {
         for (BaseMonitoredItem<?> item : deletedItems) {
             itemsById.remove(item.getId());
+            item.setReadyListener(null);
+            readyItems.remove(item);
         }
 
         resetLifetimeCounter();
@@ -337,7 +354,7 @@ public class Subscription {
         NotificationMessage notificationMessage = new NotificationMessage(
             sequenceNumber,
             new DateTime(),
-            new ExtensionObject[]{ExtensionObject.encode(statusChange)}
+            new ExtensionObject[]{ExtensionObject.encodeDeferred(statusChange)}
         );
 
         ResponseHeader header = service.createResponseHeader();
@@ -355,17 +372,35 @@ public class Subscription {
     private void returnNotifications(ServiceRequest<PublishRequest, PublishResponse> service) {
         LinkedHashSet<BaseMonitoredItem<?>> items = new LinkedHashSet<>();
 
-        lastIterator.forEachRemaining(items::add);
+        // an item can re-add itself while we drain, so stop after
+        // as many polls as there are items; the rest wait their turn.
+        int remaining = itemsById.size();
+        BaseMonitoredItem<?> readyItem;
+
+        while (remaining-- > 0 && (readyItem = readyItems.poll()) != null) {
+            readyItem.clearReady();
 
-        itemsById.values().stream()
-            .filter(item -> item.hasNotifications() || item.isTriggered())
-            .forEach(items::add);
+            if (readyItem.hasNotifications() || readyItem.isTriggered()) {
+                items.add(readyItem);
+            }
+        }
 
         PeekingIterator<BaseMonitoredItem<?>> iterator = Iterators.peekingIterator(items.iterator());
 
         gatherAndSend(iterator, Optional.of(service));
 
-        lastIterator = iterator.hasNext() ? iterator : Collections.emptyIterator();
+        if (iterator.hasNext()) {
+            List<BaseMonitoredItem<?>> leftover = Lists.newArrayList(iterator);
+
+            for (int i = leftover.size() - 1; i >= 0; i--) {
+                BaseMonitoredItem<?> item = leftover.get(i);
+
+                // if already marked it was re-added at the tail after it changed again.
+                if (item.markReady()) {
+                    readyItems.addFirst(item);
+                }
+            }
+        }
     }
 
     /**
@@ -431,14 +466,14 @@ public class Subscription {
                 dataNotifications.toArray(new MonitoredItemNotification[dataNotifications.size()]),
                 new DiagnosticInfo[0]);
 
-            notificationData.add(ExtensionObject.encode(dataChange));
+            notificationData.add(ExtensionObject.encodeDeferred(dataChange));
         }
 
         if (eventNotifications.size() > 0) {
             EventNotificationList eventChange = new EventNotificationList(
                 eventNotifications.toArray(new EventFieldList[eventNotifications.size()]));
 
-            notificationData.add(ExtensionObject.encode(eventChange));
+            notificationData.add(ExtensionObject.encodeDeferred(eventChange));
         }
 
         UInteger sequenceNumber = uint(nextSequenceNumber());
@@ -477,8 +512,26 @@ public class Subscription {
     }
 
     private boolean notificationsAvailable() {
-        return itemsById.values().stream()
-            .anyMatch(item -> item.hasNotifications() || item.isTriggered());
+        BaseMonitoredItem<?> item;
+
+        while ((item = readyItems.peek()) != null) {
+            if (item.hasNotifications() || item.isTriggered()) {
+                return true;
+            }
+
+            // nothing to report after all, e.g. the item is only sampling or its
+            // queue was cleared; discard it unless it changed again in the meantime.
+            readyItems.poll();
+            item.clearReady();
+
+            if (item.hasNotifications() || item.isTriggered()) {
+                if (item.markReady()) readyItems.addFirst(item);
+
+                return true;
+            }
+        }
+
+        return false;
     }
 
     private void setState(State state) {
@@ -521,6 +574,34 @@ public class Subscription {
         return priority;
     }
 
+    /**
+     * @return the number of times this Subscription was late and waited on the {@link PublishQueue} for a Publish
+     * request.
+     */
+    public long getPublishWaitCount() {
+        return publishWaitCount.get();
+    }
+
+    /**
+     * @return the total time, in nanoseconds, this Subscription has spent late, waiting for a Publish request.
+     */
+    public long getTotalPublishWaitNanos() {
+        return totalPublishWaitNanos.get();
+    }
+
+    /**
+     * @return the longest time, in nanoseconds, this Subscription has spent late waiting for a single Publish request.
+     */
+    public long getMaxPublishWaitNanos() {
+        return maxPublishWaitNanos.get();
+    }
+
+    void addPublishWaitTime(long waitNanos) {
+        publishWaitCount.incrementAndGet();
+        totalPublishWaitNanos.addAndGet(waitNanos);
+        maxPublishWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
     public synchronized UInteger[] getAvailableSequenceNumbers() {
         Set<UInteger> uIntegers = availableMessages.keySet();
         UInteger[] available = uIntegers.toArray(new UInteger[uIntegers.size()]);
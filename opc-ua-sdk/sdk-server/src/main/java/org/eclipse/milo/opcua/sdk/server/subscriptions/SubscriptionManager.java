@@ -23,9 +23,11 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
 import org.eclipse.milo.opcua.sdk.core.AccessLevel;
 import org.eclipse.milo.opcua.sdk.core.NumericRange;
 import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
@@ -39,6 +41,8 @@ import org.eclipse.milo.opcua.sdk.server.api.Namespace;
 import org.eclipse.milo.opcua.sdk.server.items.BaseMonitoredItem;
 import org.eclipse.milo.opcua.sdk.server.items.MonitoredDataItem;
 import org.eclipse.milo.opcua.sdk.server.items.MonitoredEventItem;
+import org.eclipse.milo.opcua.sdk.server.model.types.variables.AnalogItemType;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaNode;
 import org.eclipse.milo.opcua.sdk.server.subscriptions.Subscription.State;
 import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
@@ -74,6 +78,7 @@ import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
 import org.eclipse.milo.opcua.stack.core.types.structured.NotificationMessage;
 import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
 import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.eclipse.milo.opcua.stack.core.types.structured.RepublishRequest;
 import org.eclipse.milo.opcua.stack.core.types.structured.RepublishResponse;
@@ -113,7 +118,7 @@ public class SubscriptionManager {
 
     private final Map<UInteger, StatusCode[]> acknowledgeResults = Maps.newConcurrentMap();
 
-    private final PublishQueue publishQueue = new PublishQueue();
+    private final PublishQueue publishQueue;
 
     private final Map<UInteger, Subscription> subscriptions = Maps.newConcurrentMap();
     private final List<Subscription> transferred = Lists.newCopyOnWriteArrayList();
@@ -124,6 +129,10 @@ public class SubscriptionManager {
     public SubscriptionManager(Session session, OpcUaServer server) {
         this.session = session;
         this.server = server;
+
+        // a UInteger limit can be larger than an int; anything above Integer.MAX_VALUE is as good as unbounded.
+        publishQueue = new PublishQueue(
+            Ints.saturatedCast(server.getConfig().getLimits().getMaxPublishRequestsPerSession().longValue()));
     }
 
     public Session getSession() {
@@ -165,6 +174,8 @@ public class SubscriptionManager {
             if (cs == State.Closed) {
                 subscriptions.remove(s.getId());
                 server.getSubscriptions().remove(s.getId());
+
+                unregisterEventItems(s);
             }
         });
 
@@ -254,6 +265,7 @@ public class SubscriptionManager {
                         server.getNamespaceManager().getNamespace(namespaceIndex).onDataItemsDeleted(dataItems);
                     }
                     if (!eventItems.isEmpty()) {
+                        eventItems.forEach(server.getEventNotifierBus()::unregister);
                         server.getNamespaceManager().getNamespace(namespaceIndex).onEventItemsDeleted(eventItems);
                     }
                 });
@@ -457,7 +469,8 @@ public class SubscriptionManager {
                                 samplingInterval,
                                 r.getRequestedParameters().getFilter(),
                                 r.getRequestedParameters().getQueueSize(),
-                                r.getRequestedParameters().getDiscardOldest());
+                                r.getRequestedParameters().getDiscardOldest(),
+                                () -> getEuRange(nodeId));
 
                             createdItems.add(item);
 
@@ -513,6 +526,7 @@ public class SubscriptionManager {
                         server.getNamespaceManager().getNamespace(namespaceIndex).onDataItemsCreated(dataItems);
                     }
                     if (!eventItems.isEmpty()) {
+                        eventItems.forEach(server.getEventNotifierBus()::register);
                         server.getNamespaceManager().getNamespace(namespaceIndex).onEventItemsCreated(eventItems);
                     }
                 });
@@ -716,6 +730,24 @@ public class SubscriptionManager {
         return future;
     }
 
+    /**
+     * Get the EURange property of the node identified by {@code nodeId}, which a percent deadband is relative to.
+     *
+     * @return the EURange, or {@code null} if the node isn't in the server's node map or has no EURange, or its
+     * EURange isn't a {@link Range}.
+     */
+    @Nullable
+    private Range getEuRange(NodeId nodeId) {
+        QualifiedName browseName = new QualifiedName(0, AnalogItemType.E_U_RANGE.getBrowseName());
+
+        return server.getNodeMap().getNode(nodeId)
+            .filter(node -> node instanceof UaNode)
+            .flatMap(node -> ((UaNode) node).getProperty(browseName))
+            .filter(value -> value instanceof Range)
+            .map(Range.class::cast)
+            .orElse(null);
+    }
+
     private CompletableFuture<EventAttributes> readEventAttributes(Namespace namespace, NodeId nodeId) {
         Function<AttributeId, ReadValueId> f = id ->
             new ReadValueId(nodeId, id.uid(), null, QualifiedName.NULL_VALUE);
@@ -813,6 +845,7 @@ public class SubscriptionManager {
                     server.getNamespaceManager().getNamespace(namespaceIndex).onDataItemsDeleted(dataItems);
                 }
                 if (!eventItems.isEmpty()) {
+                    eventItems.forEach(server.getEventNotifierBus()::unregister);
                     server.getNamespaceManager().getNamespace(namespaceIndex).onEventItemsDeleted(eventItems);
                 }
             });
@@ -1062,10 +1095,22 @@ public class SubscriptionManager {
             if (cs == State.Closed) {
                 subscriptions.remove(s.getId());
                 server.getSubscriptions().remove(s.getId());
+
+                unregisterEventItems(s);
             }
         });
     }
 
+    /**
+     * Stop delivering events to the event items of a closed {@link Subscription}, including one closed because its
+     * lifetime expired without its items being deleted.
+     */
+    private void unregisterEventItems(Subscription subscription) {
+        subscription.getMonitoredItems().values().stream()
+            .filter(item -> item instanceof MonitoredEventItem)
+            .forEach(item -> server.getEventNotifierBus().unregister((EventItem) item));
+    }
+
     StatusCode[] getAcknowledgeResults(UInteger requestHandle) {
         return acknowledgeResults.remove(requestHandle);
     }
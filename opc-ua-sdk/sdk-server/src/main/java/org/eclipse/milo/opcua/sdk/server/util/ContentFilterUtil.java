@@ -13,66 +13,903 @@
 
 package org.eclipse.milo.opcua.sdk.server.util;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nullable;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.eclipse.milo.opcua.sdk.core.NumericRange;
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.api.nodes.Node;
+import org.eclipse.milo.opcua.sdk.server.api.nodes.VariableNode;
+import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.nodes.ServerNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaNode;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExpandedNodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.ULong;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UShort;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.FilterOperator;
-import org.eclipse.milo.opcua.stack.core.types.structured.AttributeOperand;
 import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilter;
 import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilterElement;
-import org.eclipse.milo.opcua.stack.core.types.structured.FilterOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.ElementOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.LiteralOperand;
 import org.eclipse.milo.opcua.stack.core.types.structured.SimpleAttributeOperand;
 
-import static org.eclipse.milo.opcua.stack.core.util.ConversionUtil.l;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ulong;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
 
+/**
+ * Compiles the select and where clauses of an {@link org.eclipse.milo.opcua.stack.core.types.structured.EventFilter}
+ * into {@link EventOperand}s that are evaluated against each event.
+ * <p>
+ * Operands: {@link SimpleAttributeOperand}, {@link LiteralOperand} and {@link ElementOperand}.
+ * <p>
+ * Operators: Equals, IsNull, GreaterThan, LessThan, GreaterThanOrEqual, LessThanOrEqual, Like, Not, Between, InList,
+ * And, Or, Cast, BitwiseAnd, BitwiseOr and OfType. InView and RelatedTo only apply to queries and are rejected.
+ * <p>
+ * Everything that can be resolved without an event, e.g. the operator, literal values, Like patterns and Cast target
+ * types, is resolved once at compile time. Operators follow the three-valued logic of Part 4: an operand that is
+ * missing from an event or can't be compared evaluates to {@code null} and an event only passes a where clause when
+ * its first element evaluates to {@code true}.
+ */
 public class ContentFilterUtil {
 
-    /*
-     * Operands: SimpleAttributeOperand
-     * Operators: Equals, IsNull, GreaterThan, LessThan, GreaterThanOrEqual, LessThanOrEqual, Like, Not, Between,
-     * InList, And, Or, Cast, BitwiseAnd, BitwiseOr and OfType.
+    /**
+     * A compiled operand or {@link ContentFilterElement}.
+     */
+    public interface EventOperand {
+
+        /**
+         * @param event the event to evaluate against.
+         * @return the value of this operand for {@code event}, or {@code null} if it has none.
+         */
+        @Nullable
+        Object evaluate(BaseEventType event);
+
+    }
+
+    /**
+     * An operand that always evaluates to {@code null}, e.g. for a select clause that failed to compile.
+     */
+    public static final EventOperand NULL_OPERAND = event -> null;
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    /**
+     * The {@link BaseEventType} fields, by browse name, read through their getters rather than browsing the event.
+     */
+    private static final Map<String, EventOperand> BASE_EVENT_FIELDS = ImmutableMap.<String, EventOperand>builder()
+        .put("EventId", BaseEventType::getEventId)
+        .put("EventType", BaseEventType::getEventType)
+        .put("SourceNode", BaseEventType::getSourceNode)
+        .put("SourceName", BaseEventType::getSourceName)
+        .put("Time", BaseEventType::getTime)
+        .put("ReceiveTime", BaseEventType::getReceiveTime)
+        .put("LocalTime", BaseEventType::getLocalTime)
+        .put("Message", BaseEventType::getMessage)
+        .put("Severity", BaseEventType::getSeverity)
+        .build();
+
+    private ContentFilterUtil() {}
+
+    /**
+     * Compile a select clause, or a {@link SimpleAttributeOperand} in a where clause.
+     *
+     * @param operand the {@link SimpleAttributeOperand} to compile.
+     * @return an {@link EventOperand} that evaluates to the selected field of an event.
+     * @throws UaException with {@code Bad_AttributeIdInvalid} or {@code Bad_IndexRangeInvalid} if the operand selects
+     *                     an unsupported attribute or has an invalid index range.
+     */
+    public static EventOperand compileSelectClause(SimpleAttributeOperand operand) throws UaException {
+        QualifiedName[] browsePath = operand.getBrowsePath() != null ?
+            operand.getBrowsePath() : new QualifiedName[0];
+
+        AttributeId attributeId = operand.getAttributeId() != null ?
+            AttributeId.from(operand.getAttributeId()).orElse(null) : AttributeId.Value;
+
+        if (attributeId == null) {
+            throw new UaException(StatusCodes.Bad_AttributeIdInvalid);
+        }
+
+        switch (attributeId) {
+            case NodeId:
+            case NodeClass:
+            case BrowseName:
+            case DisplayName:
+            case Description:
+            case Value:
+                break;
+            default:
+                throw new UaException(StatusCodes.Bad_AttributeIdInvalid);
+        }
+
+        EventOperand browsed = event -> {
+            Node node = browse(event, browsePath);
+
+            return node != null ? readAttribute(node, attributeId) : null;
+        };
+
+        EventOperand field;
+
+        if (browsePath.length == 0) {
+            field = event -> readAttribute(event, attributeId);
+        } else if (browsePath.length == 1 && attributeId == AttributeId.Value && isBaseEventField(browsePath[0])) {
+            EventOperand getter = BASE_EVENT_FIELDS.get(browsePath[0].getName());
+
+            // the getters look for properties in the event's own namespace; fall back to browsing for others.
+            field = event -> {
+                Object value = getter.evaluate(event);
+
+                return value != null ? value : browsed.evaluate(event);
+            };
+        } else {
+            field = browsed;
+        }
+
+        String indexRange = operand.getIndexRange();
+
+        if (indexRange != null && !indexRange.isEmpty()) {
+            NumericRange range = NumericRange.parse(indexRange);
+            EventOperand unbounded = field;
+
+            field = event -> {
+                Object value = unbounded.evaluate(event);
+
+                try {
+                    return value != null ? NumericRange.readFromValueAtRange(new Variant(value), range) : null;
+                } catch (UaException e) {
+                    return null;
+                }
+            };
+        }
+
+        NodeId typeDefinitionId = operand.getTypeDefinitionId();
+
+        if (typeDefinitionId != null && !typeDefinitionId.isNull() &&
+            !typeDefinitionId.equals(Identifiers.BaseEventType)) {
+
+            // the field only exists on events of typeDefinitionId or one of its subtypes.
+            EventTypeCheck typeCheck = new EventTypeCheck(typeDefinitionId);
+            EventOperand untyped = field;
+
+            field = event -> typeCheck.test(event) ? untyped.evaluate(event) : null;
+        }
+
+        return field;
+    }
+
+    /**
+     * Compile a where clause.
+     *
+     * @param whereClause the {@link ContentFilter} to compile; {@code null} or empty passes every event.
+     * @return a {@link Predicate} that tests whether an event passes {@code whereClause}.
+     * @throws UaException if an element of {@code whereClause} is invalid or uses an unsupported operator.
      */
+    public static Predicate<BaseEventType> compileWhereClause(@Nullable ContentFilter whereClause)
+        throws UaException {
 
-    public void apply(ContentFilter filter) throws UaException {
-        List<ContentFilterElement> elements = l(filter.getElements());
+        ContentFilterElement[] elements = whereClause != null ? whereClause.getElements() : null;
 
-        for (int i = 0; i < elements.size(); i++) {
-            ContentFilterElement element = elements.get(i);
+        if (elements == null || elements.length == 0) {
+            return event -> true;
+        }
 
-            FilterOperator operator = element.getFilterOperator();
-            SimpleAttributeOperand[] operands = extract(element.getFilterOperands());
+        // elements may only refer to elements after them, so compiling from the last to the first means every
+        // ElementOperand refers to an element that has already been compiled.
+        EventOperand[] compiled = new EventOperand[elements.length];
 
-            throw new UaException(StatusCodes.Bad_FilterOperandInvalid);
+        for (int i = elements.length - 1; i >= 0; i--) {
+            try {
+                compiled[i] = compileElement(elements, compiled, i);
+            } catch (UaException e) {
+                throw new UaException(
+                    e.getStatusCode(),
+                    String.format("whereClause element %d: %s", i, e.getMessage())
+                );
+            }
         }
+
+        EventOperand root = compiled[0];
+
+        return event -> Boolean.TRUE.equals(root.evaluate(event));
     }
 
-    private boolean apply(FilterOperator operator, FilterOperand[] operands) {
-        if (operator == FilterOperator.Equals) {
-            SimpleAttributeOperand op0 = (SimpleAttributeOperand) operands[0];
-            AttributeOperand op1 = (AttributeOperand) operands[1];
+    /**
+     * @param nodeMap     the {@link ServerNodeMap} the type hierarchy is in.
+     * @param typeId      the type to test.
+     * @param superTypeId the possible supertype.
+     * @return {@code true} if {@code typeId} is {@code superTypeId} or one of its subtypes.
+     */
+    public static boolean isSubtypeOf(ServerNodeMap nodeMap, NodeId typeId, NodeId superTypeId) {
+        NodeId current = typeId;
+
+        while (current != null) {
+            if (current.equals(superTypeId)) return true;
 
-            op0.getAttributeId();
-            op0.getBrowsePath();
-            op0.getIndexRange();
-            op0.getTypeDefinitionId();
+            ServerNode typeNode = nodeMap.get(current);
+            if (typeNode == null) return false;
+
+            current = typeNode.getReferences().stream()
+                .filter(r -> r.isInverse() && Identifiers.HasSubtype.equals(r.getReferenceTypeId()))
+                .map(r -> r.getTargetNodeId().local().orElse(null))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
         }
 
         return false;
     }
 
-    private SimpleAttributeOperand[] extract(ExtensionObject[] operandXos) {
-        return Arrays.stream(operandXos)
-            .map(xo -> (SimpleAttributeOperand) xo.decode())
-            .toArray(SimpleAttributeOperand[]::new);
+    private static EventOperand compileElement(
+        ContentFilterElement[] elements,
+        EventOperand[] compiled,
+        int index) throws UaException {
+
+        ContentFilterElement element = elements[index];
+        FilterOperator operator = element.getFilterOperator();
+
+        if (operator == null) {
+            throw new UaException(StatusCodes.Bad_FilterOperatorInvalid);
+        }
+
+        ExtensionObject[] operandXos = element.getFilterOperands() != null ?
+            element.getFilterOperands() : new ExtensionObject[0];
+
+        Object[] operands = new Object[operandXos.length];
+        for (int i = 0; i < operandXos.length; i++) {
+            operands[i] = operandXos[i] != null ? operandXos[i].decode() : null;
+        }
+
+        switch (operator) {
+            case Equals: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> compareOrNull(op0.evaluate(event), op1.evaluate(event), c -> c == 0);
+            }
+
+            case IsNull: {
+                checkOperandCount(operands, 1);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+
+                return event -> op0.evaluate(event) == null;
+            }
+
+            case GreaterThan: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> compareOrNull(op0.evaluate(event), op1.evaluate(event), c -> c > 0);
+            }
+
+            case LessThan: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> compareOrNull(op0.evaluate(event), op1.evaluate(event), c -> c < 0);
+            }
+
+            case GreaterThanOrEqual: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> compareOrNull(op0.evaluate(event), op1.evaluate(event), c -> c >= 0);
+            }
+
+            case LessThanOrEqual: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> compareOrNull(op0.evaluate(event), op1.evaluate(event), c -> c <= 0);
+            }
+
+            case Like: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+
+                if (operands[1] instanceof LiteralOperand) {
+                    Object patternValue = literalValue((LiteralOperand) operands[1]);
+
+                    if (!(patternValue instanceof String)) {
+                        throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "Like pattern must be a String");
+                    }
+
+                    Pattern pattern = likePattern((String) patternValue);
+
+                    return event -> {
+                        String s = asString(op0.evaluate(event));
+
+                        return s != null ? pattern.matcher(s).matches() : null;
+                    };
+                } else {
+                    EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                    return event -> {
+                        String s = asString(op0.evaluate(event));
+                        Object patternValue = op1.evaluate(event);
+
+                        if (s == null || !(patternValue instanceof String)) return null;
+
+                        try {
+                            return likePattern((String) patternValue).matcher(s).matches();
+                        } catch (UaException e) {
+                            return null;
+                        }
+                    };
+                }
+            }
+
+            case Not: {
+                checkOperandCount(operands, 1);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+
+                return event -> {
+                    Object value = op0.evaluate(event);
+
+                    return value instanceof Boolean ? !((Boolean) value) : null;
+                };
+            }
+
+            case Between: {
+                checkOperandCount(operands, 3);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+                EventOperand op2 = compileOperand(operands[2], elements, compiled, index);
+
+                return event -> {
+                    Object value = op0.evaluate(event);
+                    int low = compare(value, op1.evaluate(event));
+                    int high = compare(value, op2.evaluate(event));
+
+                    if (low == INCOMPARABLE || high == INCOMPARABLE) return null;
+
+                    return low >= 0 && high <= 0;
+                };
+            }
+
+            case InList: {
+                if (operands.length < 2) {
+                    throw new UaException(StatusCodes.Bad_FilterOperandCountMismatch);
+                }
+
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand[] list = new EventOperand[operands.length - 1];
+                for (int i = 1; i < operands.length; i++) {
+                    list[i - 1] = compileOperand(operands[i], elements, compiled, index);
+                }
+
+                return event -> {
+                    Object value = op0.evaluate(event);
+                    if (value == null) return null;
+
+                    for (EventOperand op : list) {
+                        if (compare(value, op.evaluate(event)) == 0) return true;
+                    }
+
+                    return false;
+                };
+            }
+
+            case And: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> {
+                    Object value0 = op0.evaluate(event);
+                    if (Boolean.FALSE.equals(value0)) return false;
+
+                    Object value1 = op1.evaluate(event);
+                    if (Boolean.FALSE.equals(value1)) return false;
+
+                    return Boolean.TRUE.equals(value0) && Boolean.TRUE.equals(value1) ? true : null;
+                };
+            }
+
+            case Or: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> {
+                    Object value0 = op0.evaluate(event);
+                    if (Boolean.TRUE.equals(value0)) return true;
+
+                    Object value1 = op1.evaluate(event);
+                    if (Boolean.TRUE.equals(value1)) return true;
+
+                    return Boolean.FALSE.equals(value0) && Boolean.FALSE.equals(value1) ? false : null;
+                };
+            }
+
+            case Cast: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+
+                if (!(operands[1] instanceof LiteralOperand)) {
+                    throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "Cast type must be a literal");
+                }
+
+                Function<Object, Object> cast = castTo(literalNodeId((LiteralOperand) operands[1]));
+
+                return event -> {
+                    Object value = op0.evaluate(event);
+
+                    return value != null ? cast.apply(value) : null;
+                };
+            }
+
+            case BitwiseAnd: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> {
+                    Long value0 = asLong(op0.evaluate(event));
+                    Long value1 = asLong(op1.evaluate(event));
+
+                    return value0 != null && value1 != null ? value0 & value1 : null;
+                };
+            }
+
+            case BitwiseOr: {
+                checkOperandCount(operands, 2);
+                EventOperand op0 = compileOperand(operands[0], elements, compiled, index);
+                EventOperand op1 = compileOperand(operands[1], elements, compiled, index);
+
+                return event -> {
+                    Long value0 = asLong(op0.evaluate(event));
+                    Long value1 = asLong(op1.evaluate(event));
+
+                    return value0 != null && value1 != null ? value0 | value1 : null;
+                };
+            }
+
+            case OfType: {
+                checkOperandCount(operands, 1);
+
+                if (!(operands[0] instanceof LiteralOperand)) {
+                    throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "OfType type must be a literal");
+                }
+
+                EventTypeCheck typeCheck = new EventTypeCheck(literalNodeId((LiteralOperand) operands[0]));
+
+                return typeCheck::test;
+            }
+
+            default:
+                throw new UaException(
+                    StatusCodes.Bad_FilterOperatorUnsupported,
+                    "operator not supported: " + operator
+                );
+        }
+    }
+
+    private static EventOperand compileOperand(
+        Object operand,
+        ContentFilterElement[] elements,
+        EventOperand[] compiled,
+        int index) throws UaException {
+
+        if (operand instanceof SimpleAttributeOperand) {
+            try {
+                return compileSelectClause((SimpleAttributeOperand) operand);
+            } catch (UaException e) {
+                throw new UaException(StatusCodes.Bad_FilterOperandInvalid, e.getMessage());
+            }
+        } else if (operand instanceof LiteralOperand) {
+            Object value = literalValue((LiteralOperand) operand);
+
+            return event -> value;
+        } else if (operand instanceof ElementOperand) {
+            UInteger elementIndex = ((ElementOperand) operand).getIndex();
+
+            if (elementIndex == null || elementIndex.longValue() <= index ||
+                elementIndex.longValue() >= elements.length) {
+
+                throw new UaException(
+                    StatusCodes.Bad_FilterElementInvalid,
+                    "invalid ElementOperand index: " + elementIndex
+                );
+            }
+
+            return compiled[elementIndex.intValue()];
+        } else {
+            throw new UaException(
+                StatusCodes.Bad_FilterOperandInvalid,
+                "operand not supported: " + (operand != null ? operand.getClass().getSimpleName() : null)
+            );
+        }
+    }
+
+    private static void checkOperandCount(Object[] operands, int expected) throws UaException {
+        if (operands.length != expected) {
+            throw new UaException(
+                StatusCodes.Bad_FilterOperandCountMismatch,
+                String.format("expected %d operands, got %d", expected, operands.length)
+            );
+        }
+    }
+
+    @Nullable
+    private static Object literalValue(LiteralOperand operand) {
+        Variant value = operand.getValue();
+
+        return value != null ? value.getValue() : null;
+    }
+
+    private static NodeId literalNodeId(LiteralOperand operand) throws UaException {
+        Object value = literalValue(operand);
+
+        if (value instanceof NodeId) {
+            return (NodeId) value;
+        } else if (value instanceof ExpandedNodeId && ((ExpandedNodeId) value).local().isPresent()) {
+            return ((ExpandedNodeId) value).local().get();
+        } else {
+            throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "expected a NodeId literal");
+        }
+    }
+
+    private static boolean isBaseEventField(QualifiedName name) {
+        return name.getNamespaceIndex().intValue() == 0 && BASE_EVENT_FIELDS.containsKey(name.getName());
+    }
+
+    /**
+     * Follow {@code browsePath} from {@code event} along forward HasProperty and HasComponent references.
+     */
+    @Nullable
+    private static Node browse(BaseEventType event, QualifiedName[] browsePath) {
+        Node node = event;
+
+        for (QualifiedName name : browsePath) {
+            if (!(node instanceof UaNode)) return null;
+
+            node = findChild((UaNode) node, name);
+
+            if (node == null) return null;
+        }
+
+        return node;
+    }
+
+    @Nullable
+    private static Node findChild(UaNode parent, QualifiedName name) {
+        ServerNodeMap nodeMap = parent.getNodeMap();
+
+        for (Reference reference : parent.getReferences()) {
+            if (Reference.HAS_PROPERTY_PREDICATE.test(reference) ||
+                Reference.HAS_COMPONENT_PREDICATE.test(reference)) {
+
+                ServerNode child = nodeMap.getNode(reference.getTargetNodeId()).orElse(null);
+
+                if (child != null && browseNameMatches(child.getBrowseName(), name)) {
+                    return child;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Browse paths in select clauses name standard fields in namespace 0, but properties added to an instance through
+     * a {@code QualifiedProperty} are given the namespace of the instance, so names in namespace 0 match either.
+     */
+    private static boolean browseNameMatches(QualifiedName browseName, QualifiedName name) {
+        if (browseName.equals(name)) return true;
+
+        return name.getNamespaceIndex().intValue() == 0 && Objects.equals(browseName.getName(), name.getName());
+    }
+
+    @Nullable
+    private static Object readAttribute(Node node, AttributeId attributeId) {
+        switch (attributeId) {
+            case NodeId:
+                return node.getNodeId();
+            case NodeClass:
+                return node.getNodeClass();
+            case BrowseName:
+                return node.getBrowseName();
+            case DisplayName:
+                return node.getDisplayName();
+            case Description:
+                return node.getDescription();
+            case Value: {
+                if (node instanceof VariableNode) {
+                    DataValue value = ((VariableNode) node).getValue();
+
+                    return value != null && value.getValue() != null ? value.getValue().getValue() : null;
+                } else {
+                    return null;
+                }
+            }
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Boolean compareOrNull(Object value0, Object value1, Predicate<Integer> test) {
+        int c = compare(value0, value1);
+
+        return c != INCOMPARABLE ? test.test(c) : null;
+    }
+
+    /**
+     * Compare two operand values, converting between numeric types and between String and LocalizedText.
+     *
+     * @return the result of the comparison, or {@link #INCOMPARABLE} if either value is {@code null} or the values
+     * can't be compared.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compare(@Nullable Object value0, @Nullable Object value1) {
+        if (value0 == null || value1 == null) return INCOMPARABLE;
+
+        if (value0 instanceof Number && value1 instanceof Number) {
+            Number n0 = (Number) value0;
+            Number n1 = (Number) value1;
+
+            if (isIntegral(n0) && isIntegral(n1)) {
+                return Long.compare(n0.longValue(), n1.longValue());
+            } else {
+                return Double.compare(n0.doubleValue(), n1.doubleValue());
+            }
+        }
+
+        if (value0 instanceof DateTime && value1 instanceof DateTime) {
+            return Long.compare(((DateTime) value0).getUtcTime(), ((DateTime) value1).getUtcTime());
+        }
+
+        if (isText(value0) && isText(value1)) {
+            return asString(value0).compareTo(asString(value1));
+        }
+
+        if (value0.getClass() == value1.getClass()) {
+            if (value0 instanceof Comparable) {
+                return ((Comparable<Object>) value0).compareTo(value1);
+            } else if (value0.getClass().isArray()) {
+                return Objects.deepEquals(value0, value1) ? 0 : INCOMPARABLE;
+            } else {
+                return value0.equals(value1) ? 0 : INCOMPARABLE;
+            }
+        }
+
+        return INCOMPARABLE;
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte ||
+            n instanceof UByte || n instanceof UShort || n instanceof UInteger;
+    }
+
+    private static boolean isText(Object value) {
+        return value instanceof String || value instanceof LocalizedText;
+    }
+
+    @Nullable
+    private static String asString(@Nullable Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        } else if (value instanceof LocalizedText) {
+            return ((LocalizedText) value).getText();
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Long asLong(@Nullable Object value) {
+        if (value instanceof Number && (isIntegral((Number) value) || value instanceof ULong)) {
+            return ((Number) value).longValue();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Convert a Like pattern to a regular expression: {@code %} matches any string, {@code _} any single character,
+     * {@code [...]} and {@code [^...]} a character set and {@code \} escapes the next character.
+     */
+    private static Pattern likePattern(String like) throws UaException {
+        StringBuilder regex = new StringBuilder();
+
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+
+            switch (c) {
+                case '%':
+                    regex.append(".*");
+                    break;
+                case '_':
+                    regex.append('.');
+                    break;
+                case '\\':
+                    if (i + 1 < like.length()) {
+                        regex.append(Pattern.quote(String.valueOf(like.charAt(++i))));
+                    }
+                    break;
+                case '[': {
+                    int end = like.indexOf(']', i + 1);
+
+                    if (end < 0) {
+                        regex.append(Pattern.quote("["));
+                    } else {
+                        regex.append('[').append(likeSet(like.substring(i + 1, end))).append(']');
+                        i = end;
+                    }
+                    break;
+                }
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        try {
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        } catch (PatternSyntaxException e) {
+            throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "invalid Like pattern: " + like);
+        }
+    }
+
+    /**
+     * Escape the contents of a Like {@code [...]} set for a regular expression character class; only a leading
+     * {@code ^} and {@code -} ranges keep their meaning, so e.g. {@code &&} or a nested {@code [} are literal.
+     */
+    private static String likeSet(String set) {
+        StringBuilder sb = new StringBuilder(set.length());
+
+        for (int i = 0; i < set.length(); i++) {
+            char c = set.charAt(i);
+
+            switch (c) {
+                case '\\':
+                case '[':
+                case '&':
+                    sb.append('\\').append(c);
+                    break;
+                case '^':
+                    if (i > 0) sb.append('\\');
+                    sb.append(c);
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static Function<Object, Object> castTo(NodeId dataType) throws UaException {
+        if (Identifiers.Boolean.equals(dataType)) {
+            return value -> {
+                if (value instanceof Boolean) return value;
+
+                Double d = asDouble(value);
+
+                return d != null ? d != 0.0 : null;
+            };
+        } else if (Identifiers.String.equals(dataType)) {
+            return value -> {
+                String s = asString(value);
+
+                return s != null ? s : value.toString();
+            };
+        } else if (Identifiers.Double.equals(dataType)) {
+            return ContentFilterUtil::asDouble;
+        } else if (Identifiers.Float.equals(dataType)) {
+            return value -> {
+                Double d = asDouble(value);
+
+                return d != null ? d.floatValue() : null;
+            };
+        } else if (Identifiers.SByte.equals(dataType)) {
+            return integralCast(Byte.MIN_VALUE, Byte.MAX_VALUE, l -> (byte) l);
+        } else if (Identifiers.Int16.equals(dataType)) {
+            return integralCast(Short.MIN_VALUE, Short.MAX_VALUE, l -> (short) l);
+        } else if (Identifiers.Int32.equals(dataType)) {
+            return integralCast(Integer.MIN_VALUE, Integer.MAX_VALUE, l -> (int) l);
+        } else if (Identifiers.Int64.equals(dataType)) {
+            return integralCast(Long.MIN_VALUE, Long.MAX_VALUE, l -> l);
+        } else if (Identifiers.Byte.equals(dataType)) {
+            return integralCast(0, UByte.MAX_VALUE, l -> ubyte(l));
+        } else if (Identifiers.UInt16.equals(dataType)) {
+            return integralCast(0, UShort.MAX_VALUE, l -> ushort((int) l));
+        } else if (Identifiers.UInt32.equals(dataType)) {
+            return integralCast(0, UInteger.MAX_VALUE, l -> uint(l));
+        } else if (Identifiers.UInt64.equals(dataType)) {
+            return integralCast(0, Long.MAX_VALUE, l -> ulong(l));
+        } else {
+            throw new UaException(StatusCodes.Bad_FilterOperandInvalid, "Cast not supported to " + dataType);
+        }
     }
 
-    private static class EqualsOperator {
+    private static Function<Object, Object> integralCast(long min, long max, LongFunction<Object> f) {
+        return value -> {
+            Double d = asDouble(value);
+            if (d == null) return null;
+
+            long l = Math.round(d);
+
+            return l >= min && l <= max ? f.apply(l) : null;
+        };
+    }
+
+    @Nullable
+    private static Double asDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? 1.0 : 0.0;
+        } else if (value instanceof String) {
+            try {
+                return Double.parseDouble(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Tests whether an event's EventType is a given type or one of its subtypes.
+     * <p>
+     * An event carries its EventType as a NodeId, so the result for each distinct EventType is cached; the type
+     * hierarchy is assumed not to change while the filter is installed.
+     */
+    private static final class EventTypeCheck {
+
+        private final ConcurrentMap<NodeId, Boolean> results = Maps.newConcurrentMap();
+
+        private final NodeId typeId;
+
+        EventTypeCheck(NodeId typeId) {
+            this.typeId = typeId;
+        }
+
+        boolean test(BaseEventType event) {
+            NodeId eventType = event.getEventType();
+
+            if (eventType == null) return false;
+
+            Boolean result = results.get(eventType);
+
+            if (result == null) {
+                result = eventType.equals(typeId) ||
+                    (event instanceof UaNode && isSubtypeOf(((UaNode) event).getNodeMap(), eventType, typeId));
 
-        public void apply(FilterOperand[] operands) throws UaException {
+                results.put(eventType, result);
+            }
 
+            return result;
         }
 
     }
@@ -14,86 +14,178 @@
 package org.eclipse.milo.opcua.sdk.server.util;
 
 import java.util.Objects;
+import javax.annotation.Nullable;
 
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.DeadbandType;
 import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
 
+/**
+ * A {@link DataChangeFilter} compiled for a single monitored item.
+ * <p>
+ * The trigger and deadband are resolved once by {@link #compile(DataChangeFilter, Range)}; a percent deadband is
+ * converted to an absolute one using the item's EURange. Deadband comparisons are done by a comparator specialized
+ * for the type of the value, e.g. {@code double[]} or {@link Integer}, that is looked up once and reused for as long
+ * as the item's values keep the same type, so no reflection or boxing happens per value.
+ * <p>
+ * A compiled filter caches the comparator of the last value type it saw and is not thread-safe; it is meant to be
+ * used while holding the lock of the item that owns it.
+ */
 public class DataChangeMonitoringFilter {
 
-    public static boolean filter(DataValue lastValue, DataValue currentValue, DataChangeFilter filter) {
-        return triggerFilter(lastValue, currentValue, filter) && deadbandFilter(lastValue, currentValue, filter);
-    }
+    private static final ClassValue<DeadbandComparator> COMPARATORS = new ClassValue<DeadbandComparator>() {
+        @Override
+        protected DeadbandComparator computeValue(Class<?> type) {
+            return DeadbandComparator.forType(type);
+        }
+    };
 
-    private static boolean triggerFilter(DataValue lastValue, DataValue currentValue, DataChangeFilter filter) {
-        if (lastValue == null) return true;
+    private Class<?> comparatorType = null;
+    private DeadbandComparator comparator = null;
 
-        DataChangeTrigger trigger = filter.getTrigger();
-
-        if (trigger == DataChangeTrigger.Status) {
-            return statusChanged(lastValue, currentValue);
-        } else if (trigger == DataChangeTrigger.StatusValue) {
-            return valueChanged(lastValue, currentValue) || statusChanged(lastValue, currentValue);
-        } else {
-            // DataChangeTrigger.StatusValueTimestamp
-            return timestampChanged(lastValue, currentValue) ||
-                valueChanged(lastValue, currentValue) ||
-                statusChanged(lastValue, currentValue);
-        }
+    private final boolean triggerOnValue;
+    private final boolean triggerOnTimestamp;
+    private final boolean deadbandEnabled;
+    private final double deadband;
+
+    private DataChangeMonitoringFilter(DataChangeTrigger trigger, boolean deadbandEnabled, double deadband) {
+        this.deadbandEnabled = deadbandEnabled;
+        this.deadband = deadband;
+
+        triggerOnValue = trigger != DataChangeTrigger.Status;
+
+        // with a deadband StatusValueTimestamp behaves the same as StatusValue.
+        triggerOnTimestamp = trigger == DataChangeTrigger.StatusValueTimestamp && !deadbandEnabled;
     }
 
-    private static boolean deadbandFilter(DataValue lastValue, DataValue currentValue, DataChangeFilter filter) {
+    /**
+     * Test whether {@code currentValue} should be reported given {@code lastValue} was the last value reported.
+     *
+     * @param lastValue    the last value reported, or {@code null} if none has been.
+     * @param currentValue the value to test.
+     * @return {@code true} if {@code currentValue} passes the filter and should be reported.
+     */
+    public boolean filter(@Nullable DataValue lastValue, DataValue currentValue) {
         if (lastValue == null) return true;
 
-        int index = filter.getDeadbandType().intValue();
-        if (index < 0 || index >= DeadbandType.values().length) return true;
-        DeadbandType deadbandType = DeadbandType.values()[index];
+        if (statusChanged(lastValue, currentValue)) return true;
+
+        if (triggerOnValue) {
+            if (deadbandEnabled) {
+                if (exceedsDeadband(lastValue, currentValue)) return true;
+            } else if (valueChanged(lastValue, currentValue)) {
+                return true;
+            }
+        }
 
-        if (deadbandType != DeadbandType.Absolute) return true;
+        return triggerOnTimestamp && timestampChanged(lastValue, currentValue);
+    }
 
+    /**
+     * @return the absolute deadband values are compared against, or 0 if no deadband is applied.
+     */
+    public double getDeadband() {
+        return deadbandEnabled ? deadband : 0.0;
+    }
+
+    private boolean exceedsDeadband(DataValue lastValue, DataValue currentValue) {
         Object last = lastValue.getValue().getValue();
         Object current = currentValue.getValue().getValue();
 
-        if (last == null || current == null) {
-            return true;
-        } else if (last.getClass().isArray() && current.getClass().isArray()) {
-            return compareArrayDeadband(last, current, filter.getDeadbandValue());
-        } else {
-            return compareScalarDeadband(last, current, filter.getDeadbandValue());
+        if (last == null || current == null) return last != current;
+
+        Class<?> type = current.getClass();
+
+        if (last.getClass() != type) {
+            return !(last instanceof Number && current instanceof Number) ||
+                DeadbandComparator.NUMBER.exceeds(last, current, deadband);
+        }
+
+        DeadbandComparator c = comparator;
+
+        if (comparatorType != type) {
+            c = comparator = COMPARATORS.get(type);
+            comparatorType = type;
         }
+
+        return c.exceeds(last, current, deadband);
     }
 
-    private static boolean compareArrayDeadband(Object last, Object current, double deadband) {
-        Object[] lastA = Object[].class.cast(last);
-        Object[] currentA = Object[].class.cast(current);
+    /**
+     * Compile {@code filter} for an item.
+     *
+     * @param filter  the {@link DataChangeFilter} to compile.
+     * @param euRange the EURange of the monitored node, required if {@code filter} specifies a percent deadband.
+     * @return a {@link DataChangeMonitoringFilter} for {@code filter}.
+     * @throws UaException with {@code Bad_DeadbandFilterInvalid} if the deadband type or value is invalid, or a percent
+     *                     deadband is requested but no valid {@code euRange} is available.
+     */
+    public static DataChangeMonitoringFilter compile(
+        DataChangeFilter filter,
+        @Nullable Range euRange) throws UaException {
+
+        DataChangeTrigger trigger = filter.getTrigger() != null ? filter.getTrigger() : DataChangeTrigger.StatusValue;
 
-        if (lastA.length != currentA.length) {
-            return true;
-        } else {
-            boolean exceeds = false;
+        DeadbandType deadbandType = filter.getDeadbandType() != null ?
+            DeadbandType.from(filter.getDeadbandType().intValue()) : DeadbandType.None;
+
+        double deadbandValue = filter.getDeadbandValue() != null ? filter.getDeadbandValue() : 0.0;
+
+        if (deadbandType == null) {
+            throw new UaException(StatusCodes.Bad_DeadbandFilterInvalid);
+        }
 
-            for (int i = 0; i < lastA.length; i++) {
-                exceeds = exceeds || exceedsDeadband(lastA[i], currentA[i], deadband);
+        switch (deadbandType) {
+            case Absolute: {
+                if (!(deadbandValue >= 0.0)) {
+                    throw new UaException(StatusCodes.Bad_DeadbandFilterInvalid);
+                }
+
+                return new DataChangeMonitoringFilter(trigger, true, deadbandValue);
+            }
+
+            case Percent: {
+                if (!(deadbandValue >= 0.0 && deadbandValue <= 100.0)) {
+                    throw new UaException(StatusCodes.Bad_DeadbandFilterInvalid);
+                }
+
+                if (euRange == null || euRange.getLow() == null || euRange.getHigh() == null) {
+                    throw new UaException(StatusCodes.Bad_DeadbandFilterInvalid, "EURange not available");
+                }
+
+                double span = Math.abs(euRange.getHigh() - euRange.getLow());
+
+                return new DataChangeMonitoringFilter(trigger, true, deadbandValue / 100.0 * span);
             }
 
-            return exceeds;
+            default:
+                return new DataChangeMonitoringFilter(trigger, false, 0.0);
         }
     }
 
-    private static boolean compareScalarDeadband(Object last, Object current, double deadband) {
-        return exceedsDeadband(last, current, deadband);
-    }
+    /**
+     * Test whether {@code currentValue} passes {@code filter} given {@code lastValue} was the last value reported.
+     * <p>
+     * The filter is compiled on every call and percent deadbands are ignored; items should hold on to a compiled
+     * filter instead, see {@link #compile(DataChangeFilter, Range)}.
+     */
+    public static boolean filter(DataValue lastValue, DataValue currentValue, DataChangeFilter filter) {
+        DataChangeMonitoringFilter compiled;
 
-    private static boolean exceedsDeadband(Object last, Object current, double deadband) {
         try {
-            double lastD = Number.class.cast(last).doubleValue();
-            double currentD = Number.class.cast(current).doubleValue();
+            compiled = compile(filter, null);
+        } catch (UaException e) {
+            DataChangeTrigger trigger = filter.getTrigger() != null ?
+                filter.getTrigger() : DataChangeTrigger.StatusValue;
 
-            return Math.abs(lastD - currentD) > deadband;
-        } catch (Throwable t) {
-            return true;
+            compiled = new DataChangeMonitoringFilter(trigger, false, 0.0);
         }
+
+        return compiled.filter(lastValue, currentValue);
     }
 
     private static boolean statusChanged(DataValue lastValue, DataValue currentValue) {
@@ -108,4 +200,230 @@ public class DataChangeMonitoringFilter {
         return !Objects.equals(lastValue.getSourceTime(), currentValue.getSourceTime());
     }
 
+    /**
+     * Compares two non-null values of the same type against a deadband.
+     */
+    private abstract static class DeadbandComparator {
+
+        abstract boolean exceeds(Object last, Object current, double deadband);
+
+        static final DeadbandComparator DOUBLE = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return Math.abs((Double) last - (Double) current) > deadband;
+            }
+        };
+
+        static final DeadbandComparator FLOAT = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return Math.abs((double) (Float) last - (double) (Float) current) > deadband;
+            }
+        };
+
+        static final DeadbandComparator INTEGER = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return Math.abs((double) (Integer) last - (double) (Integer) current) > deadband;
+            }
+        };
+
+        static final DeadbandComparator LONG = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return Math.abs((double) (Long) last - (double) (Long) current) > deadband;
+            }
+        };
+
+        static final DeadbandComparator NUMBER = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return Math.abs(((Number) last).doubleValue() - ((Number) current).doubleValue()) > deadband;
+            }
+        };
+
+        static final DeadbandComparator DOUBLE_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                double[] l = (double[]) last;
+                double[] c = (double[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs(l[i] - c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        static final DeadbandComparator FLOAT_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                float[] l = (float[]) last;
+                float[] c = (float[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs((double) l[i] - (double) c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        static final DeadbandComparator INT_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                int[] l = (int[]) last;
+                int[] c = (int[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs((double) l[i] - (double) c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        static final DeadbandComparator LONG_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                long[] l = (long[]) last;
+                long[] c = (long[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs((double) l[i] - (double) c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        static final DeadbandComparator SHORT_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                short[] l = (short[]) last;
+                short[] c = (short[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs((double) l[i] - (double) c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        static final DeadbandComparator BYTE_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                byte[] l = (byte[]) last;
+                byte[] c = (byte[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    if (Math.abs((double) l[i] - (double) c[i]) > deadband) return true;
+                }
+
+                return false;
+            }
+        };
+
+        /**
+         * Arrays of boxed numbers, e.g. {@code Double[]} as decoded from the wire.
+         */
+        static final DeadbandComparator NUMBER_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                Object[] l = (Object[]) last;
+                Object[] c = (Object[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    Number ln = (Number) l[i];
+                    Number cn = (Number) c[i];
+
+                    if (ln == null || cn == null) {
+                        if (ln != cn) return true;
+                    } else if (Math.abs(ln.doubleValue() - cn.doubleValue()) > deadband) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+
+        /**
+         * Any other array of objects, e.g. a multi-dimensional array; each element is compared by the comparator for
+         * its own type.
+         */
+        static final DeadbandComparator OBJECT_ARRAY = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                Object[] l = (Object[]) last;
+                Object[] c = (Object[]) current;
+
+                if (l.length != c.length) return true;
+
+                for (int i = 0; i < l.length; i++) {
+                    Object le = l[i];
+                    Object ce = c[i];
+
+                    if (le == null || ce == null) {
+                        if (le != ce) return true;
+                    } else if (le.getClass() != ce.getClass()) {
+                        return true;
+                    } else if (COMPARATORS.get(ce.getClass()).exceeds(le, ce, deadband)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+
+        /**
+         * Values a deadband doesn't apply to are reported whenever they change.
+         */
+        static final DeadbandComparator NOT_NUMERIC = new DeadbandComparator() {
+            @Override
+            boolean exceeds(Object last, Object current, double deadband) {
+                return !Objects.deepEquals(last, current);
+            }
+        };
+
+        static DeadbandComparator forType(Class<?> type) {
+            if (type == Double.class) return DOUBLE;
+            if (type == Float.class) return FLOAT;
+            if (type == Integer.class) return INTEGER;
+            if (type == Long.class) return LONG;
+            if (Number.class.isAssignableFrom(type)) return NUMBER;
+
+            if (type == double[].class) return DOUBLE_ARRAY;
+            if (type == float[].class) return FLOAT_ARRAY;
+            if (type == int[].class) return INT_ARRAY;
+            if (type == long[].class) return LONG_ARRAY;
+            if (type == short[].class) return SHORT_ARRAY;
+            if (type == byte[].class) return BYTE_ARRAY;
+
+            if (type.isArray() && !type.getComponentType().isPrimitive()) {
+                return Number.class.isAssignableFrom(type.getComponentType()) ? NUMBER_ARRAY : OBJECT_ARRAY;
+            }
+
+            return NOT_NUMERIC;
+        }
+
+    }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.util.ContentFilterUtil.EventOperand;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DiagnosticInfo;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilterElementResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilterResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFilterResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.SimpleAttributeOperand;
+
+/**
+ * An {@link EventFilter} compiled for a single monitored item.
+ * <p>
+ * The where clause is compiled into a predicate and each select clause into an operand that resolves its browse path
+ * against an event, so filtering and projecting an event doesn't interpret the filter again. Select clauses that name
+ * one of the {@link BaseEventType} fields are read through its getters instead of browsing the event.
+ * <p>
+ * A compiled filter is immutable and may be shared between threads.
+ */
+public class EventMonitoringFilter {
+
+    private static final String[] DEFAULT_FIELDS = {"EventId", "EventType", "SourceNode", "SourceName", "Time"};
+
+    private static final EventMonitoringFilter DEFAULT_FILTER = newDefaultFilter();
+
+    private final EventOperand[] selectClauses;
+    private final Predicate<BaseEventType> whereClause;
+    private final EventFilterResult filterResult;
+
+    private EventMonitoringFilter(
+        EventOperand[] selectClauses,
+        Predicate<BaseEventType> whereClause,
+        @Nullable EventFilterResult filterResult) {
+
+        this.selectClauses = selectClauses;
+        this.whereClause = whereClause;
+        this.filterResult = filterResult;
+    }
+
+    /**
+     * Filter and project {@code event}.
+     *
+     * @param event the event to filter.
+     * @return the selected fields of {@code event}, in select clause order, or {@code null} if it doesn't pass the
+     * where clause.
+     */
+    @Nullable
+    public Variant[] filter(BaseEventType event) {
+        if (!whereClause.test(event)) return null;
+
+        Variant[] fields = new Variant[selectClauses.length];
+
+        for (int i = 0; i < selectClauses.length; i++) {
+            Object value = selectClauses[i].evaluate(event);
+
+            fields[i] = value != null ? new Variant(value) : Variant.NULL_VALUE;
+        }
+
+        return fields;
+    }
+
+    /**
+     * @return the number of fields selected for each event.
+     */
+    public int getSelectClauseCount() {
+        return selectClauses.length;
+    }
+
+    /**
+     * @return an {@link EventFilterResult} with the status of each select clause if any of them were invalid,
+     * otherwise {@code null}.
+     */
+    @Nullable
+    public EventFilterResult getFilterResult() {
+        return filterResult;
+    }
+
+    /**
+     * Compile {@code filter} for an item.
+     * <p>
+     * An invalid select clause doesn't fail the filter; its field is always null and its status is reported in
+     * {@link #getFilterResult()}.
+     *
+     * @param filter the {@link EventFilter} to compile.
+     * @return an {@link EventMonitoringFilter} for {@code filter}.
+     * @throws UaException with {@code Bad_EventFilterInvalid} if {@code filter} has no select clauses or its where
+     *                     clause is invalid.
+     */
+    public static EventMonitoringFilter compile(EventFilter filter) throws UaException {
+        SimpleAttributeOperand[] operands = filter.getSelectClauses();
+
+        if (operands == null || operands.length == 0) {
+            throw new UaException(StatusCodes.Bad_EventFilterInvalid, "no select clauses");
+        }
+
+        EventOperand[] selectClauses = new EventOperand[operands.length];
+        StatusCode[] selectClauseResults = new StatusCode[operands.length];
+        boolean selectClausesValid = true;
+
+        for (int i = 0; i < operands.length; i++) {
+            try {
+                if (operands[i] == null) {
+                    throw new UaException(StatusCodes.Bad_FilterOperandInvalid);
+                }
+
+                selectClauses[i] = ContentFilterUtil.compileSelectClause(operands[i]);
+                selectClauseResults[i] = StatusCode.GOOD;
+            } catch (UaException e) {
+                selectClauses[i] = ContentFilterUtil.NULL_OPERAND;
+                selectClauseResults[i] = e.getStatusCode();
+                selectClausesValid = false;
+            }
+        }
+
+        Predicate<BaseEventType> whereClause;
+
+        try {
+            whereClause = ContentFilterUtil.compileWhereClause(filter.getWhereClause());
+        } catch (UaException e) {
+            throw new UaException(StatusCodes.Bad_EventFilterInvalid, e.getMessage());
+        }
+
+        EventFilterResult filterResult = selectClausesValid ? null : new EventFilterResult(
+            selectClauseResults,
+            new DiagnosticInfo[0],
+            new ContentFilterResult(new ContentFilterElementResult[0], new DiagnosticInfo[0])
+        );
+
+        return new EventMonitoringFilter(selectClauses, whereClause, filterResult);
+    }
+
+    /**
+     * @return a filter for items created without an {@link EventFilter}, which passes every event and selects
+     * EventId, EventType, SourceNode, SourceName and Time.
+     */
+    public static EventMonitoringFilter defaultFilter() {
+        return DEFAULT_FILTER;
+    }
+
+    private static EventMonitoringFilter newDefaultFilter() {
+        SimpleAttributeOperand[] selectClauses = new SimpleAttributeOperand[DEFAULT_FIELDS.length];
+
+        for (int i = 0; i < DEFAULT_FIELDS.length; i++) {
+            selectClauses[i] = new SimpleAttributeOperand(
+                Identifiers.BaseEventType,
+                new QualifiedName[]{new QualifiedName(0, DEFAULT_FIELDS[i])},
+                AttributeId.Value.uid(),
+                null
+            );
+        }
+
+        try {
+            return compile(new EventFilter(selectClauses, null));
+        } catch (UaException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
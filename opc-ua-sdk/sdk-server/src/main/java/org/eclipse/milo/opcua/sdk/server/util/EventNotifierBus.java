@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.EventItem;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.nodes.ServerNode;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers events to the {@link EventItem}s monitoring the notifiers they are reported through.
+ * <p>
+ * An event is reported through its SourceNode, every notifier the SourceNode can be reached from by following
+ * HasNotifier and HasEventSource references, and the Server object. Items are indexed by the notifier they monitor,
+ * and a route from each SourceNode to the notifiers that have items is rebuilt whenever the set of monitored notifiers
+ * changes, so posting an event is a map lookup rather than a scan of every item.
+ * <p>
+ * Delivery is split into stripes, each a {@link BatchingExecutionQueue}, that run in parallel. An item always belongs
+ * to the same stripe, so it receives events in the order they were posted, and each hop onto the {@link Executor}
+ * delivers a batch of events rather than one.
+ * <p>
+ * The route from a SourceNode depends on the HasNotifier and HasEventSource references in the address space; call
+ * {@link #invalidateNotifierHierarchy()} after changing them.
+ */
+public class EventNotifierBus {
+
+    public static final int DEFAULT_STRIPE_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private static final EventItem[] NO_ITEMS = new EventItem[0];
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentMap<NodeId, Notifier> notifiers = Maps.newConcurrentMap();
+
+    private volatile Map<NodeId, Notifier[]> routes = ImmutableMap.of();
+
+    private final AtomicLong postedEventCount = new AtomicLong(0L);
+    private final AtomicLong deliveredEventCount = new AtomicLong(0L);
+
+    private final BatchingExecutionQueue[] stripes;
+
+    private final ServerNodeMap nodeMap;
+
+    public EventNotifierBus(ServerNodeMap nodeMap, Executor executor) {
+        this(nodeMap, executor, DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * @param nodeMap     the {@link ServerNodeMap} the notifier hierarchy is in.
+     * @param executor    the {@link Executor} events are delivered on.
+     * @param stripeCount the number of stripes events are delivered on in parallel.
+     */
+    public EventNotifierBus(ServerNodeMap nodeMap, Executor executor, int stripeCount) {
+        Preconditions.checkArgument(stripeCount > 0, "stripeCount must be > 0");
+
+        this.nodeMap = nodeMap;
+
+        stripes = new BatchingExecutionQueue[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new BatchingExecutionQueue(executor);
+        }
+    }
+
+    /**
+     * Post an event to the items monitoring the notifiers it is reported through.
+     * <p>
+     * Events posted to the server's {@link com.google.common.eventbus.EventBus} are posted here as well.
+     *
+     * @param event the event to post.
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void post(BaseEventType event) {
+        postedEventCount.incrementAndGet();
+
+        Notifier server = notifiers.get(Identifiers.Server);
+        if (server != null) server.deliver(event);
+
+        NodeId sourceNode = event.getSourceNode();
+
+        if (sourceNode != null && !sourceNode.equals(Identifiers.Server)) {
+            Notifier[] route = routes.get(sourceNode);
+
+            if (route != null) {
+                for (Notifier notifier : route) {
+                    notifier.deliver(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Register {@code item} to receive the events reported through the notifier it monitors.
+     *
+     * @param item the {@link EventItem} to register.
+     */
+    public synchronized void register(EventItem item) {
+        NodeId notifierId = item.getReadValueId().getNodeId();
+
+        Notifier notifier = notifiers.get(notifierId);
+
+        if (notifier == null) {
+            notifier = new Notifier(notifierId);
+            notifier.add(item);
+
+            notifiers.put(notifierId, notifier);
+
+            rebuildRoutes();
+        } else {
+            notifier.add(item);
+        }
+    }
+
+    /**
+     * Unregister {@code item}; it receives no more events once those already posted have been delivered.
+     *
+     * @param item the {@link EventItem} to unregister.
+     */
+    public synchronized void unregister(EventItem item) {
+        NodeId notifierId = item.getReadValueId().getNodeId();
+
+        Notifier notifier = notifiers.get(notifierId);
+
+        if (notifier != null && notifier.remove(item) && notifier.isEmpty()) {
+            notifiers.remove(notifierId);
+
+            rebuildRoutes();
+        }
+    }
+
+    /**
+     * Re-resolve the sources reported through each monitored notifier.
+     * <p>
+     * Call this after adding or removing HasNotifier or HasEventSource references.
+     */
+    public synchronized void invalidateNotifierHierarchy() {
+        rebuildRoutes();
+    }
+
+    /**
+     * @return the number of events posted.
+     */
+    public long getPostedEventCount() {
+        return postedEventCount.get();
+    }
+
+    /**
+     * @return the number of times an event has been delivered to an item.
+     */
+    public long getDeliveredEventCount() {
+        return deliveredEventCount.get();
+    }
+
+    /**
+     * @return the number of registered items.
+     */
+    public int getRegisteredItemCount() {
+        return notifiers.values().stream().mapToInt(Notifier::size).sum();
+    }
+
+    /**
+     * @return the number of notifiers with registered items.
+     */
+    public int getNotifierCount() {
+        return notifiers.size();
+    }
+
+    /**
+     * @return the number of deliveries, each one event to the items of a notifier in one stripe, waiting to run.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BatchingExecutionQueue stripe : stripes) {
+            depth += stripe.getQueueDepth();
+        }
+        return depth;
+    }
+
+    private void rebuildRoutes() {
+        Map<NodeId, Set<Notifier>> sources = new HashMap<>();
+
+        for (Notifier notifier : notifiers.values()) {
+            // the Server object is delivered every event without a route.
+            if (notifier.nodeId.equals(Identifiers.Server)) continue;
+
+            for (NodeId source : resolveSources(notifier.nodeId)) {
+                sources.computeIfAbsent(source, k -> new HashSet<>()).add(notifier);
+            }
+        }
+
+        ImmutableMap.Builder<NodeId, Notifier[]> builder = ImmutableMap.builder();
+        sources.forEach((source, ns) -> builder.put(source, ns.toArray(new Notifier[0])));
+
+        routes = builder.build();
+
+        logger.debug("Rebuilt event routes: notifiers={}, sources={}", notifiers.size(), sources.size());
+    }
+
+    /**
+     * @return {@code notifierId} and every node reachable from it by following HasNotifier and HasEventSource
+     * references.
+     */
+    private Set<NodeId> resolveSources(NodeId notifierId) {
+        Set<NodeId> sources = new HashSet<>();
+        Deque<NodeId> pending = new ArrayDeque<>();
+
+        sources.add(notifierId);
+        pending.add(notifierId);
+
+        while (!pending.isEmpty()) {
+            ServerNode node = nodeMap.get(pending.poll());
+            if (node == null) continue;
+
+            for (Reference reference : node.getReferences()) {
+                if (Reference.HAS_NOTIFIER_PREDICATE.test(reference) ||
+                    Reference.HAS_EVENT_SOURCE_PREDICATE.test(reference)) {
+
+                    reference.getTargetNodeId().local().ifPresent(target -> {
+                        if (sources.add(target)) pending.add(target);
+                    });
+                }
+            }
+        }
+
+        return sources;
+    }
+
+    private int stripeOf(EventItem item) {
+        return Math.floorMod(System.identityHashCode(item), stripes.length);
+    }
+
+    /**
+     * The items monitoring a notifier, partitioned by stripe. Each partition is replaced rather than modified and
+     * published through an {@link AtomicReferenceArray}, so delivery reads it without locking.
+     */
+    private class Notifier {
+
+        private final AtomicReferenceArray<EventItem[]> items = new AtomicReferenceArray<>(stripes.length);
+
+        private final NodeId nodeId;
+
+        Notifier(NodeId nodeId) {
+            this.nodeId = nodeId;
+
+            for (int i = 0; i < items.length(); i++) {
+                items.set(i, NO_ITEMS);
+            }
+        }
+
+        void deliver(BaseEventType event) {
+            for (int i = 0; i < items.length(); i++) {
+                EventItem[] partition = items.get(i);
+
+                if (partition.length > 0) {
+                    stripes[i].submit(() -> {
+                        for (EventItem item : partition) {
+                            try {
+                                item.setEvent(event);
+                            } catch (Throwable t) {
+                                logger.warn("Error delivering event to item [id={}]", item.getId(), t);
+                            }
+                        }
+
+                        deliveredEventCount.addAndGet(partition.length);
+                    });
+                }
+            }
+        }
+
+        void add(EventItem item) {
+            int stripe = stripeOf(item);
+            EventItem[] partition = items.get(stripe);
+
+            for (EventItem existing : partition) {
+                if (existing == item) return;
+            }
+
+            EventItem[] updated = Arrays.copyOf(partition, partition.length + 1);
+            updated[partition.length] = item;
+
+            items.set(stripe, updated);
+        }
+
+        boolean remove(EventItem item) {
+            int stripe = stripeOf(item);
+            EventItem[] partition = items.get(stripe);
+
+            for (int i = 0; i < partition.length; i++) {
+                if (partition[i] == item) {
+                    EventItem[] updated = new EventItem[partition.length - 1];
+                    System.arraycopy(partition, 0, updated, 0, i);
+                    System.arraycopy(partition, i + 1, updated, i, partition.length - i - 1);
+
+                    items.set(stripe, updated);
+
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+
+        int size() {
+            int size = 0;
+            for (int i = 0; i < items.length(); i++) {
+                size += items.get(i).length;
+            }
+            return size;
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded, lock-free ring buffer for one producer and one consumer that discards either the oldest or the newest
+ * element when full.
+ * <p>
+ * The head index, size, and a modification stamp are packed into a single {@code long} that every operation updates
+ * with one compare-and-set, so the consumer never blocks the producer (and vice versa) and no operation allocates.
+ * Elements are only ever written to slots outside the live range of the buffer, so a consumer that reads a slot and
+ * then successfully moves the head is guaranteed to have read the element that was at the head.
+ * <p>
+ * {@link #poll()} and {@link #clear()} may be called from any thread. Calls to {@link #offer} must not be made
+ * concurrently with each other; callers that may produce from more than one thread must serialize producers.
+ * <p>
+ * Removed elements are not cleared from their slots until they are overwritten.
+ *
+ * @param <E> the element type.
+ */
+public class LockFreeRingBuffer<E> {
+
+    private static final int INDEX_BITS = 20;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static final int SIZE_SHIFT = INDEX_BITS;
+    private static final int STAMP_SHIFT = INDEX_BITS * 2;
+
+    /**
+     * The largest capacity supported.
+     */
+    public static final int MAX_CAPACITY = (int) INDEX_MASK;
+
+    private final AtomicLong state = new AtomicLong(0L);
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+
+    public LockFreeRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity=" + capacity);
+        }
+
+        this.capacity = capacity;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Add an element to the buffer.
+     * <p>
+     * If the buffer is full either the oldest or the newest element is discarded to make room, and if
+     * {@code onOverflow} is non-null the element actually added is {@code onOverflow.apply(e)}.
+     *
+     * @param e             the element to add.
+     * @param discardOldest {@code true} to discard the oldest element when full, {@code false} to discard the newest.
+     * @param onOverflow    a function applied to {@code e} if an element had to be discarded to make room for it.
+     * @return {@code true} if an element was discarded to make room for {@code e}.
+     */
+    public boolean offer(E e, boolean discardOldest, @Nullable UnaryOperator<E> onOverflow) {
+        E overflowValue = null;
+        boolean discarded = false;
+
+        while (true) {
+            long s = state.get();
+            int head = head(s);
+            int size = size(s);
+
+            if (size < capacity) {
+                E value = (discarded && overflowValue != null) ? overflowValue : e;
+
+                // the slot after the tail is outside the live range; nobody else can be reading it.
+                buffer.lazySet(index(head, size), value);
+
+                if (state.compareAndSet(s, next(s, head, size + 1))) {
+                    return discarded;
+                }
+            } else {
+                if (onOverflow != null && overflowValue == null) {
+                    overflowValue = onOverflow.apply(e);
+                }
+
+                int newHead = discardOldest ? index(head, 1) : head;
+
+                if (state.compareAndSet(s, next(s, newHead, size - 1))) {
+                    discarded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove and return the oldest element in the buffer.
+     *
+     * @return the oldest element in the buffer, or {@code null} if the buffer is empty.
+     */
+    @Nullable
+    public E poll() {
+        while (true) {
+            long s = state.get();
+            int size = size(s);
+
+            if (size == 0) return null;
+
+            int head = head(s);
+            E e = buffer.get(head);
+
+            if (state.compareAndSet(s, next(s, index(head, 1), size - 1))) {
+                return e;
+            }
+        }
+    }
+
+    /**
+     * Remove all elements from the buffer.
+     */
+    public void clear() {
+        while (true) {
+            long s = state.get();
+            int head = head(s);
+            int size = size(s);
+
+            if (size == 0 || state.compareAndSet(s, next(s, index(head, size), 0))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the buffer is empty (size == 0).
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the current size (number of elements).
+     */
+    public int size() {
+        return size(state.get());
+    }
+
+    /**
+     * @return the maximum allowed size (number of elements).
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private int index(int head, int offset) {
+        int i = head + offset;
+        return i >= capacity ? i - capacity : i;
+    }
+
+    private static int head(long state) {
+        return (int) (state & INDEX_MASK);
+    }
+
+    private static int size(long state) {
+        return (int) ((state >>> SIZE_SHIFT) & INDEX_MASK);
+    }
+
+    /**
+     * Pack a new state, incrementing the stamp so that a head/size pair that recurs (e.g. discarding and then
+     * replacing the newest element) can't be mistaken for the state it replaced.
+     */
+    private static long next(long state, int head, int size) {
+        long stamp = (state >>> STAMP_SHIFT) + 1;
+
+        return (stamp << STAMP_SHIFT) | ((long) size << SIZE_SHIFT) | head;
+    }
+
+}
@@ -0,0 +1,663 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import com.google.common.math.DoubleMath;
+import org.eclipse.milo.opcua.sdk.core.NumericRange;
+import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeManager;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeManager.ReadContext;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.nodes.AttributeObserver;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaNode;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples {@link DataItem}s by reading their {@link ReadValueId}s from an {@link AttributeManager}.
+ * <p>
+ * Items are grouped into buckets by sampling interval (rounded up to the nearest millisecond). Each bucket is driven
+ * by a fixed-rate task, so ticks don't drift by the time it takes to complete a read, and items are added to or
+ * removed from their bucket incrementally rather than rebuilding the whole schedule on every change.
+ * <p>
+ * The {@link ReadValueId}s for a bucket are built once and reused on every tick until the bucket membership changes.
+ * If the read for a tick has not completed by the time the next tick fires the tick is skipped and counted as an
+ * overrun instead of queueing up more reads.
+ * <p>
+ * Items in the same bucket that sample the same source, i.e. whose {@link ReadValueId}s have the same NodeId,
+ * AttributeId, IndexRange and DataEncoding, share a single read. Each bucket keeps a reference-counted registry of the
+ * items sampling each source, so when many sessions monitor the same nodes at the same interval each source is read
+ * once per tick and the value is fanned out to every item.
+ * <p>
+ * Items whose {@link ReadValueId} matches the push predicate (see {@link #setPushPredicate(Predicate)}) are not
+ * sampled periodically. They are read once when added and afterwards only receive values that are
+ * {@link #push(NodeId, AttributeId, DataValue) pushed} to them, e.g. by registering this engine as an
+ * {@link AttributeObserver} on a {@link UaNode}. Pushed values are coalesced so that an item receives at most one
+ * value per sampling interval (the latest one), and an item that receives no pushes costs nothing.
+ */
+public class SamplingEngine implements AttributeObserver {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<Long, SamplingBucket> buckets = new HashMap<>();
+    private final Map<DataItem, SamplingBucket> bucketsByItem = new HashMap<>();
+    private final Set<DataItem> itemSet = new LinkedHashSet<>();
+
+    private final Map<DataItem, PushedItem> pushedItems = new HashMap<>();
+    private final ConcurrentMap<NodeId, PushedItem[]> pushedItemsByNodeId = Maps.newConcurrentMap();
+
+    private volatile Predicate<ReadValueId> pushPredicate = id -> false;
+
+    private final AtomicLong overrunCount = new AtomicLong(0L);
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+
+    private final OpcUaServer server;
+    private final AttributeManager attributeManager;
+
+    public SamplingEngine(OpcUaServer server, AttributeManager attributeManager) {
+        this.server = server;
+        this.attributeManager = attributeManager;
+
+        executor = server.getExecutorService();
+        scheduler = server.getScheduledExecutorService();
+    }
+
+    /**
+     * Start sampling {@code items}.
+     * <p>
+     * Items that have sampling enabled are read once immediately and then at their sampling interval.
+     *
+     * @param items the {@link DataItem}s to start sampling.
+     */
+    public synchronized void addItems(Collection<? extends DataItem> items) {
+        List<DataItem> added = new ArrayList<>(items.size());
+
+        for (DataItem item : items) {
+            if (itemSet.add(item) && item.isSamplingEnabled()) {
+                schedule(item);
+                added.add(item);
+            }
+        }
+
+        sampleNow(added);
+    }
+
+    /**
+     * Stop sampling {@code items}.
+     *
+     * @param items the {@link DataItem}s to stop sampling.
+     */
+    public synchronized void removeItems(Collection<? extends DataItem> items) {
+        for (DataItem item : items) {
+            if (itemSet.remove(item)) {
+                unschedule(item);
+            }
+        }
+    }
+
+    /**
+     * Re-evaluate the sampling interval and sampling mode of {@code items}, moving them between buckets as necessary.
+     * <p>
+     * Items that aren't {@link DataItem}s or weren't previously added are ignored.
+     *
+     * @param items the {@link MonitoredItem}s that were modified.
+     */
+    public synchronized void updateItems(Collection<? extends MonitoredItem> items) {
+        List<DataItem> rescheduled = new ArrayList<>();
+
+        for (MonitoredItem monitoredItem : items) {
+            if (!(monitoredItem instanceof DataItem) || !itemSet.contains(monitoredItem)) continue;
+
+            DataItem item = (DataItem) monitoredItem;
+
+            SamplingBucket bucket = bucketsByItem.get(item);
+            PushedItem pushedItem = pushedItems.get(item);
+
+            if (item.isSamplingEnabled()) {
+                long interval = bucketInterval(item);
+
+                boolean current = pushPredicate.test(item.getReadValueId()) ?
+                    pushedItem != null && pushedItem.interval == interval :
+                    bucket != null && bucket.interval == interval;
+
+                if (!current) {
+                    unschedule(item);
+                    schedule(item);
+                    rescheduled.add(item);
+                }
+            } else if (bucket != null || pushedItem != null) {
+                unschedule(item);
+            }
+        }
+
+        sampleNow(rescheduled);
+    }
+
+    /**
+     * Set the predicate that decides which items are fed by {@link #push(NodeId, AttributeId, DataValue)} instead of
+     * being sampled periodically.
+     * <p>
+     * The predicate is evaluated when items are added or updated; call {@link #refresh()} to re-evaluate items that
+     * have already been added.
+     *
+     * @param pushPredicate a {@link Predicate} that tests the {@link ReadValueId} of each item.
+     */
+    public void setPushPredicate(Predicate<ReadValueId> pushPredicate) {
+        this.pushPredicate = pushPredicate;
+    }
+
+    /**
+     * Re-evaluate all items against the current push predicate, moving them between sampling and push mode as
+     * necessary.
+     */
+    public synchronized void refresh() {
+        updateItems(new ArrayList<>(itemSet));
+    }
+
+    /**
+     * Push a new value for an attribute of a node to any push-mode items monitoring it.
+     * <p>
+     * Values pushed for a node that has no push-mode items are dropped without any further work.
+     *
+     * @param nodeId      the {@link NodeId} of the node whose attribute changed.
+     * @param attributeId the {@link AttributeId} that changed.
+     * @param value       the new value of the attribute.
+     */
+    public void push(NodeId nodeId, AttributeId attributeId, DataValue value) {
+        PushedItem[] items = pushedItemsByNodeId.get(nodeId);
+
+        if (items != null) {
+            int id = attributeId.id();
+
+            for (PushedItem item : items) {
+                if (item.attributeId == id) {
+                    item.offer(value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void attributeChanged(UaNode node, AttributeId attributeId, Object value) {
+        DataValue dataValue = (value instanceof DataValue) ?
+            (DataValue) value : new DataValue(new Variant(value));
+
+        push(node.getNodeId(), attributeId, dataValue);
+    }
+
+    /**
+     * Stop sampling all items and cancel all scheduled sampling tasks.
+     */
+    public synchronized void shutdown() {
+        buckets.values().forEach(SamplingBucket::cancel);
+        buckets.clear();
+        pushedItems.values().forEach(PushedItem::cancel);
+        pushedItems.clear();
+        pushedItemsByNodeId.clear();
+        bucketsByItem.clear();
+        itemSet.clear();
+    }
+
+    /**
+     * @return the number of ticks that were skipped because the previous read had not yet completed.
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * @return the number of distinct sampling intervals currently scheduled.
+     */
+    public synchronized int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return the number of items currently being sampled periodically.
+     */
+    public synchronized int getSampledItemCount() {
+        return bucketsByItem.size();
+    }
+
+    /**
+     * @return the number of distinct sources read per tick across all buckets, i.e. the number of reads the sampled
+     * items cost after items sampling the same source at the same interval have been de-duplicated.
+     */
+    public synchronized int getSampledSourceCount() {
+        int count = 0;
+        for (SamplingBucket bucket : buckets.values()) {
+            count += bucket.itemsByKey.size();
+        }
+        return count;
+    }
+
+    private void schedule(DataItem item) {
+        long interval = bucketInterval(item);
+
+        if (pushPredicate.test(item.getReadValueId())) {
+            PushedItem pushedItem = new PushedItem(item, interval);
+            pushedItems.put(item, pushedItem);
+
+            pushedItemsByNodeId.compute(item.getReadValueId().getNodeId(), (nodeId, items) -> {
+                if (items == null) {
+                    return new PushedItem[]{pushedItem};
+                } else {
+                    PushedItem[] newItems = Arrays.copyOf(items, items.length + 1);
+                    newItems[items.length] = pushedItem;
+                    return newItems;
+                }
+            });
+        } else {
+            SamplingBucket bucket = buckets.computeIfAbsent(interval, SamplingBucket::new);
+            bucket.add(item);
+            bucketsByItem.put(item, bucket);
+        }
+    }
+
+    private void unschedule(DataItem item) {
+        SamplingBucket bucket = bucketsByItem.remove(item);
+
+        if (bucket != null) {
+            bucket.remove(item);
+
+            if (bucket.isEmpty()) {
+                bucket.cancel();
+                buckets.remove(bucket.interval);
+            }
+        }
+
+        PushedItem pushedItem = pushedItems.remove(item);
+
+        if (pushedItem != null) {
+            pushedItem.cancel();
+
+            pushedItemsByNodeId.computeIfPresent(item.getReadValueId().getNodeId(), (nodeId, items) -> {
+                PushedItem[] newItems = Arrays.stream(items)
+                    .filter(i -> i != pushedItem)
+                    .toArray(PushedItem[]::new);
+
+                return newItems.length > 0 ? newItems : null;
+            });
+        }
+    }
+
+    /**
+     * Read {@code items} once, outside of their bucket's schedule, so that newly added or rescheduled items get an
+     * initial value without waiting for the next tick.
+     */
+    private void sampleNow(List<DataItem> items) {
+        if (!items.isEmpty()) {
+            Map<SamplingKey, List<DataItem>> itemsByKey = new LinkedHashMap<>();
+
+            for (DataItem item : items) {
+                itemsByKey.computeIfAbsent(new SamplingKey(item), k -> new ArrayList<>(1)).add(item);
+            }
+
+            SamplingBatch batch = new SamplingBatch(itemsByKey);
+
+            read(batch, null);
+        }
+    }
+
+    private void read(SamplingBatch batch, @Nullable Runnable onComplete) {
+        CompletableFuture<List<DataValue>> future = new CompletableFuture<>();
+
+        ReadContext context = new ReadContext(
+            server, null, future, new DiagnosticsContext<>());
+
+        future.whenComplete((values, ex) -> {
+            Runnable completion = () -> {
+                try {
+                    if (values != null) {
+                        batch.setValues(values);
+                    } else {
+                        logger.warn("Sampling read failed.", ex);
+                    }
+                } finally {
+                    if (onComplete != null) onComplete.run();
+                }
+            };
+
+            // onComplete must run even when the executor is saturated, or the bucket never reads again.
+            try {
+                executor.execute(completion);
+            } catch (RejectedExecutionException e) {
+                completion.run();
+            }
+        });
+
+        try {
+            executor.execute(() -> {
+                try {
+                    attributeManager.read(context, 0d, TimestampsToReturn.Both, batch.readValueIds);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static long bucketInterval(DataItem item) {
+        return DoubleMath.roundToLong(item.getSamplingInterval(), RoundingMode.UP);
+    }
+
+    private static void deliver(DataItem item, DataValue value) {
+        TimestampsToReturn timestamps = item.getTimestampsToReturn();
+
+        if (timestamps != null) {
+            UInteger attributeId = item.getReadValueId().getAttributeId();
+
+            value = (AttributeId.Value.isEqual(attributeId)) ?
+                DataValue.derivedValue(value, timestamps) :
+                DataValue.derivedNonValue(value, timestamps);
+        }
+
+        item.setValue(value);
+    }
+
+    /**
+     * Identifies the source an item samples. Items with equal keys can share a read.
+     */
+    private static final class SamplingKey {
+
+        private final NodeId nodeId;
+        private final UInteger attributeId;
+        private final String indexRange;
+        private final QualifiedName dataEncoding;
+
+        private SamplingKey(DataItem item) {
+            ReadValueId readValueId = item.getReadValueId();
+
+            nodeId = readValueId.getNodeId();
+            attributeId = readValueId.getAttributeId();
+            indexRange = readValueId.getIndexRange();
+            dataEncoding = readValueId.getDataEncoding();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SamplingKey that = (SamplingKey) o;
+
+            return Objects.equals(nodeId, that.nodeId) &&
+                Objects.equals(attributeId, that.attributeId) &&
+                Objects.equals(indexRange, that.indexRange) &&
+                Objects.equals(dataEncoding, that.dataEncoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nodeId, attributeId, indexRange, dataEncoding);
+        }
+
+    }
+
+    /**
+     * An immutable set of items, grouped by the source they sample, and the {@link ReadValueId}s used to sample each
+     * source once.
+     */
+    private static final class SamplingBatch {
+
+        private final DataItem[][] items;
+        private final List<ReadValueId> readValueIds;
+
+        private SamplingBatch(Map<SamplingKey, ? extends Collection<DataItem>> itemsByKey) {
+            this.items = new DataItem[itemsByKey.size()][];
+
+            List<ReadValueId> readValueIds = new ArrayList<>(this.items.length);
+
+            int i = 0;
+            for (Collection<DataItem> sharing : itemsByKey.values()) {
+                DataItem[] group = sharing.toArray(new DataItem[sharing.size()]);
+
+                items[i++] = group;
+                readValueIds.add(group[0].getReadValueId());
+            }
+
+            this.readValueIds = Collections.unmodifiableList(readValueIds);
+        }
+
+        private void setValues(List<DataValue> values) {
+            int count = Math.min(items.length, values.size());
+
+            for (int i = 0; i < count; i++) {
+                DataValue value = values.get(i);
+
+                for (DataItem item : items[i]) {
+                    deliver(item, value);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * All items sampled at the same interval, driven by a single fixed-rate task.
+     * <p>
+     * Membership changes are guarded by the {@link SamplingEngine} monitor; the batch used by each tick is rebuilt
+     * lazily the first time a tick runs after membership has changed.
+     * <p>
+     * Items are registered by the source they sample; a source is dropped from the registry when the last item
+     * sampling it is removed.
+     */
+    private final class SamplingBucket implements Runnable {
+
+        private final Map<SamplingKey, Set<DataItem>> itemsByKey = new LinkedHashMap<>();
+        private final AtomicBoolean reading = new AtomicBoolean(false);
+
+        private volatile SamplingBatch batch;
+
+        private final long interval;
+        private final ScheduledFuture<?> future;
+
+        private SamplingBucket(long interval) {
+            this.interval = interval;
+
+            // a zero interval is the "fastest practical rate"; sampling any faster than 1ms isn't practical.
+            long period = Math.max(interval, 1L);
+
+            future = scheduler.scheduleAtFixedRate(this, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void add(DataItem item) {
+            itemsByKey.computeIfAbsent(new SamplingKey(item), k -> new LinkedHashSet<>()).add(item);
+            batch = null;
+        }
+
+        private void remove(DataItem item) {
+            SamplingKey key = new SamplingKey(item);
+            Set<DataItem> sharing = itemsByKey.get(key);
+
+            if (sharing != null && sharing.remove(item)) {
+                if (sharing.isEmpty()) itemsByKey.remove(key);
+                batch = null;
+            }
+        }
+
+        private boolean isEmpty() {
+            return itemsByKey.isEmpty();
+        }
+
+        private void cancel() {
+            future.cancel(false);
+        }
+
+        @Override
+        public void run() {
+            if (!reading.compareAndSet(false, true)) {
+                overrunCount.incrementAndGet();
+                return;
+            }
+
+            try {
+                SamplingBatch b = batch;
+
+                if (b == null) {
+                    synchronized (SamplingEngine.this) {
+                        b = batch = new SamplingBatch(itemsByKey);
+                    }
+                }
+
+                if (b.items.length > 0) {
+                    read(b, () -> reading.set(false));
+                } else {
+                    reading.set(false);
+                }
+            } catch (Throwable t) {
+                // an exception escaping a fixed-rate task would suppress all future ticks.
+                logger.error("Error sampling items at interval={}ms.", interval, t);
+                reading.set(false);
+            }
+        }
+
+    }
+
+    /**
+     * A push-mode item. Values offered to it are held as pending until they are delivered, at most once per sampling
+     * interval; a value offered while another is pending replaces it.
+     */
+    private final class PushedItem implements Runnable {
+
+        private final AtomicReference<DataValue> pending = new AtomicReference<>();
+
+        private volatile long lastDeliveryNanos = System.nanoTime();
+        private volatile boolean cancelled = false;
+
+        private final DataItem item;
+        private final long interval;
+        private final long intervalNanos;
+        private final int attributeId;
+        private final NumericRange indexRange;
+        private final StatusCode indexRangeError;
+
+        private PushedItem(DataItem item, long interval) {
+            this.item = item;
+            this.interval = interval;
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+            this.attributeId = item.getReadValueId().getAttributeId().intValue();
+
+            String range = item.getReadValueId().getIndexRange();
+
+            NumericRange indexRange = null;
+            StatusCode indexRangeError = null;
+
+            if (range != null && !range.isEmpty()) {
+                try {
+                    indexRange = NumericRange.parse(range);
+                } catch (UaException e) {
+                    indexRangeError = e.getStatusCode();
+                }
+            }
+
+            this.indexRange = indexRange;
+            this.indexRangeError = indexRangeError;
+        }
+
+        private void offer(DataValue value) {
+            if (cancelled) return;
+
+            if (pending.getAndSet(value) == null) {
+                long delay = intervalNanos - (System.nanoTime() - lastDeliveryNanos);
+
+                if (delay > 0) {
+                    scheduler.schedule(this, delay, TimeUnit.NANOSECONDS);
+                } else {
+                    run();
+                }
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            lastDeliveryNanos = System.nanoTime();
+
+            DataValue value = pending.getAndSet(null);
+
+            if (value == null || cancelled) return;
+
+            if (indexRangeError != null) {
+                value = new DataValue(indexRangeError);
+            } else if (indexRange != null) {
+                try {
+                    Object valueAtRange = NumericRange.readFromValueAtRange(value.getValue(), indexRange);
+
+                    value = new DataValue(
+                        new Variant(valueAtRange),
+                        value.getStatusCode(),
+                        value.getSourceTime(),
+                        value.getServerTime()
+                    );
+                } catch (UaException e) {
+                    value = new DataValue(e.getStatusCode());
+                }
+            }
+
+            try {
+                deliver(item, value);
+            } catch (Throwable t) {
+                logger.error("Error delivering pushed value to item={}.", item.getId(), t);
+            }
+        }
+
+    }
+
+}
@@ -13,159 +13,113 @@
 
 package org.eclipse.milo.opcua.sdk.server.util;
 
-import java.math.RoundingMode;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.math.DoubleMath;
-import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Sets;
 import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
 import org.eclipse.milo.opcua.sdk.server.api.AttributeManager;
-import org.eclipse.milo.opcua.sdk.server.api.AttributeManager.ReadContext;
 import org.eclipse.milo.opcua.sdk.server.api.DataItem;
 import org.eclipse.milo.opcua.sdk.server.api.MonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaNode;
 import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
-import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
-import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.eclipse.milo.opcua.stack.core.util.ExecutionQueue;
 
 public class SubscriptionModel {
 
-    private final Set<DataItem> itemSet = Collections.newSetFromMap(Maps.newConcurrentMap());
+    private final Set<NodeId> pushedNodeIds = Sets.newConcurrentHashSet();
 
-    private final List<ScheduledUpdate> schedule = Lists.newCopyOnWriteArrayList();
+    private volatile Predicate<ReadValueId> pushPredicate = id -> false;
 
-    private final ExecutorService executor;
-    private final ScheduledExecutorService scheduler;
+    private final SamplingEngine samplingEngine;
     private final ExecutionQueue executionQueue;
 
-    private final OpcUaServer server;
-    private final AttributeManager attributeServices;
-
     public SubscriptionModel(OpcUaServer server, AttributeManager attributeServices) {
-        this.server = server;
-
-        this.attributeServices = attributeServices;
+        samplingEngine = new SamplingEngine(server, attributeServices);
+        samplingEngine.setPushPredicate(id -> pushedNodeIds.contains(id.getNodeId()) || pushPredicate.test(id));
 
-        executor = server.getExecutorService();
-        scheduler = server.getScheduledExecutorService();
-
-        executionQueue = new ExecutionQueue(executor);
+        executionQueue = new ExecutionQueue(server.getExecutorService());
     }
 
     public void onDataItemsCreated(List<DataItem> items) {
-        executionQueue.submit(() -> {
-            itemSet.addAll(items);
-            reschedule();
-        });
+        executionQueue.submit(() -> samplingEngine.addItems(items));
     }
 
     public void onDataItemsModified(List<DataItem> items) {
-        executionQueue.submit(this::reschedule);
+        executionQueue.submit(() -> samplingEngine.updateItems(items));
     }
 
     public void onDataItemsDeleted(List<DataItem> items) {
-        executionQueue.submit(() -> {
-            itemSet.removeAll(items);
-            reschedule();
-        });
+        executionQueue.submit(() -> samplingEngine.removeItems(items));
     }
 
     public void onMonitoringModeChanged(List<MonitoredItem> items) {
-        executionQueue.submit(this::reschedule);
+        executionQueue.submit(() -> samplingEngine.updateItems(items));
     }
 
-    private void reschedule() {
-        Map<Double, List<DataItem>> bySamplingInterval = itemSet.stream()
-            .filter(DataItem::isSamplingEnabled)
-            .collect(Collectors.groupingBy(DataItem::getSamplingInterval));
-
-        List<ScheduledUpdate> updates = bySamplingInterval.keySet().stream()
-            .map(samplingInterval -> {
-                List<DataItem> items = bySamplingInterval.get(samplingInterval);
-
-                return new ScheduledUpdate(samplingInterval, items);
-            })
-            .collect(Collectors.toList());
-
-        schedule.forEach(ScheduledUpdate::cancel);
-        schedule.clear();
-        schedule.addAll(updates);
-        schedule.forEach(scheduler::execute);
+    /**
+     * Feed items monitoring {@code node} from its attribute changes instead of sampling it periodically.
+     * <p>
+     * Changes are delivered at most once per sampling interval (the latest value wins), so items monitoring a node
+     * that rarely changes cost nothing between changes.
+     *
+     * @param node the {@link UaNode} to observe.
+     */
+    public void addPushedNode(UaNode node) {
+        pushedNodeIds.add(node.getNodeId());
+        node.addAttributeObserver(samplingEngine);
+
+        executionQueue.submit(samplingEngine::refresh);
     }
 
-    private class ScheduledUpdate implements Runnable {
-
-        private volatile boolean cancelled = false;
-
-        private final long samplingInterval;
-        private final List<DataItem> items;
-
-        private ScheduledUpdate(double samplingInterval, List<DataItem> items) {
-            this.samplingInterval = DoubleMath.roundToLong(samplingInterval, RoundingMode.UP);
-            this.items = items;
-        }
-
-        private void cancel() {
-            cancelled = true;
-        }
+    /**
+     * Stop observing {@code node} and go back to sampling items that monitor it.
+     *
+     * @param node the {@link UaNode} to stop observing.
+     */
+    public void removePushedNode(UaNode node) {
+        pushedNodeIds.remove(node.getNodeId());
+        node.removeAttributeObserver(samplingEngine);
 
-        @Override
-        public void run() {
-            List<PendingRead> pending = items.stream()
-                .map(item -> new PendingRead(item.getReadValueId()))
-                .collect(Collectors.toList());
-
-            List<ReadValueId> ids = pending.stream()
-                .map(PendingRead::getInput)
-                .collect(Collectors.toList());
-
-            CompletableFuture<List<DataValue>> future = new CompletableFuture<>();
-
-            ReadContext context = new ReadContext(
-                server, null, future, new DiagnosticsContext<>());
-
-            future.thenAcceptAsync(values -> {
-                Iterator<DataItem> ii = items.iterator();
-                Iterator<DataValue> vi = values.iterator();
-
-                while (ii.hasNext() && vi.hasNext()) {
-                    DataItem item = ii.next();
-                    DataValue value = vi.next();
-
-                    TimestampsToReturn timestamps = item.getTimestampsToReturn();
-
-                    if (timestamps != null) {
-                        UInteger attributeId = item.getReadValueId().getAttributeId();
+        executionQueue.submit(samplingEngine::refresh);
+    }
 
-                        value = (AttributeId.Value.isEqual(attributeId)) ?
-                            DataValue.derivedValue(value, timestamps) :
-                            DataValue.derivedNonValue(value, timestamps);
-                    }
+    /**
+     * Set a predicate that selects additional items to be fed by {@link #publish(NodeId, AttributeId, DataValue)}
+     * instead of being sampled, for namespaces whose values are not backed by {@link UaNode}s.
+     *
+     * @param pushPredicate a {@link Predicate} that tests the {@link ReadValueId} of each item.
+     */
+    public void setPushPredicate(Predicate<ReadValueId> pushPredicate) {
+        this.pushPredicate = pushPredicate;
 
-                    item.setValue(value);
-                }
+        executionQueue.submit(samplingEngine::refresh);
+    }
 
-                if (!cancelled) {
-                    scheduler.schedule(this, samplingInterval, TimeUnit.MILLISECONDS);
-                }
-            }, executor);
+    /**
+     * Publish a new value for an attribute of a node to any push-mode items monitoring it.
+     *
+     * @param nodeId      the {@link NodeId} of the node whose attribute changed.
+     * @param attributeId the {@link AttributeId} that changed.
+     * @param value       the new value of the attribute.
+     */
+    public void publish(NodeId nodeId, AttributeId attributeId, DataValue value) {
+        samplingEngine.push(nodeId, attributeId, value);
+    }
 
-            executor.execute(() -> attributeServices.read(context, 0d, TimestampsToReturn.Both, ids));
-        }
+    /**
+     * Stop sampling all items.
+     */
+    public void shutdown() {
+        executionQueue.submit(samplingEngine::shutdown);
+    }
 
+    public SamplingEngine getSamplingEngine() {
+        return samplingEngine;
     }
 
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import org.eclipse.milo.opcua.sdk.server.api.HistoryReadCursor;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryData;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class HistoryContinuationPointManagerTest {
+
+    private static final NodeId NODE_ID = new NodeId(2, "Temperature");
+
+    @Test
+    public void testReadUntilExhausted() {
+        HistoryContinuationPointManager manager = new HistoryContinuationPointManager(1);
+        TestCursor cursor = new TestCursor(5, 2);
+
+        HistoryReadResult first = manager.read(NODE_ID, cursor, Long.MAX_VALUE);
+        assertEquals(values(first), 2);
+        assertNotNull(first.getContinuationPoint());
+        assertEquals(manager.size(), 1);
+
+        HistoryReadResult second = manager.next(NODE_ID, first.getContinuationPoint(), Long.MAX_VALUE);
+        assertEquals(values(second), 2);
+        assertFalse(manager.contains(first.getContinuationPoint()));
+        assertTrue(manager.contains(second.getContinuationPoint()));
+
+        HistoryReadResult third = manager.next(NODE_ID, second.getContinuationPoint(), Long.MAX_VALUE);
+        assertEquals(values(third), 1);
+        assertNull(third.getContinuationPoint());
+        assertEquals(manager.size(), 0);
+        assertTrue(cursor.closed);
+    }
+
+    @Test
+    public void testNoContinuationPoints() {
+        HistoryContinuationPointManager manager = new HistoryContinuationPointManager(1);
+
+        assertNotNull(manager.read(NODE_ID, new TestCursor(5, 2), Long.MAX_VALUE).getContinuationPoint());
+
+        TestCursor cursor = new TestCursor(5, 2);
+        HistoryReadResult result = manager.read(NODE_ID, cursor, Long.MAX_VALUE);
+        assertEquals(result.getStatusCode().getValue(), StatusCodes.Bad_NoContinuationPoints);
+        assertNull(result.getContinuationPoint());
+        assertNull(result.getHistoryData());
+        assertTrue(cursor.closed);
+
+        // a read that fits in one page needs no continuation point
+        HistoryReadResult complete = manager.read(NODE_ID, new TestCursor(2, 2), Long.MAX_VALUE);
+        assertEquals(values(complete), 2);
+    }
+
+    @Test
+    public void testContinuationPointForOtherNode() {
+        HistoryContinuationPointManager manager = new HistoryContinuationPointManager(1);
+        TestCursor cursor = new TestCursor(5, 2);
+
+        ByteString continuationPoint = manager.read(NODE_ID, cursor, Long.MAX_VALUE).getContinuationPoint();
+
+        HistoryReadResult result = manager.next(new NodeId(2, "Pressure"), continuationPoint, Long.MAX_VALUE);
+        assertEquals(result.getStatusCode().getValue(), StatusCodes.Bad_ContinuationPointInvalid);
+        assertTrue(cursor.closed);
+        assertEquals(manager.size(), 0);
+    }
+
+    @Test
+    public void testReleaseAndClear() {
+        HistoryContinuationPointManager manager = new HistoryContinuationPointManager(2);
+        TestCursor released = new TestCursor(5, 2);
+        TestCursor cleared = new TestCursor(5, 2);
+
+        ByteString continuationPoint = manager.read(NODE_ID, released, Long.MAX_VALUE).getContinuationPoint();
+        manager.read(NODE_ID, cleared, Long.MAX_VALUE);
+
+        assertTrue(manager.release(continuationPoint));
+        assertFalse(manager.release(continuationPoint));
+        assertTrue(released.closed);
+        assertFalse(cleared.closed);
+
+        manager.clear();
+        assertTrue(cleared.closed);
+        assertEquals(manager.size(), 0);
+
+        assertEquals(
+            manager.next(NODE_ID, continuationPoint, Long.MAX_VALUE).getStatusCode().getValue(),
+            StatusCodes.Bad_ContinuationPointInvalid
+        );
+    }
+
+    private static int values(HistoryReadResult result) {
+        return ((HistoryData) result.getHistoryData().decode()).getDataValues().length;
+    }
+
+    private static class TestCursor implements HistoryReadCursor {
+
+        private int remaining;
+        private boolean closed = false;
+
+        private final int pageSize;
+
+        TestCursor(int count, int pageSize) {
+            this.remaining = count;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public UaStructure next(long maxBytes) {
+            DataValue[] page = new DataValue[Math.min(pageSize, remaining)];
+
+            for (int i = 0; i < page.length; i++) {
+                page[i] = new DataValue(new Variant(remaining--));
+            }
+
+            return new HistoryData(page);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+}
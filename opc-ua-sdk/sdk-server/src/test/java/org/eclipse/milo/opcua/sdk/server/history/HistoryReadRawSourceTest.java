@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.history.aggregates.AggregateCursor;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.UaRuntimeException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class HistoryReadRawSourceTest {
+
+    private static final NodeId NODE_ID = new NodeId(2, "Temperature");
+
+    private static final long BASE_TIME = DateTime.now().getUtcTime();
+
+    private Path directory;
+    private TimeSeriesStore store;
+    private HistoryReadRawSource source;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("HistoryReadRawSourceTest");
+        store = TimeSeriesStore.open(directory, 4, 2);
+
+        // reads return at most 10 values, so reading everything takes several continuation points
+        TimeSeriesHistoryManager historyManager = new TimeSeriesHistoryManager(store, 10);
+
+        for (int i = 0; i < 30; i++) {
+            historyManager.record(NODE_ID, new DataValue(
+                new Variant((double) i), StatusCode.GOOD, new DateTime(time(i * 10)), null));
+        }
+
+        source = new HistoryReadRawSource(historyManager, mock(OpcUaServer.class), null);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        store.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testReadRawAcrossPages() {
+        Iterator<DataValue> iterator = source.readRaw(NODE_ID, new DateTime(time(25)), new DateTime(time(255)));
+
+        List<Object> values = new ArrayList<>();
+        iterator.forEachRemaining(v -> values.add(v.getValue().getValue()));
+
+        // with the bounds on either side
+        assertEquals(values.size(), 25);
+        assertEquals(values.get(0), 2.0);
+        assertEquals(values.get(24), 26.0);
+    }
+
+    @Test
+    public void testProcessedMatchesStore() throws UaException {
+        NodeId[] aggregates = {
+            Identifiers.AggregateFunction_Average,
+            Identifiers.AggregateFunction_TimeAverage,
+            Identifiers.AggregateFunction_Interpolative,
+            Identifiers.AggregateFunction_Count
+        };
+
+        ReadProcessedDetails details = new ReadProcessedDetails(
+            new DateTime(time(5)),
+            new DateTime(time(285)),
+            70.0,
+            aggregates,
+            null
+        );
+
+        for (NodeId aggregate : aggregates) {
+            assertEquals(
+                processed(source, details, aggregate),
+                processed(store, details, aggregate),
+                aggregate.toString()
+            );
+        }
+    }
+
+    @Test
+    public void testReadFailure() {
+        Iterator<DataValue> iterator = source.readRaw(
+            new NodeId(2, "Unknown"), new DateTime(time(0)), new DateTime(time(100)));
+
+        try {
+            iterator.hasNext();
+            fail("expected UaRuntimeException");
+        } catch (UaRuntimeException e) {
+            assertEquals(e.getStatusCode().getValue(), StatusCodes.Bad_HistoryOperationUnsupported);
+        }
+    }
+
+    private static List<DataValue> processed(
+        RawHistorySource source,
+        ReadProcessedDetails details,
+        NodeId aggregate) throws UaException {
+
+        AggregateCursor cursor = AggregateCursor.open(source, NODE_ID, details, aggregate);
+
+        List<DataValue> values = new ArrayList<>();
+        cursor.next(Integer.MAX_VALUE, values);
+        return values;
+    }
+
+    private static long time(int millis) {
+        return BASE_TIME + millis * 10000L;
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.eclipse.milo.opcua.sdk.server.DiagnosticsContext;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager.HistoryReadContext;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeHistoryManager.HistoryUpdateContext;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.PerformUpdateType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryData;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryUpdateResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadRawModifiedDetails;
+import org.eclipse.milo.opcua.stack.core.types.structured.UpdateDataDetails;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class TimeSeriesHistoryManagerTest {
+
+    private static final NodeId NODE_ID = new NodeId(2, "Temperature");
+
+    private static final long BASE_TIME = DateTime.now().getUtcTime();
+
+    private Path directory;
+    private TimeSeriesStore store;
+    private TimeSeriesHistoryManager historyManager;
+    private HistoryContinuationPointManager continuationPoints;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("TimeSeriesHistoryManagerTest");
+        store = TimeSeriesStore.open(directory, 4, 2);
+        historyManager = new TimeSeriesHistoryManager(store, 10);
+        continuationPoints = new HistoryContinuationPointManager(2);
+
+        // values 0..29 at times 0, 10, 20, ... 290
+        for (int i = 0; i < 30; i++) {
+            historyManager.record(NODE_ID, value(i * 10, (double) i));
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        store.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testReadRawForward() {
+        HistoryReadResult result = read(raw(time(25), time(75), 0, false), null);
+
+        assertEquals(result.getStatusCode(), StatusCode.GOOD);
+        assertNull(result.getContinuationPoint());
+        assertValues(result, 3.0, 4.0, 5.0, 6.0, 7.0);
+    }
+
+    @Test
+    public void testReadRawReverse() {
+        HistoryReadResult result = read(raw(time(70), time(30), 0, false), null);
+
+        assertValues(result, 7.0, 6.0, 5.0, 4.0);
+    }
+
+    @Test
+    public void testReadRawBounds() {
+        assertValues(read(raw(time(25), time(75), 0, true), null), 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0);
+        assertValues(read(raw(time(30), time(70), 0, true), null), 3.0, 4.0, 5.0, 6.0, 7.0);
+        assertValues(read(raw(time(75), time(25), 0, true), null), 8.0, 7.0, 6.0, 5.0, 4.0, 3.0, 2.0);
+    }
+
+    @Test
+    public void testReadRawOpenEnded() {
+        assertValues(read(raw(time(255), 0L, 3, false), null), 26.0, 27.0, 28.0);
+        assertValues(read(raw(0L, time(30), 2, false), null), 2.0, 1.0);
+
+        assertEquals(
+            read(raw(time(255), 0L, 0, false), null).getStatusCode().getValue(),
+            StatusCodes.Bad_InvalidTimestampArgument
+        );
+    }
+
+    @Test
+    public void testReadRawContinuationPoints() {
+        ReadRawModifiedDetails details = raw(time(0), time(1000), 0, false);
+
+        HistoryReadResult first = read(details, null);
+        assertNotNull(first.getContinuationPoint());
+        assertEquals(values(first).length, 10);
+        assertEquals(values(first)[0].getValue().getValue(), 0.0);
+
+        HistoryReadResult second = read(details, first.getContinuationPoint());
+        assertNotNull(second.getContinuationPoint());
+        assertEquals(values(second)[0].getValue().getValue(), 10.0);
+
+        HistoryReadResult third = read(details, second.getContinuationPoint());
+        assertNull(third.getContinuationPoint());
+        assertEquals(values(third).length, 10);
+        assertEquals(values(third)[9].getValue().getValue(), 29.0);
+
+        assertEquals(
+            read(details, first.getContinuationPoint()).getStatusCode().getValue(),
+            StatusCodes.Bad_ContinuationPointInvalid
+        );
+    }
+
+    @Test
+    public void testNumValuesPerNodeLimitsEachResponse() {
+        ReadRawModifiedDetails details = raw(time(0), time(1000), 4, false);
+
+        HistoryReadResult first = read(details, null);
+        assertValues(first, 0.0, 1.0, 2.0, 3.0);
+        assertNotNull(first.getContinuationPoint());
+    }
+
+    @Test
+    public void testContinuationPointLimit() {
+        ReadRawModifiedDetails details = raw(time(0), time(1000), 0, false);
+
+        assertNotNull(read(details, null).getContinuationPoint());
+        assertNotNull(read(details, null).getContinuationPoint());
+
+        HistoryReadResult result = read(details, null);
+        assertEquals(result.getStatusCode().getValue(), StatusCodes.Bad_NoContinuationPoints);
+        assertNull(result.getContinuationPoint());
+    }
+
+    @Test
+    public void testMaxBytesPerNodeLimitsEachResponse() {
+        ReadRawModifiedDetails details = raw(time(0), time(1000), 0, false);
+
+        // each value encodes to 26 bytes: mask, Double variant, source and server timestamps
+        HistoryReadResult first = read(NODE_ID, details, null, TimestampsToReturn.Both, 100L);
+        assertValues(first, 0.0, 1.0, 2.0);
+        assertNotNull(first.getContinuationPoint());
+
+        HistoryReadResult second = read(NODE_ID, details, first.getContinuationPoint(), TimestampsToReturn.Both, 100L);
+        assertValues(second, 3.0, 4.0, 5.0);
+
+        // a page always makes progress, however small the budget
+        HistoryReadResult third = read(NODE_ID, details, second.getContinuationPoint(), TimestampsToReturn.Both, 1L);
+        assertValues(third, 6.0);
+        assertEquals(continuationPoints.size(), 1);
+
+        continuationPoints.clear();
+        assertEquals(
+            read(details, third.getContinuationPoint()).getStatusCode().getValue(),
+            StatusCodes.Bad_ContinuationPointInvalid
+        );
+    }
+
+    @Test
+    public void testReadProcessed() {
+        // intervals [0, 100), [100, 200), [200, 290)
+        assertValues(read(processed(Identifiers.AggregateFunction_Count), null), 10, 10, 9);
+        assertValues(read(processed(Identifiers.AggregateFunction_Minimum), null), 0.0, 10.0, 20.0);
+        assertValues(read(processed(Identifiers.AggregateFunction_Maximum), null), 9.0, 19.0, 28.0);
+        assertValues(read(processed(Identifiers.AggregateFunction_Average), null), 4.5, 14.5, 24.0);
+        assertValues(read(processed(Identifiers.AggregateFunction_TimeAverage), null), 5.0, 15.0, 24.5);
+        assertValues(read(processed(Identifiers.AggregateFunction_Range), null), 9.0, 9.0, 8.0);
+        assertValues(read(processed(Identifiers.AggregateFunction_Start), null), 0.0, 10.0, 20.0);
+        assertValues(read(processed(Identifiers.AggregateFunction_End), null), 9.0, 19.0, 28.0);
+
+        DataValue[] values = values(read(processed(Identifiers.AggregateFunction_Count), null));
+        assertEquals(values[1].getSourceTime().getUtcTime(), time(100));
+
+        assertValues(read(processed(Identifiers.AggregateFunction_Interpolative), null), 0.0, 10.0, 20.0);
+
+        assertEquals(
+            read(processed(Identifiers.AggregateFunction_NumberOfTransitions), null).getStatusCode().getValue(),
+            StatusCodes.Bad_AggregateNotSupported
+        );
+    }
+
+    @Test
+    public void testReadProcessedNoData() {
+        historyManager.record(NODE_ID, new DataValue(
+            new Variant(99.0), new StatusCode(StatusCodes.Bad_NoCommunication), new DateTime(time(1000)), null));
+
+        ReadProcessedDetails details = new ReadProcessedDetails(
+            new DateTime(time(1000)),
+            new DateTime(time(1100)),
+            0.0,
+            new NodeId[]{Identifiers.AggregateFunction_Average},
+            null
+        );
+
+        DataValue[] values = values(read(details, null));
+
+        assertEquals(values.length, 1);
+        assertEquals(values[0].getStatusCode().getValue(), StatusCodes.Bad_NoData);
+    }
+
+    @Test
+    public void testTimestampsToReturn() {
+        HistoryReadResult result = read(
+            raw(time(0), time(10), 0, false), null, TimestampsToReturn.Source);
+
+        assertFalse(values(result)[0].getSourceTime().isNull());
+        assertNull(values(result)[0].getServerTime());
+
+        result = read(raw(time(0), time(10), 0, false), null, TimestampsToReturn.Server);
+
+        assertNull(values(result)[0].getSourceTime());
+        assertFalse(values(result)[0].getServerTime().isNull());
+    }
+
+    @Test
+    public void testUnknownNode() {
+        HistoryReadResult result = readNode(new NodeId(2, "Unknown"), raw(time(0), time(10), 0, false));
+
+        assertEquals(result.getStatusCode().getValue(), StatusCodes.Bad_HistoryOperationUnsupported);
+    }
+
+    @Test
+    public void testHistoryUpdateInsert() throws Exception {
+        CompletableFuture<List<HistoryUpdateResult>> future = new CompletableFuture<>();
+
+        historyManager.historyUpdate(
+            new HistoryUpdateContext(mock(OpcUaServer.class), null, future, new DiagnosticsContext<>()),
+            Collections.singletonList(new UpdateDataDetails(
+                NODE_ID,
+                PerformUpdateType.Insert,
+                new DataValue[]{value(300, 30.0), value(100, 10.0)}
+            ))
+        );
+
+        HistoryUpdateResult result = future.get().get(0);
+
+        assertEquals(result.getStatusCode(), StatusCode.GOOD);
+        assertEquals(result.getOperationResults()[0].getValue(), StatusCodes.Good_EntryInserted);
+        assertEquals(result.getOperationResults()[1].getValue(), StatusCodes.Bad_HistoryOperationUnsupported);
+        assertEquals(historyManager.getRejectedCount(), 1L);
+    }
+
+    @Test
+    public void testRecordingItem() {
+        NodeId nodeId = new NodeId(2, "Pressure");
+        DataItem item = historyManager.createRecordingItem(nodeId, 100.0);
+
+        assertEquals(item.getReadValueId().getNodeId(), nodeId);
+        assertEquals(item.getSamplingInterval(), 100.0);
+
+        item.setValue(value(0, 1.0));
+        item.setValue(value(10, 2.0));
+
+        assertValues(readNode(nodeId, raw(time(0), time(20), 0, false)), 1.0, 2.0);
+    }
+
+    private HistoryReadResult read(HistoryReadDetails details, ByteString continuationPoint) {
+        return read(details, continuationPoint, TimestampsToReturn.Both);
+    }
+
+    private HistoryReadResult read(
+        HistoryReadDetails details,
+        ByteString continuationPoint,
+        TimestampsToReturn timestamps) {
+
+        return read(NODE_ID, details, continuationPoint, timestamps);
+    }
+
+    private HistoryReadResult readNode(NodeId nodeId, HistoryReadDetails details) {
+        return read(nodeId, details, null, TimestampsToReturn.Both);
+    }
+
+    private HistoryReadResult read(
+        NodeId nodeId,
+        HistoryReadDetails details,
+        ByteString continuationPoint,
+        TimestampsToReturn timestamps) {
+
+        return read(nodeId, details, continuationPoint, timestamps, Long.MAX_VALUE);
+    }
+
+    private HistoryReadResult read(
+        NodeId nodeId,
+        HistoryReadDetails details,
+        ByteString continuationPoint,
+        TimestampsToReturn timestamps,
+        long maxBytesPerNode) {
+
+        CompletableFuture<List<HistoryReadResult>> future = new CompletableFuture<>();
+
+        historyManager.historyRead(
+            new HistoryReadContext(
+                mock(OpcUaServer.class),
+                null,
+                future,
+                new DiagnosticsContext<>(),
+                continuationPoints,
+                maxBytesPerNode
+            ),
+            details,
+            timestamps,
+            Collections.singletonList(
+                new HistoryReadValueId(nodeId, null, QualifiedName.NULL_VALUE, continuationPoint))
+        );
+
+        return future.join().get(0);
+    }
+
+    private static ReadRawModifiedDetails raw(long start, long end, int numValues, boolean bounds) {
+        return new ReadRawModifiedDetails(
+            false,
+            start != 0L ? new DateTime(start) : DateTime.MIN_VALUE,
+            end != 0L ? new DateTime(end) : DateTime.MIN_VALUE,
+            uint(numValues),
+            bounds
+        );
+    }
+
+    private static ReadProcessedDetails processed(NodeId aggregateType) {
+        return new ReadProcessedDetails(
+            new DateTime(time(0)),
+            new DateTime(time(290)),
+            100.0,
+            new NodeId[]{aggregateType},
+            null
+        );
+    }
+
+    private static DataValue[] values(HistoryReadResult result) {
+        return ((HistoryData) result.getHistoryData().decode()).getDataValues();
+    }
+
+    private static void assertValues(HistoryReadResult result, Object... expected) {
+        DataValue[] values = values(result);
+
+        assertEquals(values.length, expected.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(values[i].getValue().getValue(), expected[i], "value " + i);
+        }
+    }
+
+    private static long time(int millis) {
+        return BASE_TIME + millis * 10000L;
+    }
+
+    private static DataValue value(int millis, Object value) {
+        return new DataValue(
+            new Variant(value),
+            StatusCode.GOOD,
+            new DateTime(time(millis)),
+            new DateTime(time(millis))
+        );
+    }
+
+}
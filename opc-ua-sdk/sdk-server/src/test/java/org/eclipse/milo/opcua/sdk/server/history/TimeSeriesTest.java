@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ulong;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TimeSeriesTest {
+
+    private static final NodeId NODE_ID = new NodeId(2, "Temperature");
+
+    private static final long BASE_TIME = DateTime.now().getUtcTime();
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("TimeSeriesTest");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testAppendAcrossBlocksAndSegments() throws IOException {
+        try (TimeSeries series = TimeSeries.create(NODE_ID, directory.resolve("t.ts"), 4, 2)) {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(series.append(value(i, (double) i)));
+            }
+
+            assertEquals(series.size(), 50L);
+            assertEquals(series.getLastTime(), time(49));
+
+            for (int i = 0; i < 50; i++) {
+                DataValue value = series.getDataValue(i);
+
+                assertEquals(value.getValue().getValue(), (double) i);
+                assertEquals(value.getSourceTime().getUtcTime(), time(i));
+                assertEquals(value.getServerTime().getUtcTime(), time(i) + 1);
+                assertEquals(value.getStatusCode(), StatusCode.GOOD);
+            }
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        Path path = directory.resolve("t.ts");
+
+        try (TimeSeries series = TimeSeries.create(NODE_ID, path, 4, 2)) {
+            for (int i = 0; i < 13; i++) {
+                series.append(value(i, i));
+            }
+        }
+
+        try (TimeSeries series = TimeSeries.open(path)) {
+            assertEquals(series.getNodeId(), NODE_ID);
+            assertEquals(series.size(), 13L);
+            assertEquals(series.getValue(12), 12);
+
+            assertFalse(series.append(value(11, 11)));
+            assertTrue(series.append(value(13, 13)));
+            assertEquals(series.size(), 14L);
+        }
+
+        try (TimeSeries series = TimeSeries.open(path)) {
+            assertEquals(series.size(), 14L);
+            assertEquals(series.getValue(13), 13);
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidLayout() throws IOException {
+        Path path = directory.resolve("t.ts");
+
+        for (int[] layout : new int[][]{{0, 2}, {4, 0}, {-1, 2}, {1 << 20, 1 << 12}}) {
+            try {
+                TimeSeries.create(NODE_ID, path, layout[0], layout[1]).close();
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                assertFalse(Files.exists(path));
+            }
+        }
+
+        // a header describing a segment too large to map
+        try (TimeSeries series = TimeSeries.create(NODE_ID, path, 4, 2)) {
+            assertEquals(series.size(), 0L);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer layout = ByteBuffer.allocate(8).putInt(1 << 20).putInt(1 << 12);
+            layout.flip();
+            channel.write(layout, 8);
+        }
+
+        try {
+            TimeSeries.open(path).close();
+            fail("expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testRejectsOutOfOrderAndUnsupportedValues() throws IOException {
+        try (TimeSeries series = TimeSeries.create(NODE_ID, directory.resolve("t.ts"), 4, 2)) {
+            assertTrue(series.append(value(5, 1.0)));
+            assertTrue(series.append(value(5, 2.0)));
+            assertFalse(series.append(value(4, 3.0)));
+            assertFalse(series.append(value(6, "string")));
+            assertFalse(series.append(value(6, new int[]{1, 2})));
+
+            assertEquals(series.size(), 2L);
+        }
+    }
+
+    @Test
+    public void testValueTypes() throws IOException {
+        Object[] values = {
+            true, (byte) -1, ubyte(255), (short) -2, ushort(65535), -3, uint(4294967295L),
+            -4L, ulong(-1L), 1.5f, 2.5d, new DateTime(BASE_TIME)
+        };
+
+        try (TimeSeries series = TimeSeries.create(NODE_ID, directory.resolve("t.ts"), 4, 2)) {
+            for (int i = 0; i < values.length; i++) {
+                assertTrue(series.append(value(i, values[i])));
+            }
+
+            series.append(new DataValue(
+                Variant.NULL_VALUE,
+                new StatusCode(StatusCodes.Bad_NoCommunication),
+                new DateTime(time(values.length)),
+                null
+            ));
+
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(series.getValue(i), values[i]);
+            }
+
+            assertEquals(series.getDouble(8), 18446744073709551615.0);
+            assertTrue(Double.isNaN(series.getDouble(11)));
+
+            assertNull(series.getValue(values.length));
+            assertEquals(series.getStatus(values.length), StatusCodes.Bad_NoCommunication);
+            assertNull(series.getDataValue(values.length).getServerTime());
+        }
+    }
+
+    @Test
+    public void testSearch() throws IOException {
+        try (TimeSeries series = TimeSeries.create(NODE_ID, directory.resolve("t.ts"), 4, 2)) {
+            assertEquals(series.lowerBound(time(0)), 0L);
+            assertEquals(series.upperBound(time(0)), 0L);
+
+            // times 0, 2, 4, 4, 4, 4, 6, 8, ... duplicates span a block boundary
+            series.append(value(0, 0));
+            series.append(value(2, 0));
+            for (int i = 0; i < 4; i++) {
+                series.append(value(4, 0));
+            }
+            for (int i = 6; i < 40; i += 2) {
+                series.append(value(i, 0));
+            }
+
+            assertEquals(series.lowerBound(time(-1)), 0L);
+            assertEquals(series.lowerBound(time(0)), 0L);
+            assertEquals(series.upperBound(time(0)), 1L);
+            assertEquals(series.lowerBound(time(3)), 2L);
+            assertEquals(series.upperBound(time(3)), 2L);
+            assertEquals(series.lowerBound(time(4)), 2L);
+            assertEquals(series.upperBound(time(4)), 6L);
+            assertEquals(series.lowerBound(time(6)), 6L);
+            assertEquals(series.lowerBound(time(38)), series.size() - 1);
+            assertEquals(series.upperBound(time(38)), series.size());
+            assertEquals(series.lowerBound(time(100)), series.size());
+        }
+    }
+
+    private static long time(int i) {
+        return BASE_TIME + i * 10000L;
+    }
+
+    private static DataValue value(int i, Object value) {
+        return new DataValue(
+            new Variant(value),
+            StatusCode.GOOD,
+            new DateTime(time(i)),
+            new DateTime(time(i) + 1)
+        );
+    }
+
+}
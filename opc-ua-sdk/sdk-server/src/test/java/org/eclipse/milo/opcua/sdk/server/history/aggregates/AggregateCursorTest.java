@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.history.aggregates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.milo.opcua.sdk.server.history.RawHistorySource;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.AggregateConfiguration;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadProcessedDetails;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ubyte;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AggregateCursorTest {
+
+    private static final NodeId NODE_ID = new NodeId(2, "Temperature");
+
+    private static final long BASE_TIME = DateTime.now().getUtcTime();
+
+    private static final long GOOD = 0x401L;
+    private static final long UNCERTAIN = StatusCodes.Uncertain_DataSubNormal | 0x401L;
+
+    @Test
+    public void testSampleAggregates() throws UaException {
+        List<DataValue> raw = Arrays.asList(
+            good(0, 1.0),
+            good(10, 2.0),
+            bad(20, 99.0),
+            good(30, 3.0)
+        );
+
+        assertValue(read(raw, Identifiers.AggregateFunction_Count, 0, 40, 0), 3, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_Average, 0, 40, 0), 2.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_Minimum, 0, 40, 0), 1.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_Maximum, 0, 40, 0), 3.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_Range, 0, 40, 0), 2.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_Delta, 0, 40, 0), 2.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_VariancePopulation, 0, 40, 0), 2.0 / 3.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_VarianceSample, 0, 40, 0), 1.0, UNCERTAIN);
+        assertValue(read(raw, Identifiers.AggregateFunction_StandardDeviationSample, 0, 40, 0), 1.0, UNCERTAIN);
+
+        DataValue end = read(raw, Identifiers.AggregateFunction_End, 0, 40, 0).get(0);
+        assertEquals(end.getValue().getValue(), 3.0);
+        assertEquals(end.getSourceTime().getUtcTime(), time(30));
+
+        DataValue max = read(raw, Identifiers.AggregateFunction_MaximumActualTime, 0, 40, 0).get(0);
+        assertEquals(max.getSourceTime().getUtcTime(), time(30));
+
+        DataValue worst = read(raw, Identifiers.AggregateFunction_WorstQuality, 0, 40, 0).get(0);
+        assertEquals(worst.getValue().getValue(), new StatusCode(StatusCodes.Bad_NoCommunication));
+        assertEquals(worst.getSourceTime().getUtcTime(), time(20));
+
+        // with PercentDataGood at 75 the one Bad value in four doesn't make the result Uncertain
+        AggregateConfiguration configuration =
+            new AggregateConfiguration(false, true, ubyte(100), ubyte(75), false);
+
+        assertValue(read(raw, Identifiers.AggregateFunction_Average, 0, 40, 0, configuration), 2.0, GOOD);
+    }
+
+    @Test
+    public void testIntervals() throws UaException {
+        List<DataValue> raw = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            raw.add(good(i * 10, (double) i));
+        }
+
+        List<DataValue> values = read(raw, Identifiers.AggregateFunction_Average, 0, 100, 30);
+
+        // [0, 30), [30, 60), [60, 90), [90, 100)
+        assertEquals(values.size(), 4);
+        assertValue(values.subList(0, 1), 1.0, GOOD);
+        assertValue(values.subList(3, 4), 9.0, GOOD);
+        assertEquals(values.get(1).getSourceTime().getUtcTime(), time(30));
+
+        // no raw values at all
+        values = read(raw, Identifiers.AggregateFunction_Average, 200, 300, 0);
+        assertEquals(values.get(0).getStatusCode().getValue(), StatusCodes.Bad_NoData);
+    }
+
+    @Test
+    public void testInterpolative() throws UaException {
+        List<DataValue> raw = Arrays.asList(good(0, 0.0), good(100, 10.0));
+
+        List<DataValue> values = read(raw, Identifiers.AggregateFunction_Interpolative, 25, 175, 50);
+
+        assertEquals(values.size(), 3);
+        assertValue(values.subList(0, 1), 2.5, 0x402L);
+        assertValue(values.subList(1, 2), 7.5, 0x402L);
+        // past the last value it's extrapolated, stepped by default
+        assertValue(values.subList(2, 3), 10.0, StatusCodes.Uncertain_DataSubNormal | 0x402L);
+
+        AggregateConfiguration sloped = new AggregateConfiguration(false, true, ubyte(100), ubyte(100), true);
+
+        values = read(raw, Identifiers.AggregateFunction_Interpolative, 125, 175, 50, sloped);
+        assertValue(values, 12.5, StatusCodes.Uncertain_DataSubNormal | 0x402L);
+
+        // before the first value there's nothing to interpolate from
+        values = read(raw, Identifiers.AggregateFunction_Interpolative, -50, 0, 50);
+        assertEquals(values.get(0).getStatusCode().getValue(), StatusCodes.Bad_NoData);
+    }
+
+    @Test
+    public void testTimeWeighted() throws UaException {
+        List<DataValue> raw = Arrays.asList(
+            good(0, 0.0),
+            bad(50, 99.0),
+            good(100, 10.0),
+            good(200, 10.0)
+        );
+
+        // the Bad value is interpolated across
+        assertValue(read(raw, Identifiers.AggregateFunction_TimeAverage, 0, 100, 0), 5.0, UNCERTAIN);
+
+        // [150, 200) is interpolated from the values at 100 and 200
+        assertValue(read(raw, Identifiers.AggregateFunction_TimeAverage, 150, 200, 0), 10.0, GOOD);
+
+        List<DataValue> values = read(raw, Identifiers.AggregateFunction_Total, 100, 200, 0);
+        assertEquals((Double) values.get(0).getValue().getValue(), 10.0 * 0.1, 1e-9);
+    }
+
+    @Test
+    public void testDurations() throws UaException {
+        List<DataValue> raw = Arrays.asList(
+            good(0, 1.0),
+            bad(30, 1.0),
+            good(80, 1.0)
+        );
+
+        assertValue(read(raw, Identifiers.AggregateFunction_DurationGood, 0, 100, 0), 50.0, GOOD);
+        assertValue(read(raw, Identifiers.AggregateFunction_DurationBad, 0, 100, 0), 50.0, GOOD);
+        assertValue(read(raw, Identifiers.AggregateFunction_PercentGood, 0, 100, 0), 50.0, GOOD);
+
+        // time before the first value counts as Bad
+        assertValue(read(raw, Identifiers.AggregateFunction_PercentBad, -100, 100, 0), 75.0, GOOD);
+    }
+
+    @Test
+    public void testStreamsRawValues() throws UaException {
+        AtomicInteger pulled = new AtomicInteger(0);
+
+        RawHistorySource source = (nodeId, startTime, endTime) -> new Iterator<DataValue>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < 1000;
+            }
+
+            @Override
+            public DataValue next() {
+                pulled.incrementAndGet();
+                return good(next++, 1.0);
+            }
+        };
+
+        AggregateCursor cursor = AggregateCursor.open(
+            source, NODE_ID, details(0, 1000, 100, null), Identifiers.AggregateFunction_Count);
+
+        List<DataValue> values = new ArrayList<>();
+        cursor.next(2, values);
+
+        assertEquals(values.size(), 2);
+        assertTrue(cursor.hasNext());
+        // the first two intervals and one value of lookahead
+        assertEquals(pulled.get(), 201);
+
+        cursor.next(Integer.MAX_VALUE, values);
+
+        assertEquals(values.size(), 10);
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testInvalidRequests() {
+        List<DataValue> raw = Arrays.asList(good(0, 0.0), good(100, 10.0));
+
+        assertStatus(() -> read(raw, Identifiers.AggregateFunction_Average, 100, 0, 0),
+            StatusCodes.Bad_InvalidTimestampArgument);
+
+        assertStatus(() -> read(raw, Identifiers.AggregateFunction_Average, 0, 100, -1),
+            StatusCodes.Bad_InvalidTimestampArgument);
+
+        assertStatus(() -> read(raw, Identifiers.AggregateFunction_NumberOfTransitions, 0, 100, 0),
+            StatusCodes.Bad_AggregateNotSupported);
+
+        AggregateConfiguration invalid = new AggregateConfiguration(false, true, ubyte(100), ubyte(101), false);
+
+        assertStatus(() -> read(raw, Identifiers.AggregateFunction_Average, 0, 100, 0, invalid),
+            StatusCodes.Bad_AggregateConfigurationRejected);
+    }
+
+    private interface Read {
+        void run() throws UaException;
+    }
+
+    private static void assertStatus(Read read, long expected) {
+        try {
+            read.run();
+            fail("expected " + expected);
+        } catch (UaException e) {
+            assertEquals(e.getStatusCode().getValue(), expected);
+        }
+    }
+
+    private static List<DataValue> read(
+        List<DataValue> raw,
+        NodeId aggregateType,
+        int start,
+        int end,
+        int interval) throws UaException {
+
+        return read(raw, aggregateType, start, end, interval, null);
+    }
+
+    private static List<DataValue> read(
+        List<DataValue> raw,
+        NodeId aggregateType,
+        int start,
+        int end,
+        int interval,
+        AggregateConfiguration configuration) throws UaException {
+
+        AggregateCursor cursor = AggregateCursor.open(
+            (nodeId, startTime, endTime) -> raw.iterator(),
+            NODE_ID,
+            details(start, end, interval, configuration),
+            aggregateType
+        );
+
+        List<DataValue> values = new ArrayList<>();
+        cursor.next(Integer.MAX_VALUE, values);
+        return values;
+    }
+
+    private static ReadProcessedDetails details(
+        int start,
+        int end,
+        int interval,
+        AggregateConfiguration configuration) {
+
+        return new ReadProcessedDetails(
+            new DateTime(time(start)),
+            new DateTime(time(end)),
+            (double) interval,
+            null,
+            configuration
+        );
+    }
+
+    private static void assertValue(List<DataValue> values, Object expected, long statusCode) {
+        assertEquals(values.size(), 1);
+        assertEquals(values.get(0).getValue().getValue(), expected);
+        assertEquals(values.get(0).getStatusCode().getValue(), statusCode);
+    }
+
+    private static long time(int millis) {
+        return BASE_TIME + millis * 10000L;
+    }
+
+    private static DataValue good(int millis, Object value) {
+        return new DataValue(new Variant(value), StatusCode.GOOD, new DateTime(time(millis)), null);
+    }
+
+    private static DataValue bad(int millis, Object value) {
+        return new DataValue(
+            new Variant(value),
+            new StatusCode(StatusCodes.Bad_NoCommunication),
+            new DateTime(time(millis)),
+            null
+        );
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.subscriptions;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfigLimits;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.application.UaStackServer;
+import org.eclipse.milo.opcua.stack.core.application.services.ServiceRequest;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.RequestHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.SubscriptionAcknowledgement;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class PublishQueueTest {
+
+    private final List<Subscription> published = new CopyOnWriteArrayList<>();
+
+    private UaStackServer stackServer;
+
+    @BeforeMethod
+    public void setup() {
+        published.clear();
+
+        stackServer = Mockito.mock(UaStackServer.class);
+        Mockito.when(stackServer.getExecutorService())
+            .thenReturn(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testLateSubscriptionsServedByPriority() {
+        PublishQueue queue = new PublishQueue();
+
+        Subscription low = newSubscription(1, 0);
+        Subscription high = newSubscription(2, 200);
+        Subscription medium = newSubscription(3, 100);
+
+        queue.addSubscription(low);
+        queue.addSubscription(high);
+        queue.addSubscription(medium);
+        assertEquals(queue.getWaitingSubscriptionCount(), 3);
+
+        queue.addRequest(newRequest());
+        queue.addRequest(newRequest());
+        queue.addRequest(newRequest());
+
+        assertEquals(published.size(), 3);
+        assertEquals(published.get(0), high);
+        assertEquals(published.get(1), medium);
+        assertEquals(published.get(2), low);
+        assertEquals(queue.getWaitingSubscriptionCount(), 0);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testEqualPrioritySubscriptionsServedInOrderTheyBecameLate() {
+        PublishQueue queue = new PublishQueue();
+
+        Subscription chatty = newSubscription(1, 0);
+        Subscription alarms = newSubscription(2, 0);
+
+        queue.addSubscription(alarms);
+        queue.addSubscription(chatty);
+
+        // already wait-listed; keeps its place
+        queue.addSubscription(alarms);
+
+        queue.addRequest(newRequest());
+        assertEquals(published.get(0), alarms);
+
+        // chatty has been waiting longer than alarms, which is late again
+        queue.addSubscription(alarms);
+        queue.addRequest(newRequest());
+        assertEquals(published.get(1), chatty);
+
+        queue.addRequest(newRequest());
+        assertEquals(published.get(2), alarms);
+    }
+
+    @Test
+    public void testLateSubscriptionUsesQueuedRequest() {
+        PublishQueue queue = new PublishQueue();
+
+        queue.addRequest(newRequest());
+        assertEquals(queue.size(), 1);
+
+        Subscription subscription = newSubscription(1, 0);
+        queue.addSubscription(subscription);
+
+        assertEquals(published.size(), 1);
+        assertEquals(queue.size(), 0);
+        assertEquals(queue.getWaitingSubscriptionCount(), 0);
+    }
+
+    @Test
+    public void testOldestRequestRejectedWhenFull() {
+        PublishQueue queue = new PublishQueue(2);
+
+        ServiceRequest<PublishRequest, PublishResponse> first = newRequest();
+        queue.addRequest(first);
+        queue.addRequest(newRequest());
+        queue.addRequest(newRequest());
+
+        assertEquals(queue.size(), 2);
+        assertEquals(queue.getRejectedRequestCount(), 1L);
+
+        try {
+            first.getFuture().join();
+            fail("expected Bad_TooManyPublishRequests");
+        } catch (CompletionException e) {
+            UaException cause = (UaException) e.getCause();
+            assertEquals(cause.getStatusCode().getValue(), StatusCodes.Bad_TooManyPublishRequests);
+        }
+    }
+
+    @Test
+    public void testRequestDeliveredWhenExecutorRejects() throws Exception {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        ExecutorService executor = rejectingExecutor(rejecting);
+        Mockito.when(stackServer.getExecutorService()).thenReturn(executor);
+
+        PublishQueue queue = new PublishQueue();
+
+        Subscription subscription = newSubscription(1, 0);
+        queue.addSubscription(subscription);
+        queue.addRequest(newRequest());
+
+        // the request and the Subscription are put back rather than dropped or delivered on this thread
+        assertTrue(published.isEmpty());
+        assertEquals(queue.size(), 1);
+        assertEquals(queue.getWaitingSubscriptionCount(), 1);
+
+        rejecting.set(false);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (published.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(published, Lists.newArrayList(subscription));
+        assertTrue(queue.isEmpty());
+        assertEquals(queue.getWaitingSubscriptionCount(), 0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testRejectedDeliveryDoesNotLockAnotherSubscription() throws Exception {
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        ExecutorService executor = rejectingExecutor(rejecting);
+        Mockito.when(stackServer.getExecutorService()).thenReturn(executor);
+
+        SubscriptionManager subscriptionManager = newSubscriptionManager();
+        PublishQueue queue = subscriptionManager.getPublishQueue();
+
+        Subscription a = newSubscription(subscriptionManager, 1);
+        Subscription b = newSubscription(subscriptionManager, 2);
+
+        // with no requests queued both become late and are wait-listed
+        a.onPublishingTimer();
+        b.onPublishingTimer();
+        assertEquals(queue.getWaitingSubscriptionCount(), 2);
+
+        ServiceRequest<PublishRequest, PublishResponse> first = newRequest();
+        ServiceRequest<PublishRequest, PublishResponse> second = newRequest();
+
+        // hold both monitors, as another Subscription's onPublish or publishing timer would while it adds to the queue
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch unlock = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            synchronized (a) {
+                synchronized (b) {
+                    locked.countDown();
+                    try {
+                        unlock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        holder.start();
+
+        try {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            // a rejected delivery must not call into a matched Subscription, whose monitor is held
+            CompletableFuture<Void> added = CompletableFuture.runAsync(() -> {
+                queue.addRequest(first);
+                queue.addRequest(second);
+            });
+
+            added.get(5, TimeUnit.SECONDS);
+
+            assertEquals(queue.size(), 2);
+            assertEquals(queue.getWaitingSubscriptionCount(), 2);
+        } finally {
+            unlock.countDown();
+            holder.join();
+        }
+
+        rejecting.set(false);
+
+        assertNotNull(first.getFuture().get(5, TimeUnit.SECONDS));
+        assertNotNull(second.getFuture().get(5, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMaxPublishRequestsAboveIntRangeIsClamped() {
+        OpcUaServer server = Mockito.mock(OpcUaServer.class);
+
+        OpcUaServerConfig config = Mockito.mock(OpcUaServerConfig.class);
+        Mockito.when(config.getLimits()).thenReturn(new OpcUaServerConfigLimits() {
+            @Override
+            public UInteger getMaxPublishRequestsPerSession() {
+                return UInteger.MAX;
+            }
+        });
+        Mockito.when(server.getConfig()).thenReturn(config);
+
+        SubscriptionManager subscriptionManager = new SubscriptionManager(null, server);
+
+        assertEquals(subscriptionManager.getPublishQueue().getMaxQueuedRequests(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * An {@link ExecutorService} that rejects everything while {@code rejecting} is set and runs tasks on the calling
+     * thread otherwise.
+     */
+    private static ExecutorService rejectingExecutor(AtomicBoolean rejecting) {
+        ExecutorService executor = Mockito.mock(ExecutorService.class);
+
+        Mockito.doAnswer(invocation -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException("saturated");
+            }
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(Mockito.any());
+
+        return executor;
+    }
+
+    private static SubscriptionManager newSubscriptionManager() {
+        OpcUaServer server = Mockito.mock(OpcUaServer.class);
+        Mockito.when(server.getScheduledExecutorService())
+            .thenReturn(Mockito.mock(ScheduledExecutorService.class));
+
+        OpcUaServerConfig config = Mockito.mock(OpcUaServerConfig.class);
+        Mockito.when(config.getLimits()).thenReturn(new OpcUaServerConfigLimits() {});
+        Mockito.when(server.getConfig()).thenReturn(config);
+
+        return new SubscriptionManager(null, server);
+    }
+
+    private static Subscription newSubscription(SubscriptionManager subscriptionManager, int id) {
+        Subscription subscription = new Subscription(
+            subscriptionManager,
+            uint(id),
+            100.0,
+            1000L,
+            3000L,
+            0L,
+            true,
+            0
+        );
+
+        subscription.startPublishingTimer();
+
+        return subscription;
+    }
+
+    private Subscription newSubscription(int id, int priority) {
+        Subscription subscription = Mockito.mock(Subscription.class);
+        Mockito.when(subscription.getId()).thenReturn(uint(id));
+        Mockito.when(subscription.getPriority()).thenReturn(priority);
+        Mockito.doAnswer(invocation -> published.add(subscription))
+            .when(subscription).onPublish(Mockito.any());
+        return subscription;
+    }
+
+    private ServiceRequest<PublishRequest, PublishResponse> newRequest() {
+        RequestHeader header = new RequestHeader(
+            NodeId.NULL_VALUE,
+            DateTime.now(),
+            uint(0),
+            uint(0),
+            null,
+            uint(0),
+            null
+        );
+
+        PublishRequest request = new PublishRequest(header, new SubscriptionAcknowledgement[0]);
+
+        return new ServiceRequest<>(request, 0L, stackServer, null);
+    }
+
+}
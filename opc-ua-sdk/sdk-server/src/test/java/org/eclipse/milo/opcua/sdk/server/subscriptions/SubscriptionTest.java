@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.subscriptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig;
+import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfigLimits;
+import org.eclipse.milo.opcua.sdk.server.items.BaseMonitoredItem;
+import org.eclipse.milo.opcua.sdk.server.items.MonitoredDataItem;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.application.UaStackServer;
+import org.eclipse.milo.opcua.stack.core.application.services.ServiceRequest;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.RequestHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.SubscriptionAcknowledgement;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class SubscriptionTest {
+
+    private static final int ITEM_COUNT = 1000;
+
+    private UaStackServer stackServer;
+    private SubscriptionManager subscriptionManager;
+
+    private long requestHandle = 0L;
+
+    @BeforeMethod
+    public void setup() {
+        OpcUaServer server = Mockito.mock(OpcUaServer.class);
+        Mockito.when(server.getScheduledExecutorService())
+            .thenReturn(Mockito.mock(ScheduledExecutorService.class));
+
+        OpcUaServerConfig config = Mockito.mock(OpcUaServerConfig.class);
+        Mockito.when(config.getLimits()).thenReturn(new OpcUaServerConfigLimits() {});
+        Mockito.when(server.getConfig()).thenReturn(config);
+
+        stackServer = Mockito.mock(UaStackServer.class);
+        Mockito.when(stackServer.getExecutorService())
+            .thenReturn(MoreExecutors.newDirectExecutorService());
+
+        subscriptionManager = new SubscriptionManager(null, server);
+    }
+
+    @Test
+    public void testOnlyChangedItemsAreReported() throws Exception {
+        Subscription subscription = newSubscription(0L);
+        List<MonitoredDataItem> items = newItems(subscription, MonitoringMode.Reporting);
+
+        items.get(10).setValue(new DataValue(new Variant(10)));
+        items.get(500).setValue(new DataValue(new Variant(500)));
+        items.get(999).setValue(new DataValue(new Variant(999)));
+
+        assertEquals(clientHandles(publish(subscription)), Arrays.asList(10L, 500L, 999L));
+
+        // nothing changed, so there's nothing to report
+        subscription.onPublishingTimer();
+
+        items.get(500).setValue(new DataValue(new Variant(-500)));
+
+        assertEquals(clientHandles(publish(subscription)), Arrays.asList(500L));
+    }
+
+    @Test
+    public void testLeftoverItemsAreReportedFirst() throws Exception {
+        Subscription subscription = newSubscription(2L);
+        List<MonitoredDataItem> items = newItems(subscription, MonitoringMode.Reporting);
+
+        items.get(1).setValue(new DataValue(new Variant(1)));
+        items.get(2).setValue(new DataValue(new Variant(2)));
+        items.get(3).setValue(new DataValue(new Variant(3)));
+
+        PublishResponse first = publish(subscription);
+        assertEquals(clientHandles(first), Arrays.asList(1L, 2L));
+        assertTrue(first.getMoreNotifications());
+
+        items.get(0).setValue(new DataValue(new Variant(0)));
+
+        PublishResponse second = publish(subscription);
+        assertEquals(clientHandles(second), Arrays.asList(3L, 0L));
+        assertFalse(second.getMoreNotifications());
+    }
+
+    @Test
+    public void testSampledValuesReportedWhenReportingEnabled() throws Exception {
+        Subscription subscription = newSubscription(0L);
+        List<MonitoredDataItem> items = newItems(subscription, MonitoringMode.Sampling);
+
+        items.get(42).setValue(new DataValue(new Variant(42)));
+
+        // sampled but not reported
+        subscription.onPublishingTimer();
+
+        items.get(42).setMonitoringMode(MonitoringMode.Reporting);
+
+        assertEquals(clientHandles(publish(subscription)), Arrays.asList(42L));
+    }
+
+    @Test
+    public void testRemovedItemsAreNotReported() throws Exception {
+        Subscription subscription = newSubscription(0L);
+        List<MonitoredDataItem> items = newItems(subscription, MonitoringMode.Reporting);
+
+        items.get(7).setValue(new DataValue(new Variant(7)));
+        items.get(8).setValue(new DataValue(new Variant(8)));
+
+        subscription.removeMonitoredItems(Lists.newArrayList(items.get(7)));
+
+        assertEquals(clientHandles(publish(subscription)), Arrays.asList(8L));
+    }
+
+    private Subscription newSubscription(long maxNotificationsPerPublish) {
+        Subscription subscription = new Subscription(
+            subscriptionManager,
+            uint(1),
+            100.0,
+            1000L,
+            3000L,
+            maxNotificationsPerPublish,
+            true,
+            0
+        );
+
+        subscription.startPublishingTimer();
+
+        return subscription;
+    }
+
+    private List<MonitoredDataItem> newItems(Subscription subscription, MonitoringMode monitoringMode)
+        throws Exception {
+
+        List<MonitoredDataItem> items = Lists.newArrayListWithCapacity(ITEM_COUNT);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ReadValueId readValueId = new ReadValueId(
+                new NodeId(2, i),
+                AttributeId.Value.uid(),
+                null,
+                QualifiedName.NULL_VALUE
+            );
+
+            items.add(new MonitoredDataItem(
+                uint(i + 1),
+                subscription.getId(),
+                readValueId,
+                monitoringMode,
+                TimestampsToReturn.Both,
+                uint(i),
+                100.0,
+                null,
+                uint(10),
+                true
+            ));
+        }
+
+        List<BaseMonitoredItem<?>> created = Lists.newArrayList(items);
+        subscription.addMonitoredItems(created);
+
+        return items;
+    }
+
+    /**
+     * Queue a Publish request and fire the publishing timer.
+     */
+    private PublishResponse publish(Subscription subscription) {
+        RequestHeader header = new RequestHeader(
+            NodeId.NULL_VALUE,
+            DateTime.now(),
+            uint(requestHandle++),
+            uint(0),
+            null,
+            uint(0),
+            null
+        );
+
+        PublishRequest request = new PublishRequest(header, new SubscriptionAcknowledgement[0]);
+
+        ServiceRequest<PublishRequest, PublishResponse> service =
+            new ServiceRequest<>(request, requestHandle, stackServer, null);
+
+        subscriptionManager.getPublishQueue().addRequest(service);
+        subscription.onPublishingTimer();
+
+        return service.getFuture().getNow(null);
+    }
+
+    private static List<Long> clientHandles(PublishResponse response) {
+        ExtensionObject[] notificationData = response.getNotificationMessage().getNotificationData();
+
+        assertEquals(notificationData.length, 1);
+
+        DataChangeNotification dataChange = (DataChangeNotification) notificationData[0].decode();
+
+        return Arrays.stream(dataChange.getMonitoredItems())
+            .map(MonitoredItemNotification::getClientHandle)
+            .map(h -> h.longValue())
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.milo.opcua.sdk.server.items.MonitoredDataItem;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DeadbandType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class DataChangeMonitoringFilterTest {
+
+    private static final DateTime T0 = new DateTime(1000L);
+    private static final DateTime T1 = new DateTime(2000L);
+
+    @Test
+    public void testTriggers() throws UaException {
+        DataChangeMonitoringFilter status = compile(DataChangeTrigger.Status, DeadbandType.None, 0.0, null);
+        DataChangeMonitoringFilter statusValue = compile(DataChangeTrigger.StatusValue, DeadbandType.None, 0.0, null);
+        DataChangeMonitoringFilter statusValueTimestamp =
+            compile(DataChangeTrigger.StatusValueTimestamp, DeadbandType.None, 0.0, null);
+
+        DataValue last = value(1, StatusCode.GOOD, T0);
+
+        assertTrue(status.filter(null, last));
+
+        assertFalse(status.filter(last, value(2, StatusCode.GOOD, T1)));
+        assertTrue(status.filter(last, value(1, StatusCode.BAD, T0)));
+
+        assertTrue(statusValue.filter(last, value(2, StatusCode.GOOD, T0)));
+        assertFalse(statusValue.filter(last, value(1, StatusCode.GOOD, T1)));
+
+        assertTrue(statusValueTimestamp.filter(last, value(1, StatusCode.GOOD, T1)));
+        assertFalse(statusValueTimestamp.filter(last, value(1, StatusCode.GOOD, T0)));
+    }
+
+    @DataProvider
+    public Object[][] getDeadbandValues() {
+        return new Object[][]{
+            {10.0d, 10.5d, 12.0d},
+            {10.0f, 10.5f, 12.0f},
+            {10, 11, 12},
+            {10L, 11L, 12L},
+            {(short) 10, (short) 11, (short) 12},
+            {uint(10), uint(11), uint(12)},
+            {new double[]{10.0, 20.0}, new double[]{10.5, 20.5}, new double[]{10.0, 22.0}},
+            {new float[]{10.0f, 20.0f}, new float[]{10.5f, 20.5f}, new float[]{10.0f, 22.0f}},
+            {new int[]{10, 20}, new int[]{11, 21}, new int[]{10, 22}},
+            {new long[]{10, 20}, new long[]{11, 21}, new long[]{10, 22}},
+            {new Double[]{10.0, 20.0}, new Double[]{10.5, 20.5}, new Double[]{10.0, 22.0}},
+            {new Integer[]{10, 20}, new Integer[]{11, 21}, new Integer[]{10, 22}},
+            {new Double[][]{{10.0}, {20.0}}, new Double[][]{{10.5}, {20.5}}, new Double[][]{{10.0}, {22.0}}}
+        };
+    }
+
+    @Test(dataProvider = "getDeadbandValues")
+    public void testAbsoluteDeadband(Object last, Object within, Object exceeding) throws UaException {
+        DataChangeMonitoringFilter filter = compile(DataChangeTrigger.StatusValue, DeadbandType.Absolute, 1.0, null);
+
+        DataValue lastValue = value(last, StatusCode.GOOD, T0);
+
+        assertFalse(filter.filter(lastValue, value(within, StatusCode.GOOD, T1)));
+        assertTrue(filter.filter(lastValue, value(exceeding, StatusCode.GOOD, T1)));
+
+        // a status change is reported regardless of the deadband
+        assertTrue(filter.filter(lastValue, value(within, StatusCode.BAD, T1)));
+    }
+
+    @Test
+    public void testDeadbandArrayLengthChange() throws UaException {
+        DataChangeMonitoringFilter filter = compile(DataChangeTrigger.StatusValue, DeadbandType.Absolute, 1.0, null);
+
+        DataValue lastValue = value(new double[]{1.0, 2.0}, StatusCode.GOOD, T0);
+
+        assertTrue(filter.filter(lastValue, value(new double[]{1.0}, StatusCode.GOOD, T0)));
+    }
+
+    @Test
+    public void testDeadbandTypeChange() throws UaException {
+        DataChangeMonitoringFilter filter = compile(DataChangeTrigger.StatusValue, DeadbandType.Absolute, 1.0, null);
+
+        DataValue lastValue = value(10.0d, StatusCode.GOOD, T0);
+
+        assertFalse(filter.filter(lastValue, value(10, StatusCode.GOOD, T0)));
+        assertTrue(filter.filter(lastValue, value(12, StatusCode.GOOD, T0)));
+        assertTrue(filter.filter(lastValue, value("foo", StatusCode.GOOD, T0)));
+    }
+
+    @Test
+    public void testDeadbandNonNumericValue() throws UaException {
+        DataChangeMonitoringFilter filter = compile(DataChangeTrigger.StatusValue, DeadbandType.Absolute, 1.0, null);
+
+        DataValue lastValue = value("foo", StatusCode.GOOD, T0);
+
+        assertFalse(filter.filter(lastValue, value("foo", StatusCode.GOOD, T1)));
+        assertTrue(filter.filter(lastValue, value("bar", StatusCode.GOOD, T1)));
+    }
+
+    @Test
+    public void testPercentDeadband() throws UaException {
+        Range euRange = new Range(-100.0, 100.0);
+
+        // 5% of a 200 wide range
+        DataChangeMonitoringFilter filter =
+            compile(DataChangeTrigger.StatusValue, DeadbandType.Percent, 5.0, euRange);
+
+        assertEquals(filter.getDeadband(), 10.0);
+
+        DataValue lastValue = value(0.0d, StatusCode.GOOD, T0);
+
+        assertFalse(filter.filter(lastValue, value(9.0d, StatusCode.GOOD, T0)));
+        assertTrue(filter.filter(lastValue, value(11.0d, StatusCode.GOOD, T0)));
+    }
+
+    @Test
+    public void testInvalidDeadbands() {
+        assertInvalid(DeadbandType.Percent, 5.0, null);
+        assertInvalid(DeadbandType.Percent, 5.0, new Range(null, 100.0));
+        assertInvalid(DeadbandType.Percent, 101.0, new Range(0.0, 100.0));
+        assertInvalid(DeadbandType.Absolute, -1.0, null);
+        assertInvalid(DeadbandType.Absolute, Double.NaN, null);
+    }
+
+    @Test
+    public void testEuRangeOnlyResolvedForPercentDeadband() throws UaException {
+        AtomicInteger resolved = new AtomicInteger(0);
+
+        Supplier<Range> euRange = () -> {
+            resolved.incrementAndGet();
+            return null;
+        };
+
+        newItem(null, euRange);
+        newItem(filter(DeadbandType.Absolute, 1.0), euRange);
+        assertEquals(resolved.get(), 0);
+
+        try {
+            newItem(filter(DeadbandType.Percent, 5.0), euRange);
+            fail("expected Bad_DeadbandFilterInvalid");
+        } catch (UaException e) {
+            assertEquals(e.getStatusCode().getValue(), StatusCodes.Bad_DeadbandFilterInvalid);
+        }
+        assertEquals(resolved.get(), 1);
+    }
+
+    private static DataChangeFilter filter(DeadbandType deadbandType, double deadbandValue) {
+        return new DataChangeFilter(DataChangeTrigger.StatusValue, uint(deadbandType.getValue()), deadbandValue);
+    }
+
+    private static MonitoredDataItem newItem(DataChangeFilter filter, Supplier<Range> euRange) throws UaException {
+        ReadValueId readValueId = new ReadValueId(
+            new NodeId(0, uint(1)),
+            AttributeId.Value.uid(),
+            null,
+            QualifiedName.NULL_VALUE
+        );
+
+        return new MonitoredDataItem(
+            uint(1),
+            uint(1),
+            readValueId,
+            MonitoringMode.Reporting,
+            TimestampsToReturn.Both,
+            uint(1),
+            100.0,
+            filter != null ? ExtensionObject.encode(filter) : null,
+            uint(1),
+            true,
+            euRange
+        );
+    }
+
+    private static void assertInvalid(DeadbandType deadbandType, double deadbandValue, Range euRange) {
+        try {
+            compile(DataChangeTrigger.StatusValue, deadbandType, deadbandValue, euRange);
+            fail("expected Bad_DeadbandFilterInvalid");
+        } catch (UaException e) {
+            assertEquals(e.getStatusCode().getValue(), StatusCodes.Bad_DeadbandFilterInvalid);
+        }
+    }
+
+    private static DataChangeMonitoringFilter compile(
+        DataChangeTrigger trigger,
+        DeadbandType deadbandType,
+        double deadbandValue,
+        Range euRange) throws UaException {
+
+        DataChangeFilter filter = new DataChangeFilter(trigger, uint(deadbandType.getValue()), deadbandValue);
+
+        return DataChangeMonitoringFilter.compile(filter, euRange);
+    }
+
+    private static DataValue value(Object value, StatusCode statusCode, DateTime sourceTime) {
+        return new DataValue(new Variant(value), statusCode, sourceTime);
+    }
+
+}
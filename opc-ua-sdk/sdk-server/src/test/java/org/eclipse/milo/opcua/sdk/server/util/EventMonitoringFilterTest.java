@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.AbstractServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.model.nodes.objects.BaseEventNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaObjectNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaObjectTypeNode;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaPropertyNode;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.NamespaceTable;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.FilterOperator;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.NodeClass;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.ContentFilterElement;
+import org.eclipse.milo.opcua.stack.core.types.structured.ElementOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.LiteralOperand;
+import org.eclipse.milo.opcua.stack.core.types.structured.SimpleAttributeOperand;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+public class EventMonitoringFilterTest {
+
+    private static final NodeId MY_EVENT_TYPE = new NodeId(2, "MyEventType");
+
+    private ServerNodeMap nodeMap;
+    private int nextEventId = 0;
+
+    @BeforeMethod
+    public void setup() {
+        nodeMap = new AbstractServerNodeMap() {
+            @Override
+            public NamespaceTable getNamespaceTable() {
+                return new NamespaceTable();
+            }
+        };
+
+        addEventType(Identifiers.BaseEventType, null);
+        addEventType(Identifiers.SystemEventType, Identifiers.BaseEventType);
+        addEventType(MY_EVENT_TYPE, Identifiers.SystemEventType);
+    }
+
+    @Test
+    public void testSelectClausesProjectFields() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        EventMonitoringFilter filter = EventMonitoringFilter.compile(new EventFilter(
+            new SimpleAttributeOperand[]{
+                field("EventType"),
+                field("Severity"),
+                field("SourceName"),
+                field(new QualifiedName(2, "Priority")),
+                field(new QualifiedName(2, "Extra"), new QualifiedName(2, "Setpoint")),
+                field("Missing"),
+                new SimpleAttributeOperand(Identifiers.BaseEventType, null, AttributeId.NodeId.uid(), null)
+            },
+            null
+        ));
+
+        Variant[] fields = filter.filter(event);
+
+        assertNotNull(fields);
+        assertEquals(fields.length, 7);
+        assertEquals(fields[0].getValue(), MY_EVENT_TYPE);
+        assertEquals(fields[1].getValue(), ushort(600));
+        assertEquals(fields[2].getValue(), "Boiler1");
+        assertEquals(fields[3].getValue(), 5);
+        assertEquals(fields[4].getValue(), 42.0);
+        assertNull(fields[5].getValue());
+        assertEquals(fields[6].getValue(), event.getNodeId());
+        assertNull(filter.getFilterResult());
+    }
+
+    @Test
+    public void testSelectClauseTypeDefinition() throws UaException {
+        EventMonitoringFilter filter = EventMonitoringFilter.compile(new EventFilter(
+            new SimpleAttributeOperand[]{
+                new SimpleAttributeOperand(
+                    Identifiers.SystemEventType,
+                    new QualifiedName[]{new QualifiedName(0, "Severity")},
+                    AttributeId.Value.uid(),
+                    null
+                )
+            },
+            null
+        ));
+
+        assertEquals(filter.filter(newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1"))[0].getValue(), ushort(600));
+        assertNull(filter.filter(newEvent(Identifiers.BaseEventType, 600, 5, "Boiler1"))[0].getValue());
+    }
+
+    @Test
+    public void testInvalidSelectClauseReportedInFilterResult() throws UaException {
+        EventMonitoringFilter filter = EventMonitoringFilter.compile(new EventFilter(
+            new SimpleAttributeOperand[]{
+                field("Severity"),
+                new SimpleAttributeOperand(Identifiers.BaseEventType, null, uint(999), null)
+            },
+            null
+        ));
+
+        assertNotNull(filter.getFilterResult());
+        assertEquals(filter.getFilterResult().getSelectClauseResults()[0], StatusCode.GOOD);
+        assertEquals(
+            filter.getFilterResult().getSelectClauseResults()[1].getValue(),
+            StatusCodes.Bad_AttributeIdInvalid
+        );
+
+        Variant[] fields = filter.filter(newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1"));
+        assertEquals(fields[0].getValue(), ushort(600));
+        assertNull(fields[1].getValue());
+    }
+
+    @Test
+    public void testComparisonOperators() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        assertPasses(event, element(FilterOperator.GreaterThan, field("Severity"), literal(500)));
+        assertFails(event, element(FilterOperator.GreaterThan, field("Severity"), literal(600)));
+        assertPasses(event, element(FilterOperator.GreaterThanOrEqual, field("Severity"), literal(600)));
+        assertPasses(event, element(FilterOperator.LessThan, field("Severity"), literal(600.5)));
+        assertPasses(event, element(FilterOperator.LessThanOrEqual, field("Severity"), literal(ushort(600))));
+        assertPasses(event, element(FilterOperator.Equals, field("SourceName"), literal("Boiler1")));
+        assertFails(event, element(FilterOperator.Equals, field("SourceName"), literal("Boiler2")));
+        assertPasses(event, element(FilterOperator.Equals, field("EventType"), literal(MY_EVENT_TYPE)));
+
+        // a missing field isn't equal to anything
+        assertFails(event, element(FilterOperator.Equals, field("Missing"), literal(0)));
+        assertPasses(event, element(FilterOperator.IsNull, field("Missing")));
+        assertFails(event, element(FilterOperator.IsNull, field("Severity")));
+    }
+
+    @Test
+    public void testLike() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        assertPasses(event, element(FilterOperator.Like, field("SourceName"), literal("Boiler%")));
+        assertPasses(event, element(FilterOperator.Like, field("SourceName"), literal("B_iler[0-9]")));
+        assertPasses(event, element(FilterOperator.Like, field("SourceName"), literal("Boiler[^2]")));
+        assertFails(event, element(FilterOperator.Like, field("SourceName"), literal("Pump%")));
+        assertFails(event, element(FilterOperator.Like, field("SourceName"), literal("Boiler")));
+    }
+
+    @Test
+    public void testLikeSetIsLiteral() throws UaException {
+        BaseEventNode boilerA = newEvent(MY_EVENT_TYPE, 600, 5, "Boilera");
+        BaseEventNode boilerAmp = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler&");
+
+        // a set of 'a', '&' and 'b', not a regex intersection
+        assertPasses(boilerA, element(FilterOperator.Like, field("SourceName"), literal("Boiler[a&&b]")));
+        assertPasses(boilerAmp, element(FilterOperator.Like, field("SourceName"), literal("Boiler[a&&b]")));
+        assertFails(boilerA, element(FilterOperator.Like, field("SourceName"), literal("Boiler[x&&b]")));
+
+        BaseEventNode path = newEvent(MY_EVENT_TYPE, 600, 5, "C:\\dir");
+
+        assertPasses(path, element(FilterOperator.Like, field("SourceName"), literal("C:[\\]dir")));
+        assertPasses(path, element(FilterOperator.Like, field("SourceName"), literal("C:\\\\dir")));
+        assertPasses(path, element(FilterOperator.Like, field("SourceName"), literal("C:[[\\]dir")));
+        assertFails(path, element(FilterOperator.Like, field("SourceName"), literal("C:[/]dir")));
+    }
+
+    @Test
+    public void testLogicalOperators() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        ContentFilterElement severityHigh = element(FilterOperator.GreaterThan, field("Severity"), literal(500));
+        ContentFilterElement severityLow = element(FilterOperator.LessThan, field("Severity"), literal(100));
+
+        assertPasses(event, element(FilterOperator.And, element(1), element(2)), severityHigh, severityHigh);
+        assertFails(event, element(FilterOperator.And, element(1), element(2)), severityHigh, severityLow);
+        assertPasses(event, element(FilterOperator.Or, element(1), element(2)), severityLow, severityHigh);
+        assertFails(event, element(FilterOperator.Or, element(1), element(2)), severityLow, severityLow);
+        assertPasses(event, element(FilterOperator.Not, element(1)), severityLow);
+        assertFails(event, element(FilterOperator.Not, element(1)), severityHigh);
+
+        // Not of a missing field is still not true
+        assertFails(
+            event,
+            element(FilterOperator.Not, element(1)),
+            element(FilterOperator.Equals, field("Missing"), literal(0))
+        );
+    }
+
+    @Test
+    public void testBetweenInListAndCast() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        QualifiedName priority = new QualifiedName(2, "Priority");
+
+        assertPasses(event, element(FilterOperator.Between, field(priority), literal(4.5), literal(5.5)));
+        assertFails(event, element(FilterOperator.Between, field(priority), literal(6), literal(9)));
+        assertPasses(event, element(FilterOperator.InList, field(priority), literal(1), literal(5), literal(9)));
+        assertFails(event, element(FilterOperator.InList, field(priority), literal(1), literal(9)));
+
+        assertPasses(
+            event,
+            element(FilterOperator.Equals, element(1), literal("5")),
+            element(FilterOperator.Cast, field(priority), literal(Identifiers.String))
+        );
+        assertPasses(
+            event,
+            element(FilterOperator.Equals, element(1), literal(5)),
+            element(FilterOperator.Cast, literal("5.2"), literal(Identifiers.Int32))
+        );
+    }
+
+    @Test
+    public void testBitwiseOperators() throws UaException {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        QualifiedName priority = new QualifiedName(2, "Priority");
+
+        assertPasses(
+            event,
+            element(FilterOperator.Equals, element(1), literal(4L)),
+            element(FilterOperator.BitwiseAnd, field(priority), literal(6))
+        );
+        assertPasses(
+            event,
+            element(FilterOperator.Equals, element(1), literal(7L)),
+            element(FilterOperator.BitwiseOr, field(priority), literal(2))
+        );
+    }
+
+    @Test
+    public void testOfType() throws UaException {
+        ContentFilterElement ofSystemEventType = element(FilterOperator.OfType, literal(Identifiers.SystemEventType));
+
+        assertPasses(newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1"), ofSystemEventType);
+        assertPasses(newEvent(Identifiers.SystemEventType, 600, 5, "Boiler1"), ofSystemEventType);
+        assertFails(newEvent(Identifiers.BaseEventType, 600, 5, "Boiler1"), ofSystemEventType);
+    }
+
+    @Test
+    public void testInvalidWhereClauses() {
+        assertInvalid(element(FilterOperator.InView, literal(Identifiers.ObjectsFolder)));
+        assertInvalid(element(FilterOperator.Equals, field("Severity")));
+        assertInvalid(element(FilterOperator.Not, element(0)));
+        assertInvalid(element(FilterOperator.Not, element(5)));
+        assertInvalid(element(FilterOperator.OfType, field("EventType")));
+        assertInvalid(element(FilterOperator.Cast, field("Severity"), literal(Identifiers.XmlElement)));
+    }
+
+    @Test
+    public void testNoSelectClauses() {
+        try {
+            EventMonitoringFilter.compile(new EventFilter(new SimpleAttributeOperand[0], null));
+            fail("expected Bad_EventFilterInvalid");
+        } catch (UaException e) {
+            assertEquals(e.getStatusCode().getValue(), StatusCodes.Bad_EventFilterInvalid);
+        }
+    }
+
+    @Test
+    public void testDefaultFilter() {
+        BaseEventNode event = newEvent(MY_EVENT_TYPE, 600, 5, "Boiler1");
+
+        Variant[] fields = EventMonitoringFilter.defaultFilter().filter(event);
+
+        assertNotNull(fields);
+        assertEquals(fields.length, 5);
+        assertEquals(fields[1].getValue(), MY_EVENT_TYPE);
+        assertEquals(fields[3].getValue(), "Boiler1");
+    }
+
+    private void assertPasses(BaseEventNode event, ContentFilterElement... elements) throws UaException {
+        assertNotNull(compileWhere(elements).filter(event));
+    }
+
+    private void assertFails(BaseEventNode event, ContentFilterElement... elements) throws UaException {
+        assertNull(compileWhere(elements).filter(event));
+    }
+
+    private void assertInvalid(ContentFilterElement... elements) {
+        try {
+            compileWhere(elements);
+            fail("expected Bad_EventFilterInvalid");
+        } catch (UaException e) {
+            assertEquals(e.getStatusCode().getValue(), StatusCodes.Bad_EventFilterInvalid);
+        }
+    }
+
+    private static EventMonitoringFilter compileWhere(ContentFilterElement... elements) throws UaException {
+        return EventMonitoringFilter.compile(new EventFilter(
+            new SimpleAttributeOperand[]{field("EventId")},
+            new ContentFilter(elements)
+        ));
+    }
+
+    private static ContentFilterElement element(FilterOperator operator, Object... operands) {
+        ExtensionObject[] xos = new ExtensionObject[operands.length];
+
+        for (int i = 0; i < operands.length; i++) {
+            xos[i] = ExtensionObject.encode((UaStructure) operands[i]);
+        }
+
+        return new ContentFilterElement(operator, xos);
+    }
+
+    private static ElementOperand element(int index) {
+        return new ElementOperand(uint(index));
+    }
+
+    private static LiteralOperand literal(Object value) {
+        return new LiteralOperand(new Variant(value));
+    }
+
+    private static SimpleAttributeOperand field(String name) {
+        return field(new QualifiedName(0, name));
+    }
+
+    private static SimpleAttributeOperand field(QualifiedName... browsePath) {
+        return new SimpleAttributeOperand(Identifiers.BaseEventType, browsePath, AttributeId.Value.uid(), null);
+    }
+
+    private void addEventType(NodeId typeId, NodeId superTypeId) {
+        UaObjectTypeNode typeNode = new UaObjectTypeNode(
+            nodeMap,
+            typeId,
+            new QualifiedName(typeId.getNamespaceIndex(), typeId.getIdentifier().toString()),
+            LocalizedText.english(typeId.getIdentifier().toString()),
+            LocalizedText.NULL_VALUE,
+            uint(0),
+            uint(0),
+            false
+        );
+
+        if (superTypeId != null) {
+            typeNode.addReference(new Reference(
+                typeId,
+                Identifiers.HasSubtype,
+                superTypeId.expanded(),
+                NodeClass.ObjectType,
+                false
+            ));
+        }
+
+        nodeMap.addNode(typeNode);
+    }
+
+    private BaseEventNode newEvent(NodeId eventType, int severity, int priority, String sourceName) {
+        NodeId eventId = new NodeId(2, "Event" + nextEventId++);
+
+        BaseEventNode event = new BaseEventNode(
+            nodeMap,
+            eventId,
+            new QualifiedName(2, "Event"),
+            LocalizedText.english("Event"),
+            LocalizedText.NULL_VALUE,
+            uint(0),
+            uint(0)
+        );
+
+        nodeMap.addNode(event);
+
+        addProperty(event, "EventId", ByteString.of(new byte[]{(byte) nextEventId}));
+        addProperty(event, "EventType", eventType);
+        addProperty(event, "SourceName", sourceName);
+        addProperty(event, "Time", DateTime.now());
+        addProperty(event, "Severity", ushort(severity));
+        addProperty(event, "Priority", priority);
+
+        UaObjectNode extra = new UaObjectNode(
+            nodeMap,
+            new NodeId(2, eventId.getIdentifier() + ".Extra"),
+            new QualifiedName(2, "Extra"),
+            LocalizedText.english("Extra")
+        );
+
+        nodeMap.addNode(extra);
+        event.addComponent(extra);
+        addProperty(extra, "Setpoint", 42.0);
+
+        return event;
+    }
+
+    private void addProperty(UaNode node, String name, Object value) {
+        UaPropertyNode propertyNode = new UaPropertyNode(
+            nodeMap,
+            new NodeId(2, node.getNodeId().getIdentifier() + "." + name),
+            new QualifiedName(2, name),
+            LocalizedText.english(name)
+        );
+
+        propertyNode.setValue(new DataValue(new Variant(value)));
+
+        nodeMap.addNode(propertyNode);
+        node.addProperty(propertyNode);
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.milo.opcua.sdk.core.Reference;
+import org.eclipse.milo.opcua.sdk.server.api.AbstractServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.api.EventItem;
+import org.eclipse.milo.opcua.sdk.server.api.ServerNodeMap;
+import org.eclipse.milo.opcua.sdk.server.model.types.objects.BaseEventType;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaObjectNode;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.NamespaceTable;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.NodeClass;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class EventNotifierBusTest {
+
+    private static final NodeId AREA = new NodeId(2, "Area");
+    private static final NodeId BOILER = new NodeId(2, "Boiler");
+    private static final NodeId SENSOR = new NodeId(2, "Sensor");
+    private static final NodeId PUMP = new NodeId(2, "Pump");
+
+    private ServerNodeMap nodeMap;
+    private EventNotifierBus bus;
+
+    private final AtomicInteger nextItemId = new AtomicInteger(0);
+
+    @BeforeMethod
+    public void setup() {
+        nodeMap = new AbstractServerNodeMap() {
+            @Override
+            public NamespaceTable getNamespaceTable() {
+                return new NamespaceTable();
+            }
+        };
+
+        addObject(AREA);
+        addObject(BOILER);
+        addObject(SENSOR);
+        addObject(PUMP);
+
+        addReference(AREA, Identifiers.HasNotifier, BOILER);
+        addReference(BOILER, Identifiers.HasEventSource, SENSOR);
+
+        bus = new EventNotifierBus(nodeMap, Runnable::run, 4);
+    }
+
+    @Test
+    public void testEventRoutedThroughNotifierHierarchy() {
+        RecordingItem serverItem = register(Identifiers.Server);
+        RecordingItem areaItem = register(AREA);
+        RecordingItem boilerItem = register(BOILER);
+        RecordingItem sensorItem = register(SENSOR);
+        RecordingItem pumpItem = register(PUMP);
+
+        BaseEventType event = newEvent(SENSOR);
+        bus.post(event);
+
+        assertEquals(serverItem.events.size(), 1);
+        assertEquals(areaItem.events.size(), 1);
+        assertEquals(boilerItem.events.size(), 1);
+        assertEquals(sensorItem.events.size(), 1);
+        assertEquals(pumpItem.events.size(), 0);
+        assertTrue(areaItem.events.get(0) == event);
+
+        bus.post(newEvent(BOILER));
+
+        assertEquals(serverItem.events.size(), 2);
+        assertEquals(areaItem.events.size(), 2);
+        assertEquals(boilerItem.events.size(), 2);
+        assertEquals(sensorItem.events.size(), 1);
+
+        assertEquals(bus.getPostedEventCount(), 2L);
+        assertEquals(bus.getDeliveredEventCount(), 7L);
+    }
+
+    @Test
+    public void testServerReceivesEveryEvent() {
+        RecordingItem serverItem = register(Identifiers.Server);
+
+        bus.post(newEvent(PUMP));
+        bus.post(newEvent(new NodeId(2, "Unknown")));
+        bus.post(newEvent(null));
+
+        assertEquals(serverItem.events.size(), 3);
+    }
+
+    @Test
+    public void testUnregister() {
+        RecordingItem item1 = register(AREA);
+        RecordingItem item2 = register(AREA);
+
+        assertEquals(bus.getRegisteredItemCount(), 2);
+        assertEquals(bus.getNotifierCount(), 1);
+
+        bus.unregister(item1);
+        bus.post(newEvent(SENSOR));
+
+        assertEquals(item1.events.size(), 0);
+        assertEquals(item2.events.size(), 1);
+
+        bus.unregister(item2);
+        bus.post(newEvent(SENSOR));
+
+        assertEquals(item2.events.size(), 1);
+        assertEquals(bus.getRegisteredItemCount(), 0);
+        assertEquals(bus.getNotifierCount(), 0);
+    }
+
+    @Test
+    public void testInvalidateNotifierHierarchy() {
+        RecordingItem areaItem = register(AREA);
+
+        bus.post(newEvent(PUMP));
+        assertEquals(areaItem.events.size(), 0);
+
+        addReference(AREA, Identifiers.HasNotifier, PUMP);
+
+        bus.post(newEvent(PUMP));
+        assertEquals(areaItem.events.size(), 0);
+
+        bus.invalidateNotifierHierarchy();
+
+        bus.post(newEvent(PUMP));
+        assertEquals(areaItem.events.size(), 1);
+    }
+
+    @Test
+    public void testCyclicHierarchy() {
+        addReference(SENSOR, Identifiers.HasNotifier, AREA);
+
+        RecordingItem sensorItem = register(SENSOR);
+
+        bus.post(newEvent(AREA));
+        bus.post(newEvent(BOILER));
+
+        assertEquals(sensorItem.events.size(), 2);
+    }
+
+    @Test
+    public void testItemsReceiveEventsInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            EventNotifierBus parallelBus = new EventNotifierBus(nodeMap, executor, 4);
+
+            int eventCount = 1000;
+            CountDownLatch latch = new CountDownLatch(16 * eventCount);
+
+            RecordingItem[] items = new RecordingItem[16];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = new RecordingItem(i % 2 == 0 ? AREA : SENSOR, latch);
+                parallelBus.register(items[i]);
+            }
+
+            BaseEventType[] events = new BaseEventType[eventCount];
+            for (int i = 0; i < eventCount; i++) {
+                events[i] = newEvent(SENSOR);
+                parallelBus.post(events[i]);
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            for (RecordingItem item : items) {
+                for (int i = 0; i < eventCount; i++) {
+                    assertTrue(item.events.get(i) == events[i]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RecordingItem register(NodeId notifierId) {
+        RecordingItem item = new RecordingItem(notifierId, null);
+        bus.register(item);
+        return item;
+    }
+
+    private void addObject(NodeId nodeId) {
+        nodeMap.addNode(new UaObjectNode(
+            nodeMap,
+            nodeId,
+            new QualifiedName(2, nodeId.getIdentifier().toString()),
+            LocalizedText.english(nodeId.getIdentifier().toString())
+        ));
+    }
+
+    private void addReference(NodeId sourceNodeId, NodeId referenceTypeId, NodeId targetNodeId) {
+        nodeMap.get(sourceNodeId).addReference(new Reference(
+            sourceNodeId,
+            referenceTypeId,
+            targetNodeId.expanded(),
+            NodeClass.Object,
+            true
+        ));
+    }
+
+    private static BaseEventType newEvent(NodeId sourceNode) {
+        BaseEventType event = mock(BaseEventType.class);
+        when(event.getSourceNode()).thenReturn(sourceNode);
+        return event;
+    }
+
+    private class RecordingItem implements EventItem {
+
+        private final List<BaseEventType> events = new CopyOnWriteArrayList<>();
+
+        private final UInteger id = uint(nextItemId.getAndIncrement());
+
+        private final ReadValueId readValueId;
+        private final CountDownLatch latch;
+
+        RecordingItem(NodeId notifierId, CountDownLatch latch) {
+            this.readValueId = new ReadValueId(
+                notifierId, AttributeId.EventNotifier.uid(), null, QualifiedName.NULL_VALUE);
+            this.latch = latch;
+        }
+
+        @Override
+        public void setEvent(BaseEventType event) {
+            events.add(event);
+
+            if (latch != null) latch.countDown();
+        }
+
+        @Override
+        public UInteger getId() {
+            return id;
+        }
+
+        @Override
+        public UInteger getSubscriptionId() {
+            return uint(0);
+        }
+
+        @Override
+        public ReadValueId getReadValueId() {
+            return readValueId;
+        }
+
+        @Override
+        public TimestampsToReturn getTimestampsToReturn() {
+            return TimestampsToReturn.Both;
+        }
+
+        @Override
+        public boolean isSamplingEnabled() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class LockFreeRingBufferTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(3);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(buffer.offer(i, true, null));
+            assertEquals(buffer.size(), 1);
+            assertEquals(buffer.poll(), Integer.valueOf(i));
+            assertTrue(buffer.isEmpty());
+        }
+
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testDiscardOldest() {
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(3);
+
+        assertFalse(buffer.offer(1, true, null));
+        assertFalse(buffer.offer(2, true, null));
+        assertFalse(buffer.offer(3, true, null));
+        assertTrue(buffer.offer(4, true, i -> -i));
+
+        assertEquals(buffer.size(), 3);
+        assertEquals(buffer.poll(), Integer.valueOf(2));
+        assertEquals(buffer.poll(), Integer.valueOf(3));
+        assertEquals(buffer.poll(), Integer.valueOf(-4));
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testDiscardNewest() {
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(3);
+
+        assertFalse(buffer.offer(1, false, null));
+        assertFalse(buffer.offer(2, false, null));
+        assertFalse(buffer.offer(3, false, null));
+        assertTrue(buffer.offer(4, false, i -> -i));
+        assertTrue(buffer.offer(5, false, null));
+
+        assertEquals(buffer.size(), 3);
+        assertEquals(buffer.poll(), Integer.valueOf(1));
+        assertEquals(buffer.poll(), Integer.valueOf(2));
+        assertEquals(buffer.poll(), Integer.valueOf(5));
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testQueueSizeOne() {
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(1);
+
+        assertFalse(buffer.offer(1, true, null));
+        assertTrue(buffer.offer(2, true, null));
+        assertTrue(buffer.offer(3, false, null));
+
+        assertEquals(buffer.poll(), Integer.valueOf(3));
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testClear() {
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(4);
+
+        buffer.offer(1, true, null);
+        buffer.offer(2, true, null);
+        buffer.clear();
+
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+
+        buffer.offer(3, true, null);
+        assertEquals(buffer.poll(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testConcurrentProducerAndConsumer() throws InterruptedException {
+        final int count = 1_000_000;
+
+        LockFreeRingBuffer<Integer> buffer = new LockFreeRingBuffer<>(16);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                buffer.offer(i, true, null);
+            }
+        });
+
+        int[] consumed = new int[1];
+        int[] last = new int[]{-1};
+        boolean[] ordered = new boolean[]{true};
+
+        Thread consumer = new Thread(() -> {
+            while (last[0] < count - 1) {
+                Integer value = buffer.poll();
+
+                if (value != null) {
+                    if (value <= last[0]) ordered[0] = false;
+
+                    last[0] = value;
+                    consumed[0]++;
+                }
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        producer.join(10_000);
+        consumer.join(10_000);
+
+        assertTrue(ordered[0], "values were consumed out of order");
+        assertEquals(last[0], count - 1);
+        assertTrue(consumed[0] > 0 && consumed[0] <= count);
+        assertTrue(buffer.isEmpty());
+    }
+
+}
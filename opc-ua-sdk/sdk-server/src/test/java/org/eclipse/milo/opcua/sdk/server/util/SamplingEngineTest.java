@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.server.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import org.eclipse.milo.opcua.sdk.server.OpcUaServer;
+import org.eclipse.milo.opcua.sdk.server.api.AttributeManager;
+import org.eclipse.milo.opcua.sdk.server.api.DataItem;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SamplingEngineTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final AtomicInteger readCount = new AtomicInteger(0);
+
+    private SamplingEngine engine;
+
+    @BeforeClass
+    public void setup() {
+        OpcUaServer server = Mockito.mock(OpcUaServer.class);
+        Mockito.when(server.getExecutorService()).thenReturn(executor);
+        Mockito.when(server.getScheduledExecutorService()).thenReturn(scheduler);
+
+        AttributeManager attributeManager = new AttributeManager() {
+            @Override
+            public void read(ReadContext context,
+                             Double maxAge,
+                             TimestampsToReturn timestamps,
+                             List<ReadValueId> readValueIds) {
+
+                readCount.incrementAndGet();
+
+                List<DataValue> values = readValueIds.stream()
+                    .map(id -> new DataValue(new Variant(id.getNodeId().getIdentifier())))
+                    .collect(Collectors.toList());
+
+                context.complete(values);
+            }
+
+            @Override
+            public void write(WriteContext context, List<WriteValue> writeValues) {}
+        };
+
+        engine = new SamplingEngine(server, attributeManager);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        engine.shutdown();
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testItemsAreSampledRepeatedly() throws InterruptedException {
+        TestDataItem item = new TestDataItem(1, 10.0, 5);
+
+        engine.addItems(ImmutableList.of(item));
+
+        assertTrue(item.latch.await(2, TimeUnit.SECONDS));
+        assertEquals(item.lastValue.getValue().getValue(), uint(1));
+
+        engine.removeItems(ImmutableList.of(item));
+    }
+
+    @Test
+    public void testItemsAreGroupedByInterval() {
+        TestDataItem item1 = new TestDataItem(2, 1000.0, 1);
+        TestDataItem item2 = new TestDataItem(3, 1000.0, 1);
+        TestDataItem item3 = new TestDataItem(4, 2000.0, 1);
+
+        engine.addItems(ImmutableList.of(item1, item2, item3));
+        assertEquals(engine.getBucketCount(), 2);
+
+        item3.samplingInterval = 1000.0;
+        engine.updateItems(ImmutableList.of(item3));
+        assertEquals(engine.getBucketCount(), 1);
+
+        item3.samplingEnabled = false;
+        engine.updateItems(ImmutableList.of(item3));
+        assertEquals(engine.getBucketCount(), 1);
+
+        engine.removeItems(ImmutableList.of(item1, item2, item3));
+        assertEquals(engine.getBucketCount(), 0);
+    }
+
+    @Test
+    public void testAddingToExistingBucketSamplesImmediately() throws InterruptedException {
+        TestDataItem item1 = new TestDataItem(5, 60000.0, 1);
+        TestDataItem item2 = new TestDataItem(6, 60000.0, 1);
+
+        engine.addItems(ImmutableList.of(item1));
+        assertTrue(item1.latch.await(2, TimeUnit.SECONDS));
+
+        engine.addItems(ImmutableList.of(item2));
+        assertTrue(item2.latch.await(2, TimeUnit.SECONDS));
+
+        engine.removeItems(ImmutableList.of(item1, item2));
+    }
+
+    @Test
+    public void testItemsSamplingTheSameSourceShareReads() throws InterruptedException {
+        // three items, e.g. from different sessions, monitoring the same node at the same interval
+        TestDataItem item1 = new TestDataItem(7, 60000.0, 1);
+        TestDataItem item2 = new TestDataItem(7, 60000.0, 1);
+        TestDataItem item3 = new TestDataItem(7, 60000.0, 1);
+        TestDataItem item4 = new TestDataItem(8, 60000.0, 1);
+
+        engine.addItems(ImmutableList.of(item1, item2, item3, item4));
+        assertEquals(engine.getSampledItemCount(), 4);
+        assertEquals(engine.getSampledSourceCount(), 2);
+
+        for (TestDataItem item : ImmutableList.of(item1, item2, item3, item4)) {
+            assertTrue(item.latch.await(2, TimeUnit.SECONDS));
+        }
+        assertEquals(item1.lastValue.getValue().getValue(), uint(7));
+        assertEquals(item3.lastValue.getValue().getValue(), uint(7));
+        assertEquals(item4.lastValue.getValue().getValue(), uint(8));
+
+        // the source is read for as long as any item samples it
+        engine.removeItems(ImmutableList.of(item1, item2));
+        assertEquals(engine.getSampledItemCount(), 2);
+        assertEquals(engine.getSampledSourceCount(), 2);
+
+        engine.removeItems(ImmutableList.of(item3));
+        assertEquals(engine.getSampledSourceCount(), 1);
+
+        engine.removeItems(ImmutableList.of(item4));
+        assertEquals(engine.getSampledSourceCount(), 0);
+        assertEquals(engine.getBucketCount(), 0);
+    }
+
+    @Test
+    public void testPushedValuesAreCoalesced() throws InterruptedException {
+        NodeId pushedNodeId = new NodeId(0, uint(100));
+
+        engine.setPushPredicate(id -> id.getNodeId().equals(pushedNodeId));
+
+        try {
+            TestDataItem item = new TestDataItem(100, 200.0, 1);
+
+            engine.addItems(ImmutableList.of(item));
+            assertTrue(item.latch.await(2, TimeUnit.SECONDS));
+            assertEquals(item.valueCount.get(), 1);
+            assertEquals(engine.getBucketCount(), 0);
+
+            int readsBefore = readCount.get();
+
+            for (int i = 0; i < 10; i++) {
+                engine.push(pushedNodeId, AttributeId.Value, new DataValue(new Variant(i)));
+            }
+
+            Thread.sleep(500);
+
+            assertEquals(item.valueCount.get(), 2);
+            assertEquals(item.lastValue.getValue().getValue(), 9);
+            assertEquals(readCount.get(), readsBefore);
+
+            // values for other attributes are ignored
+            engine.push(pushedNodeId, AttributeId.DisplayName, new DataValue(new Variant("foo")));
+            Thread.sleep(300);
+            assertEquals(item.valueCount.get(), 2);
+
+            engine.removeItems(ImmutableList.of(item));
+        } finally {
+            engine.setPushPredicate(id -> false);
+        }
+    }
+
+    @Test
+    public void testSamplingResumesAfterCompletionIsRejected() throws InterruptedException {
+        AtomicBoolean rejecting = new AtomicBoolean(false);
+
+        ExecutorService rejectingExecutor = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                if (rejecting.get()) {
+                    throw new RejectedExecutionException("saturated");
+                } else {
+                    executor.execute(command);
+                }
+            }
+
+            @Override
+            public void shutdown() {}
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return ImmutableList.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+
+        OpcUaServer server = Mockito.mock(OpcUaServer.class);
+        Mockito.when(server.getExecutorService()).thenReturn(rejectingExecutor);
+        Mockito.when(server.getScheduledExecutorService()).thenReturn(scheduler);
+
+        AttributeManager attributeManager = new AttributeManager() {
+            @Override
+            public void read(ReadContext context,
+                             Double maxAge,
+                             TimestampsToReturn timestamps,
+                             List<ReadValueId> readValueIds) {
+
+                List<DataValue> values = readValueIds.stream()
+                    .map(id -> new DataValue(new Variant(id.getNodeId().getIdentifier())))
+                    .collect(Collectors.toList());
+
+                // the read was accepted but handing off its completion is not
+                rejecting.set(true);
+
+                context.complete(values);
+            }
+
+            @Override
+            public void write(WriteContext context, List<WriteValue> writeValues) {}
+        };
+
+        SamplingEngine rejectingEngine = new SamplingEngine(server, attributeManager);
+
+        try {
+            TestDataItem item = new TestDataItem(200, 10.0, 2);
+
+            rejectingEngine.addItems(ImmutableList.of(item));
+
+            for (int i = 0; i < 100 && item.valueCount.get() == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(item.valueCount.get(), 1);
+
+            rejecting.set(false);
+
+            assertTrue(item.latch.await(2, TimeUnit.SECONDS));
+        } finally {
+            rejectingEngine.shutdown();
+        }
+    }
+
+    private static class TestDataItem implements DataItem {
+
+        private final AtomicInteger valueCount = new AtomicInteger(0);
+
+        private volatile DataValue lastValue;
+        private volatile double samplingInterval;
+        private volatile boolean samplingEnabled = true;
+
+        private final CountDownLatch latch;
+        private final ReadValueId readValueId;
+
+        TestDataItem(int id, double samplingInterval, int expectedSamples) {
+            this.samplingInterval = samplingInterval;
+            this.latch = new CountDownLatch(expectedSamples);
+
+            readValueId = new ReadValueId(
+                new NodeId(0, uint(id)),
+                AttributeId.Value.uid(),
+                null,
+                QualifiedName.NULL_VALUE
+            );
+        }
+
+        @Override
+        public void setValue(DataValue value) {
+            lastValue = value;
+            valueCount.incrementAndGet();
+            latch.countDown();
+        }
+
+        @Override
+        public void setQuality(StatusCode quality) {}
+
+        @Override
+        public double getSamplingInterval() {
+            return samplingInterval;
+        }
+
+        @Override
+        public UInteger getId() {
+            return uint(0);
+        }
+
+        @Override
+        public UInteger getSubscriptionId() {
+            return uint(0);
+        }
+
+        @Override
+        public ReadValueId getReadValueId() {
+            return readValueId;
+        }
+
+        @Override
+        public TimestampsToReturn getTimestampsToReturn() {
+            return TimestampsToReturn.Both;
+        }
+
+        @Override
+        public boolean isSamplingEnabled() {
+            return samplingEnabled;
+        }
+
+    }
+
+}
@@ -56,6 +56,7 @@ import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.UaServiceFaultException;
 import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
@@ -66,8 +67,12 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.HistoryReadValueId;
 import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
 import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadRawModifiedDetails;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.eclipse.milo.opcua.stack.core.types.structured.UserTokenPolicy;
 import org.eclipse.milo.opcua.stack.core.util.CryptoRestrictions;
@@ -239,6 +244,32 @@ public class OpcUaClientIT {
         assertNotNull(currentTimeNode.getValue().get());
     }
 
+    @Test
+    public void testHistoryRead_ReleaseUnknownContinuationPoint() throws Exception {
+        logger.info("testHistoryRead_ReleaseUnknownContinuationPoint()");
+
+        HistoryReadValueId historyReadValueId = new HistoryReadValueId(
+            Identifiers.Server_ServerStatus_CurrentTime,
+            null,
+            QualifiedName.NULL_VALUE,
+            ByteString.of(new byte[]{1, 2, 3, 4})
+        );
+
+        ReadRawModifiedDetails details = new ReadRawModifiedDetails(
+            false, DateTime.MIN_VALUE, DateTime.now(), uint(0), false);
+
+        HistoryReadResponse response = client.historyRead(
+            details,
+            TimestampsToReturn.Both,
+            true,
+            newArrayList(historyReadValueId)
+        ).get();
+
+        HistoryReadResult result = response.getResults()[0];
+
+        assertEquals(result.getStatusCode().getValue(), StatusCodes.Bad_ContinuationPointInvalid);
+    }
+
     @Test
     public void testWrite() throws Exception {
         logger.info("testWrite()");
@@ -352,6 +383,39 @@ public class OpcUaClientIT {
         future.get(5, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testSubscribe_DataChangeBatch() throws Exception {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+
+        UaSubscription subscription = client.getSubscriptionManager().createSubscription(1000.0).get();
+
+        subscription.addDataChangeBatchListener((s, batch, publishTime) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                logger.info("item={}, value={}", batch.getItem(i).getReadValueId().getNodeId(), batch.getValue(i));
+            }
+
+            future.complete(batch.getClientHandle(0));
+        });
+
+        ReadValueId readValueId = new ReadValueId(
+            Identifiers.Server_ServerStatus_State,
+            AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+
+        MonitoringParameters parameters = new MonitoringParameters(
+            uint(42),   // client handle
+            1000.0,     // sampling interval
+            null,       // no (default) filter
+            uint(10),   // queue size
+            true);      // discard oldest
+
+        MonitoredItemCreateRequest request = new MonitoredItemCreateRequest(
+            readValueId, MonitoringMode.Reporting, parameters);
+
+        subscription.createMonitoredItems(TimestampsToReturn.Both, newArrayList(request)).get();
+
+        assertEquals(future.get(5, TimeUnit.SECONDS), Long.valueOf(42L));
+    }
+
     @Test(enabled = false)
     public void testTransferSubscriptions() throws Exception {
         logger.info("testTransferSubscriptions()");
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.eclipse.milo.opcua.stack.core.util.FutureUtils.failedUaFuture;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class OperationSplitterTest {
+
+    @Test
+    public void testSplitAndCombineInOrder() throws Exception {
+        List<String> operations = Lists.newArrayList("a", "b", "c", "d", "e", "f", "g");
+        List<List<String>> sent = Lists.newCopyOnWriteArrayList();
+        List<CompletableFuture<ReadResponse>> pending = Lists.newCopyOnWriteArrayList();
+
+        CompletableFuture<ReadResponse> future = OperationSplitter.split(
+            operations,
+            uint(2),
+            2,
+            chunk -> {
+                sent.add(chunk);
+                CompletableFuture<ReadResponse> f = new CompletableFuture<>();
+                pending.add(f);
+                return f;
+            },
+            OperationSplitter::failedReads,
+            OperationSplitter::combineReads
+        );
+
+        // no more than 2 requests outstanding at once
+        assertEquals(sent.size(), 2);
+
+        // complete out of order; results still come back in the order of the operations
+        pending.get(1).complete(response(sent.get(1)));
+        assertEquals(sent.size(), 3);
+        pending.get(2).complete(response(sent.get(2)));
+        assertEquals(sent.size(), 4);
+        pending.get(0).complete(response(sent.get(0)));
+        pending.get(3).complete(response(sent.get(3)));
+
+        ReadResponse response = future.get(5, TimeUnit.SECONDS);
+
+        assertEquals(sent.get(3), Lists.newArrayList("g"));
+        assertEquals(values(response), Lists.<Object>newArrayList(operations));
+        assertEquals(response.getDiagnosticInfos().length, 0);
+    }
+
+    @Test
+    public void testNoLimitIsSentAsIs() throws Exception {
+        List<String> operations = Lists.newArrayList("a", "b", "c");
+        List<List<String>> sent = Lists.newArrayList();
+
+        ReadResponse response = OperationSplitter.split(
+            operations,
+            uint(0),
+            1,
+            chunk -> {
+                sent.add(chunk);
+                return CompletableFuture.completedFuture(response(chunk));
+            },
+            OperationSplitter::failedReads,
+            OperationSplitter::combineReads
+        ).get(5, TimeUnit.SECONDS);
+
+        assertEquals(sent.size(), 1);
+        assertEquals(values(response), Lists.<Object>newArrayList(operations));
+    }
+
+    @Test
+    public void testFailedRequestFillsItsResults() throws Exception {
+        List<WriteValue> operations = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            operations.add(new WriteValue(NodeId.NULL_VALUE, uint(13), null, new DataValue(new Variant(i))));
+        }
+        List<List<WriteValue>> sent = Lists.newArrayList();
+
+        WriteResponse response = OperationSplitter.split(
+            operations,
+            uint(2),
+            1,
+            chunk -> {
+                sent.add(chunk);
+
+                if (sent.size() == 2) {
+                    return failedUaFuture(StatusCodes.Bad_TooManyOperations);
+                } else {
+                    StatusCode[] results = new StatusCode[chunk.size()];
+                    Arrays.fill(results, StatusCode.GOOD);
+
+                    return CompletableFuture.completedFuture(new WriteResponse(new ResponseHeader(), results, null));
+                }
+            },
+            OperationSplitter::failedWrites,
+            OperationSplitter::combineWrites
+        ).get(5, TimeUnit.SECONDS);
+
+        // the writes of the other requests took effect, so the call completes with a result for every operation
+        assertEquals(sent.size(), 3);
+        assertEquals(
+            Lists.newArrayList(response.getResults()),
+            Lists.newArrayList(
+                StatusCode.GOOD,
+                StatusCode.GOOD,
+                new StatusCode(StatusCodes.Bad_TooManyOperations),
+                new StatusCode(StatusCodes.Bad_TooManyOperations),
+                StatusCode.GOOD)
+        );
+        assertNotNull(response.getResponseHeader());
+    }
+
+    @Test
+    public void testEveryRequestFailedFailsTheCall() throws Exception {
+        List<String> operations = Lists.newArrayList("a", "b", "c", "d", "e", "f");
+        List<List<String>> sent = Lists.newArrayList();
+
+        CompletableFuture<ReadResponse> future = OperationSplitter.split(
+            operations,
+            uint(2),
+            1,
+            chunk -> {
+                sent.add(chunk);
+
+                return failedUaFuture(sent.size() == 1 ? StatusCodes.Bad_SessionIdInvalid : StatusCodes.Bad_Timeout);
+            },
+            OperationSplitter::failedReads,
+            OperationSplitter::combineReads
+        );
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UaException);
+            assertEquals(((UaException) e.getCause()).getStatusCode().getValue(), StatusCodes.Bad_SessionIdInvalid);
+        }
+
+        assertEquals(sent.size(), 3);
+    }
+
+    private static ReadResponse response(List<String> operations) {
+        DataValue[] results = operations.stream()
+            .map(o -> new DataValue(new Variant(o)))
+            .toArray(DataValue[]::new);
+
+        return new ReadResponse(new ResponseHeader(), results, null);
+    }
+
+    private static List<Object> values(ReadResponse response) {
+        List<Object> values = Lists.newArrayList();
+
+        for (DataValue value : response.getResults()) {
+            values.add(value.getValue().getValue());
+        }
+
+        return values;
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.StatusCodes;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.WriteValue;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.eclipse.milo.opcua.stack.core.util.FutureUtils.failedUaFuture;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RequestBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<List<ReadValueId>> readRequests = Lists.newCopyOnWriteArrayList();
+    private final List<List<WriteValue>> writeRequests = Lists.newCopyOnWriteArrayList();
+
+    @AfterClass
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testReadsAreCoalescedAndSplit() throws Exception {
+        readRequests.clear();
+
+        RequestBatcher batcher = new RequestBatcher(this::read, this::write, 50, () -> 1000, () -> 1000, scheduler);
+
+        CompletableFuture<ReadResponse> f1 = batcher.read(0.0, TimestampsToReturn.Both, readValueIds("a", "b"));
+        CompletableFuture<ReadResponse> f2 = batcher.read(0.0, TimestampsToReturn.Both, readValueIds("c"));
+        CompletableFuture<ReadResponse> f3 = batcher.read(0.0, TimestampsToReturn.Neither, readValueIds("d"));
+
+        assertEquals(values(f1.get(5, TimeUnit.SECONDS)), Lists.newArrayList("a", "b"));
+        assertEquals(values(f2.get(5, TimeUnit.SECONDS)), Lists.newArrayList("c"));
+        assertEquals(values(f3.get(5, TimeUnit.SECONDS)), Lists.newArrayList("d"));
+
+        // a and b and c share a request; d has different TimestampsToReturn
+        assertEquals(readRequests.size(), 2);
+    }
+
+    @Test
+    public void testFullBatchIsSentWithoutWaiting() throws Exception {
+        writeRequests.clear();
+
+        RequestBatcher batcher = new RequestBatcher(this::read, this::write, 60000, () -> 3, () -> 3, scheduler);
+
+        CompletableFuture<WriteResponse> f1 = batcher.write(writeValues("a", "b"));
+        CompletableFuture<WriteResponse> f2 = batcher.write(writeValues("c"));
+        CompletableFuture<WriteResponse> f3 = batcher.write(writeValues("d", "e", "f"));
+
+        assertEquals(f1.get(5, TimeUnit.SECONDS).getResults().length, 2);
+        assertEquals(f2.get(5, TimeUnit.SECONDS).getResults().length, 1);
+        assertEquals(f3.get(5, TimeUnit.SECONDS).getResults().length, 3);
+
+        assertEquals(writeRequests.size(), 2);
+        assertEquals(writeRequests.get(0).size(), 3);
+    }
+
+    @Test
+    public void testFailureIsSharedByEveryCaller() throws Exception {
+        RequestBatcher batcher = new RequestBatcher(
+            (maxAge, timestamps, ids) -> failedUaFuture(StatusCodes.Bad_TooManyOperations),
+            this::write,
+            10,
+            () -> 1000,
+            () -> 1000,
+            scheduler
+        );
+
+        CompletableFuture<ReadResponse> f1 = batcher.read(0.0, TimestampsToReturn.Both, readValueIds("a"));
+        CompletableFuture<ReadResponse> f2 = batcher.read(0.0, TimestampsToReturn.Both, readValueIds("b"));
+
+        for (CompletableFuture<ReadResponse> f : Lists.newArrayList(f1, f2)) {
+            try {
+                f.get(5, TimeUnit.SECONDS);
+                fail("expected failure");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof UaException);
+                assertEquals(((UaException) e.getCause()).getStatusCode().getValue(), StatusCodes.Bad_TooManyOperations);
+            }
+        }
+    }
+
+    @Test
+    public void testCoalescersDroppedOnceSent() throws Exception {
+        RequestBatcher batcher = new RequestBatcher(this::read, this::write, 10, () -> 1000, () -> 1000, scheduler);
+
+        List<CompletableFuture<ReadResponse>> futures = Lists.newArrayList();
+
+        // e.g. a caller that computes maxAge for every read
+        for (int i = 0; i < 100; i++) {
+            futures.add(batcher.read(i / 10.0, TimestampsToReturn.Both, readValueIds("a")));
+        }
+
+        for (CompletableFuture<ReadResponse> f : futures) {
+            assertEquals(values(f.get(5, TimeUnit.SECONDS)), Lists.newArrayList("a"));
+        }
+
+        assertEquals(batcher.getReadCoalescerCount(), 0);
+    }
+
+    private CompletableFuture<ReadResponse> read(
+        double maxAge,
+        TimestampsToReturn timestampsToReturn,
+        List<ReadValueId> readValueIds) {
+
+        readRequests.add(readValueIds);
+
+        DataValue[] results = readValueIds.stream()
+            .map(id -> new DataValue(new Variant(id.getNodeId().getIdentifier())))
+            .toArray(DataValue[]::new);
+
+        return CompletableFuture.completedFuture(new ReadResponse(new ResponseHeader(), results, null));
+    }
+
+    private CompletableFuture<WriteResponse> write(List<WriteValue> writeValues) {
+        writeRequests.add(writeValues);
+
+        StatusCode[] results = writeValues.stream()
+            .map(v -> StatusCode.GOOD)
+            .toArray(StatusCode[]::new);
+
+        return CompletableFuture.completedFuture(new WriteResponse(new ResponseHeader(), results, null));
+    }
+
+    private static List<ReadValueId> readValueIds(String... ids) {
+        List<ReadValueId> readValueIds = Lists.newArrayList();
+
+        for (String id : ids) {
+            readValueIds.add(new ReadValueId(
+                new NodeId(2, id), AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE));
+        }
+
+        return readValueIds;
+    }
+
+    private static List<WriteValue> writeValues(String... ids) {
+        List<WriteValue> writeValues = Lists.newArrayList();
+
+        for (String id : ids) {
+            writeValues.add(new WriteValue(
+                new NodeId(2, id), AttributeId.Value.uid(), null, new DataValue(new Variant(id))));
+        }
+
+        return writeValues;
+    }
+
+    private static List<Object> values(ReadResponse response) {
+        List<Object> values = Lists.newArrayList();
+
+        for (DataValue value : response.getResults()) {
+            values.add(value.getValue().getValue());
+        }
+
+        return values;
+    }
+
+}
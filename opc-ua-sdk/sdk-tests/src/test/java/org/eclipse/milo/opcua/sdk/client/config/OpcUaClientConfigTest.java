@@ -16,12 +16,15 @@ package org.eclipse.milo.opcua.sdk.client.config;
 import org.eclipse.milo.opcua.binaryschema.GenericBsdParser;
 import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
 import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.testng.annotations.Test;
 
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
 
 public class OpcUaClientConfigTest {
 
@@ -33,6 +36,12 @@ public class OpcUaClientConfigTest {
             .setRequestTimeout(uint(120000))
             .setMaxResponseMessageSize(UInteger.MAX)
             .setMaxPendingPublishRequests(uint(2))
+            .setNotificationDeliveryMode(NotificationDeliveryMode.PER_SUBSCRIPTION)
+            .setNotificationDeliveryLagThreshold(uint(100))
+            .setMaxQueuedNotificationMessages(uint(20))
+            .setAdaptivePublishPipeliningEnabled(true)
+            .setRequestBatchingWindow(uint(5))
+            .setMaxInFlightSplitRequests(uint(8))
             .setIdentityProvider(new AnonymousProvider())
             .setBsdParser(new GenericBsdParser())
             .build();
@@ -44,6 +53,12 @@ public class OpcUaClientConfigTest {
         assertEquals(copy.getRequestTimeout(), original.getRequestTimeout());
         assertEquals(copy.getMaxResponseMessageSize(), original.getMaxResponseMessageSize());
         assertEquals(copy.getMaxPendingPublishRequests(), original.getMaxPendingPublishRequests());
+        assertEquals(copy.getNotificationDeliveryMode(), original.getNotificationDeliveryMode());
+        assertEquals(copy.getNotificationDeliveryLagThreshold(), original.getNotificationDeliveryLagThreshold());
+        assertEquals(copy.getMaxQueuedNotificationMessages(), original.getMaxQueuedNotificationMessages());
+        assertEquals(copy.isAdaptivePublishPipeliningEnabled(), original.isAdaptivePublishPipeliningEnabled());
+        assertEquals(copy.getRequestBatchingWindow(), original.getRequestBatchingWindow());
+        assertEquals(copy.getMaxInFlightSplitRequests(), original.getMaxInFlightSplitRequests());
         assertEquals(copy.getIdentityProvider(), original.getIdentityProvider());
         assertEquals(copy.getBsdParser(), original.getBsdParser());
     }
@@ -66,6 +81,12 @@ public class OpcUaClientConfigTest {
                     .setRequestTimeout(uint(0))
                     .setMaxResponseMessageSize(uint(0))
                     .setMaxPendingPublishRequests(uint(0))
+                    .setNotificationDeliveryMode(NotificationDeliveryMode.PER_SUBSCRIPTION)
+                    .setNotificationDeliveryLagThreshold(uint(100))
+                    .setMaxQueuedNotificationMessages(uint(20))
+                    .setAdaptivePublishPipeliningEnabled(true)
+                    .setRequestBatchingWindow(uint(5))
+                    .setMaxInFlightSplitRequests(uint(8))
                     .setIdentityProvider(new AnonymousProvider())
                     .setBsdParser(new GenericBsdParser())
         );
@@ -78,6 +99,17 @@ public class OpcUaClientConfigTest {
         assertEquals(copy.getRequestTimeout(), uint(0));
         assertEquals(copy.getMaxResponseMessageSize(), uint(0));
         assertEquals(copy.getMaxPendingPublishRequests(), uint(0));
+        assertEquals(original.getNotificationDeliveryMode(), NotificationDeliveryMode.SERIAL);
+        assertEquals(copy.getNotificationDeliveryMode(), NotificationDeliveryMode.PER_SUBSCRIPTION);
+        assertEquals(copy.getNotificationDeliveryLagThreshold(), uint(100));
+        assertEquals(original.getMaxQueuedNotificationMessages(), uint(10));
+        assertEquals(copy.getMaxQueuedNotificationMessages(), uint(20));
+        assertFalse(original.isAdaptivePublishPipeliningEnabled());
+        assertTrue(copy.isAdaptivePublishPipeliningEnabled());
+        assertEquals(original.getRequestBatchingWindow(), uint(0));
+        assertEquals(copy.getRequestBatchingWindow(), uint(5));
+        assertEquals(original.getMaxInFlightSplitRequests(), uint(4));
+        assertEquals(copy.getMaxInFlightSplitRequests(), uint(8));
     }
 
 }
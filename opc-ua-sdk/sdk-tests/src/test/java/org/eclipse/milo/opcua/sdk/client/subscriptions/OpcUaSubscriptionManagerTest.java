@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.subscriptions;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.OpcUaSession;
+import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.NotificationDeliveryMode;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.client.UaTcpStackClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UByte;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.CreateMonitoredItemsResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.CreateSubscriptionResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateResult;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.NotificationMessage;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.PublishResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
+import org.jooq.lambda.tuple.Tuple2;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class OpcUaSubscriptionManagerTest {
+
+    private BlockingQueue<CompletableFuture<PublishResponse>> publishRequests;
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp() {
+        // a fresh queue each time, so PublishRequests from a previous test's manager can't be answered by mistake
+        publishRequests = new LinkedBlockingQueue<>();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDeliveredInOrderWithinSubscription() throws Exception {
+        OpcUaSubscriptionManager manager = newManager(uint(10));
+        UaSubscription subscription = manager.createSubscription(100.0).get(5, TimeUnit.SECONDS);
+
+        List<Long> delivered = Lists.newCopyOnWriteArrayList();
+        CountDownLatch allDelivered = new CountDownLatch(5);
+
+        subscription.addNotificationListener(new UaSubscription.NotificationListener() {
+            @Override
+            public void onDataChangeNotification(
+                UaSubscription subscription,
+                ImmutableList<Tuple2<UaMonitoredItem, DataValue>> itemValues,
+                DateTime publishTime) {
+
+                delivered.add(publishTime.getUtcTime());
+                allDelivered.countDown();
+            }
+        });
+
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            publish(subscription, sequence);
+        }
+
+        assertTrue(allDelivered.await(5, TimeUnit.SECONDS));
+        assertEquals(delivered, Lists.newArrayList(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    public void testSubscriptionsDeliveredInParallel() throws Exception {
+        OpcUaSubscriptionManager manager = newManager(uint(10));
+        UaSubscription slow = manager.createSubscription(100.0).get(5, TimeUnit.SECONDS);
+        UaSubscription fast = manager.createSubscription(100.0).get(5, TimeUnit.SECONDS);
+
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch slowReleased = new CountDownLatch(1);
+        CountDownLatch fastDelivered = new CountDownLatch(1);
+
+        slow.addNotificationListener(blockingListener(slowStarted, slowReleased));
+        fast.addNotificationListener(blockingListener(fastDelivered, new CountDownLatch(0)));
+
+        try {
+            publish(slow, 1);
+            assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+            // the slow consumer doesn't hold up delivery to the other subscription
+            publish(fast, 1);
+            assertTrue(fastDelivered.await(5, TimeUnit.SECONDS));
+        } finally {
+            slowReleased.countDown();
+        }
+    }
+
+    @Test
+    public void testBacklogIsBounded() throws Exception {
+        OpcUaSubscriptionManager manager = newManager(uint(2));
+        OpcUaSubscription subscription = (OpcUaSubscription) manager.createSubscription(100.0)
+            .get(5, TimeUnit.SECONDS);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+
+        subscription.addNotificationListener(blockingListener(started, released));
+
+        try {
+            // one subscription keeps 2 PublishRequests outstanding; the first 2 NotificationMessages queued release
+            // their PublishRequests right away, the next 2 hold theirs until they've been delivered.
+            for (long sequence = 1; sequence <= 4; sequence++) {
+                publish(subscription, sequence);
+            }
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertNull(publishRequests.poll(500, TimeUnit.MILLISECONDS));
+            assertEquals(subscription.getQueuedNotificationCount(), 4);
+        } finally {
+            released.countDown();
+        }
+
+        // publishing resumes once the backlog is delivered
+        assertNotNull(publishRequests.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDataChangeBatchClearedWhenValueConsumerThrows() throws Exception {
+        OpcUaSubscriptionManager manager = newManager(uint(10));
+        UaSubscription subscription = manager.createSubscription(100.0).get(5, TimeUnit.SECONDS);
+
+        List<UaMonitoredItem> items = subscription.createMonitoredItems(
+            TimestampsToReturn.Both,
+            Lists.newArrayList(newCreateRequest(1), newCreateRequest(2))
+        ).get(5, TimeUnit.SECONDS);
+
+        AtomicBoolean throwing = new AtomicBoolean(true);
+        items.get(1).setValueConsumer(value -> {
+            if (throwing.getAndSet(false)) throw new RuntimeException("consumer failed");
+        });
+
+        BlockingQueue<List<Long>> batches = new LinkedBlockingQueue<>();
+
+        subscription.addDataChangeBatchListener((s, batch, publishTime) -> {
+            List<Long> clientHandles = Lists.newArrayList();
+            for (int i = 0; i < batch.size(); i++) {
+                clientHandles.add(batch.getClientHandle(i));
+            }
+            batches.add(clientHandles);
+        });
+
+        // item 1 is already in the batch when item 2's consumer throws, so this batch is never delivered
+        publish(subscription, 1, 1L, 2L);
+        publish(subscription, 2, 1L, 2L);
+
+        assertEquals(batches.poll(5, TimeUnit.SECONDS), Lists.newArrayList(1L, 2L));
+    }
+
+    private OpcUaSubscriptionManager newManager(UInteger maxQueuedNotificationMessages) {
+        OpcUaClientConfig config = Mockito.mock(OpcUaClientConfig.class);
+        Mockito.when(config.getExecutor()).thenReturn(executor);
+        Mockito.when(config.getChannelConfig()).thenReturn(ChannelConfig.DEFAULT);
+        Mockito.when(config.getRequestTimeout()).thenReturn(uint(60000));
+        Mockito.when(config.getMaxPendingPublishRequests()).thenReturn(UInteger.MAX);
+        Mockito.when(config.getNotificationDeliveryMode()).thenReturn(NotificationDeliveryMode.PER_SUBSCRIPTION);
+        Mockito.when(config.getNotificationDeliveryLagThreshold()).thenReturn(uint(0));
+        Mockito.when(config.getMaxQueuedNotificationMessages()).thenReturn(maxQueuedNotificationMessages);
+
+        UaTcpStackClient stackClient = Mockito.mock(UaTcpStackClient.class);
+        Mockito.when(stackClient.getExecutorService()).thenReturn(executor);
+
+        OpcUaSession session = Mockito.mock(OpcUaSession.class);
+        Mockito.when(session.getSessionId()).thenReturn(new NodeId(1, "session"));
+
+        BlockingQueue<CompletableFuture<PublishResponse>> publishRequests = this.publishRequests;
+        AtomicInteger subscriptionIds = new AtomicInteger(0);
+
+        OpcUaClient client = Mockito.mock(OpcUaClient.class);
+        Mockito.when(client.getConfig()).thenReturn(config);
+        Mockito.when(client.getStackClient()).thenReturn(stackClient);
+        Mockito.when(client.getSession()).thenReturn(completedFuture(session));
+        Mockito.when(client.nextRequestHandle()).thenReturn(uint(0));
+
+        Mockito
+            .when(client.createSubscription(anyDouble(), any(), any(), any(), anyBoolean(), any(UByte.class)))
+            .then(invocationOnMock -> completedFuture(new CreateSubscriptionResponse(
+                null,
+                uint(subscriptionIds.incrementAndGet()),
+                invocationOnMock.getArgument(0),
+                invocationOnMock.getArgument(1),
+                invocationOnMock.getArgument(2)
+            )));
+
+        Mockito
+            .when(client.createMonitoredItems(any(), any(), any()))
+            .then(invocationOnMock -> {
+                List<MonitoredItemCreateRequest> itemsToCreate = invocationOnMock.getArgument(2);
+
+                MonitoredItemCreateResult[] results = itemsToCreate.stream()
+                    .map(r -> new MonitoredItemCreateResult(
+                        StatusCode.GOOD,
+                        r.getRequestedParameters().getClientHandle(),
+                        r.getRequestedParameters().getSamplingInterval(),
+                        r.getRequestedParameters().getQueueSize(),
+                        null))
+                    .toArray(MonitoredItemCreateResult[]::new);
+
+                return completedFuture(new CreateMonitoredItemsResponse(null, results, null));
+            });
+
+        Mockito
+            .when(client.<PublishResponse>sendRequest(any(PublishRequest.class)))
+            .then(invocationOnMock -> {
+                CompletableFuture<PublishResponse> future = new CompletableFuture<>();
+                publishRequests.add(future);
+                return future;
+            });
+
+        return new OpcUaSubscriptionManager(client);
+    }
+
+    /**
+     * Answer the next outstanding PublishRequest with a NotificationMessage for {@code subscription}, published at
+     * {@code sequence} so listeners can tell the NotificationMessages apart.
+     */
+    private void publish(UaSubscription subscription, long sequence) throws Exception {
+        publish(subscription, sequence, 1L);
+    }
+
+    /**
+     * Answer the next outstanding PublishRequest with a NotificationMessage for {@code subscription} that has a value
+     * change for each of {@code clientHandles}.
+     */
+    private void publish(UaSubscription subscription, long sequence, long... clientHandles) throws Exception {
+        CompletableFuture<PublishResponse> publishRequest = publishRequests.poll(5, TimeUnit.SECONDS);
+        assertNotNull(publishRequest);
+
+        // wait for the manager to be listening for the response; completing it any earlier would hand it to the
+        // manager after a response completed later, out of order.
+        while (publishRequest.getNumberOfDependents() == 0) {
+            Thread.sleep(1);
+        }
+
+        MonitoredItemNotification[] monitoredItems = new MonitoredItemNotification[clientHandles.length];
+        for (int i = 0; i < clientHandles.length; i++) {
+            monitoredItems[i] = new MonitoredItemNotification(
+                uint(clientHandles[i]), new DataValue(new Variant(sequence)));
+        }
+
+        DataChangeNotification notification = new DataChangeNotification(monitoredItems, null);
+
+        NotificationMessage notificationMessage = new NotificationMessage(
+            uint(sequence),
+            new DateTime(sequence),
+            new ExtensionObject[]{ExtensionObject.encode(notification)}
+        );
+
+        publishRequest.complete(new PublishResponse(
+            new ResponseHeader(),
+            subscription.getSubscriptionId(),
+            new UInteger[0],
+            false,
+            notificationMessage,
+            null,
+            null
+        ));
+    }
+
+    private static MonitoredItemCreateRequest newCreateRequest(long clientHandle) {
+        ReadValueId readValueId = new ReadValueId(
+            new NodeId(2, "item" + clientHandle),
+            AttributeId.Value.uid(),
+            null,
+            QualifiedName.NULL_VALUE
+        );
+
+        MonitoringParameters parameters = new MonitoringParameters(
+            uint(clientHandle),
+            100.0,
+            null,
+            uint(10),
+            true
+        );
+
+        return new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+    }
+
+    private static UaSubscription.NotificationListener blockingListener(
+        CountDownLatch started, CountDownLatch released) {
+
+        return new UaSubscription.NotificationListener() {
+            @Override
+            public void onDataChangeNotification(
+                UaSubscription subscription,
+                ImmutableList<Tuple2<UaMonitoredItem, DataValue>> itemValues,
+                DateTime publishTime) {
+
+                started.countDown();
+
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+}
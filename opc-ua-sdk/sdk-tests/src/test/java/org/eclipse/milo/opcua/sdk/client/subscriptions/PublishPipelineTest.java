@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.sdk.client.subscriptions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class PublishPipelineTest {
+
+    @Test
+    public void testTargetCoversRoundTrip() {
+        PublishPipeline pipeline = new PublishPipeline();
+
+        // nothing measured yet: one per subscription plus one
+        assertEquals(pipeline.computeTarget(1, 1.0 / 100.0, Long.MAX_VALUE), 2L);
+
+        // a 250ms round trip at a 100ms publishing interval needs 3 in flight, plus one
+        pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(250), false);
+        assertEquals(pipeline.computeTarget(1, 1.0 / 100.0, Long.MAX_VALUE), 4L);
+
+        // a slower response, held by the server, doesn't raise the estimate
+        pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(900), false);
+        assertEquals(pipeline.getRoundTripNanos(), TimeUnit.MILLISECONDS.toNanos(250));
+
+        assertEquals(pipeline.computeTarget(1, 1.0 / 100.0, 3L), 3L);
+        assertEquals(pipeline.computeTarget(0, 0.0, Long.MAX_VALUE), 0L);
+    }
+
+    @Test
+    public void testMoreNotificationsAndTooManyPublishRequests() {
+        PublishPipeline pipeline = new PublishPipeline();
+
+        pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(1), true);
+        pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertEquals(pipeline.computeTarget(1, 1.0 / 1000.0, Long.MAX_VALUE), 4L);
+
+        pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(1), false);
+        assertEquals(pipeline.computeTarget(1, 1.0 / 1000.0, Long.MAX_VALUE), 3L);
+
+        for (int i = 0; i < 100; i++) {
+            pipeline.onPublishResponse(TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertEquals(pipeline.computeTarget(1, 1.0 / 1000.0, Long.MAX_VALUE), 2L + PublishPipeline.MAX_BURST);
+
+        pipeline.onTooManyPublishRequests(4L);
+        assertEquals(pipeline.getLimit(), 3L);
+        assertEquals(pipeline.computeTarget(10, 1.0, Long.MAX_VALUE), 3L);
+
+        pipeline.reset();
+        assertEquals(pipeline.getLimit(), Long.MAX_VALUE);
+        assertEquals(pipeline.computeTarget(10, 1.0, Long.MAX_VALUE), 11L);
+    }
+
+    @Test
+    public void testGaps() {
+        PublishPipeline pipeline = new PublishPipeline();
+
+        pipeline.onPublishSent(100L);
+        assertEquals(pipeline.getGapCount(), 0L);
+
+        pipeline.onIdle(1000L);
+        pipeline.onIdle(1500L);
+        pipeline.onPublishSent(3000L);
+
+        pipeline.onIdle(4000L);
+        pipeline.onPublishSent(4500L);
+
+        assertEquals(pipeline.getGapCount(), 2L);
+        assertEquals(pipeline.getTotalGapNanos(), 2500L);
+        assertEquals(pipeline.getMaxGapNanos(), 2000L);
+    }
+
+}
@@ -70,8 +70,8 @@ import org.eclipse.milo.opcua.stack.core.types.structured.GetEndpointsResponse;
 import org.eclipse.milo.opcua.stack.core.types.structured.RequestHeader;
 import org.eclipse.milo.opcua.stack.core.types.structured.ResponseHeader;
 import org.eclipse.milo.opcua.stack.core.types.structured.ServiceFault;
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
 import org.eclipse.milo.opcua.stack.core.util.CertificateUtil;
-import org.eclipse.milo.opcua.stack.core.util.ExecutionQueue;
 import org.eclipse.milo.opcua.stack.core.util.LongSequence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,7 +89,7 @@ public class UaTcpStackClient implements UaStackClient {
     private final Map<UInteger, CompletableFuture<UaResponseMessage>> pending = Maps.newConcurrentMap();
     private final Map<UInteger, Timeout> timeouts = Maps.newConcurrentMap();
 
-    private final ExecutionQueue deliveryQueue;
+    private final BatchingExecutionQueue deliveryQueue;
 
     private final HashedWheelTimer wheelTimer;
 
@@ -102,7 +102,7 @@ public class UaTcpStackClient implements UaStackClient {
     public UaTcpStackClient(UaTcpStackClientConfig config) {
         this.config = config;
 
-        deliveryQueue = new ExecutionQueue(config.getExecutor());
+        deliveryQueue = new BatchingExecutionQueue(config.getExecutor());
 
         wheelTimer = config.getWheelTimer();
 
@@ -409,6 +409,14 @@ public class UaTcpStackClient implements UaStackClient {
         return config.getExecutor();
     }
 
+    /**
+     * @return the {@link BatchingExecutionQueue} responses are delivered on, e.g. to observe its depth and hop
+     * latency.
+     */
+    public BatchingExecutionQueue getDeliveryQueue() {
+        return deliveryQueue;
+    }
+
     public static CompletableFuture<ClientSecureChannel> bootstrap(UaTcpStackClient client) {
 
         CompletableFuture<ClientSecureChannel> handshake = new CompletableFuture<>();
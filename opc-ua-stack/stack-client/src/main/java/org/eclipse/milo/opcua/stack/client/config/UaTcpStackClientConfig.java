@@ -27,6 +27,7 @@ import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+import org.eclipse.milo.opcua.stack.core.util.BoundedExecutorService;
 
 public interface UaTcpStackClientConfig {
 
@@ -105,6 +106,7 @@ public interface UaTcpStackClientConfig {
 
     /**
      * @return the {@link ExecutorService} the {@link UaTcpStackClient} will use.
+     * @see BoundedExecutorService
      */
     ExecutorService getExecutor();
 
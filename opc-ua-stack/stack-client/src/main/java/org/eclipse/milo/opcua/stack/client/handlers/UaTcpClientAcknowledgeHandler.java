@@ -196,7 +196,9 @@ public class UaTcpClientAcknowledgeHandler extends ByteToMessageCodec<UaRequestF
                 client.getConfig().getExecutor(),
                 parameters,
                 maxArrayLength,
-                maxStringLength
+                maxStringLength,
+                client.getChannelConfig().isPooledSerialization(),
+                client.getChannelConfig().isLazyDataValues()
             );
 
             UaTcpClientMessageHandler handler = new UaTcpClientMessageHandler(
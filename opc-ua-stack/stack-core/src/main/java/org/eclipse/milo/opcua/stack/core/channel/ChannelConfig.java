@@ -14,6 +14,8 @@
 package org.eclipse.milo.opcua.stack.core.channel;
 
 import com.google.common.base.Preconditions;
+import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 
 public class ChannelConfig {
 
@@ -45,11 +47,27 @@ public class ChannelConfig {
     public static final int DEFAULT_MAX_ARRAY_LENGTH = 65535;
     public static final int DEFAULT_MAX_STRING_LENGTH = 65535;
 
+    /**
+     * Pooled serialization is disabled by default.
+     *
+     * @see #isPooledSerialization()
+     */
+    public static final boolean DEFAULT_POOLED_SERIALIZATION = false;
+
+    /**
+     * Lazy decoding of DataValues is disabled by default.
+     *
+     * @see #isLazyDataValues()
+     */
+    public static final boolean DEFAULT_LAZY_DATA_VALUES = false;
+
     private final int maxChunkSize;
     private final int maxChunkCount;
     private final int maxMessageSize;
     private final int maxArrayLength;
     private final int maxStringLength;
+    private final boolean pooledSerialization;
+    private final boolean lazyDataValues;
 
     /**
      * Create a {@link ChannelConfig} using the default parameters.
@@ -59,13 +77,17 @@ public class ChannelConfig {
      * @see ChannelConfig#DEFAULT_MAX_MESSAGE_SIZE
      * @see ChannelConfig#DEFAULT_MAX_ARRAY_LENGTH
      * @see ChannelConfig#DEFAULT_MAX_STRING_LENGTH
+     * @see ChannelConfig#DEFAULT_POOLED_SERIALIZATION
+     * @see ChannelConfig#DEFAULT_LAZY_DATA_VALUES
      */
     public ChannelConfig() {
         this(DEFAULT_MAX_CHUNK_SIZE,
             DEFAULT_MAX_CHUNK_COUNT,
             DEFAULT_MAX_MESSAGE_SIZE,
             DEFAULT_MAX_ARRAY_LENGTH,
-            DEFAULT_MAX_STRING_LENGTH);
+            DEFAULT_MAX_STRING_LENGTH,
+            DEFAULT_POOLED_SERIALIZATION,
+            DEFAULT_LAZY_DATA_VALUES);
     }
 
     /**
@@ -79,6 +101,54 @@ public class ChannelConfig {
                          int maxArrayLength,
                          int maxStringLength) {
 
+        this(maxChunkSize,
+            maxChunkCount,
+            maxMessageSize,
+            maxArrayLength,
+            maxStringLength,
+            DEFAULT_POOLED_SERIALIZATION);
+    }
+
+    /**
+     * @param maxChunkSize        The maximum size of a single chunk. Must be greater than or equal to 8192.
+     * @param maxChunkCount       The maximum number of chunks that a message can break down into.
+     * @param maxMessageSize      The maximum size of a message after all chunks have been assembled.
+     * @param pooledSerialization {@code true} if each channel should reuse its encoder and decoder rather than
+     *                            allocate new ones for every message.
+     */
+    public ChannelConfig(int maxChunkSize,
+                         int maxChunkCount,
+                         int maxMessageSize,
+                         int maxArrayLength,
+                         int maxStringLength,
+                         boolean pooledSerialization) {
+
+        this(maxChunkSize,
+            maxChunkCount,
+            maxMessageSize,
+            maxArrayLength,
+            maxStringLength,
+            pooledSerialization,
+            DEFAULT_LAZY_DATA_VALUES);
+    }
+
+    /**
+     * @param maxChunkSize        The maximum size of a single chunk. Must be greater than or equal to 8192.
+     * @param maxChunkCount       The maximum number of chunks that a message can break down into.
+     * @param maxMessageSize      The maximum size of a message after all chunks have been assembled.
+     * @param pooledSerialization {@code true} if each channel should reuse its encoder and decoder rather than
+     *                            allocate new ones for every message.
+     * @param lazyDataValues      {@code true} if the Variant in each decoded DataValue should only be decoded when its
+     *                            value is accessed.
+     */
+    public ChannelConfig(int maxChunkSize,
+                         int maxChunkCount,
+                         int maxMessageSize,
+                         int maxArrayLength,
+                         int maxStringLength,
+                         boolean pooledSerialization,
+                         boolean lazyDataValues) {
+
         Preconditions.checkArgument(maxChunkSize >= 8196,
             "maxChunkSize must be greater than or equal to 8196");
 
@@ -87,6 +157,8 @@ public class ChannelConfig {
         this.maxMessageSize = maxMessageSize;
         this.maxArrayLength = maxArrayLength;
         this.maxStringLength = maxStringLength;
+        this.pooledSerialization = pooledSerialization;
+        this.lazyDataValues = lazyDataValues;
     }
 
     public int getMaxChunkSize() {
@@ -109,4 +181,24 @@ public class ChannelConfig {
         return maxStringLength;
     }
 
+    /**
+     * @return {@code true} if each channel reuses a single encoder and decoder for every message it serializes,
+     * {@code false} if they are allocated per message.
+     */
+    public boolean isPooledSerialization() {
+        return pooledSerialization;
+    }
+
+    /**
+     * @return {@code true} if the Variant in each decoded DataValue retains its encoding and is only decoded when its
+     * value is accessed, allowing values that are passed through unchanged to be re-encoded by copying. Values copied
+     * this way keep the namespace indices of the peer they were decoded from, so only forward them unchanged to a peer
+     * with the same namespace table.
+     * @see OpcUaBinaryStreamDecoder#setLazyDataValues(boolean)
+     * @see Variant#lazy
+     */
+    public boolean isLazyDataValues() {
+        return lazyDataValues;
+    }
+
 }
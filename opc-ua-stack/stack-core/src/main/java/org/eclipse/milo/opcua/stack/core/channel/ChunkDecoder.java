@@ -23,6 +23,7 @@ import java.security.SignatureException;
 import java.util.Arrays;
 import java.util.List;
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -36,7 +37,6 @@ import org.eclipse.milo.opcua.stack.core.channel.headers.SecureMessageHeader;
 import org.eclipse.milo.opcua.stack.core.channel.headers.SequenceHeader;
 import org.eclipse.milo.opcua.stack.core.channel.headers.SymmetricSecurityHeader;
 import org.eclipse.milo.opcua.stack.core.channel.messages.ErrorMessage;
-import org.eclipse.milo.opcua.stack.core.security.SecurityAlgorithm;
 import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
 import org.eclipse.milo.opcua.stack.core.util.SignatureUtil;
 import org.slf4j.Logger;
@@ -196,19 +196,20 @@ public final class ChunkDecoder {
             callback.onMessageDecoded(message, requestId);
         }
 
+        /**
+         * Decrypt the readable bytes of {@code chunkBuffer} in place.
+         * <p>
+         * Plaintext blocks are never larger than the ciphertext blocks they come from, so block {@code n} is only ever
+         * written over ciphertext that has already been decrypted.
+         */
         private void decryptChunk(SecureChannel channel, ByteBuf chunkBuffer) throws UaException {
             int cipherTextBlockSize = getCipherTextBlockSize(channel);
             int blockCount = chunkBuffer.readableBytes() / cipherTextBlockSize;
 
-            int plainTextBufferSize = cipherTextBlockSize * blockCount;
+            int cipherTextSize = cipherTextBlockSize * blockCount;
 
-            ByteBuf plainTextBuffer = BufferUtil.buffer(plainTextBufferSize);
-
-            ByteBuffer plainTextNioBuffer = plainTextBuffer
-                .writerIndex(plainTextBufferSize)
-                .nioBuffer();
-
-            ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer();
+            ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer(chunkBuffer.readerIndex(), cipherTextSize);
+            ByteBuffer plainTextNioBuffer = chunkNioBuffer.duplicate();
 
             try {
                 Cipher cipher = getCipher(channel);
@@ -225,15 +226,11 @@ public final class ChunkDecoder {
                     cipher.doFinal(chunkNioBuffer, plainTextNioBuffer);
                 }
 
-                /* Write plainTextBuffer back into the chunk buffer we decrypted from. */
-                plainTextNioBuffer.flip(); // limit = pos, pos = 0
-
-                chunkBuffer.writerIndex(chunkBuffer.readerIndex());
-                chunkBuffer.writeBytes(plainTextNioBuffer);
+                chunkBuffer.writerIndex(chunkBuffer.readerIndex() + plainTextNioBuffer.position());
             } catch (GeneralSecurityException e) {
+                onCipherFailure();
+
                 throw new UaException(StatusCodes.Bad_SecurityChecksFailed, e);
-            } finally {
-                plainTextBuffer.release();
             }
         }
 
@@ -249,6 +246,12 @@ public final class ChunkDecoder {
 
         protected abstract Cipher getCipher(SecureChannel channel) throws UaException;
 
+        /**
+         * Called when a {@link Cipher} from {@link #getCipher(SecureChannel)} failed and may have been left in an
+         * unusable state.
+         */
+        protected void onCipherFailure() {}
+
         protected abstract int getCipherTextBlockSize(SecureChannel channel);
 
         protected abstract int getSignatureSize(SecureChannel channel);
@@ -344,6 +347,14 @@ public final class ChunkDecoder {
 
         private volatile ChannelSecurity.SecuritySecrets securitySecrets;
 
+        /**
+         * The keys {@link #cipher} and {@link #mac} were initialized with. A {@link Cipher} or {@link Mac} resets to
+         * its initialized state after each doFinal(), so both are reused until the security token changes.
+         */
+        private ChannelSecurity.SecretKeys cachedKeys;
+        private Cipher cipher;
+        private Mac mac;
+
         @Override
         public void readSecurityHeader(SecureChannel channel, ByteBuf chunkBuffer) throws UaException {
             long receivedTokenId = SymmetricSecurityHeader.decode(chunkBuffer).getTokenId();
@@ -385,22 +396,47 @@ public final class ChunkDecoder {
 
         @Override
         public Cipher getCipher(SecureChannel channel) throws UaException {
-            try {
-                String transformation = channel.getSecurityPolicy()
-                    .getSymmetricEncryptionAlgorithm().getTransformation();
+            ChannelSecurity.SecretKeys decryptionKeys = getSecretKeys(channel);
 
-                ChannelSecurity.SecretKeys decryptionKeys = channel.getDecryptionKeys(securitySecrets);
+            if (cipher == null) {
+                try {
+                    String transformation = channel.getSecurityPolicy()
+                        .getSymmetricEncryptionAlgorithm().getTransformation();
 
-                SecretKeySpec keySpec = new SecretKeySpec(decryptionKeys.getEncryptionKey(), "AES");
-                IvParameterSpec ivSpec = new IvParameterSpec(decryptionKeys.getInitializationVector());
+                    SecretKeySpec keySpec = new SecretKeySpec(decryptionKeys.getEncryptionKey(), "AES");
+                    IvParameterSpec ivSpec = new IvParameterSpec(decryptionKeys.getInitializationVector());
 
-                Cipher cipher = Cipher.getInstance(transformation);
-                cipher.init(Cipher.DECRYPT_MODE, keySpec, ivSpec);
+                    Cipher cipher = Cipher.getInstance(transformation);
+                    cipher.init(Cipher.DECRYPT_MODE, keySpec, ivSpec);
 
-                return cipher;
-            } catch (GeneralSecurityException e) {
-                throw new UaException(StatusCodes.Bad_InternalError, e);
+                    this.cipher = cipher;
+                } catch (GeneralSecurityException e) {
+                    throw new UaException(StatusCodes.Bad_InternalError, e);
+                }
             }
+
+            return cipher;
+        }
+
+        @Override
+        protected void onCipherFailure() {
+            cipher = null;
+        }
+
+        /**
+         * Get the decryption keys for the token the current chunk was secured with, discarding the cached
+         * {@link Cipher} and {@link Mac} if they were initialized for a different token.
+         */
+        private ChannelSecurity.SecretKeys getSecretKeys(SecureChannel channel) {
+            ChannelSecurity.SecretKeys secretKeys = channel.getDecryptionKeys(securitySecrets);
+
+            if (secretKeys != cachedKeys) {
+                cachedKeys = secretKeys;
+                cipher = null;
+                mac = null;
+            }
+
+            return secretKeys;
         }
 
         @Override
@@ -415,14 +451,20 @@ public final class ChunkDecoder {
 
         @Override
         public void verifyChunk(SecureChannel channel, ByteBuf chunkBuffer) throws UaException {
-            SecurityAlgorithm securityAlgorithm = channel.getSecurityPolicy().getSymmetricSignatureAlgorithm();
-            byte[] secretKey = channel.getDecryptionKeys(securitySecrets).getSignatureKey();
+            ChannelSecurity.SecretKeys decryptionKeys = getSecretKeys(channel);
             int signatureSize = channel.getSymmetricSignatureSize();
 
+            if (mac == null) {
+                mac = SignatureUtil.createMac(
+                    channel.getSecurityPolicy().getSymmetricSignatureAlgorithm(),
+                    decryptionKeys.getSignatureKey()
+                );
+            }
+
             ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer(0, chunkBuffer.writerIndex());
             chunkNioBuffer.position(0).limit(chunkBuffer.writerIndex() - signatureSize);
 
-            byte[] signature = SignatureUtil.hmac(securityAlgorithm, secretKey, chunkNioBuffer);
+            byte[] signature = SignatureUtil.hmac(mac, chunkNioBuffer);
 
             byte[] signatureBytes = new byte[signatureSize];
             chunkNioBuffer.limit(chunkNioBuffer.position() + signatureSize);
@@ -19,6 +19,7 @@ import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.List;
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -31,7 +32,6 @@ import org.eclipse.milo.opcua.stack.core.channel.headers.SecureMessageHeader;
 import org.eclipse.milo.opcua.stack.core.channel.headers.SequenceHeader;
 import org.eclipse.milo.opcua.stack.core.channel.headers.SymmetricSecurityHeader;
 import org.eclipse.milo.opcua.stack.core.channel.messages.MessageType;
-import org.eclipse.milo.opcua.stack.core.security.SecurityAlgorithm;
 import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
 import org.eclipse.milo.opcua.stack.core.util.LongSequence;
 import org.eclipse.milo.opcua.stack.core.util.SignatureUtil;
@@ -203,41 +203,63 @@ public final class ChunkEncoder {
 
                     assert (chunkBuffer.readableBytes() % plainTextBlockSize == 0);
 
-                    try {
-                        int blockCount = chunkBuffer.readableBytes() / plainTextBlockSize;
+                    int blockCount = chunkBuffer.readableBytes() / plainTextBlockSize;
 
-                        ByteBuffer chunkNioBuffer = chunkBuffer.nioBuffer(
-                            chunkBuffer.readerIndex(), blockCount * cipherTextBlockSize);
+                    encryptChunk(
+                        channel,
+                        chunkBuffer.nioBuffer(chunkBuffer.readerIndex(), blockCount * cipherTextBlockSize),
+                        blockCount,
+                        plainTextBlockSize,
+                        cipherTextBlockSize
+                    );
+                }
+
+                chunkBuffer.readerIndex(0).writerIndex(chunkSize);
+            }
+
+            callback.onMessageEncoded(chunks, requestId);
+        }
 
-                        ByteBuf copyBuffer = chunkBuffer.copy();
-                        ByteBuffer plainTextNioBuffer = copyBuffer.nioBuffer();
+        /**
+         * Encrypt the plaintext at the start of {@code chunkNioBuffer} in place.
+         * <p>
+         * Symmetric ciphertext is the same size as the plaintext, so the whole chunk is encrypted in one call that
+         * reads and writes the same memory. Asymmetric ciphertext blocks are larger than the plaintext blocks they
+         * come from, so the blocks are encrypted last to first; block {@code n} is only ever written over plaintext
+         * of blocks that have already been encrypted.
+         */
+        private void encryptChunk(
+            SecureChannel channel,
+            ByteBuffer chunkNioBuffer,
+            int blockCount,
+            int plainTextBlockSize,
+            int cipherTextBlockSize) throws UaException {
+
+            try {
+                Cipher cipher = getAndInitializeCipher(channel);
 
-                        Cipher cipher = getAndInitializeCipher(channel);
+                if (isAsymmetric()) {
+                    ByteBuffer plainTextNioBuffer = chunkNioBuffer.duplicate();
 
-                        if (isAsymmetric()) {
-                            for (int blockNumber = 0; blockNumber < blockCount; blockNumber++) {
-                                int position = blockNumber * plainTextBlockSize;
-                                int limit = (blockNumber + 1) * plainTextBlockSize;
-                                plainTextNioBuffer.position(position).limit(limit);
+                    for (int blockNumber = blockCount - 1; blockNumber >= 0; blockNumber--) {
+                        plainTextNioBuffer.limit((blockNumber + 1) * plainTextBlockSize);
+                        plainTextNioBuffer.position(blockNumber * plainTextBlockSize);
 
-                                int bytesWritten = cipher.doFinal(plainTextNioBuffer, chunkNioBuffer);
+                        chunkNioBuffer.limit((blockNumber + 1) * cipherTextBlockSize);
+                        chunkNioBuffer.position(blockNumber * cipherTextBlockSize);
 
-                                assert (bytesWritten == cipherTextBlockSize);
-                            }
-                        } else {
-                            cipher.doFinal(plainTextNioBuffer, chunkNioBuffer);
-                        }
+                        int bytesWritten = cipher.doFinal(plainTextNioBuffer, chunkNioBuffer);
 
-                        copyBuffer.release();
-                    } catch (GeneralSecurityException e) {
-                        throw new UaException(StatusCodes.Bad_SecurityChecksFailed, e);
+                        assert (bytesWritten == cipherTextBlockSize);
                     }
+                } else {
+                    cipher.doFinal(chunkNioBuffer.duplicate(), chunkNioBuffer);
                 }
+            } catch (GeneralSecurityException e) {
+                onCipherFailure();
 
-                chunkBuffer.readerIndex(0).writerIndex(chunkSize);
+                throw new UaException(StatusCodes.Bad_SecurityChecksFailed, e);
             }
-
-            callback.onMessageEncoded(chunks, requestId);
         }
 
         private void writePadding(int cipherTextBlockSize, int paddingSize, ByteBuf buffer) {
@@ -265,6 +287,12 @@ public final class ChunkEncoder {
 
         protected abstract Cipher getAndInitializeCipher(SecureChannel channel) throws UaException;
 
+        /**
+         * Called when a {@link Cipher} from {@link #getAndInitializeCipher(SecureChannel)} failed and may have been
+         * left in an unusable state.
+         */
+        protected void onCipherFailure() {}
+
         protected abstract int getSecurityHeaderSize(SecureChannel channel) throws UaException;
 
         protected abstract int getCipherTextBlockSize(SecureChannel channel);
@@ -367,6 +395,14 @@ public final class ChunkEncoder {
 
         private volatile ChannelSecurity.SecuritySecrets securitySecrets;
 
+        /**
+         * The keys {@link #cipher} and {@link #mac} were initialized with. A {@link Cipher} or {@link Mac} resets to
+         * its initialized state after each doFinal(), so both are reused until the security token changes.
+         */
+        private ChannelSecurity.SecretKeys cachedKeys;
+        private Cipher cipher;
+        private Mac mac;
+
         @Override
         public void encodeSecurityHeader(SecureChannel channel, ByteBuf buffer) {
             ChannelSecurity channelSecurity = channel.getChannelSecurity();
@@ -379,35 +415,59 @@ public final class ChunkEncoder {
 
         @Override
         public byte[] signChunk(SecureChannel channel, ByteBuffer chunkNioBuffer) throws UaException {
-            SecurityAlgorithm signatureAlgorithm = channel.getSecurityPolicy().getSymmetricSignatureAlgorithm();
-            byte[] signatureKey = channel.getEncryptionKeys(securitySecrets).getSignatureKey();
+            ChannelSecurity.SecretKeys secretKeys = getSecretKeys(channel);
 
-            return SignatureUtil.hmac(
-                signatureAlgorithm,
-                signatureKey,
-                chunkNioBuffer
-            );
+            if (mac == null) {
+                mac = SignatureUtil.createMac(
+                    channel.getSecurityPolicy().getSymmetricSignatureAlgorithm(),
+                    secretKeys.getSignatureKey()
+                );
+            }
+
+            return SignatureUtil.hmac(mac, chunkNioBuffer);
         }
 
         @Override
         public Cipher getAndInitializeCipher(SecureChannel channel) throws UaException {
-            try {
-                String transformation = channel.getSecurityPolicy()
-                    .getSymmetricEncryptionAlgorithm().getTransformation();
-                ChannelSecurity.SecretKeys secretKeys = channel.getEncryptionKeys(securitySecrets);
+            ChannelSecurity.SecretKeys secretKeys = getSecretKeys(channel);
 
-                SecretKeySpec keySpec = new SecretKeySpec(secretKeys.getEncryptionKey(), "AES");
-                IvParameterSpec ivSpec = new IvParameterSpec(secretKeys.getInitializationVector());
+            if (cipher == null) {
+                try {
+                    String transformation = channel.getSecurityPolicy()
+                        .getSymmetricEncryptionAlgorithm().getTransformation();
 
-                Cipher cipher = Cipher.getInstance(transformation);
-                cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec);
+                    SecretKeySpec keySpec = new SecretKeySpec(secretKeys.getEncryptionKey(), "AES");
+                    IvParameterSpec ivSpec = new IvParameterSpec(secretKeys.getInitializationVector());
 
-                assert (cipher.getBlockSize() == channel.getSymmetricBlockSize());
+                    Cipher cipher = Cipher.getInstance(transformation);
+                    cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec);
 
-                return cipher;
-            } catch (GeneralSecurityException e) {
-                throw new UaException(StatusCodes.Bad_SecurityChecksFailed, e);
+                    assert (cipher.getBlockSize() == channel.getSymmetricBlockSize());
+
+                    this.cipher = cipher;
+                } catch (GeneralSecurityException e) {
+                    throw new UaException(StatusCodes.Bad_SecurityChecksFailed, e);
+                }
+            }
+
+            return cipher;
+        }
+
+        @Override
+        protected void onCipherFailure() {
+            cipher = null;
+        }
+
+        private ChannelSecurity.SecretKeys getSecretKeys(SecureChannel channel) {
+            ChannelSecurity.SecretKeys secretKeys = channel.getEncryptionKeys(securitySecrets);
+
+            if (secretKeys != cachedKeys) {
+                cachedKeys = secretKeys;
+                cipher = null;
+                mac = null;
             }
+
+            return secretKeys;
         }
 
         @Override
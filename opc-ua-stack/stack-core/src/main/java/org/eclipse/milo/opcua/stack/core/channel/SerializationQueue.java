@@ -14,54 +14,118 @@
 package org.eclipse.milo.opcua.stack.core.channel;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
 import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamEncoder;
-import org.eclipse.milo.opcua.stack.core.util.ExecutionQueue;
-
+import org.eclipse.milo.opcua.stack.core.util.BatchingExecutionQueue;
+
+/**
+ * Serializes the encoding and decoding of messages for a single channel.
+ * <p>
+ * When pooled, a single {@link OpcUaBinaryStreamEncoder} and {@link OpcUaBinaryStreamDecoder} are reused for every
+ * message, so neither may be retained or used outside of the {@link Encoder} or {@link Decoder} callback they were
+ * passed to.
+ */
 public class SerializationQueue {
 
+    private final AtomicLong encoderAllocationCount = new AtomicLong(0L);
+    private final AtomicLong decoderAllocationCount = new AtomicLong(0L);
+
     private final ChunkEncoder chunkEncoder;
     private final ChunkDecoder chunkDecoder;
 
-    private final ExecutionQueue encodingQueue;
-    private final ExecutionQueue decodingQueue;
+    private final BatchingExecutionQueue encodingQueue;
+    private final BatchingExecutionQueue decodingQueue;
+
+    private final OpcUaBinaryStreamEncoder pooledEncoder;
+    private final OpcUaBinaryStreamDecoder pooledDecoder;
 
     private final ChannelParameters parameters;
     private final int maxArrayLength;
     private final int maxStringLength;
+    private final boolean pooled;
+    private final boolean lazyDataValues;
 
     public SerializationQueue(ExecutorService executor,
                               ChannelParameters parameters,
                               int maxArrayLength,
                               int maxStringLength) {
 
+        this(executor, parameters, maxArrayLength, maxStringLength, false);
+    }
+
+    /**
+     * @param executor        the {@link ExecutorService} encoding and decoding is done on.
+     * @param parameters      the {@link ChannelParameters} of the channel.
+     * @param maxArrayLength  the maximum array length allowed when encoding or decoding.
+     * @param maxStringLength the maximum string length allowed when encoding or decoding.
+     * @param pooled          {@code true} to reuse one encoder and one decoder for every message instead of
+     *                        allocating them per message.
+     */
+    public SerializationQueue(ExecutorService executor,
+                              ChannelParameters parameters,
+                              int maxArrayLength,
+                              int maxStringLength,
+                              boolean pooled) {
+
+        this(executor, parameters, maxArrayLength, maxStringLength, pooled, false);
+    }
+
+    /**
+     * @param executor        the {@link ExecutorService} encoding and decoding is done on.
+     * @param parameters      the {@link ChannelParameters} of the channel.
+     * @param maxArrayLength  the maximum array length allowed when encoding or decoding.
+     * @param maxStringLength the maximum string length allowed when encoding or decoding.
+     * @param pooled          {@code true} to reuse one encoder and one decoder for every message instead of
+     *                        allocating them per message.
+     * @param lazyDataValues  {@code true} to decode the Variant in each DataValue lazily.
+     * @see OpcUaBinaryStreamDecoder#setLazyDataValues(boolean)
+     */
+    public SerializationQueue(ExecutorService executor,
+                              ChannelParameters parameters,
+                              int maxArrayLength,
+                              int maxStringLength,
+                              boolean pooled,
+                              boolean lazyDataValues) {
+
         this.parameters = parameters;
         this.maxArrayLength = maxArrayLength;
         this.maxStringLength = maxStringLength;
+        this.pooled = pooled;
+        this.lazyDataValues = lazyDataValues;
 
         chunkEncoder = new ChunkEncoder(parameters);
         chunkDecoder = new ChunkDecoder(parameters);
 
-        encodingQueue = new ExecutionQueue(executor);
-        decodingQueue = new ExecutionQueue(executor);
+        encodingQueue = new BatchingExecutionQueue(executor);
+        decodingQueue = new BatchingExecutionQueue(executor);
+
+        pooledEncoder = pooled ? newEncoder() : null;
+        pooledDecoder = pooled ? newDecoder() : null;
     }
 
     public void encode(Encoder encoder) {
         encodingQueue.submit(() -> {
-            OpcUaBinaryStreamEncoder binaryEncoder =
-                new OpcUaBinaryStreamEncoder(maxArrayLength, maxStringLength);
+            OpcUaBinaryStreamEncoder binaryEncoder = pooled ? pooledEncoder : newEncoder();
 
-            encoder.encode(binaryEncoder, chunkEncoder);
+            try {
+                encoder.encode(binaryEncoder, chunkEncoder);
+            } finally {
+                if (pooled) binaryEncoder.setBuffer(null);
+            }
         });
     }
 
     public void decode(Decoder decoder) {
         decodingQueue.submit(() -> {
-            OpcUaBinaryStreamDecoder binaryDecoder =
-                new OpcUaBinaryStreamDecoder(maxArrayLength, maxStringLength);
+            OpcUaBinaryStreamDecoder binaryDecoder = pooled ? pooledDecoder : newDecoder();
 
-            decoder.decode(binaryDecoder, chunkDecoder);
+            try {
+                decoder.decode(binaryDecoder, chunkDecoder);
+            } finally {
+                if (pooled) binaryDecoder.setBuffer(null);
+            }
         });
     }
 
@@ -74,6 +138,54 @@ public class SerializationQueue {
         return parameters;
     }
 
+    /**
+     * @return {@code true} if encoders and decoders are reused for every message.
+     */
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * @return the number of {@link OpcUaBinaryStreamEncoder}s allocated by this queue.
+     */
+    public long getEncoderAllocationCount() {
+        return encoderAllocationCount.get();
+    }
+
+    /**
+     * @return the number of {@link OpcUaBinaryStreamDecoder}s allocated by this queue.
+     */
+    public long getDecoderAllocationCount() {
+        return decoderAllocationCount.get();
+    }
+
+    /**
+     * @return the {@link BatchingExecutionQueue} messages are encoded on, e.g. to observe its depth and hop latency.
+     */
+    public BatchingExecutionQueue getEncodingQueue() {
+        return encodingQueue;
+    }
+
+    /**
+     * @return the {@link BatchingExecutionQueue} messages are decoded on, e.g. to observe its depth and hop latency.
+     */
+    public BatchingExecutionQueue getDecodingQueue() {
+        return decodingQueue;
+    }
+
+    private OpcUaBinaryStreamEncoder newEncoder() {
+        encoderAllocationCount.incrementAndGet();
+
+        return new OpcUaBinaryStreamEncoder(maxArrayLength, maxStringLength);
+    }
+
+    private OpcUaBinaryStreamDecoder newDecoder() {
+        decoderAllocationCount.incrementAndGet();
+
+        return new OpcUaBinaryStreamDecoder(maxArrayLength, maxStringLength)
+            .setLazyDataValues(lazyDataValues);
+    }
+
     @FunctionalInterface
     public interface Decoder {
         void decode(OpcUaBinaryStreamDecoder binaryDecoder, ChunkDecoder chunkDecoder);
@@ -15,7 +15,13 @@ package org.eclipse.milo.opcua.stack.core.serialization;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.nio.charset.Charset;
 import java.util.UUID;
 import java.util.function.Function;
@@ -24,6 +30,7 @@ import javax.annotation.Nullable;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.Unpooled;
 import org.eclipse.milo.opcua.stack.core.StatusCodes;
 import org.eclipse.milo.opcua.stack.core.UaSerializationException;
 import org.eclipse.milo.opcua.stack.core.channel.ChannelConfig;
@@ -72,6 +79,8 @@ public class OpcUaBinaryStreamDecoder implements UaDecoder {
     private final int maxArrayLength;
     private final int maxStringLength;
 
+    private volatile boolean lazyDataValues = false;
+
     public OpcUaBinaryStreamDecoder() {
         this(ChannelConfig.DEFAULT_MAX_ARRAY_LENGTH, ChannelConfig.DEFAULT_MAX_STRING_LENGTH);
     }
@@ -93,9 +102,36 @@ public class OpcUaBinaryStreamDecoder implements UaDecoder {
 
     public OpcUaBinaryStreamDecoder setBuffer(ByteBuf buffer) {
         this.buffer = buffer;
+        this.currentByte = 0;
+        this.bitsRemaining = 0;
         return this;
     }
 
+    /**
+     * Enable or disable lazy decoding of the {@link Variant} in each {@link DataValue}.
+     * <p>
+     * When enabled, {@link #readDataValue()} skips over the Variant's encoding and creates it with
+     * {@link Variant#lazy(ByteString, Function)}, retaining a copy of the encoded bytes. The value is only decoded if
+     * it's accessed, and {@link OpcUaBinaryStreamEncoder} writes the retained bytes verbatim, so values that are
+     * forwarded without being inspected are never decoded or re-encoded.
+     * <p>
+     * Structural errors are still detected while skipping, but errors in the value itself surface when the value is
+     * first accessed.
+     * <p>
+     * Namespace indices inside a Variant written verbatim are not remapped; see {@link Variant#lazy}.
+     *
+     * @param lazyDataValues {@code true} to decode DataValue Variants lazily.
+     * @return this {@link OpcUaBinaryStreamDecoder}.
+     */
+    public OpcUaBinaryStreamDecoder setLazyDataValues(boolean lazyDataValues) {
+        this.lazyDataValues = lazyDataValues;
+        return this;
+    }
+
+    public boolean isLazyDataValues() {
+        return lazyDataValues;
+    }
+
     public <T> T[] readArray(Supplier<T> read, Class<T> clazz) throws UaSerializationException {
         int length = readInt32();
 
@@ -244,7 +280,10 @@ public class OpcUaBinaryStreamDecoder implements UaDecoder {
     public DataValue readDataValue() throws UaSerializationException {
         int mask = buffer.readByte() & 0xFF;
 
-        Variant value = ((mask & 0x01) != 0) ? readVariant() : Variant.NULL_VALUE;
+        Variant value = Variant.NULL_VALUE;
+        if ((mask & 0x01) != 0) {
+            value = lazyDataValues ? readLazyVariant() : readVariant();
+        }
         StatusCode status = ((mask & 0x02) != 0) ? readStatusCode() : StatusCode.GOOD;
         DateTime sourceTime = ((mask & 0x04) != 0) ? readDateTime() : DateTime.MIN_VALUE;
         UShort sourcePicoseconds = ((mask & 0x10) != 0) ? readUInt16() : null;
@@ -400,13 +439,7 @@ public class OpcUaBinaryStreamDecoder implements UaDecoder {
                             String.format("max array length exceeded (length=%s, max=%s)", length, maxArrayLength));
                     }
 
-                    Object flatArray = Array.newInstance(backingClass, length);
-
-                    for (int i = 0; i < length; i++) {
-                        Object element = decodeBuiltinType(typeId);
-
-                        Array.set(flatArray, i, element);
-                    }
+                    Object flatArray = readVariantArray(typeId, backingClass, length);
 
                     int[] dimensions = dimensionsEncoded ? decodeDimensions() : new int[]{length};
                     Object array = dimensions.length > 1 ? ArrayUtil.unflatten(flatArray, dimensions) : flatArray;
@@ -421,6 +454,331 @@ public class OpcUaBinaryStreamDecoder implements UaDecoder {
         }
     }
 
+    /**
+     * Skip over an encoded {@link Variant}, retaining a copy of its encoding, and create a Variant that decodes it
+     * when its value is first accessed.
+     *
+     * @return a lazily decoded {@link Variant}.
+     */
+    private Variant readLazyVariant() throws UaSerializationException {
+        int index = buffer.readerIndex();
+
+        if (buffer.getByte(index) == 0) {
+            buffer.skipBytes(1);
+
+            return Variant.NULL_VALUE;
+        }
+
+        skipVariant();
+
+        byte[] bs = new byte[buffer.readerIndex() - index];
+        buffer.getBytes(index, bs);
+
+        int maxArrayLength = this.maxArrayLength;
+        int maxStringLength = this.maxStringLength;
+
+        return Variant.lazy(ByteString.of(bs), encoding -> {
+            ByteBuf encodingBuffer = Unpooled.wrappedBuffer(encoding.bytes()).order(ByteOrder.LITTLE_ENDIAN);
+
+            return new OpcUaBinaryStreamDecoder(encodingBuffer, maxArrayLength, maxStringLength)
+                .readVariant()
+                .getValue();
+        });
+    }
+
+    private void skipVariant() throws UaSerializationException {
+        int encodingMask = buffer.readByte();
+
+        if (encodingMask == 0) return;
+
+        int typeId = encodingMask & 0x3F;
+        boolean dimensionsEncoded = (encodingMask & 0x40) == 0x40;
+        boolean arrayEncoded = (encodingMask & 0x80) == 0x80;
+
+        if (arrayEncoded) {
+            int length = readInt32();
+
+            if (length > maxArrayLength) {
+                throw new UaSerializationException(StatusCodes.Bad_EncodingLimitsExceeded,
+                    String.format("max array length exceeded (length=%s, max=%s)", length, maxArrayLength));
+            }
+
+            if (length > 0) {
+                int size = fixedSize(typeId);
+
+                if (size > 0) {
+                    buffer.skipBytes(length * size);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        skipBuiltinType(typeId);
+                    }
+                }
+            }
+
+            if (dimensionsEncoded) {
+                int dimensions = readInt32();
+
+                if (dimensions > 0) {
+                    buffer.skipBytes(dimensions * 4);
+                }
+            }
+        } else {
+            skipBuiltinType(typeId);
+        }
+    }
+
+    /**
+     * @param typeId the id of a builtin type.
+     * @return the size of the encoded builtin type, or -1 if it's not a fixed size.
+     */
+    private static int fixedSize(int typeId) {
+        switch (typeId) {
+            case 1:
+            case 2:
+            case 3:
+                return 1;
+            case 4:
+            case 5:
+                return 2;
+            case 6:
+            case 7:
+            case 10:
+            case 19:
+                return 4;
+            case 8:
+            case 9:
+            case 11:
+            case 13:
+                return 8;
+            case 14:
+                return 16;
+            default:
+                return -1;
+        }
+    }
+
+    private void skipBuiltinType(int typeId) throws UaSerializationException {
+        int size = fixedSize(typeId);
+
+        if (size > 0) {
+            buffer.skipBytes(size);
+            return;
+        }
+
+        switch (typeId) {
+            case 12:
+            case 15:
+            case 16:
+                skipLengthPrefixed();
+                break;
+            case 17:
+                skipNodeId(buffer.readByte());
+                break;
+            case 18: {
+                int flags = buffer.readByte();
+                skipNodeId(flags);
+                if ((flags & 0x80) == 0x80) skipLengthPrefixed();
+                if ((flags & 0x40) == 0x40) buffer.skipBytes(4);
+                break;
+            }
+            case 20:
+                buffer.skipBytes(2);
+                skipLengthPrefixed();
+                break;
+            case 21: {
+                int mask = buffer.readByte();
+                if ((mask & 1) == 1) skipLengthPrefixed();
+                if ((mask & 2) == 2) skipLengthPrefixed();
+                break;
+            }
+            case 22: {
+                skipNodeId(buffer.readByte());
+                int encoding = buffer.readByte();
+                if (encoding == 1 || encoding == 2) {
+                    skipLengthPrefixed();
+                } else if (encoding != 0) {
+                    throw new UaSerializationException(
+                        StatusCodes.Bad_DecodingError,
+                        "unknown ExtensionObject encoding: " + encoding);
+                }
+                break;
+            }
+            case 23: {
+                int mask = buffer.readByte() & 0xFF;
+                if ((mask & 0x01) != 0) skipVariant();
+                if ((mask & 0x02) != 0) buffer.skipBytes(4);
+                if ((mask & 0x04) != 0) buffer.skipBytes(8);
+                if ((mask & 0x10) != 0) buffer.skipBytes(2);
+                if ((mask & 0x08) != 0) buffer.skipBytes(8);
+                if ((mask & 0x20) != 0) buffer.skipBytes(2);
+                break;
+            }
+            case 24:
+                skipVariant();
+                break;
+            case 25:
+                skipDiagnosticInfo();
+                break;
+            default:
+                throw new UaSerializationException(
+                    StatusCodes.Bad_DecodingError,
+                    "unknown builtin type: " + typeId);
+        }
+    }
+
+    /**
+     * Skip the namespace and identifier of a NodeId whose encoding byte has already been read.
+     *
+     * @param encoding the NodeId's encoding byte.
+     */
+    private void skipNodeId(int encoding) throws UaSerializationException {
+        int format = encoding & 0x0F;
+
+        if (format == 0x00) {
+            buffer.skipBytes(1);
+        } else if (format == 0x01) {
+            buffer.skipBytes(3);
+        } else if (format == 0x02) {
+            buffer.skipBytes(6);
+        } else if (format == 0x03 || format == 0x05) {
+            buffer.skipBytes(2);
+            skipLengthPrefixed();
+        } else if (format == 0x04) {
+            buffer.skipBytes(18);
+        } else {
+            throw new UaSerializationException(StatusCodes.Bad_DecodingError, "invalid NodeId format: " + format);
+        }
+    }
+
+    private void skipDiagnosticInfo() throws UaSerializationException {
+        int mask = buffer.readByte();
+
+        if ((mask & 0x01) == 0x01) buffer.skipBytes(4);
+        if ((mask & 0x02) == 0x02) buffer.skipBytes(4);
+        if ((mask & 0x04) == 0x04) buffer.skipBytes(4);
+        if ((mask & 0x08) == 0x08) buffer.skipBytes(4);
+        if ((mask & 0x10) == 0x10) skipLengthPrefixed();
+        if ((mask & 0x20) == 0x20) buffer.skipBytes(4);
+        if ((mask & 0x40) == 0x40) skipDiagnosticInfo();
+    }
+
+    private void skipLengthPrefixed() {
+        int length = readInt32();
+
+        if (length > 0) {
+            buffer.skipBytes(length);
+        }
+    }
+
+    /**
+     * Read the elements of a one-dimensional array held by a {@link Variant}.
+     * <p>
+     * Boolean, SByte, Int16, Int32, Int64, Float and Double elements are read directly into an array of the boxed type,
+     * in bulk when possible, without going through reflection and {@link #decodeBuiltinType(int)}.
+     *
+     * @param typeId       the builtin type id of the array elements.
+     * @param backingClass the {@link Class} backing the builtin type.
+     * @param length       the number of elements to read.
+     * @return an array of {@code backingClass} containing the elements read.
+     */
+    private Object readVariantArray(int typeId, Class<?> backingClass, int length) {
+        switch (typeId) {
+            case 1: {
+                Boolean[] values = new Boolean[length];
+                for (int i = 0; i < length; i++) values[i] = buffer.readBoolean();
+                return values;
+            }
+            case 2: {
+                Byte[] values = new Byte[length];
+                for (int i = 0; i < length; i++) values[i] = buffer.readByte();
+                return values;
+            }
+            case 4: {
+                Short[] values = new Short[length];
+                ByteBuffer bulk = bulkReadBuffer(length * 2);
+                if (bulk != null) {
+                    ShortBuffer shorts = bulk.asShortBuffer();
+                    for (int i = 0; i < length; i++) values[i] = shorts.get(i);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = buffer.readShort();
+                }
+                return values;
+            }
+            case 6: {
+                Integer[] values = new Integer[length];
+                ByteBuffer bulk = bulkReadBuffer(length * 4);
+                if (bulk != null) {
+                    IntBuffer ints = bulk.asIntBuffer();
+                    for (int i = 0; i < length; i++) values[i] = ints.get(i);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = buffer.readInt();
+                }
+                return values;
+            }
+            case 8: {
+                Long[] values = new Long[length];
+                ByteBuffer bulk = bulkReadBuffer(length * 8);
+                if (bulk != null) {
+                    LongBuffer longs = bulk.asLongBuffer();
+                    for (int i = 0; i < length; i++) values[i] = longs.get(i);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = buffer.readLong();
+                }
+                return values;
+            }
+            case 10: {
+                Float[] values = new Float[length];
+                ByteBuffer bulk = bulkReadBuffer(length * 4);
+                if (bulk != null) {
+                    FloatBuffer floats = bulk.asFloatBuffer();
+                    for (int i = 0; i < length; i++) values[i] = floats.get(i);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = buffer.readFloat();
+                }
+                return values;
+            }
+            case 11: {
+                Double[] values = new Double[length];
+                ByteBuffer bulk = bulkReadBuffer(length * 8);
+                if (bulk != null) {
+                    DoubleBuffer doubles = bulk.asDoubleBuffer();
+                    for (int i = 0; i < length; i++) values[i] = doubles.get(i);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = buffer.readDouble();
+                }
+                return values;
+            }
+            default: {
+                Object values = Array.newInstance(backingClass, length);
+
+                for (int i = 0; i < length; i++) {
+                    Object element = decodeBuiltinType(typeId);
+
+                    Array.set(values, i, element);
+                }
+
+                return values;
+            }
+        }
+    }
+
+    /**
+     * Consume {@code length} bytes at the reader index and return a {@link ByteBuffer}, in the same byte order, over
+     * them.
+     *
+     * @param length the number of bytes to consume.
+     * @return a {@link ByteBuffer} over the consumed bytes, or {@code null} if the buffer can't expose them as a single
+     * {@link ByteBuffer}, in which case nothing was consumed.
+     */
+    private ByteBuffer bulkReadBuffer(int length) {
+        if (buffer.nioBufferCount() != 1) return null;
+
+        int index = buffer.readerIndex();
+        buffer.skipBytes(length);
+
+        return buffer.nioBuffer(index, length).order(buffer.order());
+    }
+
     @Nullable
     private String readLengthPrefixedString(Charset charset) {
         int length = readInt32();
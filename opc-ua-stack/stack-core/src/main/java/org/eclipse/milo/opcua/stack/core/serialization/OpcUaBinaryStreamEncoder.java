@@ -15,6 +15,7 @@ package org.eclipse.milo.opcua.stack.core.serialization;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.UUID;
@@ -30,6 +31,7 @@ import org.eclipse.milo.opcua.stack.core.serialization.codecs.BuiltinDataTypeCod
 import org.eclipse.milo.opcua.stack.core.serialization.codecs.OpcUaBinaryDataTypeCodec;
 import org.eclipse.milo.opcua.stack.core.serialization.codecs.SerializationContext;
 import org.eclipse.milo.opcua.stack.core.types.BuiltinDataTypeDictionary;
+import org.eclipse.milo.opcua.stack.core.types.DataTypeManager;
 import org.eclipse.milo.opcua.stack.core.types.OpcUaDataTypeManager;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
@@ -90,6 +92,8 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
 
     public OpcUaBinaryStreamEncoder setBuffer(ByteBuf buffer) {
         this.buffer = buffer;
+        this.currentByte = 0;
+        this.bitCount = 0;
         return this;
     }
 
@@ -316,7 +320,10 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
         } else {
             int mask = 0x00;
 
-            if (value.getValue() != null && value.getValue().isNotNull()) {
+            Variant variant = value.getValue();
+
+            // a lazily decoded Variant is written verbatim without checking, and therefore decoding, its value.
+            if (variant != null && (variant.getBinaryEncoding() != null || variant.isNotNull())) {
                 mask |= 0x01;
             }
 
@@ -352,7 +359,7 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
 
             // Value
             if ((mask & 0x01) == 0x01) {
-                writeVariant(value.getValue());
+                writeVariant(variant);
             }
 
             // StatusCode
@@ -474,7 +481,9 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
     }
 
     public void writeExtensionObject(ExtensionObject value) throws UaSerializationException {
-        if (value == null || value.getEncoded() == null) {
+        if (value != null && value.isEncodingDeferred()) {
+            writeDeferredExtensionObject(value);
+        } else if (value == null || value.getEncoded() == null) {
             writeNodeId(NodeId.NULL_VALUE);
             buffer.writeByte(0); // No body is encoded
         } else {
@@ -508,6 +517,39 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
         }
     }
 
+    /**
+     * Write an ExtensionObject whose encoding was deferred by encoding its structure directly into the buffer and then
+     * filling in the length of the body, rather than encoding to an intermediate {@link ByteString} first.
+     */
+    private void writeDeferredExtensionObject(ExtensionObject value) throws UaSerializationException {
+        DataTypeManager dataTypeManager = value.getDeferredDataTypeManager();
+        NodeId encodingTypeId = value.getEncodingTypeId();
+
+        try {
+            @SuppressWarnings("unchecked")
+            OpcUaBinaryDataTypeCodec<Object> codec =
+                (OpcUaBinaryDataTypeCodec<Object>) dataTypeManager.getBinaryCodec(encodingTypeId);
+
+            if (codec == null) {
+                throw new UaSerializationException(
+                    StatusCodes.Bad_EncodingError,
+                    "no codec registered for encodingTypeId=" + encodingTypeId);
+            }
+
+            writeNodeId(encodingTypeId);
+            buffer.writeByte(1); // Body is binary encoded
+
+            int lengthIndex = buffer.writerIndex();
+            buffer.writeInt(0);
+
+            codec.encode(() -> dataTypeManager, value.decode(), this);
+
+            buffer.setInt(lengthIndex, buffer.writerIndex() - lengthIndex - 4);
+        } catch (ClassCastException e) {
+            throw new UaSerializationException(StatusCodes.Bad_EncodingError, e);
+        }
+    }
+
     public void writeLocalizedText(LocalizedText value) throws UaSerializationException {
         if (value == null) value = LocalizedText.NULL_VALUE;
 
@@ -605,6 +647,15 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
     }
 
     public void writeVariant(Variant variant) throws UaSerializationException {
+        ByteString binaryEncoding = variant.getBinaryEncoding();
+
+        if (binaryEncoding != null) {
+            // Variants are immutable, so a lazily decoded Variant can be written using its original encoding.
+            // Namespace indices in it are written as they were received; see Variant#lazy.
+            buffer.writeBytes(binaryEncoding.bytes());
+            return;
+        }
+
         Object value = variant.getValue();
 
         if (value == null) {
@@ -635,26 +686,11 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
                 if (dimensions.length == 1) {
                     buffer.writeByte(typeId | 0x80);
 
-                    int length = Array.getLength(value);
-                    buffer.writeInt(length);
-
-                    for (int i = 0; i < length; i++) {
-                        Object o = Array.get(value, i);
-
-                        writeValue(o, typeId, structure, enumeration);
-                    }
+                    writeVariantArray(value, typeId, structure, enumeration);
                 } else {
                     buffer.writeByte(typeId | 0xC0);
 
-                    Object flattened = ArrayUtil.flatten(value);
-                    int length = Array.getLength(flattened);
-                    buffer.writeInt(length);
-
-                    for (int i = 0; i < length; i++) {
-                        Object o = Array.get(flattened, i);
-
-                        writeValue(o, typeId, structure, enumeration);
-                    }
+                    writeVariantArray(ArrayUtil.flatten(value), typeId, structure, enumeration);
 
                     writeInt32(dimensions.length);
                     for (int dimension : dimensions) {
@@ -671,9 +707,153 @@ public class OpcUaBinaryStreamEncoder implements UaEncoder {
 
     // endregion
 
+    /**
+     * Write the length and elements of a one-dimensional array held by a {@link Variant}.
+     *
+     * @param array       the one-dimensional array to write.
+     * @param typeId      the builtin type id of the array elements.
+     * @param structure   {@code true} if the elements are {@link UaStructure}s.
+     * @param enumeration {@code true} if the elements are {@link UaEnumeration}s.
+     */
+    private void writeVariantArray(Object array, int typeId, boolean structure, boolean enumeration) {
+        if (structure || enumeration || !writeNumericArray(array)) {
+            int length = Array.getLength(array);
+            buffer.writeInt(length);
+
+            for (int i = 0; i < length; i++) {
+                Object o = Array.get(array, i);
+
+                writeValue(o, typeId, structure, enumeration);
+            }
+        }
+    }
+
+    /**
+     * Write the length and elements of {@code array} if it's a primitive or boxed Boolean, SByte, Int16, Int32, Int64,
+     * Float or Double array, without going through reflection and {@link #writeBuiltinType(int, Object)}.
+     * <p>
+     * Primitive numeric arrays are copied into the buffer in bulk when possible.
+     *
+     * @param array the one-dimensional array to write.
+     * @return {@code true} if {@code array} was written, {@code false} if it isn't an array this method handles.
+     */
+    private boolean writeNumericArray(Object array) {
+        if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            buffer.writeInt(values.length);
+
+            ByteBuffer bulk = bulkWriteBuffer(values.length * 8);
+            if (bulk != null) {
+                bulk.asDoubleBuffer().put(values);
+            } else {
+                for (double v : values) buffer.writeDouble(v);
+            }
+        } else if (array instanceof float[]) {
+            float[] values = (float[]) array;
+            buffer.writeInt(values.length);
+
+            ByteBuffer bulk = bulkWriteBuffer(values.length * 4);
+            if (bulk != null) {
+                bulk.asFloatBuffer().put(values);
+            } else {
+                for (float v : values) buffer.writeFloat(v);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            buffer.writeInt(values.length);
+
+            ByteBuffer bulk = bulkWriteBuffer(values.length * 8);
+            if (bulk != null) {
+                bulk.asLongBuffer().put(values);
+            } else {
+                for (long v : values) buffer.writeLong(v);
+            }
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            buffer.writeInt(values.length);
+
+            ByteBuffer bulk = bulkWriteBuffer(values.length * 4);
+            if (bulk != null) {
+                bulk.asIntBuffer().put(values);
+            } else {
+                for (int v : values) buffer.writeInt(v);
+            }
+        } else if (array instanceof short[]) {
+            short[] values = (short[]) array;
+            buffer.writeInt(values.length);
+
+            ByteBuffer bulk = bulkWriteBuffer(values.length * 2);
+            if (bulk != null) {
+                bulk.asShortBuffer().put(values);
+            } else {
+                for (short v : values) buffer.writeShort(v);
+            }
+        } else if (array instanceof byte[]) {
+            byte[] values = (byte[]) array;
+            buffer.writeInt(values.length);
+            buffer.writeBytes(values);
+        } else if (array instanceof boolean[]) {
+            boolean[] values = (boolean[]) array;
+            buffer.writeInt(values.length);
+            for (boolean v : values) buffer.writeBoolean(v);
+        } else if (array instanceof Double[]) {
+            Double[] values = (Double[]) array;
+            buffer.writeInt(values.length);
+            for (Double v : values) writeDouble(v);
+        } else if (array instanceof Float[]) {
+            Float[] values = (Float[]) array;
+            buffer.writeInt(values.length);
+            for (Float v : values) writeFloat(v);
+        } else if (array instanceof Long[]) {
+            Long[] values = (Long[]) array;
+            buffer.writeInt(values.length);
+            for (Long v : values) writeInt64(v);
+        } else if (array instanceof Integer[]) {
+            Integer[] values = (Integer[]) array;
+            buffer.writeInt(values.length);
+            for (Integer v : values) writeInt32(v);
+        } else if (array instanceof Short[]) {
+            Short[] values = (Short[]) array;
+            buffer.writeInt(values.length);
+            for (Short v : values) writeInt16(v);
+        } else if (array instanceof Byte[]) {
+            Byte[] values = (Byte[]) array;
+            buffer.writeInt(values.length);
+            for (Byte v : values) writeSByte(v);
+        } else if (array instanceof Boolean[]) {
+            Boolean[] values = (Boolean[]) array;
+            buffer.writeInt(values.length);
+            for (Boolean v : values) writeBoolean(v);
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reserve {@code length} bytes at the writer index and return a {@link ByteBuffer}, in the same byte order, that
+     * writes through to them.
+     *
+     * @param length the number of bytes to reserve.
+     * @return a {@link ByteBuffer} over the reserved bytes, or {@code null} if the buffer can't expose them as a single
+     * {@link ByteBuffer}, in which case nothing was reserved.
+     */
+    private ByteBuffer bulkWriteBuffer(int length) {
+        buffer.ensureWritable(length);
+
+        if (buffer.nioBufferCount() != 1) return null;
+
+        int index = buffer.writerIndex();
+        ByteBuffer bulk = buffer.nioBuffer(index, length).order(buffer.order());
+        buffer.writerIndex(index + length);
+
+        return bulk;
+    }
+
     private void writeValue(Object value, int typeId, boolean structure, boolean enumeration) {
         if (structure) {
-            ExtensionObject extensionObject = ExtensionObject.encode((UaStructure) value);
+            ExtensionObject extensionObject = ExtensionObject.encodeDeferred((UaStructure) value);
 
             writeBuiltinType(typeId, extensionObject);
         } else if (enumeration) {
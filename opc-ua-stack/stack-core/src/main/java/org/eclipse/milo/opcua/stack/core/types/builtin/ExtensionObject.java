@@ -13,6 +13,8 @@
 
 package org.eclipse.milo.opcua.stack.core.types.builtin;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import org.eclipse.milo.opcua.stack.core.UaSerializationException;
@@ -32,14 +34,21 @@ public final class ExtensionObject {
 
     private final BodyType bodyType;
 
-    private final Object encoded;
+    private volatile Object encoded;
     private final NodeId encodingTypeId;
 
+    /**
+     * The {@link DataTypeManager} used to encode a deferred body; {@code null} unless created by
+     * {@link #encodeDeferred(UaStructure, DataTypeManager)}.
+     */
+    private final DataTypeManager deferredDataTypeManager;
+
     public ExtensionObject(ByteString encoded, NodeId encodingTypeId) {
         this.encoded = encoded;
         this.encodingTypeId = encodingTypeId;
 
         bodyType = BodyType.ByteString;
+        deferredDataTypeManager = null;
     }
 
     public ExtensionObject(XmlElement encoded, NodeId encodingTypeId) {
@@ -47,10 +56,55 @@ public final class ExtensionObject {
         this.encodingTypeId = encodingTypeId;
 
         bodyType = BodyType.XmlElement;
+        deferredDataTypeManager = null;
+    }
+
+    private ExtensionObject(Object decoded, NodeId encodingTypeId, DataTypeManager dataTypeManager) {
+        this.decoded = decoded;
+        this.encodingTypeId = encodingTypeId;
+
+        bodyType = BodyType.ByteString;
+        deferredDataTypeManager = dataTypeManager;
+    }
+
+    /**
+     * Get the encoded body of this ExtensionObject.
+     * <p>
+     * If encoding was deferred the body is encoded to a {@link ByteString} on the first call.
+     *
+     * @return the encoded body; a {@link ByteString} or {@link XmlElement} depending on {@link #getBodyType()}.
+     */
+    public Object getEncoded() throws UaSerializationException {
+        Object e = encoded;
+
+        if (e == null && deferredDataTypeManager != null) {
+            synchronized (this) {
+                e = encoded;
+                if (e == null) {
+                    e = encoded = DataTypeEncoding.OPC_UA.encodeToByteString(
+                        decoded, encodingTypeId, deferredDataTypeManager);
+                }
+            }
+        }
+
+        return e;
+    }
+
+    /**
+     * @return {@code true} if this ExtensionObject was created by {@link #encodeDeferred(UaStructure)} and its body
+     * has not been encoded to a {@link ByteString} yet, meaning an encoder should write the structure directly.
+     */
+    public boolean isEncodingDeferred() {
+        return deferredDataTypeManager != null && encoded == null;
     }
 
-    public Object getEncoded() {
-        return encoded;
+    /**
+     * @return the {@link DataTypeManager} a deferred body is encoded with, or {@code null} if encoding wasn't
+     * deferred.
+     */
+    @Nullable
+    public DataTypeManager getDeferredDataTypeManager() {
+        return deferredDataTypeManager;
     }
 
     public NodeId getEncodingTypeId() {
@@ -112,6 +166,24 @@ public final class ExtensionObject {
         return encodeAsByteString(structure, structure.getBinaryEncodingId(), dataTypeManager);
     }
 
+    /**
+     * Create an ExtensionObject whose binary body is not encoded until it's needed.
+     * <p>
+     * An {@link org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamEncoder} writes the structure
+     * straight into its buffer instead of copying a previously encoded {@link ByteString}, saving an allocation and a
+     * copy per ExtensionObject when encoding e.g. a PublishResponse.
+     *
+     * @param structure the {@link UaStructure} to wrap.
+     * @return an ExtensionObject wrapping {@code structure}.
+     */
+    public static ExtensionObject encodeDeferred(UaStructure structure) {
+        return encodeDeferred(structure, OpcUaDataTypeManager.getInstance());
+    }
+
+    public static ExtensionObject encodeDeferred(UaStructure structure, DataTypeManager dataTypeManager) {
+        return new ExtensionObject(structure, structure.getBinaryEncodingId(), dataTypeManager);
+    }
+
     public static ExtensionObject encode(Object object,
                                          NodeId encodingTypeId) throws UaSerializationException {
 
@@ -185,19 +257,26 @@ public final class ExtensionObject {
 
         ExtensionObject that = (ExtensionObject) o;
 
-        return Objects.equal(encoded, that.encoded) &&
+        return Objects.equal(getEncoded(), that.getEncoded()) &&
             Objects.equal(encodingTypeId, that.encodingTypeId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(encoded, encodingTypeId);
+        return Objects.hashCode(getEncoded(), encodingTypeId);
     }
 
     @Override
     public String toString() {
-        return MoreObjects.toStringHelper(this)
-            .add("encoded", encoded)
+        MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+
+        if (isEncodingDeferred()) {
+            helper.add("decoded", decoded);
+        } else {
+            helper.add("encoded", encoded);
+        }
+
+        return helper
             .add("encodingTypeId", encodingTypeId)
             .toString();
     }
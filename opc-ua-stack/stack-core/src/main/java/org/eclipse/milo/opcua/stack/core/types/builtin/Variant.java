@@ -16,6 +16,7 @@ package org.eclipse.milo.opcua.stack.core.types.builtin;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 import com.google.common.base.MoreObjects;
@@ -32,7 +33,10 @@ public final class Variant {
 
     public static final Variant NULL_VALUE = new Variant(null);
 
-    private final Object value;
+    private volatile Object value;
+
+    private final ByteString binaryEncoding;
+    private volatile Function<ByteString, Object> binaryDecoder;
 
     /**
      * Create a new Variant with a given value.
@@ -40,6 +44,39 @@ public final class Variant {
      * @param value the value this Variant holds.
      */
     public Variant(@Nullable Object value) {
+        checkValue(value);
+
+        this.value = value;
+        this.binaryEncoding = null;
+        this.binaryDecoder = null;
+    }
+
+    private Variant(ByteString binaryEncoding, Function<ByteString, Object> binaryDecoder) {
+        this.value = null;
+        this.binaryEncoding = binaryEncoding;
+        this.binaryDecoder = binaryDecoder;
+    }
+
+    /**
+     * Create a Variant whose value is decoded from {@code binaryEncoding} the first time it's accessed.
+     * <p>
+     * The encoding is retained for the lifetime of the Variant, so an encoder can write it verbatim instead of
+     * encoding the value again.
+     * <p>
+     * Because it's written verbatim, any namespace index in the encoding, i.e. in a NodeId, ExpandedNodeId,
+     * QualifiedName or ExtensionObject encoding id, or an array of them, is written unchanged too. Those indices refer
+     * to the namespace table of whoever produced the encoding, so a lazy Variant must only be forwarded unchanged to a
+     * peer with the same namespace table. Otherwise get its value and create a new Variant with the indices remapped.
+     *
+     * @param binaryEncoding the complete OPC UA Binary encoding of the Variant, including its encoding mask.
+     * @param binaryDecoder  decodes {@code binaryEncoding} into the Variant's value.
+     * @return a Variant whose value is decoded lazily.
+     */
+    public static Variant lazy(ByteString binaryEncoding, Function<ByteString, Object> binaryDecoder) {
+        return new Variant(binaryEncoding, binaryDecoder);
+    }
+
+    private static void checkValue(@Nullable Object value) {
         if (value != null) {
             boolean clazzIsArray = value.getClass().isArray();
 
@@ -50,11 +87,11 @@ public final class Variant {
             checkArgument(!DataValue.class.equals(componentClazz), "Variant cannot contain DataValue");
             checkArgument(!DiagnosticInfo.class.equals(componentClazz), "Variant cannot contain DiagnosticInfo");
         }
-
-        this.value = value;
     }
 
     public Optional<NodeId> getDataType() {
+        Object value = getValue();
+
         if (value == null) return Optional.empty();
 
         if (value instanceof UaStructure) {
@@ -72,12 +109,40 @@ public final class Variant {
         }
     }
 
+    /**
+     * Get the value of this Variant, decoding it first if this Variant was created with {@link #lazy}.
+     *
+     * @return the value of this Variant.
+     */
     public Object getValue() {
+        if (binaryDecoder != null) {
+            synchronized (this) {
+                Function<ByteString, Object> decoder = binaryDecoder;
+
+                if (decoder != null) {
+                    Object decoded = decoder.apply(binaryEncoding);
+                    checkValue(decoded);
+
+                    value = decoded;
+                    binaryDecoder = null;
+                }
+            }
+        }
+
         return value;
     }
 
+    /**
+     * @return the OPC UA Binary encoding this Variant was created from, or {@code null} if it was not created with
+     * {@link #lazy}.
+     */
+    @Nullable
+    public ByteString getBinaryEncoding() {
+        return binaryEncoding;
+    }
+
     public boolean isNull() {
-        return value == null;
+        return getValue() == null;
     }
 
     public boolean isNotNull() {
@@ -91,7 +156,7 @@ public final class Variant {
 
         Variant variant = (Variant) o;
 
-        return Objects.deepEquals(value, variant.value);
+        return Objects.deepEquals(getValue(), variant.getValue());
     }
 
     @Override
@@ -100,6 +165,8 @@ public final class Variant {
     }
 
     private int valueHash() {
+        Object value = getValue();
+
         if (value instanceof Object[]) {
             return Arrays.deepHashCode((Object[]) value);
         } else if (value instanceof boolean[]) {
@@ -125,7 +192,7 @@ public final class Variant {
     public String toString() {
         ToStringHelper helper = MoreObjects.toStringHelper(this);
 
-        helper.add("value", value);
+        helper.add("value", getValue());
 
         return helper.toString();
     }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues up submitted {@link Runnable}s and executes them in serial on an {@link Executor}.
+ * <p>
+ * Unlike {@link ExecutionQueue}, submitting does not take a lock, and each hop onto the {@link Executor} drains up to
+ * {@code maxBatchSize} queued {@link Runnable}s instead of just one.
+ * <p>
+ * If the {@link Executor} rejects a drain because it is saturated, e.g. a {@link BoundedExecutorService}, the batch
+ * is run on the submitting thread instead, which pushes back on whoever is submitting.
+ * <p>
+ * The depth of the queue and the latency of each hop, i.e. the time between a drain being handed to the
+ * {@link Executor} and it starting to run, are recorded and available via the getters on this class.
+ */
+public class BatchingExecutionQueue {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 16;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong executedCount = new AtomicLong(0L);
+    private final AtomicLong hopCount = new AtomicLong(0L);
+    private final AtomicLong totalHopLatencyNanos = new AtomicLong(0L);
+    private final AtomicLong maxHopLatencyNanos = new AtomicLong(0L);
+    private final AtomicLong rejectedCount = new AtomicLong(0L);
+
+    private final Drain drain = new Drain();
+
+    private volatile boolean paused = false;
+
+    private final Executor executor;
+    private final int maxBatchSize;
+
+    public BatchingExecutionQueue(Executor executor) {
+        this(executor, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param executor     the {@link Executor} to execute on.
+     * @param maxBatchSize the maximum number of {@link Runnable}s executed per hop onto {@code executor}.
+     */
+    public BatchingExecutionQueue(Executor executor, int maxBatchSize) {
+        Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be > 0");
+
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Submit a {@link Runnable} to be executed.
+     *
+     * @param runnable the {@link Runnable} to be executed.
+     */
+    public void submit(Runnable runnable) {
+        queue.add(runnable);
+        queueDepth.incrementAndGet();
+
+        maybeScheduleDrain();
+    }
+
+    /**
+     * Pause execution of queued {@link Runnable}s.
+     * <p>
+     * A {@link Runnable} that is already executing runs to completion.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resume execution of queued {@link Runnable}s.
+     */
+    public void resume() {
+        paused = false;
+
+        maybeScheduleDrain();
+    }
+
+    /**
+     * @return the number of {@link Runnable}s waiting to be executed.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the number of {@link Runnable}s executed so far.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * @return the number of times the {@link Executor} rejected a drain, which was then run on the submitting thread
+     * instead.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return the number of times a drain has been handed to the {@link Executor} and started running.
+     */
+    public long getHopCount() {
+        return hopCount.get();
+    }
+
+    /**
+     * @return the total time, in nanoseconds, drains have spent waiting to start running on the {@link Executor}.
+     */
+    public long getTotalHopLatencyNanos() {
+        return totalHopLatencyNanos.get();
+    }
+
+    /**
+     * @return the longest time, in nanoseconds, a single drain has spent waiting to start running on the
+     * {@link Executor}.
+     */
+    public long getMaxHopLatencyNanos() {
+        return maxHopLatencyNanos.get();
+    }
+
+    private void maybeScheduleDrain() {
+        while (!paused && !queue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            drain.scheduledNanos = System.nanoTime();
+
+            try {
+                executor.execute(drain);
+
+                return;
+            } catch (RejectedExecutionException e) {
+                if (executor instanceof ExecutorService && ((ExecutorService) executor).isShutdown()) {
+                    drainScheduled.set(false);
+
+                    throw e;
+                }
+
+                // the executor is saturated; run the batch on the submitting
+                // thread instead, slowing it down until the executor catches up.
+                rejectedCount.incrementAndGet();
+
+                drain.runBatch();
+
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    private class Drain implements Runnable {
+
+        /**
+         * Written before the drain is handed to the {@link Executor}, which guarantees its visibility in
+         * {@link #run()}.
+         */
+        private long scheduledNanos;
+
+        @Override
+        public void run() {
+            long hopLatency = System.nanoTime() - scheduledNanos;
+
+            hopCount.incrementAndGet();
+            totalHopLatencyNanos.addAndGet(hopLatency);
+            maxHopLatencyNanos.accumulateAndGet(hopLatency, Math::max);
+
+            runBatch();
+
+            // anything submitted after the last poll but before this point
+            // could not schedule a drain, so check again once we're done.
+            drainScheduled.set(false);
+
+            maybeScheduleDrain();
+        }
+
+        void runBatch() {
+            int executed = 0;
+
+            while (executed < maxBatchSize && !paused) {
+                Runnable runnable = queue.poll();
+                if (runnable == null) break;
+
+                queueDepth.decrementAndGet();
+
+                try {
+                    runnable.run();
+                } catch (Throwable throwable) {
+                    log.warn("Uncaught Throwable during execution.", throwable);
+                }
+
+                executed++;
+            }
+
+            executedCount.addAndGet(executed);
+        }
+
+    }
+
+}
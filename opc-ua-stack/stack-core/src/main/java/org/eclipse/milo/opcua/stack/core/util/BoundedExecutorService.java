@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link ExecutorService} that limits the number of tasks submitted to a delegate {@link ExecutorService} but not
+ * yet completed, rejecting any more with a {@link RejectedExecutionException} until some complete.
+ * <p>
+ * {@link org.eclipse.milo.opcua.stack.core.Stack#sharedExecutor()} is an unbounded cached thread pool; configuring a
+ * {@link BoundedExecutorService} as the executor of a client or server instead caps the number of threads a burst of
+ * requests can create. When it is saturated the server answers requests with {@code Bad_ResourceUnavailable} and
+ * per-channel encoding, decoding and delivery run on the submitting thread, pushing back on the remote end.
+ * <p>
+ * Code running on a bounded executor should avoid blocking on work that needs the same executor to complete.
+ */
+public class BoundedExecutorService extends AbstractExecutorService {
+
+    private final AtomicInteger outstandingTaskCount = new AtomicInteger(0);
+    private final AtomicLong rejectedTaskCount = new AtomicLong(0L);
+
+    private final ExecutorService delegate;
+    private final int maxOutstandingTasks;
+
+    /**
+     * @param delegate            the {@link ExecutorService} tasks are executed on.
+     * @param maxOutstandingTasks the maximum number of tasks that may be queued or executing at once.
+     */
+    public BoundedExecutorService(ExecutorService delegate, int maxOutstandingTasks) {
+        Preconditions.checkArgument(maxOutstandingTasks > 0, "maxOutstandingTasks must be > 0");
+
+        this.delegate = delegate;
+        this.maxOutstandingTasks = maxOutstandingTasks;
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        if (outstandingTaskCount.incrementAndGet() > maxOutstandingTasks) {
+            outstandingTaskCount.decrementAndGet();
+            rejectedTaskCount.incrementAndGet();
+
+            throw new RejectedExecutionException(
+                "executor saturated: maxOutstandingTasks=" + maxOutstandingTasks);
+        }
+
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    outstandingTaskCount.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            outstandingTaskCount.decrementAndGet();
+            rejectedTaskCount.incrementAndGet();
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * @return the number of tasks queued or executing.
+     */
+    public int getOutstandingTaskCount() {
+        return outstandingTaskCount.get();
+    }
+
+    /**
+     * @return the maximum number of tasks that may be queued or executing at once.
+     */
+    public int getMaxOutstandingTasks() {
+        return maxOutstandingTasks;
+    }
+
+    /**
+     * @return the number of tasks rejected because this executor was saturated or its delegate rejected them.
+     */
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount.get();
+    }
+
+    /**
+     * Create a {@link BoundedExecutorService} backed by a fixed number of daemon threads.
+     *
+     * @param threadNamePrefix    the prefix of the name of each thread.
+     * @param threadCount         the number of threads.
+     * @param maxOutstandingTasks the maximum number of tasks that may be queued or executing at once.
+     * @return a {@link BoundedExecutorService} backed by a fixed thread pool.
+     */
+    public static BoundedExecutorService newFixedThreadPool(
+        String threadNamePrefix,
+        int threadCount,
+        int maxOutstandingTasks) {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            newThreadFactory(threadNamePrefix)
+        );
+
+        executor.allowCoreThreadTimeOut(true);
+
+        return new BoundedExecutorService(executor, maxOutstandingTasks);
+    }
+
+    /**
+     * Create a {@link BoundedExecutorService} backed by a work-stealing {@link ForkJoinPool} of daemon threads.
+     * <p>
+     * Tasks are executed in FIFO order, which suits the event-style tasks the stack submits.
+     *
+     * @param threadNamePrefix    the prefix of the name of each thread.
+     * @param parallelism         the parallelism level, i.e. the targeted number of active threads.
+     * @param maxOutstandingTasks the maximum number of tasks that may be queued or executing at once.
+     * @return a {@link BoundedExecutorService} backed by a {@link ForkJoinPool}.
+     */
+    public static BoundedExecutorService newWorkStealingPool(
+        String threadNamePrefix,
+        int parallelism,
+        int maxOutstandingTasks) {
+
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(threadNamePrefix + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism, threadFactory, null, true);
+
+        return new BoundedExecutorService(pool, maxOutstandingTasks);
+    }
+
+    /**
+     * Create a {@link BoundedExecutorService} that executes each task on a new virtual thread.
+     * <p>
+     * Virtual threads require a JDK that supports them; on any other JDK this falls back to
+     * {@link #newWorkStealingPool(String, int, int)} with a parallelism of the number of available processors.
+     *
+     * @param threadNamePrefix    the prefix of the name of each thread if falling back to a work-stealing pool.
+     * @param maxOutstandingTasks the maximum number of tasks that may be queued or executing at once.
+     * @return a {@link BoundedExecutorService} backed by virtual threads, if supported.
+     * @see #isVirtualThreadSupported()
+     */
+    public static BoundedExecutorService newVirtualThreadPool(String threadNamePrefix, int maxOutstandingTasks) {
+        Method method = getVirtualThreadFactoryMethod();
+
+        if (method != null) {
+            try {
+                ExecutorService executor = (ExecutorService) method.invoke(null);
+
+                return new BoundedExecutorService(executor, maxOutstandingTasks);
+            } catch (ReflectiveOperationException e) {
+                LoggerFactory.getLogger(BoundedExecutorService.class)
+                    .warn("Error creating virtual thread executor; falling back to work-stealing pool.", e);
+            }
+        } else {
+            LoggerFactory.getLogger(BoundedExecutorService.class)
+                .debug("Virtual threads not supported; falling back to work-stealing pool.");
+        }
+
+        return newWorkStealingPool(
+            threadNamePrefix,
+            Runtime.getRuntime().availableProcessors(),
+            maxOutstandingTasks
+        );
+    }
+
+    /**
+     * @return {@code true} if the running JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return getVirtualThreadFactoryMethod() != null;
+    }
+
+    private static Method getVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(String threadNamePrefix) {
+        AtomicLong threadNumber = new AtomicLong(0L);
+
+        return r -> {
+            Thread thread = new Thread(r, threadNamePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
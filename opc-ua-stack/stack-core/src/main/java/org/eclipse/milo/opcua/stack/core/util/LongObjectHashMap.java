@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A map from primitive {@code long} keys to non-null values, using open addressing with linear probing so that
+ * neither the keys nor the entries are boxed.
+ * <p>
+ * Not thread safe. Readers on other threads should be given a copy, see {@link #LongObjectHashMap(LongObjectHashMap)}.
+ *
+ * @param <V> the type of the values.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing.
+     */
+    public LongObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Create a copy of {@code map}.
+     *
+     * @param map the map to copy.
+     */
+    public LongObjectHashMap(LongObjectHashMap<V> map) {
+        this.keys = map.keys.clone();
+        this.values = map.values.clone();
+        this.mask = map.mask;
+        this.size = map.size;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return the value mapped to {@code key}, or {@code null} if there is none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @return {@code true} if a value is mapped to {@code key}.
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Map {@code key} to {@code value}.
+     *
+     * @param key   the key.
+     * @param value the value; must not be {@code null}.
+     * @return the value previously mapped to {@code key}, or {@code null} if there was none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        int index = hash(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size > values.length / 2) {
+            resize(values.length * 2);
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove the value mapped to {@code key}.
+     *
+     * @param key the key.
+     * @return the value that was mapped to {@code key}, or {@code null} if there was none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+
+        if (index < 0) return null;
+
+        V previous = (V) values[index];
+        values[index] = null;
+        size--;
+
+        // shift back the entries that follow in the same run so that probing never stops short of them
+        int empty = index;
+        int next = (index + 1) & mask;
+
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                keys[empty] = keys[next];
+                values[empty] = values[next];
+                values[next] = null;
+                empty = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        return previous;
+    }
+
+    /**
+     * @return the number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+        }
+
+        size = 0;
+    }
+
+    /**
+     * @param consumer the {@link Consumer} to call with each value, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> consumer) {
+        for (Object value : values) {
+            if (value != null) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * @return a new {@link List} of the values, in no particular order.
+     */
+    public List<V> values() {
+        List<V> list = Lists.newArrayListWithCapacity(size);
+
+        forEachValue(list::add);
+
+        return list;
+    }
+
+    private int indexOf(long key) {
+        int index = hash(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key) return index;
+
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys[i]) & mask;
+
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        // client handles and the like are sequential; spread them so runs don't cluster
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+}
@@ -106,17 +106,44 @@ public class SignatureUtil {
                               byte[] secretKey,
                               ByteBuffer... buffers) throws UaException {
 
+        return hmac(createMac(securityAlgorithm, secretKey), buffers);
+    }
+
+    /**
+     * Compute the HMAC of the provided buffers using a {@link Mac} that has already been initialized, e.g. one
+     * obtained from {@link #createMac(SecurityAlgorithm, byte[])} and cached for the lifetime of a security token.
+     * <p>
+     * The {@link Mac} is reset afterwards and can be used again with the same key.
+     *
+     * @param mac     the initialized {@link Mac}.
+     * @param buffers the buffers to use.
+     * @return the computed HMAC.
+     */
+    public static byte[] hmac(Mac mac, ByteBuffer... buffers) {
+        for (ByteBuffer buffer : buffers) {
+            mac.update(buffer);
+        }
+
+        return mac.doFinal();
+    }
+
+    /**
+     * Create a {@link Mac} for {@code securityAlgorithm} and initialize it with {@code secretKey}.
+     *
+     * @param securityAlgorithm the {@link SecurityAlgorithm} that provides the transformation for
+     *                          {@link Mac#getInstance(String)}}.
+     * @param secretKey         the secret key.
+     * @return an initialized {@link Mac}.
+     * @throws UaException if the {@link Mac} can't be created or initialized.
+     */
+    public static Mac createMac(SecurityAlgorithm securityAlgorithm, byte[] secretKey) throws UaException {
         String transformation = securityAlgorithm.getTransformation();
 
         try {
             Mac mac = Mac.getInstance(transformation);
             mac.init(new SecretKeySpec(secretKey, transformation));
 
-            for (ByteBuffer buffer : buffers) {
-                mac.update(buffer);
-            }
-
-            return mac.doFinal();
+            return mac;
         } catch (NoSuchAlgorithmException e) {
             throw new UaException(StatusCodes.Bad_InternalError, e);
         } catch (GeneralSecurityException e) {
@@ -13,19 +13,32 @@
 
 package org.eclipse.milo.opcua.stack.core.serialization.binary;
 
+import java.util.UUID;
+
 import io.netty.buffer.ByteBuf;
 import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
 import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamEncoder;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExpandedNodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import org.eclipse.milo.opcua.stack.core.types.builtin.XmlElement;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
 import org.eclipse.milo.opcua.stack.core.util.BufferUtil;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.ushort;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 public class DataValueSerializationTest {
 
@@ -44,6 +57,83 @@ public class DataValueSerializationTest {
         assertEquals(decodedValue, value);
     }
 
+    @Test(dataProvider = "getLazyValues")
+    public void testLazyDataValueRoundTrip(Variant variant) {
+        DataValue value = new DataValue(variant, StatusCode.GOOD, DateTime.now(), DateTime.now());
+
+        ByteBuf buffer = BufferUtil.buffer();
+        encoder.setBuffer(buffer);
+        encoder.writeDataValue(value);
+        ByteBuf encoded = buffer.copy();
+
+        OpcUaBinaryStreamDecoder lazyDecoder = new OpcUaBinaryStreamDecoder(buffer).setLazyDataValues(true);
+        DataValue decodedValue = lazyDecoder.readDataValue();
+
+        assertEquals(buffer.readableBytes(), 0);
+        assertNotNull(decodedValue.getValue().getBinaryEncoding());
+
+        // re-encoding copies the retained encoding without decoding the value...
+        ByteBuf reEncoded = BufferUtil.buffer();
+        encoder.setBuffer(reEncoded);
+        encoder.writeDataValue(decodedValue);
+
+        assertEquals(reEncoded, encoded);
+
+        // ...which decodes to the original value when accessed.
+        assertEquals(decodedValue, value);
+
+        buffer.release();
+        encoded.release();
+        reEncoded.release();
+    }
+
+    @Test
+    public void testLazyNullVariant() {
+        DataValue value = new DataValue(Variant.NULL_VALUE, StatusCode.BAD, DateTime.now(), DateTime.now());
+
+        ByteBuf buffer = BufferUtil.buffer();
+        encoder.setBuffer(buffer);
+        encoder.writeDataValue(value);
+
+        OpcUaBinaryStreamDecoder lazyDecoder = new OpcUaBinaryStreamDecoder(buffer).setLazyDataValues(true);
+        DataValue decodedValue = lazyDecoder.readDataValue();
+
+        assertNull(decodedValue.getValue().getBinaryEncoding());
+        assertEquals(decodedValue, value);
+
+        buffer.release();
+    }
+
+    @DataProvider
+    public Object[][] getLazyValues() {
+        return new Object[][]{
+            {new Variant(true)},
+            {new Variant(42)},
+            {new Variant(3.14d)},
+            {new Variant(uint(42))},
+            {new Variant("hello, world")},
+            {new Variant(new String[]{"hello", null, "world"})},
+            {new Variant(DateTime.now())},
+            {new Variant(UUID.randomUUID())},
+            {new Variant(ByteString.of(new byte[]{1, 2, 3}))},
+            {new Variant(new XmlElement("<a>b</a>"))},
+            {new Variant(new NodeId(0, 42))},
+            {new Variant(new NodeId(1, 42))},
+            {new Variant(new NodeId(2, 100000))},
+            {new Variant(new NodeId(2, "foo"))},
+            {new Variant(new NodeId(2, UUID.randomUUID()))},
+            {new Variant(new NodeId(2, ByteString.of(new byte[]{1, 2, 3})))},
+            {new Variant(new ExpandedNodeId(ushort(2), "foo", "urn:foo", 1L))},
+            {new Variant(StatusCode.BAD)},
+            {new Variant(new QualifiedName(2, "foo"))},
+            {new Variant(LocalizedText.english("foo"))},
+            {new Variant(ExtensionObject.encode(new Range(0.0d, 100.0d)))},
+            {new Variant(new Double[]{1.0d, 2.0d, 3.0d})},
+            {new Variant(new Integer[][]{{0, 1}, {2, 3}})},
+            {new Variant(new Variant[]{new Variant(0), new Variant("foo")})}
+        };
+    }
+
     @DataProvider
     public Object[][] getValues() {
         return new Object[][]{
@@ -13,14 +13,26 @@
 
 package org.eclipse.milo.opcua.stack.core.serialization.binary;
 
+import org.eclipse.milo.opcua.stack.core.serialization.UaStructure;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
 import org.eclipse.milo.opcua.stack.core.types.builtin.XmlElement;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventFieldList;
+import org.eclipse.milo.opcua.stack.core.types.structured.EventNotificationList;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemNotification;
+import org.eclipse.milo.opcua.stack.core.types.structured.Range;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class ExtensionObjectSerializationTest extends BinarySerializationFixture {
 
@@ -40,4 +52,81 @@ public class ExtensionObjectSerializationTest extends BinarySerializationFixture
         assertEquals(decoded, xo);
     }
 
+    @DataProvider
+    public Object[][] getStructures() {
+        MonitoredItemNotification[] monitoredItems = new MonitoredItemNotification[]{
+            new MonitoredItemNotification(uint(1), new DataValue(new Variant(42))),
+            new MonitoredItemNotification(uint(2), new DataValue(new Variant("hello"))),
+            new MonitoredItemNotification(uint(3), new DataValue(new Variant(new Range(0.0, 100.0))))
+        };
+
+        EventFieldList[] events = new EventFieldList[]{
+            new EventFieldList(uint(1), new Variant[]{
+                new Variant(LocalizedText.english("event")),
+                new Variant(new NodeId(2, "source"))
+            })
+        };
+
+        return new Object[][]{
+            {new Range(-1.0, 1.0)},
+            {new DataChangeNotification(monitoredItems, null)},
+            {new EventNotificationList(events)}
+        };
+    }
+
+    @Test(dataProvider = "getStructures", description = "Deferred ExtensionObject encodes the same as an eager one.")
+    public void testDeferredEncodingMatchesEager(UaStructure structure) throws Exception {
+        writer.writeExtensionObject(ExtensionObject.encode(structure));
+        byte[] eager = readableBytes();
+        buffer.clear();
+
+        ExtensionObject deferred = ExtensionObject.encodeDeferred(structure);
+        assertTrue(deferred.isEncodingDeferred());
+
+        writer.writeExtensionObject(deferred);
+        byte[] streamed = readableBytes();
+
+        assertEquals(streamed, eager);
+
+        ExtensionObject decoded = reader.readExtensionObject();
+        assertEquals(decoded.decode().getClass(), structure.getClass());
+        assertEquals(decoded.getEncoded(), deferred.getEncoded());
+        assertFalse(deferred.isEncodingDeferred());
+    }
+
+    @Test(description = "A deferred ExtensionObject is encoded into a buffer that already has data in it.")
+    public void testDeferredEncodingAtOffset() throws Exception {
+        Range range = new Range(0.0, 10.0);
+
+        buffer.writeBytes(new byte[]{1, 2, 3});
+        writer.writeExtensionObject(ExtensionObject.encodeDeferred(range));
+        buffer.skipBytes(3);
+
+        ExtensionObject decoded = reader.readExtensionObject();
+        Range decodedRange = decoded.decode();
+
+        assertEquals(decodedRange.getLow(), range.getLow());
+        assertEquals(decodedRange.getHigh(), range.getHigh());
+        assertEquals(buffer.readableBytes(), 0);
+    }
+
+    @Test(description = "A Variant holding a structure is encoded the same as one holding an eager ExtensionObject.")
+    public void testVariantStructureEncoding() throws Exception {
+        Range range = new Range(0.0, 10.0);
+
+        writer.writeVariant(new Variant(ExtensionObject.encode(range)));
+        byte[] eager = readableBytes();
+        buffer.clear();
+
+        writer.writeVariant(new Variant(range));
+
+        assertEquals(readableBytes(), eager);
+    }
+
+    private byte[] readableBytes() {
+        byte[] bs = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bs);
+        return bs;
+    }
+
 }
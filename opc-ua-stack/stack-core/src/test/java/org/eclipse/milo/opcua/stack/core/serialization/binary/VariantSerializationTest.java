@@ -16,6 +16,7 @@ package org.eclipse.milo.opcua.stack.core.serialization.binary;
 import java.nio.ByteOrder;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import org.eclipse.milo.opcua.stack.core.BuiltinDataType;
 import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
@@ -46,7 +47,13 @@ public class VariantSerializationTest extends BinarySerializationFixture {
             {new Variant(new Long[][]{{0L, 1L}, {2L, 3L}})},
             {new Variant(new UInteger[]{Unsigned.uint(0), Unsigned.uint(1), Unsigned.uint(2), Unsigned.uint(3)})},
             {new Variant(new UInteger[][]{{Unsigned.uint(0), Unsigned.uint(1)}, {Unsigned.uint(2), Unsigned.uint(3)}})},
-            {new Variant(new Variant[]{new Variant(0), new Variant(1), new Variant(2)})}
+            {new Variant(new Variant[]{new Variant(0), new Variant(1), new Variant(2)})},
+            {new Variant(new Boolean[]{true, false, true})},
+            {new Variant(new Byte[]{0, -1, 127, -128})},
+            {new Variant(new Short[]{0, -1, Short.MAX_VALUE, Short.MIN_VALUE})},
+            {new Variant(new Float[]{0.0f, -1.5f, Float.MAX_VALUE, Float.NaN})},
+            {new Variant(new Double[]{0.0d, -1.5d, Double.MAX_VALUE, Double.NaN})},
+            {new Variant(new Double[][]{{0.0d, 1.0d}, {2.0d, 3.0d}})}
         };
     }
 
@@ -86,7 +93,25 @@ public class VariantSerializationTest extends BinarySerializationFixture {
                 new Variant(new Long[]{0L, 1L, 2L, 3L})},
 
             {new Variant(new long[][]{{0L, 1L}, {2L, 3L}}),
-                new Variant(new Long[][]{{0L, 1L}, {2L, 3L}})}
+                new Variant(new Long[][]{{0L, 1L}, {2L, 3L}})},
+
+            {new Variant(new boolean[]{true, false, true}),
+                new Variant(new Boolean[]{true, false, true})},
+
+            {new Variant(new byte[]{0, -1, 127, -128}),
+                new Variant(new Byte[]{0, -1, 127, -128})},
+
+            {new Variant(new short[]{0, -1, Short.MAX_VALUE, Short.MIN_VALUE}),
+                new Variant(new Short[]{0, -1, Short.MAX_VALUE, Short.MIN_VALUE})},
+
+            {new Variant(new float[]{0.0f, -1.5f, Float.MAX_VALUE, Float.NaN}),
+                new Variant(new Float[]{0.0f, -1.5f, Float.MAX_VALUE, Float.NaN})},
+
+            {new Variant(new double[]{0.0d, -1.5d, Double.MAX_VALUE, Double.NaN}),
+                new Variant(new Double[]{0.0d, -1.5d, Double.MAX_VALUE, Double.NaN})},
+
+            {new Variant(new double[][]{{0.0d, 1.0d}, {2.0d, 3.0d}}),
+                new Variant(new Double[][]{{0.0d, 1.0d}, {2.0d, 3.0d}})}
         };
     }
 
@@ -99,6 +124,43 @@ public class VariantSerializationTest extends BinarySerializationFixture {
         assertEquals(decoded, expected);
     }
 
+    @Test(description = "Test that primitive arrays written in bulk encode the same as their boxed equivalents.")
+    public void testPrimitiveArrayEncodesSameAsBoxed() {
+        double[] primitive = new double[10000];
+        Double[] boxed = new Double[primitive.length];
+        for (int i = 0; i < primitive.length; i++) {
+            primitive[i] = i / 3.0d;
+            boxed[i] = primitive[i];
+        }
+
+        writer.writeVariant(new Variant(primitive));
+        ByteBuf primitiveBytes = buffer.copy();
+
+        buffer.clear();
+        writer.writeVariant(new Variant(boxed));
+
+        assertEquals(primitiveBytes, buffer);
+
+        assertEquals(reader.readVariant(), new Variant(boxed));
+    }
+
+    @Test(description = "Test that numeric arrays decode from a buffer that can't be accessed in bulk.")
+    public void testNumericArrayDecodeCompositeBuffer() {
+        writer.writeVariant(new Variant(new double[]{0.0d, 1.0d, 2.0d, 3.0d}));
+
+        int length = buffer.readableBytes();
+
+        CompositeByteBuf composite = Unpooled.compositeBuffer()
+            .addComponents(buffer.slice(0, 9), buffer.slice(9, length - 9));
+        composite.writerIndex(length);
+
+        ByteBuf compositeBuffer = composite.order(ByteOrder.LITTLE_ENDIAN);
+        Variant decoded = new OpcUaBinaryStreamDecoder(compositeBuffer).readVariant();
+
+        assertEquals(decoded, new Variant(new Double[]{0.0d, 1.0d, 2.0d, 3.0d}));
+        assertEquals(compositeBuffer.readableBytes(), 0);
+    }
+
     @Test(description = "Test that a Variant containing a null array encoded with a negative array size to indicate a null value decodes properly.")
     public void testNullArrayEncodedWithNegativeArraySize() {
         ByteBuf buffer = Unpooled.buffer().order(ByteOrder.LITTLE_ENDIAN);
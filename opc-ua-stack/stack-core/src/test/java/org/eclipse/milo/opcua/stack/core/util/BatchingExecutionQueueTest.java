@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BatchingExecutionQueueTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSubmittedInOrderPerProducer() throws InterruptedException {
+        final int producerCount = 4;
+        final int count = 100_000;
+
+        BatchingExecutionQueue queue = new BatchingExecutionQueue(executor);
+
+        int[] last = new int[producerCount];
+        boolean[] ordered = new boolean[]{true};
+        CountDownLatch latch = new CountDownLatch(producerCount * count);
+
+        for (int i = 0; i < producerCount; i++) last[i] = -1;
+
+        List<Thread> producers = new ArrayList<>();
+
+        for (int p = 0; p < producerCount; p++) {
+            final int producer = p;
+
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    final int value = i;
+
+                    queue.submit(() -> {
+                        // runnables never execute concurrently, so no synchronization is needed here
+                        if (value != last[producer] + 1) ordered[0] = false;
+                        last[producer] = value;
+                        latch.countDown();
+                    });
+                }
+            }));
+        }
+
+        producers.forEach(Thread::start);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(ordered[0], "runnables were executed out of order");
+        assertEquals(queue.getQueueDepth(), 0);
+        awaitExecutedCount(queue, producerCount * count);
+        assertTrue(queue.getHopCount() >= producerCount * count / BatchingExecutionQueue.DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    @Test
+    public void testBatchesPerHop() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(9);
+
+        BatchingExecutionQueue queue = new BatchingExecutionQueue(executor, 4);
+
+        queue.submit(() -> {
+            started.countDown();
+
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 9; i++) {
+            queue.submit(latch::countDown);
+        }
+
+        assertEquals(queue.getQueueDepth(), 9);
+        blocked.countDown();
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        awaitExecutedCount(queue, 10);
+        assertEquals(queue.getHopCount(), 3);
+        assertTrue(queue.getMaxHopLatencyNanos() <= queue.getTotalHopLatencyNanos());
+    }
+
+    @Test
+    public void testPauseAndResume() throws InterruptedException {
+        BatchingExecutionQueue queue = new BatchingExecutionQueue(executor);
+
+        queue.pause();
+
+        CountDownLatch latch = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            queue.submit(latch::countDown);
+        }
+
+        assertTrue(!latch.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(queue.getQueueDepth(), 3);
+
+        queue.resume();
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(queue.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void testThrowingRunnableDoesNotStopExecution() throws InterruptedException {
+        BatchingExecutionQueue queue = new BatchingExecutionQueue(executor);
+
+        CountDownLatch latch = new CountDownLatch(1);
+
+        queue.submit(() -> {
+            throw new RuntimeException("expected");
+        });
+        queue.submit(latch::countDown);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * The executed count is updated once a batch completes, which may be just after its last runnable has run.
+     */
+    private static void awaitExecutedCount(BatchingExecutionQueue queue, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+
+        while (queue.getExecutedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(queue.getExecutedCount(), count);
+    }
+
+}
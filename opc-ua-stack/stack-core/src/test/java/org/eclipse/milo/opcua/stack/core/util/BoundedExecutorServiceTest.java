@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BoundedExecutorServiceTest {
+
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        BoundedExecutorService executor = BoundedExecutorService.newFixedThreadPool("test-", 1, 2);
+
+        try {
+            CountDownLatch blocked = new CountDownLatch(1);
+
+            executor.execute(() -> awaitUninterruptibly(blocked));
+            executor.execute(() -> awaitUninterruptibly(blocked));
+            assertEquals(executor.getOutstandingTaskCount(), 2);
+
+            try {
+                executor.execute(() -> {});
+                fail("expected RejectedExecutionException");
+            } catch (RejectedExecutionException expected) {
+                assertEquals(executor.getRejectedTaskCount(), 1L);
+            }
+
+            blocked.countDown();
+
+            // capacity frees up once the outstanding tasks complete
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (executor.getOutstandingTaskCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {}, executor);
+            future.get(2, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWorkStealingPool() throws Exception {
+        BoundedExecutorService executor = BoundedExecutorService.newWorkStealingPool("test-fj-", 2, 100);
+
+        try {
+            String threadName = CompletableFuture
+                .supplyAsync(() -> Thread.currentThread().getName(), executor)
+                .get(2, TimeUnit.SECONDS);
+
+            assertTrue(threadName.startsWith("test-fj-"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVirtualThreadPool() throws Exception {
+        // falls back to a work-stealing pool on JDKs without virtual threads
+        BoundedExecutorService executor = BoundedExecutorService.newVirtualThreadPool("test-vt-", 100);
+
+        try {
+            CompletableFuture.runAsync(() -> {}, executor).get(2, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBatchingExecutionQueueRunsOnCallerWhenSaturated() throws Exception {
+        BoundedExecutorService executor = BoundedExecutorService.newFixedThreadPool("test-", 1, 1);
+
+        try {
+            CountDownLatch blocked = new CountDownLatch(1);
+            executor.execute(() -> awaitUninterruptibly(blocked));
+
+            BatchingExecutionQueue queue = new BatchingExecutionQueue(executor);
+
+            Thread[] executedOn = new Thread[1];
+            queue.submit(() -> executedOn[0] = Thread.currentThread());
+
+            assertEquals(executedOn[0], Thread.currentThread());
+            assertEquals(queue.getRejectedCount(), 1L);
+
+            blocked.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+}
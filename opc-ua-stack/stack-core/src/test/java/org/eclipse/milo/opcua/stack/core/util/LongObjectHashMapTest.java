@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018 Kevin Herron
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ *   http://www.eclipse.org/org/documents/edl-v10.html.
+ */
+
+package org.eclipse.milo.opcua.stack.core.util;
+
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.Maps;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(0xFFFFFFFFL, "b"));
+        assertEquals(map.put(1L, "c"), "a");
+
+        assertEquals(map.size(), 2);
+        assertEquals(map.get(1L), "c");
+        assertEquals(map.get(0xFFFFFFFFL), "b");
+        assertNull(map.get(2L));
+
+        assertEquals(map.remove(1L), "c");
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(map.size(), 1);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0xFFFFFFFFL));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "a");
+
+        LongObjectHashMap<String> copy = new LongObjectHashMap<>(map);
+        copy.put(2L, "b");
+        map.remove(1L);
+
+        assertEquals(copy.get(1L), "a");
+        assertEquals(copy.size(), 2);
+        assertNull(map.get(2L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testAgreesWithHashMap() {
+        // enough operations on a small key space to exercise resizing and removal within probe runs
+        Random random = new Random(0);
+        Map<Long, Long> expected = Maps.newHashMap();
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(2000);
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(map.remove(key), expected.remove(key));
+            } else {
+                assertEquals(map.put(key, (long) i), expected.put(key, (long) i));
+            }
+        }
+
+        assertEquals(map.size(), expected.size());
+
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(map.get(key), expected.get(key));
+        }
+
+        assertEquals(map.values().size(), expected.size());
+        assertTrue(map.values().containsAll(expected.values()));
+    }
+
+}
@@ -24,6 +24,7 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.structured.ApplicationDescription;
 import org.eclipse.milo.opcua.stack.core.types.structured.SignedSoftwareCertificate;
 import org.eclipse.milo.opcua.stack.core.types.structured.UserTokenPolicy;
+import org.eclipse.milo.opcua.stack.core.util.BoundedExecutorService;
 
 public interface UaTcpStackServerConfig {
 
@@ -75,6 +76,10 @@ public interface UaTcpStackServerConfig {
      */
     CertificateValidator getCertificateValidator();
 
+    /**
+     * @return the {@link ExecutorService} the server will use. A {@link BoundedExecutorService} limits how many
+     * threads a burst of requests can occupy; requests it rejects are answered with {@code Bad_ResourceUnavailable}.
+     */
     ExecutorService getExecutor();
 
     /**
@@ -131,7 +131,9 @@ public class UaTcpServerHelloHandler extends ByteToMessageDecoder implements Hea
             server.getConfig().getExecutor(),
             parameters,
             maxArrayLength,
-            maxStringLength
+            maxStringLength,
+            config.isPooledSerialization(),
+            config.isLazyDataValues()
         );
 
         ctx.pipeline().addLast(new UaTcpServerAsymmetricHandler(server, serializationQueue));
@@ -17,6 +17,8 @@ import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.Nullable;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
@@ -39,6 +41,7 @@ import org.eclipse.milo.opcua.stack.core.channel.ServerSecureChannel;
 import org.eclipse.milo.opcua.stack.core.channel.headers.HeaderDecoder;
 import org.eclipse.milo.opcua.stack.core.channel.messages.ErrorMessage;
 import org.eclipse.milo.opcua.stack.core.channel.messages.MessageType;
+import org.eclipse.milo.opcua.stack.core.serialization.OpcUaBinaryStreamDecoder;
 import org.eclipse.milo.opcua.stack.core.serialization.UaRequestMessage;
 import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
@@ -271,40 +274,111 @@ public class UaTcpServerSymmetricHandler extends ByteToMessageCodec<ServiceRespo
 
                         @Override
                         public void onMessageDecoded(ByteBuf message, long requestId) {
-                            server.getExecutorService().execute(() -> {
+                            if (serializationQueue.isPooled()) {
+                                // the pooled decoder can't be used outside the decoding queue.
+                                UaRequestMessage request = readRequest(binaryDecoder, message, requestId);
+
+                                if (request != null) {
+                                    try {
+                                        server.getExecutorService().execute(() -> receiveRequest(request, requestId));
+                                    } catch (RejectedExecutionException e) {
+                                        rejectRequest(request, requestId, e);
+                                    }
+                                }
+                            } else {
                                 try {
-                                    UaRequestMessage request = (UaRequestMessage) binaryDecoder
-                                        .setBuffer(message)
-                                        .readMessage(null);
-
-                                    server.receiveRequest(new ServiceRequest<>(
-                                        request,
-                                        requestId,
-                                        server,
-                                        secureChannel
-                                    ));
-                                } catch (Throwable t) {
-                                    logger.error("Error decoding UaRequestMessage", t);
-
-                                    StatusCode statusCode = UaExceptionStatus.extract(t)
-                                        .map(UaExceptionStatus::getStatusCode)
-                                        .orElse(StatusCode.BAD);
-
-                                    ServiceFault serviceFault = new ServiceFault(
-                                        new ResponseHeader(
-                                            DateTime.now(),
-                                            uint(0),
-                                            statusCode,
-                                            null, null, null
-                                        )
-                                    );
-
-                                    ctx.writeAndFlush(new ServiceResponse(null, requestId, serviceFault));
-                                } finally {
-                                    message.release();
-                                    buffersToDecode.clear();
+                                    server.getExecutorService().execute(() -> {
+                                        UaRequestMessage request = readRequest(binaryDecoder, message, requestId);
+
+                                        if (request != null) {
+                                            receiveRequest(request, requestId);
+                                        }
+                                    });
+                                } catch (RejectedExecutionException e) {
+                                    UaRequestMessage request = readRequest(binaryDecoder, message, requestId);
+
+                                    if (request != null) {
+                                        rejectRequest(request, requestId, e);
+                                    }
                                 }
-                            });
+                            }
+                        }
+
+                        @Nullable
+                        private UaRequestMessage readRequest(
+                            OpcUaBinaryStreamDecoder binaryDecoder,
+                            ByteBuf message,
+                            long requestId) {
+
+                            try {
+                                return (UaRequestMessage) binaryDecoder
+                                    .setBuffer(message)
+                                    .readMessage(null);
+                            } catch (Throwable t) {
+                                logger.error("Error decoding UaRequestMessage", t);
+
+                                sendDecodingFault(t, requestId);
+
+                                return null;
+                            } finally {
+                                message.release();
+                                buffersToDecode.clear();
+                            }
+                        }
+
+                        private void receiveRequest(UaRequestMessage request, long requestId) {
+                            try {
+                                server.receiveRequest(new ServiceRequest<>(
+                                    request,
+                                    requestId,
+                                    server,
+                                    secureChannel
+                                ));
+                            } catch (Throwable t) {
+                                logger.error("Error decoding UaRequestMessage", t);
+
+                                sendDecodingFault(t, requestId);
+                            }
+                        }
+
+                        /**
+                         * Answer a request the executor is too busy to accept with Bad_ResourceUnavailable.
+                         */
+                        private void rejectRequest(
+                            UaRequestMessage request,
+                            long requestId,
+                            RejectedExecutionException e) {
+
+                            logger.debug("Executor rejected {}: {}",
+                                request.getClass().getSimpleName(), e.getMessage());
+
+                            ServiceFault serviceFault = new ServiceFault(
+                                new ResponseHeader(
+                                    DateTime.now(),
+                                    request.getRequestHeader().getRequestHandle(),
+                                    new StatusCode(StatusCodes.Bad_ResourceUnavailable),
+                                    null, null, null
+                                )
+                            );
+
+                            ctx.writeAndFlush(new ServiceResponse(request, requestId, serviceFault));
+                        }
+
+                        private void sendDecodingFault(Throwable t, long requestId) {
+                            StatusCode statusCode = UaExceptionStatus.extract(t)
+                                .map(UaExceptionStatus::getStatusCode)
+                                .orElse(StatusCode.BAD);
+
+                            ServiceFault serviceFault = new ServiceFault(
+                                new ResponseHeader(
+                                    DateTime.now(),
+                                    uint(0),
+                                    statusCode,
+                                    null, null, null
+                                )
+                            );
+
+                            ctx.writeAndFlush(new ServiceResponse(null, requestId, serviceFault));
                         }
                     });
                 });
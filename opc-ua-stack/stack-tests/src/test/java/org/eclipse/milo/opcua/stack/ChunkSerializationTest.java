@@ -319,4 +319,85 @@ public class ChunkSerializationTest extends SecureChannelFixture {
         }
     }
 
+    @Test(dataProvider = "getSymmetricSecurityParameters")
+    public void testConsecutiveSymmetricMessages(SecurityPolicy securityPolicy,
+                                                 MessageSecurityMode messageSecurity) throws Exception {
+
+        logger.info(
+            "Consecutive symmetric chunk serialization, " +
+                "securityPolicy={}, messageSecurityMode={}",
+            securityPolicy, messageSecurity);
+
+        // the same encoder and decoder are used for every message so cached ciphers are reused,
+        // and new channels (with new keys) are generated part way through to simulate a token renewal.
+        ChunkEncoder encoder = new ChunkEncoder(defaultParameters);
+        ChunkDecoder decoder = new ChunkDecoder(defaultParameters);
+
+        LongSequence requestId = new LongSequence(1L, UInteger.MAX_VALUE);
+
+        int[] messageSizes = new int[]{128, 8196, 128, 100000, 128, 8196};
+
+        SecureChannel[] channels = generateChannels(securityPolicy, messageSecurity);
+
+        for (int m = 0; m < messageSizes.length; m++) {
+            int messageSize = messageSizes[m];
+
+            if (m == messageSizes.length / 2) {
+                channels = generateChannels(securityPolicy, messageSecurity);
+            }
+
+            ClientSecureChannel clientChannel = (ClientSecureChannel) channels[0];
+            ServerSecureChannel serverChannel = (ServerSecureChannel) channels[1];
+
+            byte[] messageBytes = new byte[messageSize];
+            for (int i = 0; i < messageBytes.length; i++) {
+                messageBytes[i] = (byte) i;
+            }
+
+            ByteBuf messageBuffer = BufferUtil.buffer().writeBytes(messageBytes);
+
+            List<ByteBuf> chunkBuffers = new ArrayList<>();
+
+            encoder.encodeSymmetric(
+                clientChannel,
+                requestId.getAndIncrement(),
+                messageBuffer,
+                MessageType.SecureMessage,
+                new ChunkEncoder.Callback() {
+                    @Override
+                    public void onEncodingError(UaException ex) {
+                        fail("onEncodingError", ex);
+                    }
+
+                    @Override
+                    public void onMessageEncoded(List<ByteBuf> messageChunks, long requestId) {
+                        chunkBuffers.addAll(messageChunks);
+                    }
+                }
+            );
+
+            decoder.decodeSymmetric(serverChannel, chunkBuffers, new ChunkDecoder.Callback() {
+                    @Override
+                    public void onDecodingError(UaException ex) {
+                        fail("onDecodingError", ex);
+                    }
+
+                    @Override
+                    public void onMessageAborted(MessageAbortedException ex) {
+                        fail("onMessageAborted", ex);
+                    }
+
+                    @Override
+                    public void onMessageDecoded(ByteBuf message, long requestId) {
+                        ReferenceCountUtil.releaseLater(messageBuffer);
+                        ReferenceCountUtil.releaseLater(message);
+
+                        messageBuffer.readerIndex(0);
+                        assertEquals(message, messageBuffer);
+                    }
+                }
+            );
+        }
+    }
+
 }